@@ -0,0 +1,50 @@
+package com.itransition.life.benchmark;
+
+import com.itransition.life.core.LifeGameController;
+
+import java.util.Random;
+
+/**
+ * Measures how many generations per second LifeGameController computes, cycle detection included.
+ * Random soups on a 64x64 field are run until their cycles are found, one after another.
+ * Field size and digest interval can be passed as arguments instead of the default ones.
+ */
+public class LifeGameControllerBenchmark {
+    private static final int DEFAULT_SIZE = 64;
+    private static final long SEED = 20120623L;
+    private static final int DENSITY_PERCENT = 30;
+    private static final long MEASUREMENT_TIME_NANOS = 5000000000L;
+
+    /**
+     * Entry point of the benchmark.
+     * @param args field size and digest interval, the default ones are used if there are no arguments.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        LifeGameController controller = new LifeGameController();
+        if (args.length > 1) {
+            controller.setDigestInterval(Integer.parseInt(args[1]));
+        }
+        Random random = new Random(SEED);
+        long generations = 0;
+        int games = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < MEASUREMENT_TIME_NANOS) {
+            controller.createNewGame(size, size);
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    controller.setState(x, y, random.nextInt(100) < DENSITY_PERCENT);
+                }
+            }
+            controller.startOrResumeGame();
+            while (controller.getCycleLength() == 0) {
+                Thread.yield();
+            }
+            generations += controller.getCurrentGeneration();
+            games++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%d games, %d generations, %.0f generations per second",
+                games, generations, generations / seconds));
+    }
+}
@@ -0,0 +1,86 @@
+package com.itransition.life.benchmark;
+
+import com.itransition.life.core.LifeGameController;
+import com.itransition.life.gui.RasterLifeFieldRenderer;
+import com.itransition.life.gui.ToroidalLifeFieldRenderer;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Measures how many frames per second the renderers paint off-screen while a soup evolves.
+ * A frame is a generation of the game, taking its snapshot, updating the renderer and painting it.
+ * Field size can be passed as an argument instead of the default one. The viewport renderer is
+ * measured both fitting the whole field and zoomed in. Its pyramid is updated on a background
+ * thread, which isn't measured, so its frames may lag behind the game.
+ */
+public class RasterLifeFieldRendererBenchmark {
+    private static final int DEFAULT_SIZE = 4096;
+    private static final int CANVAS_SIZE = 1024;
+    private static final double ZOOM = 8;
+    private static final long SEED = 20120623L;
+    private static final int DENSITY_PERCENT = 30;
+    private static final int WARMUP_FRAMES = 20;
+    private static final long MEASUREMENT_TIME_NANOS = 5000000000L;
+
+    /**
+     * Entry point of the benchmark.
+     * @param args field size, the default one is used if there are no arguments.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        LifeGameController controller = new LifeGameController();
+        controller.createNewGame(size, size);
+        Random random = new Random(SEED);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                controller.setState(x, y, random.nextInt(100) < DENSITY_PERCENT);
+            }
+        }
+        final RasterLifeFieldRenderer rasterRenderer = new RasterLifeFieldRenderer(controller);
+        measure("raster", controller, rasterRenderer, new Runnable() {
+            @Override
+            public void run() {
+                rasterRenderer.refresh();
+            }
+        });
+        Runnable repaint = new Runnable() {
+            @Override
+            public void run() {
+                // Viewport is computed by paint.
+            }
+        };
+        ToroidalLifeFieldRenderer viewportRenderer = new ToroidalLifeFieldRenderer(controller);
+        measure("viewport fitting the field", controller, viewportRenderer, repaint);
+        viewportRenderer.setZoom(ZOOM);
+        measure("viewport zoomed in " + ZOOM + " pixels per cell", controller, viewportRenderer, repaint);
+    }
+
+    private static void measure(String name, LifeGameController controller, JPanel renderer, Runnable refresh) {
+        renderer.setSize(CANVAS_SIZE, CANVAS_SIZE);
+        BufferedImage canvas = new BufferedImage(CANVAS_SIZE, CANVAS_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics g = canvas.getGraphics();
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            controller.nextGenerations(1);
+            refresh.run();
+            renderer.paint(g);
+        }
+        long paintTime = 0;
+        int frames = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < MEASUREMENT_TIME_NANOS) {
+            controller.nextGenerations(1);
+            long paintStart = System.nanoTime();
+            controller.getSnapshot();
+            refresh.run();
+            renderer.paint(g);
+            paintTime += System.nanoTime() - paintStart;
+            frames++;
+        }
+        g.dispose();
+        System.out.println(String.format("%s: %.1f ms per frame, %.0f frames per second of rendering",
+                name, paintTime / 1e6 / frames, frames / (paintTime / 1e9)));
+    }
+}
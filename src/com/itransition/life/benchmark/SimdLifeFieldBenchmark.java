@@ -0,0 +1,72 @@
+package com.itransition.life.benchmark;
+
+import com.itransition.life.core.ArrayLifeField;
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.DigestableToroidalLifeField;
+import com.itransition.life.core.MessageDigestStrategy;
+import com.itransition.life.core.SimdLifeField;
+
+import java.util.Random;
+
+/**
+ * Measures time of one generation of SimdLifeField compared to ArrayLifeField and BitLifeField
+ * on square random soups of 1k, 4k and 16k cells wide.
+ * BitLifeField computes its digest on demand only, so the other fields are measured with
+ * MessageDigestStrategy too, otherwise the time of incremental digest updates would be measured as well.
+ * The 16k field of ArrayLifeField needs about 1 GB of heap, run with -Xmx2g.
+ * Widths can be passed as arguments instead of the default ones.
+ */
+public class SimdLifeFieldBenchmark {
+    private static final int[] DEFAULT_WIDTHS = { 1024, 4096, 16384 };
+    private static final long SEED = 20120623L;
+    private static final int DENSITY_PERCENT = 30;
+    private static final long MEASUREMENT_TIME_NANOS = 3000000000L;
+    private static final int WARMUP_GENERATIONS = 3;
+
+    /**
+     * Entry point of the benchmark.
+     * @param args field widths, the default ones are used if there are no arguments.
+     */
+    public static void main(String[] args) {
+        int[] widths = DEFAULT_WIDTHS;
+        if (args.length > 0) {
+            widths = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                widths[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.println("width\tarray ms\tbit ms\tsimd ms\tsimd vs array\tsimd vs bit");
+        for (int width : widths) {
+            double arrayTime = measure(new ArrayLifeField(width, width, 1, new MessageDigestStrategy()));
+            double bitTime = measure(new BitLifeField(width, width));
+            double simdTime = measure(new SimdLifeField(width, width, new MessageDigestStrategy()));
+            System.out.println(String.format("%d\t%.3f\t%.3f\t%.3f\t%.1fx\t%.1fx",
+                    width, arrayTime, bitTime, simdTime, arrayTime / simdTime, bitTime / simdTime));
+        }
+    }
+
+    /**
+     * Fill the field with a random soup and measure average time of a generation.
+     * @return milliseconds per generation.
+     */
+    private static double measure(DigestableToroidalLifeField field) {
+        Random random = new Random(SEED);
+        for (int y = 0; y < field.getHeight(); y++) {
+            for (int x = 0; x < field.getWidth(); x++) {
+                field.setState(x, y, random.nextInt(100) < DENSITY_PERCENT);
+            }
+        }
+        for (int i = 0; i < WARMUP_GENERATIONS; i++) {
+            field.nextGeneration();
+        }
+        int generations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            field.nextGeneration();
+            generations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASUREMENT_TIME_NANOS);
+        return elapsed / 1e6 / generations;
+    }
+}
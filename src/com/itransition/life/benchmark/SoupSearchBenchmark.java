@@ -0,0 +1,47 @@
+package com.itransition.life.benchmark;
+
+import com.itransition.life.core.LifeRule;
+import com.itransition.life.search.SequentialSeedGenerator;
+import com.itransition.life.search.SoupResult;
+import com.itransition.life.search.SoupResultListener;
+import com.itransition.life.search.SoupSearch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many random soups per second SoupSearch finishes with 1, 2, 4, ... threads
+ * up to the number of available processors.
+ * Field size and number of soups can be passed as arguments instead of the default ones.
+ */
+public class SoupSearchBenchmark {
+    private static final int DEFAULT_SIZE = 64;
+    private static final int DEFAULT_NUMBER_OF_SOUPS = 2000;
+    private static final double DENSITY = 0.3;
+
+    /**
+     * Entry point of the benchmark.
+     * @param args field size and number of soups, the default ones are used if there are no arguments.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        int numberOfSoups = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUMBER_OF_SOUPS;
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= processors; parallelism = parallelism < processors
+                ? Math.min(2 * parallelism, processors) : parallelism + 1) {
+            SoupSearch search = new SoupSearch(size, size, DENSITY, LifeRule.CONWAY, parallelism,
+                    SoupSearch.DEFAULT_MAXIMAL_NUMBER_OF_GENERATIONS);
+            final AtomicLong generations = new AtomicLong();
+            long start = System.nanoTime();
+            search.search(new SequentialSeedGenerator(0, numberOfSoups), new SoupResultListener() {
+                @Override
+                public void soupFinished(SoupResult result) {
+                    generations.addAndGet(result.getStabilizationGeneration() + result.getPeriod());
+                }
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            search.shutdown();
+            System.out.println(String.format("%d threads: %.0f soups per second, %d generations to stabilize",
+                    parallelism, numberOfSoups / seconds, generations.get()));
+        }
+    }
+}
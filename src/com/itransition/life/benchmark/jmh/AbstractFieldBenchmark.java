@@ -0,0 +1,65 @@
+package com.itransition.life.benchmark.jmh;
+
+import com.itransition.life.core.DigestKind;
+import com.itransition.life.core.DigestableToroidalLifeField;
+import com.itransition.life.core.LifeFieldEngine;
+import com.itransition.life.core.LifeRule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a generation and a digest of every engine on square fields of 64 to 16k cells wide.
+ * The field is filled once per trial and keeps evolving during the iterations like in a running
+ * game, so methuselahs are measured over their growth.
+ * The whole matrix takes hours, select the parameters with -p, e.g. -p engine=SIMD,BIT -p size=4096.
+ * Fields run Conway's rule parsed from its rulestring, which should be as fast as the built-in one.
+ * Other rules are compared with -p rule, e.g. -p rule=B3/S23,B36/S23 for HighLife.
+ * Large fields of ARRAY and MAP need a lot of heap, the forks are run with -Xmx4g. The forks add the
+ * jdk.incubator.vector module too, otherwise SIMD runs on its scalar loops.
+ * @see LifeBenchmarks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "--add-modules", "jdk.incubator.vector" })
+public abstract class AbstractFieldBenchmark {
+    @Param({ "SIMD", "BIT", "TILED", "COLUMN_SUM", "ARRAY", "MAP", "HASH" })
+    public LifeFieldEngine engine;
+    @Param({ "64", "256", "1024", "4096", "16384" })
+    public int size;
+    @Param({ "ZOBRIST", "SHA_256" })
+    public DigestKind digest;
+    @Param({ "B3/S23" })
+    public String rule;
+    protected DigestableToroidalLifeField field;
+
+    @Setup
+    public void createField() {
+        field = engine.createField(size, size, LifeRule.parse(rule), digest);
+        fill(field);
+    }
+
+    /**
+     * Put the workload into the empty field.
+     */
+    protected abstract void fill(DigestableToroidalLifeField field);
+
+    /**
+     * Step throughput, including incremental digest updates of the engines which make them.
+     */
+    @Benchmark
+    public void nextGeneration() {
+        field.nextGeneration();
+    }
+
+    /**
+     * Cost of reading the digest of the current generation.
+     */
+    @Benchmark
+    public byte[] getDigest() {
+        return field.getDigest();
+    }
+}
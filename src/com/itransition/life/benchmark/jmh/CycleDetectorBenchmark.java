@@ -0,0 +1,81 @@
+package com.itransition.life.benchmark.jmh;
+
+import com.itransition.life.core.DigestCycleDetector;
+import com.itransition.life.core.PartitionedCycleDetector;
+import com.itransition.life.core.StackCycleDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures addDigest of the cycle detectors after a history of digests without a cycle.
+ * Digests are distinct pseudo-random values like the digests of a field which hasn't reached its cycle.
+ * A new array is allocated for every digest, as the fields do, so the allocation rate reported by
+ * the GC profiler includes it.
+ * @see LifeBenchmarks
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CycleDetectorBenchmark {
+    @Param({ "STACK", "PARTITIONED" })
+    public Detector detector;
+    @Param({ "16", "32" })
+    public int digestLength;
+    @Param({ "0", "1000000" })
+    public int history;
+    private DigestCycleDetector cycleDetector;
+    private long step;
+
+    /**
+     * Detectors compared by the benchmark.
+     */
+    public enum Detector {
+        STACK {
+            @Override
+            DigestCycleDetector createDetector() {
+                return new StackCycleDetector();
+            }
+        },
+        PARTITIONED {
+            @Override
+            DigestCycleDetector createDetector() {
+                return new PartitionedCycleDetector();
+            }
+        };
+
+        abstract DigestCycleDetector createDetector();
+    }
+
+    @Setup(Level.Iteration)
+    public void createDetector() {
+        cycleDetector = detector.createDetector();
+        step = 0;
+        for (int i = 0; i < history; i++) {
+            cycleDetector.addDigest(nextDigest());
+        }
+    }
+
+    @Benchmark
+    public long addDigest() {
+        cycleDetector.addDigest(nextDigest());
+        return cycleDetector.getCycleLength();
+    }
+
+    /**
+     * Multiplication by an odd constant is a bijection, so the digests never repeat, and the xor-shift
+     * spreads them over the whole range.
+     */
+    private byte[] nextDigest() {
+        long value = ++step * 0x9e3779b97f4a7c15L;
+        value ^= value >>> 29;
+        byte[] digest = new byte[digestLength];
+        for (int i = 0; i < digestLength; i++) {
+            digest[i] = (byte) (value >>> ((i % (Long.SIZE / Byte.SIZE)) * Byte.SIZE));
+        }
+        return digest;
+    }
+}
@@ -0,0 +1,32 @@
+package com.itransition.life.benchmark.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of the package with the GC profiler, which reports the allocation rate
+ * of every benchmark. The benchmark classes should be processed by the JMH annotation processor,
+ * which is done when they are compiled with jmh-generator-annprocess on the classpath.
+ * Arguments are regular expressions of the benchmarks to run, e.g. "SoupBenchmark.nextGeneration".
+ * To select the parameters use the JMH command line instead: java -jar benchmarks.jar -prof gc -p size=1024.
+ */
+public class LifeBenchmarks {
+    /**
+     * Entry point of the benchmarks.
+     * @param args regular expressions of the benchmarks, all the benchmarks of the package by default.
+     * @throws RunnerException if a benchmark fails.
+     */
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class);
+        if (args.length == 0) {
+            options.include(LifeBenchmarks.class.getPackage().getName() + ".*");
+        }
+        for (String benchmark : args) {
+            options.include(benchmark);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,46 @@
+package com.itransition.life.benchmark.jmh;
+
+import com.itransition.life.core.DigestableToroidalLifeField;
+
+/**
+ * Well-known patterns used as workloads. R-pentomino and acorn are methuselahs which grow for
+ * a thousand and five thousand generations, Gosper gun emits a glider every 30 generations.
+ */
+public enum Pattern {
+    R_PENTOMINO(new int[][] {
+            { 1, 0 }, { 2, 0 }, { 0, 1 }, { 1, 1 }, { 1, 2 }
+    }),
+    ACORN(new int[][] {
+            { 1, 0 }, { 3, 1 }, { 0, 2 }, { 1, 2 }, { 4, 2 }, { 5, 2 }, { 6, 2 }
+    }),
+    GOSPER_GUN(new int[][] {
+            { 24, 0 }, { 22, 1 }, { 24, 1 }, { 12, 2 }, { 13, 2 }, { 20, 2 }, { 21, 2 }, { 34, 2 }, { 35, 2 },
+            { 11, 3 }, { 15, 3 }, { 20, 3 }, { 21, 3 }, { 34, 3 }, { 35, 3 }, { 0, 4 }, { 1, 4 }, { 10, 4 },
+            { 16, 4 }, { 20, 4 }, { 21, 4 }, { 0, 5 }, { 1, 5 }, { 10, 5 }, { 14, 5 }, { 16, 5 }, { 17, 5 },
+            { 22, 5 }, { 24, 5 }, { 10, 6 }, { 16, 6 }, { 24, 6 }, { 11, 7 }, { 15, 7 }, { 12, 8 }, { 13, 8 }
+    });
+
+    private final int[][] cells;
+
+    private Pattern(int[][] cells) {
+        this.cells = cells;
+    }
+
+    /**
+     * Put the pattern into the center of the field.
+     * @param field field which should be large enough for the pattern.
+     */
+    public void place(DigestableToroidalLifeField field) {
+        int patternWidth = 0;
+        int patternHeight = 0;
+        for (int[] cell : cells) {
+            patternWidth = Math.max(patternWidth, cell[0] + 1);
+            patternHeight = Math.max(patternHeight, cell[1] + 1);
+        }
+        int left = (field.getWidth() - patternWidth) / 2;
+        int top = (field.getHeight() - patternHeight) / 2;
+        for (int[] cell : cells) {
+            field.setState(left + cell[0], top + cell[1], true);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.itransition.life.benchmark.jmh;
+
+import com.itransition.life.core.DigestableToroidalLifeField;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Engines on well-known patterns in the center of an empty field.
+ * @see AbstractFieldBenchmark
+ * @see Pattern
+ */
+public class PatternBenchmark extends AbstractFieldBenchmark {
+    @Param({ "R_PENTOMINO", "ACORN", "GOSPER_GUN" })
+    public Pattern pattern;
+
+    @Override
+    protected void fill(DigestableToroidalLifeField field) {
+        pattern.place(field);
+    }
+}
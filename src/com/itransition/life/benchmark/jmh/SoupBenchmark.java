@@ -0,0 +1,28 @@
+package com.itransition.life.benchmark.jmh;
+
+import com.itransition.life.core.DigestableToroidalLifeField;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.Random;
+
+/**
+ * Engines on random soups of densities from 0.1% to 50%.
+ * @see AbstractFieldBenchmark
+ */
+public class SoupBenchmark extends AbstractFieldBenchmark {
+    private static final long SEED = 20120623L;
+    @Param({ "0.001", "0.01", "0.1", "0.5" })
+    public double density;
+
+    @Override
+    protected void fill(DigestableToroidalLifeField field) {
+        Random random = new Random(SEED);
+        for (int y = 0; y < field.getHeight(); y++) {
+            for (int x = 0; x < field.getWidth(); x++) {
+                if (random.nextDouble() < density) {
+                    field.setState(x, y, true);
+                }
+            }
+        }
+    }
+}
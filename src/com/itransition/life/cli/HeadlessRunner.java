@@ -0,0 +1,153 @@
+package com.itransition.life.cli;
+
+import com.itransition.life.core.*;
+import com.itransition.life.io.LifePattern;
+import com.itransition.life.io.PatternFormat;
+import com.itransition.life.search.SoupSearch;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Command-line runner which computes a pattern or a random soup until it ends in a cycle, without
+ * GUI or LifeGameController. The field is computed in the calling thread and nothing is logged per
+ * generation, so it can be run from cron on servers without a display.
+ * The cycle is detected by a PartitionedCycleDetector and the stabilization generation is found by
+ * replaying the initial state, both by CycleFinder. Soups are the same as the ones of SoupSearch.
+ * Exit status is 0 if the cycle has been found, 2 if the limit of generations has been reached
+ * and 1 on errors.
+ * @see RunnerOptions
+ */
+public class HeadlessRunner {
+    public static final int EXIT_STABILIZED = 0;
+    public static final int EXIT_ERROR = 1;
+    public static final int EXIT_NOT_STABILIZED = 2;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final RunnerOptions options;
+
+    public HeadlessRunner(RunnerOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Entry point of the runner.
+     * @param args options of the run.
+     * @see RunnerOptions#USAGE
+     */
+    public static void main(String[] args) {
+        RunnerOptions options;
+        try {
+            options = RunnerOptions.parse(args);
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(RunnerOptions.USAGE);
+            System.exit(EXIT_ERROR);
+            return;
+        }
+        try {
+            RunResult result = new HeadlessRunner(options).run();
+            printReport(options, result, System.out);
+            System.exit(result.isStabilized() ? EXIT_STABILIZED : EXIT_NOT_STABILIZED);
+        }
+        catch (IOException e) {
+            System.err.println("failed to read the pattern: " + e.getMessage());
+            System.exit(EXIT_ERROR);
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(EXIT_ERROR);
+        }
+    }
+
+    /**
+     * Run the field until the cycle is found or the limit of generations is reached.
+     * @return result of the run.
+     * @throws IOException if the pattern can't be read.
+     * @throws IllegalArgumentException if the pattern is malformed or doesn't fit into the field.
+     */
+    public RunResult run() throws IOException {
+        long start = System.nanoTime();
+        int width = options.getWidth();
+        int height = options.getHeight();
+        LifeRule rule = options.getRule();
+        long[] initialCells;
+        if (options.getPatternFile() != null) {
+            LifePattern pattern = PatternFormat.readFile(options.getPatternFile());
+            if (width == 0) {
+                width = Math.max(RunnerOptions.DEFAULT_SIZE, 2 * pattern.getWidth());
+                height = Math.max(RunnerOptions.DEFAULT_SIZE, 2 * pattern.getHeight());
+            }
+            if (rule == null) {
+                rule = pattern.getRule();
+            }
+            initialCells = pattern.toFieldState(width, height, (width - pattern.getWidth()) / 2,
+                    (height - pattern.getHeight()) / 2);
+        }
+        else {
+            if (width == 0) {
+                width = RunnerOptions.DEFAULT_SIZE;
+                height = RunnerOptions.DEFAULT_SIZE;
+            }
+            initialCells = SoupSearch.createSoupCells(width, height, options.getSeed(), options.getDensity());
+        }
+        if (rule == null) {
+            rule = LifeRule.CONWAY;
+        }
+        DigestableToroidalLifeField field = createField(width, height, rule, initialCells);
+        long loaded = System.nanoTime();
+        CycleFinder cycleFinder = new CycleFinder(field, new PartitionedCycleDetector(), options.getDigestInterval());
+        long period = cycleFinder.run(options.getMaximalNumberOfGenerations());
+        long generation = cycleFinder.getGeneration();
+        long searched = System.nanoTime();
+        if (period == 0) {
+            return new RunResult(width, height, generation, 0, 0, countAliveCells(field), loaded - start,
+                    searched - loaded, 0);
+        }
+        DigestableToroidalLifeField stabilizedField = createField(width, height, rule, initialCells);
+        DigestableToroidalLifeField shiftedField = createField(width, height, rule, initialCells);
+        long stabilizationGeneration = CycleFinder.findStabilizationGeneration(stabilizedField, shiftedField, period);
+        long finished = System.nanoTime();
+        return new RunResult(width, height, generation, period, stabilizationGeneration,
+                countAliveCells(stabilizedField), loaded - start, searched - loaded, finished - searched);
+    }
+
+    private DigestableToroidalLifeField createField(int width, int height, LifeRule rule, long[] cells) {
+        DigestableToroidalLifeField field = options.getEngine().createField(width, height, rule, DigestKind.ZOBRIST);
+        field.importState(cells);
+        return field;
+    }
+
+    private static long countAliveCells(DigestableToroidalLifeField field) {
+        long[] cells = new long[BitLifeField.getStateLength(field.getWidth(), field.getHeight())];
+        field.exportState(cells);
+        long aliveCells = 0;
+        for (long word : cells) {
+            aliveCells += Long.bitCount(word);
+        }
+        return aliveCells;
+    }
+
+    /**
+     * Print the result as lines of names and values.
+     */
+    static void printReport(RunnerOptions options, RunResult result, PrintStream out) {
+        out.println("source: " + (options.getPatternFile() != null ? options.getPatternFile().getPath()
+                : "soup of seed " + options.getSeed() + " and density " + options.getDensity()));
+        out.println("field: " + result.getWidth() + "x" + result.getHeight() + ", engine " + options.getEngine());
+        if (result.isStabilized()) {
+            out.println("period: " + result.getPeriod());
+            out.println("stabilization generation: " + result.getStabilizationGeneration());
+        }
+        else {
+            out.println("period: not found within " + options.getMaximalNumberOfGenerations() + " generations");
+        }
+        out.println("population: " + result.getPopulation());
+        out.println("generations computed: " + result.getGenerations());
+        out.println(String.format("load time: %.3f s", result.getLoadNanos() / NANOS_PER_SECOND));
+        out.println(String.format("search time: %.3f s", result.getSearchNanos() / NANOS_PER_SECOND));
+        out.println(String.format("stabilization time: %.3f s", result.getStabilizationNanos() / NANOS_PER_SECOND));
+        out.println(String.format("throughput: %.0f generations/s, %.3g cell updates/s",
+                result.getGenerationsPerSecond(), result.getCellUpdatesPerSecond()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.itransition.life.cli;
+
+/**
+ * Result of a headless run: the cycle the field has ended in and how long it took to find it.
+ * Instances are immutable.
+ */
+public final class RunResult {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final int width;
+    private final int height;
+    private final long generations;
+    private final long period;
+    private final long stabilizationGeneration;
+    private final long population;
+    private final long loadNanos;
+    private final long searchNanos;
+    private final long stabilizationNanos;
+
+    /**
+     * Create result of a run.
+     * @param generations number of generations computed until the cycle was found.
+     * @param period period of the final cycle or 0 if no cycle was found within the limit of generations.
+     * @param stabilizationGeneration first generation which is repeated periodically, 0 if no cycle was found.
+     * @param population number of alive cells in the stabilization generation or in the last one.
+     * @param loadNanos time of reading the pattern and filling the field.
+     * @param searchNanos time of computing the generations until the cycle was found.
+     * @param stabilizationNanos time of finding the stabilization generation.
+     */
+    public RunResult(int width, int height, long generations, long period, long stabilizationGeneration,
+                     long population, long loadNanos, long searchNanos, long stabilizationNanos) {
+        this.width = width;
+        this.height = height;
+        this.generations = generations;
+        this.period = period;
+        this.stabilizationGeneration = stabilizationGeneration;
+        this.population = population;
+        this.loadNanos = loadNanos;
+        this.searchNanos = searchNanos;
+        this.stabilizationNanos = stabilizationNanos;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getGenerations() {
+        return generations;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public long getStabilizationGeneration() {
+        return stabilizationGeneration;
+    }
+
+    public long getPopulation() {
+        return population;
+    }
+
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    public long getStabilizationNanos() {
+        return stabilizationNanos;
+    }
+
+    /**
+     * @return true if the cycle has been found.
+     */
+    public boolean isStabilized() {
+        return period > 0;
+    }
+
+    /**
+     * @return generations per second of the search for the cycle.
+     */
+    public double getGenerationsPerSecond() {
+        return searchNanos == 0 ? 0 : generations * NANOS_PER_SECOND / searchNanos;
+    }
+
+    /**
+     * @return cell updates per second of the search for the cycle.
+     */
+    public double getCellUpdatesPerSecond() {
+        return getGenerationsPerSecond() * width * height;
+    }
+}
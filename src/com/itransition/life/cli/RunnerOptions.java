@@ -0,0 +1,180 @@
+package com.itransition.life.cli;
+
+import com.itransition.life.core.LifeFieldEngine;
+import com.itransition.life.core.LifeRule;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Options of a headless run parsed from the command line. Every option is a name followed by its value.
+ * @see HeadlessRunner
+ */
+public final class RunnerOptions {
+    /**
+     * Usage text printed when the options can't be parsed.
+     */
+    public static final String USAGE = "usage: HeadlessRunner (--pattern <file> | --seed <number>) [options]\n"
+            + "  --pattern <file>           pattern to run, .rle, .lif, .life or .mc\n"
+            + "  --seed <number>            seed of a random soup\n"
+            + "  --density <fraction>       density of the soup, " + RunnerOptions.DEFAULT_DENSITY + " by default\n"
+            + "  --size <width>x<height>    size of the field, " + RunnerOptions.DEFAULT_SIZE + "x"
+            + RunnerOptions.DEFAULT_SIZE + " or twice the pattern by default\n"
+            + "  --engine <engine>          one of simd, bit, tiled, column_sum, array, map, hash; simd by default\n"
+            + "  --rule <rule>              rule in B/S notation, the rule of the pattern or B3/S23 by default\n"
+            + "  --max-generations <number> limit of generations, " + RunnerOptions.DEFAULT_MAXIMAL_NUMBER_OF_GENERATIONS
+            + " by default\n"
+            + "  --digest-interval <number> generations between the digests of the cycle detection, 1 by default\n";
+    public static final int DEFAULT_SIZE = 1024;
+    public static final double DEFAULT_DENSITY = 0.5;
+    public static final long DEFAULT_MAXIMAL_NUMBER_OF_GENERATIONS = 1000000;
+    private static final Log LOGGER = LogFactory.getLog(RunnerOptions.class);
+    private File patternFile = null;
+    private Long seed = null;
+    private double density = DEFAULT_DENSITY;
+    private int width = 0;
+    private int height = 0;
+    private LifeFieldEngine engine = LifeFieldEngine.SIMD;
+    private LifeRule rule = null;
+    private long maximalNumberOfGenerations = DEFAULT_MAXIMAL_NUMBER_OF_GENERATIONS;
+    private int digestInterval = 1;
+
+    private RunnerOptions() {
+    }
+
+    /**
+     * Parse the command line.
+     * @param args arguments of the command line.
+     * @return parsed options.
+     * @throws IllegalArgumentException if an option is unknown or has a wrong value, or if neither
+     * a pattern nor a seed is given.
+     */
+    public static RunnerOptions parse(String[] args) {
+        RunnerOptions options = new RunnerOptions();
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i];
+            if (i + 1 == args.length) {
+                throw createException("option " + name + " has no value");
+            }
+            String value = args[i + 1];
+            try {
+                options.setOption(name, value);
+            }
+            catch (NumberFormatException e) {
+                throw createException("wrong value '" + value + "' of option " + name);
+            }
+        }
+        if ((options.patternFile == null) == (options.seed == null)) {
+            throw createException("either a pattern or a seed should be given");
+        }
+        return options;
+    }
+
+    private void setOption(String name, String value) {
+        if (name.equals("--pattern")) {
+            patternFile = new File(value);
+        }
+        else if (name.equals("--seed")) {
+            seed = Long.parseLong(value);
+        }
+        else if (name.equals("--density")) {
+            density = Double.parseDouble(value);
+            if (density < 0 || density > 1) {
+                throw createException("density should be between 0 and 1");
+            }
+        }
+        else if (name.equals("--size")) {
+            String[] size = value.toLowerCase(Locale.ENGLISH).split("x");
+            if (size.length != 2) {
+                throw createException("size should be given as <width>x<height>");
+            }
+            width = Integer.parseInt(size[0]);
+            height = Integer.parseInt(size[1]);
+        }
+        else if (name.equals("--engine")) {
+            try {
+                engine = LifeFieldEngine.valueOf(value.toUpperCase(Locale.ENGLISH));
+            }
+            catch (IllegalArgumentException e) {
+                throw createException("unknown engine '" + value + "'");
+            }
+        }
+        else if (name.equals("--rule")) {
+            rule = LifeRule.parse(value);
+        }
+        else if (name.equals("--max-generations")) {
+            maximalNumberOfGenerations = Long.parseLong(value);
+            if (maximalNumberOfGenerations < 0) {
+                throw createException("limit of generations can't be negative");
+            }
+        }
+        else if (name.equals("--digest-interval")) {
+            digestInterval = Integer.parseInt(value);
+            if (digestInterval < 1) {
+                throw createException("digest interval should be positive");
+            }
+        }
+        else {
+            throw createException("unknown option " + name);
+        }
+    }
+
+    private static IllegalArgumentException createException(String reason) {
+        String errorMessage = "wrong command line! " + reason + ".";
+        LOGGER.error(errorMessage);
+        return new IllegalArgumentException(errorMessage);
+    }
+
+    /**
+     * @return file of the pattern or null if a random soup is run.
+     */
+    public File getPatternFile() {
+        return patternFile;
+    }
+
+    /**
+     * @return seed of the soup or null if a pattern is run.
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    public double getDensity() {
+        return density;
+    }
+
+    /**
+     * @return width of the field or 0 if it isn't given.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return height of the field or 0 if it isn't given.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public LifeFieldEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return rule to run or null if it isn't given.
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    public long getMaximalNumberOfGenerations() {
+        return maximalNumberOfGenerations;
+    }
+
+    public int getDigestInterval() {
+        return digestInterval;
+    }
+}
@@ -0,0 +1,44 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Base class of the life field engines. It computes nextGenerations(long) as a loop of
+ * nextGeneration() which stops as soon as the field can't change any more. Engines which can
+ * compute several generations in one step override nextGenerations(long).
+ */
+public abstract class AbstractLifeField implements DigestableToroidalLifeField {
+    private static final Log LOGGER = LogFactory.getLog(AbstractLifeField.class);
+
+    /**
+     * Check whether the next generation may differ from the current one.
+     * @return false if no cells are alive and the rule can't give birth to cells on an empty field.
+     */
+    protected abstract boolean canChange();
+
+    /**
+     * Generations are computed in a loop which stops as soon as the field can't change any more.
+     * @see com.itransition.life.core.DigestableToroidalLifeField#nextGenerations(long).
+     */
+    @Override
+    public void nextGenerations(long numberOfGenerations) {
+        checkNumberOfGenerations(numberOfGenerations);
+        for (long i = 0; i < numberOfGenerations && canChange(); i++) {
+            nextGeneration();
+        }
+    }
+
+    /**
+     * Check the argument of nextGenerations(long).
+     * @param numberOfGenerations number of generations to compute.
+     * @throws IllegalArgumentException if the number of generations is negative.
+     */
+    protected static void checkNumberOfGenerations(long numberOfGenerations) {
+        if (numberOfGenerations < 0) {
+            String errorMessage = "wrong number of generations! number of generations = " + numberOfGenerations + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+    }
+}
@@ -3,15 +3,17 @@ package com.itransition.life.core;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.Observable;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Life field implementation in which array is used to store the state.
  */
-public class ArrayLifeField implements DigestableToroidalLifeField {
+public class ArrayLifeField extends AbstractLifeField {
     /**
      * Minimal width of the field in cells.
      */
@@ -20,30 +22,32 @@ public class ArrayLifeField implements DigestableToroidalLifeField {
      * Minimal height of the field in cells.
      */
     public static final int MINIMAL_HEIGHT = 3;
-    private static final String HASHING_ALGORITHM = "SHA-256";
+    /**
+     * Minimal number of rows processed by one task in parallel mode.
+     */
+    public static final int MINIMAL_BAND_HEIGHT = 16;
+    private static final int BANDS_PER_THREAD = 4;
     private static final Log LOGGER = LogFactory.getLog(ArrayLifeField.class);
+    /**
+     * Pools are shared by all parallel fields of the same parallelism level, so creating many
+     * fields doesn't leak threads. Worker threads of a ForkJoinPool are daemons.
+     */
+    private static final ConcurrentMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<Integer, ForkJoinPool>();
     private static final byte ALIVE = 1;
     private static final byte DEAD = 0;
-    private static MessageDigest md;
+    private static final int STATE_SHIFT = 4;
     private final int width;
     private final int height;
-    private final byte[] field;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final DigestStrategy digestStrategy;
+    private final LifeRule rule;
+    private final byte[] nextStates;
+    private final int bandHeight;
+    private byte[] field;
+    private byte[] nextField;
     private int numberOfAliveCells;
 
-    static {
-        initializeStaticFields();
-    }
-
-    private static void initializeStaticFields() {
-        try {
-            md = MessageDigest.getInstance(HASHING_ALGORITHM);
-        }
-        catch (NoSuchAlgorithmException trouble) {
-            LOGGER.error("can't find hashing algorithm " + HASHING_ALGORITHM, trouble);
-            // Do nothing: algorithm should exist.
-        }
-    }
-
     /**
      * Create new life field of the specified size.
      * Size of the field is immutable, but state of the cells can be changed.
@@ -53,6 +57,48 @@ public class ArrayLifeField implements DigestableToroidalLifeField {
      * @throws IllegalAccessException if either width or height is too small.
      */
     public ArrayLifeField(int width, int height) {
+        this(width, height, 1);
+    }
+
+    /**
+     * Create new life field of the specified size which computes next generations in parallel.
+     * The torus is split into bands of rows, each band is computed by a separate task of a
+     * ForkJoinPool with the specified parallelism level, the pool is shared by all fields of the
+     * same parallelism level. The result is exactly the same as in
+     * sequential mode. Parallelism level 1 means sequential mode.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param parallelism number of threads used to compute next generations.
+     * @throws IllegalArgumentException if either width or height is too small or parallelism is not positive.
+     */
+    public ArrayLifeField(int width, int height, int parallelism) {
+        this(width, height, parallelism, new ZobristDigestStrategy());
+    }
+
+    /**
+     * Create new life field of the specified size which computes its digest with the specified strategy.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param parallelism number of threads used to compute next generations.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small or parallelism is not positive.
+     * @see #ArrayLifeField(int, int, int)
+     */
+    public ArrayLifeField(int width, int height, int parallelism, DigestStrategy digestStrategy) {
+        this(width, height, parallelism, LifeRule.CONWAY, digestStrategy);
+    }
+
+    /**
+     * Create new life field of the specified size which evolves by the specified rule.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param parallelism number of threads used to compute next generations.
+     * @param rule rule of the next generation.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small or parallelism is not positive.
+     * @see #ArrayLifeField(int, int, int)
+     */
+    public ArrayLifeField(int width, int height, int parallelism, LifeRule rule, DigestStrategy digestStrategy) {
         if (width < MINIMAL_WIDTH || height < MINIMAL_HEIGHT) {
             String errorMessage = "wrong field size! width = " + width + "   height = " + height
                     + ". minimal width is " + MINIMAL_WIDTH
@@ -60,10 +106,70 @@ public class ArrayLifeField implements DigestableToroidalLifeField {
             LOGGER.error(errorMessage);
             throw new IllegalArgumentException(errorMessage);
         }
+        if (parallelism < 1) {
+            String errorMessage = "wrong parallelism level! parallelism = " + parallelism + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
         this.width = width;
         this.height = height;
+        this.parallelism = parallelism;
+        this.digestStrategy = digestStrategy;
+        this.rule = rule;
+        this.nextStates = createNextStates(rule);
         this.field = new byte[width * height];
         this.numberOfAliveCells = 0;
+        if (parallelism > 1) {
+            this.pool = getPool(parallelism);
+            this.bandHeight = Math.max(MINIMAL_BAND_HEIGHT, height / (parallelism * BANDS_PER_THREAD));
+        }
+        else {
+            this.pool = null;
+            this.bandHeight = height;
+        }
+    }
+
+    private static ForkJoinPool getPool(int parallelism) {
+        ForkJoinPool pool = POOLS.get(parallelism);
+        if (pool == null) {
+            ForkJoinPool newPool = new ForkJoinPool(parallelism);
+            pool = POOLS.putIfAbsent(parallelism, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+            else {
+                newPool.shutdown();
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Next states are indexed by (state << STATE_SHIFT) | neighboursCount.
+     */
+    private static byte[] createNextStates(LifeRule rule) {
+        byte[] nextStates = new byte[2 << STATE_SHIFT];
+        for (int count = 0; count <= LifeRule.MAXIMAL_NEIGHBOURS_COUNT; count++) {
+            nextStates[(DEAD << STATE_SHIFT) | count] = rule.getNextState(false, count) ? ALIVE : DEAD;
+            nextStates[(ALIVE << STATE_SHIFT) | count] = rule.getNextState(true, count) ? ALIVE : DEAD;
+        }
+        return nextStates;
+    }
+
+    /**
+     * Get rule of the next generation.
+     * @return rule of the field.
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Get number of threads used to compute next generations.
+     * @return parallelism level, 1 for sequential mode.
+     */
+    public int getParallelism() {
+        return parallelism;
     }
 
     /**
@@ -71,7 +177,40 @@ public class ArrayLifeField implements DigestableToroidalLifeField {
      */
     @Override
     public byte[] getDigest() {
-        return md.digest(field);
+        return digestStrategy.getDigest(this);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        BitLifeField.packCells(field, width, height, cells);
+    }
+
+    /**
+     * Digest strategy is notified once per changed cell.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        int wordsPerRow = BitLifeField.getWordsPerRow(width);
+        numberOfAliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                long word = cells[y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD];
+                byte newState = (word & (1L << (x % BitLifeField.CELLS_PER_WORD))) != 0 ? ALIVE : DEAD;
+                int linearIndex = y * width + x;
+                if (field[linearIndex] != newState) {
+                    field[linearIndex] = newState;
+                    digestStrategy.cellChanged(x, y);
+                }
+                if (newState == ALIVE) {
+                    numberOfAliveCells++;
+                }
+            }
+        }
     }
 
     /**
@@ -99,17 +238,16 @@ public class ArrayLifeField implements DigestableToroidalLifeField {
         final byte NEW_STATE = state ? ALIVE : DEAD;
         int linearIndex = getLinearIndex(x, y);
         if (field[linearIndex] == NEW_STATE) {
-            LOGGER.info("cell (" + x + ";" + y + ") is already in the right state.");
             return;
         }
         field[linearIndex] = NEW_STATE;
+        digestStrategy.cellChanged(x, y);
         if (state) {
             numberOfAliveCells++;
         }
         else {
             numberOfAliveCells--;
         }
-        LOGGER.info("cell (" + x + ";" + y + ") has changed to new state. notified observers.");
     }
 
     /**
@@ -129,54 +267,108 @@ public class ArrayLifeField implements DigestableToroidalLifeField {
     }
 
 
+    /**
+     * @see AbstractLifeField#canChange().
+     */
+    @Override
+    protected boolean canChange() {
+        return getNumberOfAliveCells() > 0 || rule.hasBirthOnZero();
+    }
+
     /**
      * @see com.itransition.life.core.DigestableToroidalLifeField#nextGeneration().
      */
     @Override
     public void nextGeneration() {
-        if (getNumberOfAliveCells() == 0) {
-            LOGGER.info("tried to compute next generation but no cells are alive!");
+        if (!canChange()) {
+            LOGGER.debug("tried to compute next generation but no cells are alive!");
+            return;
+        }
+        if (pool != null) {
+            nextGenerationInParallel();
             return;
         }
         byte[] neighboursCount = getNeighboursCount();
         numberOfAliveCells = 0;
         for (int i = 0; i < neighboursCount.length; i++) {
-            field[i] = getNextState(field[i], neighboursCount[i]);
+            byte nextState = getNextState(field[i], neighboursCount[i]);
+            if (nextState != field[i]) {
+                digestStrategy.cellChanged(i % getWidth(), i / getWidth());
+            }
+            field[i] = nextState;
             if (isAlive(i)) {
                 numberOfAliveCells++;
             }
         }
-        LOGGER.info("next generation has been computed. observers were notified.");
     }
 
-    private byte getNextState(byte currentState, byte neighboursCount) {
-        switch (currentState) {
-            case ALIVE: {
-                return handleAliveCell(neighboursCount);
-            }
-            case DEAD: {
-                return handleDeadCell(neighboursCount);
-            }
+    private void nextGenerationInParallel() {
+        if (nextField == null) {
+            nextField = new byte[field.length];
         }
-        LOGGER.error("wrong state! current state = " + currentState);
-        return DEAD;
+        numberOfAliveCells = pool.invoke(new BandTask(0, getHeight()));
+        byte[] previousField = field;
+        field = nextField;
+        nextField = previousField;
     }
 
-    private byte handleAliveCell(int neighboursCount) {
-        if(neighboursCount < 2) {
-            return DEAD;
+    /**
+     * Computes next states of a band of rows. The rows above and below the band (wrapped
+     * around the torus) are read as halo rows, so bands can be computed independently.
+     */
+    private class BandTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int fromY;
+        private final int toY;
+
+        BandTask(int fromY, int toY) {
+            this.fromY = fromY;
+            this.toY = toY;
         }
-        if(neighboursCount == 2 || neighboursCount == 3) {
-            return ALIVE;
+
+        @Override
+        protected Integer compute() {
+            if (toY - fromY <= bandHeight) {
+                return computeBand(fromY, toY);
+            }
+            int middleY = (fromY + toY) >>> 1;
+            BandTask upperBand = new BandTask(fromY, middleY);
+            BandTask lowerBand = new BandTask(middleY, toY);
+            upperBand.fork();
+            int aliveCells = lowerBand.compute();
+            return aliveCells + upperBand.join();
         }
-        return DEAD;
     }
 
-    private byte handleDeadCell(int neighboursCount) {
-        if(neighboursCount == 3) {
-            return ALIVE;
+    private int computeBand(int fromY, int toY) {
+        DigestStrategy changes = digestStrategy.newPartial();
+        int aliveCells = 0;
+        for (int y = fromY; y < toY; y++) {
+            int above = (y == 0 ? height - 1 : y - 1) * width;
+            int current = y * width;
+            int below = (y == height - 1 ? 0 : y + 1) * width;
+            for (int x = 0; x < width; x++) {
+                int west = (x == 0 ? width - 1 : x - 1);
+                int east = (x == width - 1 ? 0 : x + 1);
+                byte neighboursCount = (byte) (field[above + west] + field[above + x] + field[above + east]
+                        + field[current + west] + field[current + east]
+                        + field[below + west] + field[below + x] + field[below + east]);
+                byte nextState = getNextState(field[current + x], neighboursCount);
+                if (nextState != field[current + x]) {
+                    changes.cellChanged(x, y);
+                }
+                nextField[current + x] = nextState;
+                aliveCells += nextState;
+            }
+        }
+        synchronized (digestStrategy) {
+            digestStrategy.merge(changes);
         }
-        return DEAD;
+        return aliveCells;
+    }
+
+    private byte getNextState(byte currentState, byte neighboursCount) {
+        return nextStates[(currentState << STATE_SHIFT) | neighboursCount];
     }
 
     private byte[] getNeighboursCount() {
@@ -0,0 +1,482 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Life field implementation in which every cell is stored as a single bit.
+ * Each row is packed into (width + 63) / 64 long words: cell (x;y) is the bit (x % 64)
+ * of the word (x / 64) of the row y. Bits beyond the width of the field are always zero.
+ * Next generation is computed for 64 cells at once with bitwise adders, the edges of the torus
+ * are wrapped by shifting the bits of the neighbouring words. Conway's rule has a hand-written
+ * kernel, other rules count the neighbours into four bit planes and match them against the rule.
+ */
+public class BitLifeField extends AbstractLifeField {
+    /**
+     * Minimal width of the field in cells.
+     */
+    public static final int MINIMAL_WIDTH = 3;
+    /**
+     * Minimal height of the field in cells.
+     */
+    public static final int MINIMAL_HEIGHT = 3;
+    /**
+     * Number of cells stored in one word.
+     */
+    public static final int CELLS_PER_WORD = 64;
+    private static final String HASHING_ALGORITHM = "SHA-256";
+    private static final Log LOGGER = LogFactory.getLog(BitLifeField.class);
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final int lastBit;
+    private final long lastWordMask;
+    private final LifeRule rule;
+    private long[] field;
+    private long[] nextField;
+    private MessageDigest md;
+    private ByteBuffer digestBuffer;
+    private int numberOfAliveCells;
+
+    /**
+     * Create new life field of the specified size.
+     * Size of the field is immutable, but state of the cells can be changed.
+     * Width should be at least MINIMAL_WIDTH and height should be at least MINIMAL_HEIGHT.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public BitLifeField(int width, int height) {
+        this(width, height, LifeRule.CONWAY);
+    }
+
+    /**
+     * Create new life field of the specified size which evolves by the specified rule.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param rule rule of the next generation.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public BitLifeField(int width, int height, LifeRule rule) {
+        if (width < MINIMAL_WIDTH || height < MINIMAL_HEIGHT) {
+            String errorMessage = "wrong field size! width = " + width + "   height = " + height
+                    + ". minimal width is " + MINIMAL_WIDTH
+                    + " and minimal height is " + MINIMAL_HEIGHT + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = getWordsPerRow(width);
+        this.lastBit = getLastBit(width);
+        this.lastWordMask = getLastWordMask(width);
+        this.rule = rule;
+        this.field = new long[wordsPerRow * height];
+        this.nextField = new long[wordsPerRow * height];
+        this.numberOfAliveCells = 0;
+    }
+
+    /**
+     * Every field has its own MessageDigest, so fields can be digested in different threads.
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getDigest().
+     */
+    @Override
+    public byte[] getDigest() {
+        if (md == null) {
+            md = createMessageDigest();
+        }
+        if (digestBuffer == null) {
+            digestBuffer = ByteBuffer.allocate(field.length * (Long.SIZE / Byte.SIZE));
+        }
+        digestBuffer.clear();
+        digestBuffer.asLongBuffer().put(field);
+        return md.digest(digestBuffer.array());
+    }
+
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(HASHING_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException trouble) {
+            String errorMessage = "can't find hashing algorithm " + HASHING_ALGORITHM;
+            LOGGER.error(errorMessage, trouble);
+            throw new IllegalStateException(errorMessage, trouble);
+        }
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        checkStateLength(width, height, cells);
+        System.arraycopy(field, 0, cells, 0, field.length);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        checkStateLength(width, height, cells);
+        numberOfAliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            int row = y * wordsPerRow;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = getImportedWord(cells, row, i, wordsPerRow, lastWordMask);
+                field[row + i] = word;
+                numberOfAliveCells += Long.bitCount(word);
+            }
+        }
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#isAlive(int, int).
+     */
+    @Override
+    public boolean isAlive(int x, int y) {
+        return (field[getWordIndex(x, y)] & getBitMask(x)) != 0;
+    }
+
+    /**
+     * Get rule of the next generation.
+     * @return rule of the field.
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Get number of cells that are still alive.
+     * @return number of alive cells.
+     */
+    public int getNumberOfAliveCells() {
+        return numberOfAliveCells;
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#setState(int, int, boolean).
+     */
+    @Override
+    public void setState(int x, int y, boolean state) {
+        int wordIndex = getWordIndex(x, y);
+        long bitMask = getBitMask(x);
+        boolean currentState = (field[wordIndex] & bitMask) != 0;
+        if (currentState == state) {
+            return;
+        }
+        if (state) {
+            field[wordIndex] |= bitMask;
+            numberOfAliveCells++;
+        }
+        else {
+            field[wordIndex] &= ~bitMask;
+            numberOfAliveCells--;
+        }
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getWidth().
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getHeight().
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @see AbstractLifeField#canChange().
+     */
+    @Override
+    protected boolean canChange() {
+        return getNumberOfAliveCells() > 0 || rule.hasBirthOnZero();
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#nextGeneration().
+     */
+    @Override
+    public void nextGeneration() {
+        if (!canChange()) {
+            LOGGER.debug("tried to compute next generation but no cells are alive!");
+            return;
+        }
+        int aliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            int above = (y == 0 ? height - 1 : y - 1) * wordsPerRow;
+            int current = y * wordsPerRow;
+            int below = (y == height - 1 ? 0 : y + 1) * wordsPerRow;
+            aliveCells += nextRow(field, above, current, below, nextField, current,
+                    wordsPerRow, lastBit, lastWordMask, rule);
+        }
+        long[] previousField = field;
+        field = nextField;
+        nextField = previousField;
+        numberOfAliveCells = aliveCells;
+    }
+
+    /**
+     * Compute the next state of one row of a bit-packed torus.
+     * @param cells words of the current generation.
+     * @param above index of the first word of the row above.
+     * @param current index of the first word of the row.
+     * @param below index of the first word of the row below.
+     * @param nextCells words to write the next generation to.
+     * @param target index of the first word of the row in nextCells.
+     * @param wordsPerRow number of words in a row.
+     * @param lastBit index of the last used bit in the last word of a row.
+     * @param lastWordMask mask of the used bits in the last word of a row.
+     * @param rule rule of the next generation.
+     * @return number of alive cells in the computed row.
+     */
+    static int nextRow(long[] cells, int above, int current, int below, long[] nextCells, int target,
+                       int wordsPerRow, int lastBit, long lastWordMask, LifeRule rule) {
+        if (!rule.isConway()) {
+            return nextRowByRule(cells, above, current, below, nextCells, target,
+                    wordsPerRow, lastBit, lastWordMask, rule);
+        }
+        int aliveCells = 0;
+        int last = wordsPerRow - 1;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long nextWord = nextWord(
+                    westWord(cells, above, i, last, lastBit, lastWordMask),
+                    cells[above + i],
+                    eastWord(cells, above, i, last, lastBit),
+                    westWord(cells, current, i, last, lastBit, lastWordMask),
+                    cells[current + i],
+                    eastWord(cells, current, i, last, lastBit),
+                    westWord(cells, below, i, last, lastBit, lastWordMask),
+                    cells[below + i],
+                    eastWord(cells, below, i, last, lastBit));
+            nextCells[target + i] = nextWord;
+            aliveCells += Long.bitCount(nextWord);
+        }
+        return aliveCells;
+    }
+
+    private static int nextRowByRule(long[] cells, int above, int current, int below, long[] nextCells, int target,
+                                     int wordsPerRow, int lastBit, long lastWordMask, LifeRule rule) {
+        int aliveCells = 0;
+        int last = wordsPerRow - 1;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long nextWord = nextWord(rule,
+                    westWord(cells, above, i, last, lastBit, lastWordMask),
+                    cells[above + i],
+                    eastWord(cells, above, i, last, lastBit),
+                    westWord(cells, current, i, last, lastBit, lastWordMask),
+                    cells[current + i],
+                    eastWord(cells, current, i, last, lastBit),
+                    westWord(cells, below, i, last, lastBit, lastWordMask),
+                    cells[below + i],
+                    eastWord(cells, below, i, last, lastBit));
+            if (i == last) {
+                nextWord &= lastWordMask;
+            }
+            nextCells[target + i] = nextWord;
+            aliveCells += Long.bitCount(nextWord);
+        }
+        return aliveCells;
+    }
+
+    /**
+     * Get the word in which every bit holds the state of the western neighbour of the corresponding cell.
+     */
+    static long westWord(long[] cells, int row, int i, int last, int lastBit, long lastWordMask) {
+        long carry;
+        if (i == 0) {
+            carry = (cells[row + last] >>> lastBit) & 1L;
+        }
+        else {
+            carry = cells[row + i - 1] >>> (CELLS_PER_WORD - 1);
+        }
+        long word = (cells[row + i] << 1) | carry;
+        if (i == last) {
+            word &= lastWordMask;
+        }
+        return word;
+    }
+
+    /**
+     * Get the word in which every bit holds the state of the eastern neighbour of the corresponding cell.
+     */
+    static long eastWord(long[] cells, int row, int i, int last, int lastBit) {
+        long carry;
+        if (i == last) {
+            carry = (cells[row] & 1L) << lastBit;
+        }
+        else {
+            carry = cells[row + i + 1] << (CELLS_PER_WORD - 1);
+        }
+        return (cells[row + i] >>> 1) | carry;
+    }
+
+    /**
+     * Apply Conway's rules to 64 cells at once.
+     * Neighbours are counted with bitwise full adders: rows above and below contribute up to 3 each,
+     * the current row contributes up to 2. A cell is alive in the next generation if it has 3 alive
+     * neighbours or if it is alive and has 2 alive neighbours.
+     * @return word with the next states of the cells of the word c.
+     */
+    static long nextWord(long aboveWest, long above, long aboveEast,
+                         long west, long c, long east,
+                         long belowWest, long below, long belowEast) {
+        long aboveXor = aboveWest ^ above;
+        long aboveOnes = aboveXor ^ aboveEast;
+        long aboveTwos = (aboveWest & above) | (aboveXor & aboveEast);
+        long belowXor = belowWest ^ below;
+        long belowOnes = belowXor ^ belowEast;
+        long belowTwos = (belowWest & below) | (belowXor & belowEast);
+        long middleOnes = west ^ east;
+        long middleTwos = west & east;
+
+        long onesXor = aboveOnes ^ belowOnes;
+        long ones = onesXor ^ middleOnes;
+        long onesCarry = (aboveOnes & belowOnes) | (onesXor & middleOnes);
+
+        long twosXor = aboveTwos ^ belowTwos;
+        long twosAnd = aboveTwos & belowTwos;
+        long carryXor = middleTwos ^ onesCarry;
+        long carryAnd = middleTwos & onesCarry;
+        long twos = twosXor ^ carryXor;
+        long fours = twosAnd | carryAnd | (twosXor & carryXor);
+
+        return twos & ~fours & (ones | c);
+    }
+
+    /**
+     * Apply an arbitrary rule to 64 cells at once.
+     * Neighbours are counted exactly (from 0 to 8) into four bit planes with bitwise full adders.
+     * Bits beyond the width of the field should be masked by the caller, they can be born under rules with B0.
+     * @return word with the next states of the cells of the word c.
+     */
+    static long nextWord(LifeRule rule,
+                         long aboveWest, long above, long aboveEast,
+                         long west, long c, long east,
+                         long belowWest, long below, long belowEast) {
+        long aboveXor = aboveWest ^ above;
+        long aboveOnes = aboveXor ^ aboveEast;
+        long aboveTwos = (aboveWest & above) | (aboveXor & aboveEast);
+        long belowXor = belowWest ^ below;
+        long belowOnes = belowXor ^ belowEast;
+        long belowTwos = (belowWest & below) | (belowXor & belowEast);
+        long middleOnes = west ^ east;
+        long middleTwos = west & east;
+
+        long onesXor = aboveOnes ^ belowOnes;
+        long ones = onesXor ^ middleOnes;
+        long onesCarry = (aboveOnes & belowOnes) | (onesXor & middleOnes);
+
+        long twosXor = aboveTwos ^ belowTwos;
+        long twosSum = twosXor ^ middleTwos;
+        long twosCarry = (aboveTwos & belowTwos) | (twosXor & middleTwos);
+        long twos = twosSum ^ onesCarry;
+        long sumCarry = twosSum & onesCarry;
+        long fours = twosCarry ^ sumCarry;
+        long eights = twosCarry & sumCarry;
+
+        return rule.nextWord(c, ones, twos, fours, eights);
+    }
+
+    /**
+     * Get number of words of the bit-packed state of a field.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @return number of words which exportState(long[]) fills.
+     * @see DigestableToroidalLifeField#exportState(long[])
+     */
+    public static int getStateLength(int width, int height) {
+        return getWordsPerRow(width) * height;
+    }
+
+    static void checkStateLength(int width, int height, long[] cells) {
+        long stateLength = (long) getWordsPerRow(width) * height;
+        if (cells.length < stateLength) {
+            String errorMessage = "wrong state length! length = " + cells.length
+                    + ". state of the field " + width + "x" + height + " takes " + stateLength + " words.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+    }
+
+    /**
+     * Export state of a field which has no bit-packed representation cell by cell.
+     */
+    static void exportCells(DigestableToroidalLifeField field, long[] cells) {
+        int width = field.getWidth();
+        int height = field.getHeight();
+        checkStateLength(width, height, cells);
+        int wordsPerRow = getWordsPerRow(width);
+        for (int y = 0; y < height; y++) {
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = 0;
+                int firstX = i * CELLS_PER_WORD;
+                int lastX = Math.min(width, firstX + CELLS_PER_WORD);
+                for (int x = firstX; x < lastX; x++) {
+                    if (field.isAlive(x, y)) {
+                        word |= getBitMask(x);
+                    }
+                }
+                cells[y * wordsPerRow + i] = word;
+            }
+        }
+    }
+
+    /**
+     * Export state of a field which keeps a byte per cell row by row, non-zero bytes are alive cells.
+     */
+    static void packCells(byte[] field, int width, int height, long[] cells) {
+        checkStateLength(width, height, cells);
+        int wordsPerRow = getWordsPerRow(width);
+        Arrays.fill(cells, 0, wordsPerRow * height, 0);
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int wordRow = y * wordsPerRow;
+            for (int x = 0; x < width; x++) {
+                if (field[row + x] != 0) {
+                    cells[wordRow + x / CELLS_PER_WORD] |= getBitMask(x);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a word of the imported state with the bits beyond the width cleared.
+     * @see DigestableToroidalLifeField#importState(long[])
+     */
+    static long getImportedWord(long[] cells, int row, int wordX, int wordsPerRow, long lastWordMask) {
+        long word = cells[row + wordX];
+        return wordX == wordsPerRow - 1 ? word & lastWordMask : word;
+    }
+
+    static int getWordsPerRow(int width) {
+        return (width + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+    }
+
+    static int getLastBit(int width) {
+        return (width - 1) % CELLS_PER_WORD;
+    }
+
+    static long getLastWordMask(int width) {
+        return -1L >>> (CELLS_PER_WORD - 1 - getLastBit(width));
+    }
+
+    private int getWordIndex(int x, int y) {
+        return y * wordsPerRow + x / CELLS_PER_WORD;
+    }
+
+    private static long getBitMask(int x) {
+        return 1L << (x % CELLS_PER_WORD);
+    }
+}
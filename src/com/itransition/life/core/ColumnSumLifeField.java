@@ -0,0 +1,262 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Life field implementation in which every cell is stored as a byte.
+ * Two pre-allocated buffers are swapped every generation. For every row the sums of the three
+ * vertically adjacent cells are computed for each column first, then a sliding sum of three such
+ * column sums gives the number of alive cells in the 3x3 block around each cell. Next state is
+ * looked up in a table compiled from the LifeRule by the cell's state and that sum. Column sums
+ * are padded with the wrapped edge columns, so the inner loops have no branches and allocate
+ * nothing.
+ */
+public class ColumnSumLifeField extends AbstractLifeField {
+    /**
+     * Minimal width of the field in cells.
+     */
+    public static final int MINIMAL_WIDTH = 3;
+    /**
+     * Minimal height of the field in cells.
+     */
+    public static final int MINIMAL_HEIGHT = 3;
+    private static final Log LOGGER = LogFactory.getLog(ColumnSumLifeField.class);
+    private static final byte ALIVE = 1;
+    private static final byte DEAD = 0;
+    private static final int STATE_SHIFT = 4;
+    private final int width;
+    private final int height;
+    private final DigestStrategy digestStrategy;
+    private final LifeRule rule;
+    private final byte[] nextStates;
+    private final byte[] columnSums;
+    private byte[] field;
+    private byte[] nextField;
+    private int numberOfAliveCells;
+
+    /**
+     * Rule table is indexed by (state << STATE_SHIFT) | sum, where sum is the number of alive cells
+     * in the 3x3 block including the cell itself.
+     */
+    private static byte[] createNextStates(LifeRule rule) {
+        byte[] nextStates = new byte[2 << STATE_SHIFT];
+        for (int count = 0; count <= LifeRule.MAXIMAL_NEIGHBOURS_COUNT; count++) {
+            nextStates[(DEAD << STATE_SHIFT) | count] = rule.getNextState(false, count) ? ALIVE : DEAD;
+            nextStates[(ALIVE << STATE_SHIFT) | (count + 1)] = rule.getNextState(true, count) ? ALIVE : DEAD;
+        }
+        return nextStates;
+    }
+
+    /**
+     * Create new life field of the specified size.
+     * Size of the field is immutable, but state of the cells can be changed.
+     * Width should be at least MINIMAL_WIDTH and height should be at least MINIMAL_HEIGHT.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public ColumnSumLifeField(int width, int height) {
+        this(width, height, new ZobristDigestStrategy());
+    }
+
+    /**
+     * Create new life field of the specified size which computes its digest with the specified strategy.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public ColumnSumLifeField(int width, int height, DigestStrategy digestStrategy) {
+        this(width, height, LifeRule.CONWAY, digestStrategy);
+    }
+
+    /**
+     * Create new life field of the specified size which evolves by the specified rule.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param rule rule of the next generation.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public ColumnSumLifeField(int width, int height, LifeRule rule, DigestStrategy digestStrategy) {
+        if (width < MINIMAL_WIDTH || height < MINIMAL_HEIGHT) {
+            String errorMessage = "wrong field size! width = " + width + "   height = " + height
+                    + ". minimal width is " + MINIMAL_WIDTH
+                    + " and minimal height is " + MINIMAL_HEIGHT + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.width = width;
+        this.height = height;
+        this.digestStrategy = digestStrategy;
+        this.rule = rule;
+        this.nextStates = createNextStates(rule);
+        this.columnSums = new byte[width + 2];
+        this.field = new byte[width * height];
+        this.nextField = new byte[width * height];
+        this.numberOfAliveCells = 0;
+    }
+
+    /**
+     * Get rule of the next generation.
+     * @return rule of the field.
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Get number of cells that are still alive.
+     * @return number of alive cells.
+     */
+    public int getNumberOfAliveCells() {
+        return numberOfAliveCells;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getDigest().
+     */
+    @Override
+    public byte[] getDigest() {
+        return digestStrategy.getDigest(this);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        BitLifeField.packCells(field, width, height, cells);
+    }
+
+    /**
+     * Digest strategy is notified once per changed cell.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        int wordsPerRow = BitLifeField.getWordsPerRow(width);
+        numberOfAliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                long word = cells[y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD];
+                byte newState = (word & (1L << (x % BitLifeField.CELLS_PER_WORD))) != 0 ? ALIVE : DEAD;
+                int linearIndex = y * width + x;
+                if (field[linearIndex] != newState) {
+                    field[linearIndex] = newState;
+                    digestStrategy.cellChanged(x, y);
+                }
+                if (newState == ALIVE) {
+                    numberOfAliveCells++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#isAlive(int, int).
+     */
+    @Override
+    public boolean isAlive(int x, int y) {
+        return field[y * width + x] == ALIVE;
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#setState(int, int, boolean).
+     */
+    @Override
+    public void setState(int x, int y, boolean state) {
+        final byte NEW_STATE = state ? ALIVE : DEAD;
+        int linearIndex = y * width + x;
+        if (field[linearIndex] == NEW_STATE) {
+            return;
+        }
+        field[linearIndex] = NEW_STATE;
+        numberOfAliveCells += state ? 1 : -1;
+        digestStrategy.cellChanged(x, y);
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getWidth().
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getHeight().
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @see AbstractLifeField#canChange().
+     */
+    @Override
+    protected boolean canChange() {
+        return getNumberOfAliveCells() > 0 || rule.hasBirthOnZero();
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#nextGeneration().
+     */
+    @Override
+    public void nextGeneration() {
+        if (!canChange()) {
+            LOGGER.debug("tried to compute next generation but no cells are alive!");
+            return;
+        }
+        int aliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            int above = (y == 0 ? height - 1 : y - 1) * width;
+            int current = y * width;
+            int below = (y == height - 1 ? 0 : y + 1) * width;
+            aliveCells += nextRow(above, current, below, y);
+        }
+        byte[] previousField = field;
+        field = nextField;
+        nextField = previousField;
+        numberOfAliveCells = aliveCells;
+    }
+
+    private int nextRow(int above, int current, int below, int y) {
+        final byte[] cells = field;
+        final byte[] nextCells = nextField;
+        final byte[] sums = columnSums;
+        final byte[] rules = nextStates;
+        for (int x = 0; x < width; x++) {
+            sums[x + 1] = (byte) (cells[above + x] + cells[current + x] + cells[below + x]);
+        }
+        sums[0] = sums[width];
+        sums[width + 1] = sums[1];
+        int blockSum = sums[0] + sums[1];
+        int aliveCells = 0;
+        int changes = 0;
+        for (int x = 0; x < width; x++) {
+            blockSum += sums[x + 2];
+            byte state = cells[current + x];
+            byte nextState = rules[(state << STATE_SHIFT) | blockSum];
+            nextCells[current + x] = nextState;
+            aliveCells += nextState;
+            changes |= state ^ nextState;
+            blockSum -= sums[x];
+        }
+        if (changes != 0) {
+            reportChangedCells(current, y);
+        }
+        return aliveCells;
+    }
+
+    private void reportChangedCells(int current, int y) {
+        for (int x = 0; x < width; x++) {
+            if (field[current + x] != nextField[current + x]) {
+                digestStrategy.cellChanged(x, y);
+            }
+        }
+    }
+}
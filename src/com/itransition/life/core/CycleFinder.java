@@ -0,0 +1,118 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Arrays;
+
+/**
+ * Runs a field until its digests repeat and finds the exact period and the stabilization generation
+ * of the cycle. Used by the batch runs which compute a field in the calling thread; the game runs
+ * its own batched loop and uses replayCycle() only.
+ * The stabilization generation is found by replaying the initial state: a copy of the field which
+ * is one period ahead is stepped together with a copy of the initial state until both are in the
+ * same state.
+ */
+public final class CycleFinder {
+    private static final Log LOGGER = LogFactory.getLog(CycleFinder.class);
+    private final DigestableToroidalLifeField field;
+    private final DigestCycleDetector cycleDetector;
+    private final int digestInterval;
+    private long generation;
+    private long period;
+
+    /**
+     * Create finder of the cycle of the field from its current state.
+     * @param field field to run, it's changed by run().
+     * @param cycleDetector empty cycle detector.
+     * @param digestInterval number of generations between two digests added to the detector, the
+     * period is found exactly anyway.
+     * @throws IllegalArgumentException if the digest interval is not positive.
+     */
+    public CycleFinder(DigestableToroidalLifeField field, DigestCycleDetector cycleDetector, int digestInterval) {
+        if (digestInterval < 1) {
+            String errorMessage = "wrong digest interval! digest interval = " + digestInterval
+                    + ". it should be positive.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.field = field;
+        this.cycleDetector = cycleDetector;
+        this.digestInterval = digestInterval;
+        cycleDetector.addDigest(field.getDigest());
+    }
+
+    /**
+     * Compute generations until the cycle is found or the limit of generations is reached. If the
+     * cycle is found the field is left in the cycle.
+     * @param maximalNumberOfGenerations limit of generations counted from the initial state.
+     * @return exact period or 0 if the cycle hasn't been found.
+     */
+    public long run(long maximalNumberOfGenerations) {
+        while (period == 0 && cycleDetector.getCycleLength() == 0 && generation < maximalNumberOfGenerations) {
+            field.nextGenerations(digestInterval);
+            generation += digestInterval;
+            cycleDetector.addDigest(field.getDigest());
+        }
+        if (period == 0 && cycleDetector.getCycleLength() > 0) {
+            period = cycleDetector.getCycleLength();
+            if (digestInterval > 1) {
+                period = replayCycle(field, period * digestInterval);
+                generation += period;
+            }
+        }
+        return period;
+    }
+
+    /**
+     * Get number of generations computed by run(), including the replay of the cycle.
+     * @return number of generations from the initial state.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Get the exact period found by run().
+     * @return period or 0 if the cycle hasn't been found.
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * Find the exact period by computing generations one by one until the field returns to the
+     * current state, which is known to be in the cycle, so the field ends in the same state.
+     * @param field field whose state is in the cycle.
+     * @param sampledPeriod period found by sampling the digests, the exact period divides it.
+     * @return exact period.
+     */
+    public static long replayCycle(DigestableToroidalLifeField field, long sampledPeriod) {
+        byte[] checkpoint = field.getDigest();
+        long length = 0;
+        do {
+            field.nextGeneration();
+            length++;
+        } while (length < sampledPeriod && !Arrays.equals(checkpoint, field.getDigest()));
+        return length;
+    }
+
+    /**
+     * Find the first generation which is in the cycle.
+     * @param stabilizedField field in the initial state, it's left at the stabilization generation.
+     * @param shiftedField another field in the initial state.
+     * @param period exact period of the cycle.
+     * @return stabilization generation.
+     */
+    public static long findStabilizationGeneration(DigestableToroidalLifeField stabilizedField,
+                                                   DigestableToroidalLifeField shiftedField, long period) {
+        shiftedField.nextGenerations(period);
+        long stabilizationGeneration = 0;
+        while (!Arrays.equals(stabilizedField.getDigest(), shiftedField.getDigest())) {
+            stabilizedField.nextGeneration();
+            shiftedField.nextGeneration();
+            stabilizationGeneration++;
+        }
+        return stabilizationGeneration;
+    }
+}
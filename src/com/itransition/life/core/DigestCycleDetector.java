@@ -17,4 +17,10 @@ public interface DigestCycleDetector {
      * @see java.security.MessageDigest.
      */
     public void addDigest(byte[] digest);
+
+    /**
+     * Get memory used to store the digests.
+     * @return number of bytes used by the detector, estimated if it can't be computed exactly.
+     */
+    public long getMemoryUsage();
 }
@@ -0,0 +1,26 @@
+package com.itransition.life.core;
+
+/**
+ * Digest strategies of the fields. Zobrist digest is updated with every changed cell and costs
+ * nothing to read, SHA-256 digest costs nothing to update and hashes the whole field when it's read.
+ * @see LifeFieldEngine
+ */
+public enum DigestKind {
+    ZOBRIST {
+        @Override
+        public DigestStrategy createStrategy() {
+            return new ZobristDigestStrategy();
+        }
+    },
+    SHA_256 {
+        @Override
+        public DigestStrategy createStrategy() {
+            return new MessageDigestStrategy();
+        }
+    };
+
+    /**
+     * @return new strategy, strategies shouldn't be shared by fields.
+     */
+    public abstract DigestStrategy createStrategy();
+}
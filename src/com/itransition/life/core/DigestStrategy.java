@@ -0,0 +1,48 @@
+package com.itransition.life.core;
+
+/**
+ * Strategy of computing digest of the life field's state.
+ * Fields notify the strategy about every cell that changes its state, so incremental strategies
+ * can update the digest in time proportional to the number of changes instead of the field's size.
+ * Equal states of the field should have equal digests.
+ * @see DigestableToroidalLifeField#getDigest()
+ */
+public interface DigestStrategy {
+    /**
+     * Notify the strategy that the cell (x;y) has changed its state.
+     * Coordinate limits:
+     * 0 <= x < width of the field
+     * 0 <= y < height of the field
+     */
+    public void cellChanged(int x, int y);
+
+    /**
+     * Notify the strategy that a run of up to 64 cells of a row has changed, the same as calling
+     * cellChanged(wordX * 64 + i, y) for every bit i set in changedCells. Bit-packed fields use it
+     * to report the changes of a whole word at once.
+     * @param wordX index of the 64-cell word in the row.
+     * @param y row of the cells.
+     * @param changedCells bit mask of the changed cells.
+     */
+    public void cellsChanged(int wordX, int y, long changedCells);
+
+    /**
+     * Create a strategy which collects changes of a part of the field, e.g. in a separate thread.
+     * Collected changes are applied with merge(DigestStrategy).
+     * @return strategy of the same kind without any changes.
+     */
+    public DigestStrategy newPartial();
+
+    /**
+     * Apply changes collected by a partial strategy.
+     * @param partial strategy created by newPartial() of this strategy.
+     */
+    public void merge(DigestStrategy partial);
+
+    /**
+     * Compute digest of the field's state.
+     * @param field field the strategy is notified about.
+     * @return digest of some fixed length (depending on the strategy).
+     */
+    public byte[] getDigest(DigestableToroidalLifeField field);
+}
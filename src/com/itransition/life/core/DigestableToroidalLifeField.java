@@ -42,6 +42,15 @@ public interface DigestableToroidalLifeField {
      */
     public void nextGeneration();
 
+    /**
+     * Transform to the state which is the specified number of generations later.
+     * The result is the same as of calling nextGeneration() that many times, but fields compute
+     * the generations in a tight loop or in larger steps if they can.
+     * @param numberOfGenerations number of generations to compute, 0 does nothing.
+     * @throws IllegalArgumentException if the number of generations is negative.
+     */
+    public void nextGenerations(long numberOfGenerations);
+
     /**
      * Compute digest according to the field's internal state. Fields with equal states should have
      * the same digest. Length of the digest depends on the digest algorithm used in computation.
@@ -49,4 +58,24 @@ public interface DigestableToroidalLifeField {
      * @return digest of some fixed length (depending on the algorithm).
      */
     public byte[] getDigest();
+
+    /**
+     * Copy state of the field into an array of bit-packed cells. Every row takes (width + 63) / 64
+     * long words, cell (x;y) is the bit (x % 64) of the word (x / 64) of the row y and the bits beyond
+     * the width are zero, which is the layout of BitLifeField.
+     * @param cells array of at least BitLifeField.getStateLength(width, height) words, the words after
+     * them aren't changed.
+     * @throws IllegalArgumentException if the array is too short.
+     */
+    public void exportState(long[] cells);
+
+    /**
+     * Replace state of the field with an array of bit-packed cells in the layout of exportState(long[]).
+     * The cells are loaded in bulk, so the field updates its digest and its own structures once per
+     * changed word or per changed cell, without the overhead of setState(int, int, boolean).
+     * Bits beyond the width are ignored.
+     * @param cells array of at least BitLifeField.getStateLength(width, height) words.
+     * @throws IllegalArgumentException if the array is too short.
+     */
+    public void importState(long[] cells);
 }
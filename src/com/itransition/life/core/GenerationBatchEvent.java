@@ -0,0 +1,29 @@
+package com.itransition.life.core;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of a batch of generations computed while the field was locked once.
+ * A batch lasts up to a few milliseconds, so the events are cheap enough to be recorded continuously.
+ * @see LifeGameController
+ */
+@Name("com.itransition.life.GenerationBatch")
+@Label("Generation Batch")
+@Category("Game of Life")
+@Description("Generations computed while the field was locked once")
+@StackTrace(false)
+final class GenerationBatchEvent extends Event {
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+    @Label("Alive Cells")
+    @Description("Alive cells of the last published snapshot")
+    long aliveCells;
+    @Label("First Generation")
+    long firstGeneration;
+    @Label("Generations")
+    long generations;
+    @Label("Cycle Length")
+    long cycleLength;
+}
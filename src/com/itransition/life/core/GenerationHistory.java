@@ -0,0 +1,362 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Arrays;
+
+/**
+ * Bounded history of the states of a field. Every recorded generation is stored as the set of cells
+ * which have changed since the previous recorded generation, every keyframeInterval-th generation is
+ * stored as the set of its alive cells instead, so any retained generation is reconstructed from the
+ * nearest keyframe before it.
+ * A set of cells is encoded as the gaps between the indices of consecutive cells written as varints,
+ * which takes a byte per cell for dense changes and two or three bytes per cell for sparse ones.
+ * Records are kept in a ring buffer of a fixed number of bytes: when a new record doesn't fit, the
+ * oldest keyframe is dropped together with the records which depend on it.
+ * @see HistoryLifeField
+ */
+public class GenerationHistory {
+    /**
+     * Default number of records between keyframes.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+    private static final Log LOGGER = LogFactory.getLog(GenerationHistory.class);
+    private static final int INITIAL_NUMBER_OF_RECORDS = 64;
+    private static final int INITIAL_ENCODING_SIZE = 1024;
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7f;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private final int width;
+    private final int height;
+    private final int keyframeInterval;
+    private final byte[] ring;
+    private final long[] previousCells;
+    private boolean previousCellsValid = false;
+    private byte[] encoding = new byte[INITIAL_ENCODING_SIZE];
+    private int encodingLength;
+    private long[] generations = new long[INITIAL_NUMBER_OF_RECORDS];
+    private int[] offsets = new int[INITIAL_NUMBER_OF_RECORDS];
+    private int[] lengths = new int[INITIAL_NUMBER_OF_RECORDS];
+    private boolean[] keyframes = new boolean[INITIAL_NUMBER_OF_RECORDS];
+    private int firstRecord = 0;
+    private int numberOfRecords = 0;
+    private int recordsSinceKeyframe = 0;
+    private long usedBytes = 0;
+
+    /**
+     * Create empty history.
+     * @param width width of the field.
+     * @param height height of the field.
+     * @param keyframeInterval number of records between keyframes, 1 makes every record a keyframe.
+     * @param capacity size of the ring buffer in bytes.
+     * @throws IllegalArgumentException if any parameter is not positive.
+     */
+    public GenerationHistory(int width, int height, int keyframeInterval, int capacity) {
+        if (width <= 0 || height <= 0 || keyframeInterval <= 0 || capacity <= 0) {
+            String errorMessage = "wrong parameters! width = " + width + "   height = " + height
+                    + "   keyframe interval = " + keyframeInterval + "   capacity = " + capacity
+                    + ". all should be positive.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.width = width;
+        this.height = height;
+        this.keyframeInterval = keyframeInterval;
+        this.ring = new byte[capacity];
+        this.previousCells = new long[BitLifeField.getStateLength(width, height)];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return number of retained generations.
+     */
+    public int getNumberOfGenerations() {
+        return numberOfRecords;
+    }
+
+    /**
+     * @return the oldest retained generation.
+     * @throws IllegalStateException if the history is empty.
+     */
+    public long getFirstGeneration() {
+        checkNotEmpty();
+        return generations[firstRecord];
+    }
+
+    /**
+     * @return the latest recorded generation.
+     * @throws IllegalStateException if the history is empty.
+     */
+    public long getLastGeneration() {
+        checkNotEmpty();
+        return generations[getRecord(numberOfRecords - 1)];
+    }
+
+    /**
+     * @return number of bytes of the ring buffer taken by the records.
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return true if the generation is retained.
+     */
+    public boolean contains(long generation) {
+        return findRecord(generation) >= 0;
+    }
+
+    /**
+     * Find the generation to rewind to: generations skipped while recording aren't retained.
+     * @return the latest retained generation not later than the specified one or -1 if there is none.
+     */
+    public long getRetainedGeneration(long generation) {
+        int index = findFloorRecord(generation);
+        return index < 0 ? -1 : generations[getRecord(index)];
+    }
+
+    /**
+     * Record the state of the field. Generations should be recorded in increasing order, though not
+     * necessarily one by one.
+     * @param generation generation of the state.
+     * @param cells bit-packed cells in the layout of DigestableToroidalLifeField#exportState(long[]).
+     * @throws IllegalArgumentException if the generation isn't later than the last recorded one.
+     */
+    public void record(long generation, long[] cells) {
+        if (numberOfRecords > 0 && generation <= getLastGeneration()) {
+            String errorMessage = "wrong generation! generation = " + generation + ". the last recorded generation is "
+                    + getLastGeneration() + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        boolean keyframe = !previousCellsValid || numberOfRecords == 0 || recordsSinceKeyframe + 1 >= keyframeInterval;
+        encode(cells, keyframe);
+        System.arraycopy(cells, 0, previousCells, 0, previousCells.length);
+        previousCellsValid = true;
+        while (usedBytes + encodingLength > ring.length && numberOfRecords > 0) {
+            dropOldestKeyframe();
+        }
+        if (numberOfRecords == 0 && !keyframe) {
+            // The keyframe the changes are based on has been dropped.
+            keyframe = true;
+            encode(cells, true);
+        }
+        if (encodingLength > ring.length) {
+            LOGGER.debug("generation " + generation + " takes " + encodingLength + " bytes which don't fit into "
+                    + ring.length + " bytes of history. the history is cleared.");
+            clearRecords();
+            return;
+        }
+        appendRecord(generation, keyframe);
+        recordsSinceKeyframe = keyframe ? 0 : recordsSinceKeyframe + 1;
+    }
+
+    /**
+     * Encode the alive cells for a keyframe or the cells changed since the previous record otherwise.
+     */
+    private void encode(long[] cells, boolean keyframe) {
+        encodingLength = 0;
+        long previousIndex = -1;
+        for (int i = 0; i < previousCells.length; i++) {
+            long changedCells = keyframe ? cells[i] : cells[i] ^ previousCells[i];
+            while (changedCells != 0) {
+                long index = (long) i * BitLifeField.CELLS_PER_WORD + Long.numberOfTrailingZeros(changedCells);
+                writeVarint(index - previousIndex - 1);
+                previousIndex = index;
+                changedCells &= changedCells - 1;
+            }
+        }
+    }
+
+    /**
+     * Reconstruct the retained generation: the nearest keyframe is decoded and the changes after it
+     * are applied.
+     * @param generation generation to reconstruct.
+     * @param cells array of at least BitLifeField.getStateLength(width, height) words.
+     * @throws IllegalArgumentException if the generation isn't retained.
+     */
+    public void reconstruct(long generation, long[] cells) {
+        int index = findRecord(generation);
+        if (index < 0) {
+            String errorMessage = "generation " + generation + " isn't retained in the history!";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        int keyframe = index;
+        while (!keyframes[getRecord(keyframe)]) {
+            keyframe--;
+        }
+        Arrays.fill(cells, 0, previousCells.length, 0);
+        for (int i = keyframe; i <= index; i++) {
+            applyRecord(getRecord(i), cells);
+        }
+    }
+
+    /**
+     * Forget the generations after the specified one, so that the history goes on from it.
+     * @param generation the last generation to keep, it should be retained.
+     * @throws IllegalArgumentException if the generation isn't retained.
+     */
+    public void truncate(long generation) {
+        reconstruct(generation, previousCells);
+        int index = findRecord(generation);
+        for (int i = index + 1; i < numberOfRecords; i++) {
+            usedBytes -= lengths[getRecord(i)];
+        }
+        numberOfRecords = index + 1;
+        recordsSinceKeyframe = 0;
+        while (!keyframes[getRecord(index - recordsSinceKeyframe)]) {
+            recordsSinceKeyframe++;
+        }
+    }
+
+    /**
+     * Forget all the generations. The next recorded generation is a keyframe.
+     */
+    public void clear() {
+        clearRecords();
+        previousCellsValid = false;
+    }
+
+    private void clearRecords() {
+        firstRecord = 0;
+        numberOfRecords = 0;
+        recordsSinceKeyframe = 0;
+        usedBytes = 0;
+    }
+
+    private void checkNotEmpty() {
+        if (numberOfRecords == 0) {
+            String errorMessage = "the history is empty!";
+            LOGGER.error(errorMessage);
+            throw new IllegalStateException(errorMessage);
+        }
+    }
+
+    private int getRecord(int index) {
+        return (firstRecord + index) % generations.length;
+    }
+
+    /**
+     * @return index of the record counted from the oldest one or -1 if there is no such record.
+     */
+    private int findRecord(long generation) {
+        int index = findFloorRecord(generation);
+        return index >= 0 && generations[getRecord(index)] == generation ? index : -1;
+    }
+
+    /**
+     * Generations of the records are increasing, so the record is found by binary search.
+     * @return index of the latest record not later than the generation or -1 if there is no such record.
+     */
+    private int findFloorRecord(long generation) {
+        int low = 0;
+        int high = numberOfRecords - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (generations[getRecord(middle)] <= generation) {
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Records before the next keyframe can't be decoded without the dropped one, so they are dropped too.
+     */
+    private void dropOldestKeyframe() {
+        do {
+            usedBytes -= lengths[firstRecord];
+            firstRecord = (firstRecord + 1) % generations.length;
+            numberOfRecords--;
+        } while (numberOfRecords > 0 && !keyframes[firstRecord]);
+        if (numberOfRecords == 0) {
+            firstRecord = 0;
+        }
+    }
+
+    private void appendRecord(long generation, boolean keyframe) {
+        if (numberOfRecords == generations.length) {
+            growRecords();
+        }
+        int offset = 0;
+        if (numberOfRecords > 0) {
+            int lastRecord = getRecord(numberOfRecords - 1);
+            offset = (offsets[lastRecord] + lengths[lastRecord]) % ring.length;
+        }
+        int record = getRecord(numberOfRecords);
+        generations[record] = generation;
+        offsets[record] = offset;
+        lengths[record] = encodingLength;
+        keyframes[record] = keyframe;
+        int firstPart = Math.min(encodingLength, ring.length - offset);
+        System.arraycopy(encoding, 0, ring, offset, firstPart);
+        System.arraycopy(encoding, firstPart, ring, 0, encodingLength - firstPart);
+        numberOfRecords++;
+        usedBytes += encodingLength;
+    }
+
+    private void growRecords() {
+        int capacity = 2 * generations.length;
+        long[] newGenerations = new long[capacity];
+        int[] newOffsets = new int[capacity];
+        int[] newLengths = new int[capacity];
+        boolean[] newKeyframes = new boolean[capacity];
+        for (int i = 0; i < numberOfRecords; i++) {
+            int record = getRecord(i);
+            newGenerations[i] = generations[record];
+            newOffsets[i] = offsets[record];
+            newLengths[i] = lengths[record];
+            newKeyframes[i] = keyframes[record];
+        }
+        generations = newGenerations;
+        offsets = newOffsets;
+        lengths = newLengths;
+        keyframes = newKeyframes;
+        firstRecord = 0;
+    }
+
+    /**
+     * Toggle the cells of the record.
+     */
+    private void applyRecord(int record, long[] cells) {
+        int position = offsets[record];
+        int end = position + lengths[record];
+        long index = -1;
+        while (position != end) {
+            long gap = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = ring[position % ring.length];
+                position++;
+                gap |= (long) (b & VARINT_PAYLOAD_MASK) << shift;
+                shift += VARINT_PAYLOAD_BITS;
+            } while ((b & VARINT_CONTINUATION) != 0);
+            index += gap + 1;
+            cells[(int) (index / BitLifeField.CELLS_PER_WORD)] ^= 1L << (index % BitLifeField.CELLS_PER_WORD);
+        }
+    }
+
+    private void writeVarint(long value) {
+        if (encodingLength + (Long.SIZE / VARINT_PAYLOAD_BITS + 1) > encoding.length) {
+            encoding = Arrays.copyOf(encoding, 2 * encoding.length);
+        }
+        while ((value & ~VARINT_PAYLOAD_MASK) != 0) {
+            encoding[encodingLength++] = (byte) ((value & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION);
+            value >>>= VARINT_PAYLOAD_BITS;
+        }
+        encoding[encodingLength++] = (byte) value;
+    }
+}
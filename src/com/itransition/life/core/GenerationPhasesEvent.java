@@ -0,0 +1,36 @@
+package com.itransition.life.core;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event with the time a batch of generations spent in every phase of a generation.
+ * Timing the phases takes a few calls of System.nanoTime() per generation, which is noticeable on
+ * small fields, so the event is disabled by default and should be enabled for detailed profiling.
+ * @see GenerationBatchEvent
+ */
+@Name("com.itransition.life.GenerationPhases")
+@Label("Generation Phases")
+@Category("Game of Life")
+@Description("Time a batch of generations spent computing generations, digests and cycle detection")
+@Enabled(false)
+@StackTrace(false)
+final class GenerationPhasesEvent extends Event {
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+    @Label("Generations")
+    long generations;
+    @Label("Next Generation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long nextGenerationNanos;
+    @Label("Digest Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long digestNanos;
+    @Label("Cycle Detection Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cycleDetectionNanos;
+    @Label("Detector Memory")
+    @DataAmount
+    long detectorMemoryUsage;
+}
@@ -0,0 +1,695 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Life field implementation based on Gosper's HashLife algorithm.
+ * The state is stored as a hash-consed quadtree: equal subtrees are represented by the same node,
+ * and the result of evolving the centre of every node is memoized in the node itself. This makes
+ * periodic and repetitive patterns cheap to advance by many generations at once.
+ * Width and height of the field should be powers of two. The torus is wrapped by tiling it
+ * into a twice larger square whose centre is evolved.
+ * Memoized nodes are kept within the configured memory budget: when the budget is exceeded all the
+ * nodes which are not a part of the current state are dropped along with their cached results.
+ * @see{http://en.wikipedia.org/wiki/Hashlife}
+ */
+public class HashLifeField extends AbstractLifeField {
+    /**
+     * Minimal width of the field in cells.
+     */
+    public static final int MINIMAL_WIDTH = 4;
+    /**
+     * Minimal height of the field in cells.
+     */
+    public static final int MINIMAL_HEIGHT = 4;
+    /**
+     * Default memory budget for the quadtree nodes in bytes.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+    /**
+     * Approximate memory used by one node including its slot in the hash table.
+     */
+    public static final int ESTIMATED_NODE_SIZE = 96;
+    private static final Log LOGGER = LogFactory.getLog(HashLifeField.class);
+    private static final int INITIAL_TABLE_CAPACITY = 1 << 10;
+    private static final Node DEAD_LEAF = new Node(0, 0x9e3779b97f4a7c15L, 0x632be59bd9b4e019L);
+    private static final Node ALIVE_LEAF = new Node(1, 0xc2b2ae3d27d4eb4fL, 0x165667b19e3779f9L);
+    private final int width;
+    private final int height;
+    private final int level;
+    private final int side;
+    private final long memoryBudget;
+    private final long maximalNumberOfNodes;
+    private final LifeRule rule;
+    private final List<Node> emptyNodes = new ArrayList<Node>();
+    private final List<Map<Node, Node>> torusJumps = new ArrayList<Map<Node, Node>>();
+    private Node[] table = new Node[INITIAL_TABLE_CAPACITY];
+    private int numberOfNodes = 0;
+    private long numberOfGarbageCollections = 0;
+    private long garbageCollectionThreshold;
+    private boolean budgetExceeded = false;
+    private Node root;
+
+    /**
+     * Quadtree node. Level 0 nodes are single cells, a node of level L is a square of 2^L cells
+     * made of four nodes of level L-1.
+     */
+    private static final class Node {
+        final Node nw;
+        final Node ne;
+        final Node sw;
+        final Node se;
+        final int level;
+        final long population;
+        final long hash;
+        final long checksum;
+        Node next;
+        Node result;
+        int resultStep = -1;
+        boolean marked;
+
+        Node(long population, long hash, long checksum) {
+            this.nw = null;
+            this.ne = null;
+            this.sw = null;
+            this.se = null;
+            this.level = 0;
+            this.population = population;
+            this.hash = hash;
+            this.checksum = checksum;
+        }
+
+        Node(Node nw, Node ne, Node sw, Node se, long hash, long checksum) {
+            this.nw = nw;
+            this.ne = ne;
+            this.sw = sw;
+            this.se = se;
+            this.level = nw.level + 1;
+            this.population = nw.population + ne.population + sw.population + se.population;
+            this.hash = hash;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Create new life field of the specified size with the default memory budget.
+     * @param width width of the field in cells, should be a power of two.
+     * @param height height of the field in cells, should be a power of two.
+     * @throws IllegalArgumentException if either width or height is too small or is not a power of two.
+     * @see #DEFAULT_MEMORY_BUDGET
+     */
+    public HashLifeField(int width, int height) {
+        this(width, height, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Create new life field of the specified size.
+     * Size of the field is immutable, but state of the cells can be changed.
+     * @param width width of the field in cells, should be a power of two.
+     * @param height height of the field in cells, should be a power of two.
+     * @param memoryBudget memory in bytes the memoized nodes may occupy before they are collected.
+     * @throws IllegalArgumentException if either width or height is too small or is not a power of two
+     * or if memory budget is not positive.
+     */
+    public HashLifeField(int width, int height, long memoryBudget) {
+        this(width, height, memoryBudget, LifeRule.CONWAY);
+    }
+
+    /**
+     * Create new life field of the specified size which evolves by the specified rule.
+     * Empty nodes are never evolved, so rules with B0 are not supported.
+     * @param width width of the field in cells, should be a power of two.
+     * @param height height of the field in cells, should be a power of two.
+     * @param memoryBudget memory in bytes the memoized nodes may occupy before they are collected.
+     * @param rule rule of the next generation.
+     * @throws IllegalArgumentException if either width or height is too small or is not a power of two,
+     * if memory budget is not positive or if the rule has B0.
+     */
+    public HashLifeField(int width, int height, long memoryBudget, LifeRule rule) {
+        if (width < MINIMAL_WIDTH || height < MINIMAL_HEIGHT
+                || Integer.bitCount(width) != 1 || Integer.bitCount(height) != 1) {
+            String errorMessage = "wrong field size! width = " + width + "   height = " + height
+                    + ". minimal width is " + MINIMAL_WIDTH
+                    + " and minimal height is " + MINIMAL_HEIGHT + ". both should be powers of two.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        if (memoryBudget <= 0) {
+            String errorMessage = "wrong memory budget! memory budget = " + memoryBudget + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        if (rule.hasBirthOnZero()) {
+            String errorMessage = "wrong rule! rule = " + rule + ". rules with B0 are not supported.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.width = width;
+        this.height = height;
+        this.side = Math.max(width, height);
+        this.level = Integer.numberOfTrailingZeros(side);
+        this.memoryBudget = memoryBudget;
+        this.maximalNumberOfNodes = memoryBudget / ESTIMATED_NODE_SIZE;
+        this.garbageCollectionThreshold = maximalNumberOfNodes;
+        this.rule = rule;
+        this.root = getEmptyNode(level);
+    }
+
+    /**
+     * Get rule of the next generation.
+     * @return rule of the field.
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Get memory budget of the memoized nodes.
+     * @return memory budget in bytes.
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Get number of the nodes currently kept in the hash table.
+     * @return number of nodes.
+     */
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * Get number of times the nodes were collected because the memory budget was exceeded.
+     * @return number of garbage collections.
+     */
+    public long getNumberOfGarbageCollections() {
+        return numberOfGarbageCollections;
+    }
+
+    /**
+     * Get number of cells that are still alive.
+     * @return number of alive cells.
+     */
+    public long getNumberOfAliveCells() {
+        return root.population / getNumberOfCopies();
+    }
+
+    /**
+     * Digest is made of the two 64-bit structural hashes of the quadtree,
+     * so it is computed in constant time.
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getDigest().
+     */
+    @Override
+    public byte[] getDigest() {
+        byte[] digest = new byte[2 * Long.SIZE / Byte.SIZE];
+        for (int i = 0; i < Long.SIZE / Byte.SIZE; i++) {
+            digest[i] = (byte) (root.hash >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+            digest[i + Long.SIZE / Byte.SIZE] = (byte) (root.checksum >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+        }
+        return digest;
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        BitLifeField.exportCells(this, cells);
+    }
+
+    /**
+     * The quadtree is built bottom-up from the cells, empty blocks of 64x64 cells and larger are
+     * replaced with the empty nodes without looking at their cells.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        root = buildNode(cells, BitLifeField.getWordsPerRow(width), level, 0, 0);
+        collectGarbageIfNeeded(root);
+    }
+
+    /**
+     * Build node of the quadtree whose top left cell is (x;y) of the torus copied over the side.
+     */
+    private Node buildNode(long[] cells, int wordsPerRow, int nodeLevel, int x, int y) {
+        if (nodeLevel == 0) {
+            int fieldX = x % width;
+            long word = cells[(y % height) * wordsPerRow + fieldX / BitLifeField.CELLS_PER_WORD];
+            return (word & (1L << (fieldX % BitLifeField.CELLS_PER_WORD))) != 0 ? ALIVE_LEAF : DEAD_LEAF;
+        }
+        int nodeSide = 1 << nodeLevel;
+        if (nodeSide >= BitLifeField.CELLS_PER_WORD && isEmptyBlock(cells, wordsPerRow, nodeSide, x, y)) {
+            return getEmptyNode(nodeLevel);
+        }
+        int half = nodeSide / 2;
+        return createNode(buildNode(cells, wordsPerRow, nodeLevel - 1, x, y),
+                buildNode(cells, wordsPerRow, nodeLevel - 1, x + half, y),
+                buildNode(cells, wordsPerRow, nodeLevel - 1, x, y + half),
+                buildNode(cells, wordsPerRow, nodeLevel - 1, x + half, y + half));
+    }
+
+    /**
+     * Blocks at least a word wide are aligned to the words, since the width is a power of two.
+     * Fields narrower than a word have a single word per row.
+     */
+    private boolean isEmptyBlock(long[] cells, int wordsPerRow, int blockSide, int x, int y) {
+        int firstWord = (x % width) / BitLifeField.CELLS_PER_WORD;
+        int numberOfWords = Math.max(1, Math.min(blockSide, width) / BitLifeField.CELLS_PER_WORD);
+        for (int blockY = y; blockY < y + blockSide; blockY++) {
+            int row = (blockY % height) * wordsPerRow;
+            for (int i = firstWord; i < firstWord + numberOfWords; i++) {
+                if (cells[row + i] != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#isAlive(int, int).
+     */
+    @Override
+    public boolean isAlive(int x, int y) {
+        return isAlive(root, x, y);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#setState(int, int, boolean).
+     */
+    @Override
+    public void setState(int x, int y, boolean state) {
+        if (isAlive(x, y) == state) {
+            return;
+        }
+        Node leaf = state ? ALIVE_LEAF : DEAD_LEAF;
+        for (int copyX = x; copyX < side; copyX += width) {
+            for (int copyY = y; copyY < side; copyY += height) {
+                root = setCell(root, copyX, copyY, leaf);
+            }
+        }
+        collectGarbageIfNeeded(root);
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getWidth().
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getHeight().
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @see AbstractLifeField#canChange().
+     */
+    @Override
+    protected boolean canChange() {
+        return root.population != 0;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#nextGeneration().
+     */
+    @Override
+    public void nextGeneration() {
+        advance(0);
+    }
+
+    /**
+     * The number of generations is decomposed into powers of two, each of them is a single advance().
+     * @see com.itransition.life.core.DigestableToroidalLifeField#nextGenerations(long).
+     */
+    @Override
+    public void nextGenerations(long numberOfGenerations) {
+        checkNumberOfGenerations(numberOfGenerations);
+        long remainingGenerations = numberOfGenerations;
+        while (remainingGenerations != 0 && canChange()) {
+            int log2Generations = Long.numberOfTrailingZeros(remainingGenerations);
+            advance(log2Generations);
+            remainingGenerations &= remainingGenerations - 1;
+        }
+    }
+
+    /**
+     * Advance the field by 2^log2Generations generations in one call.
+     * Jumps up to half of the field's larger side are computed directly from the memoized quadtree,
+     * larger jumps are composed of memoized smaller ones.
+     * @param log2Generations binary logarithm of the number of generations, from 0 to 62.
+     * @throws IllegalArgumentException if log2Generations is out of limits.
+     */
+    public void advance(int log2Generations) {
+        if (log2Generations < 0 || log2Generations > Long.SIZE - 2) {
+            String errorMessage = "wrong number of generations! log2Generations = " + log2Generations + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        if (root.population == 0) {
+            return;
+        }
+        root = jump(root, log2Generations);
+        collectGarbageIfNeeded(root);
+    }
+
+    private Node jump(Node torus, int log2Generations) {
+        if (log2Generations < level) {
+            return stepTorus(torus, log2Generations);
+        }
+        int jumpIndex = log2Generations - level;
+        while (torusJumps.size() <= jumpIndex) {
+            torusJumps.add(new HashMap<Node, Node>());
+        }
+        Node result = torusJumps.get(jumpIndex).get(torus);
+        if (result != null) {
+            return result;
+        }
+        Node halfway = jump(torus, log2Generations - 1);
+        collectGarbageIfNeeded(halfway);
+        result = jump(halfway, log2Generations - 1);
+        collectGarbageIfNeeded(result);
+        while (torusJumps.size() <= jumpIndex) {
+            torusJumps.add(new HashMap<Node, Node>());
+        }
+        torusJumps.get(jumpIndex).put(torus, result);
+        return result;
+    }
+
+    /**
+     * Evolve the torus by tiling it into a square of the next level. The centre of the tiled square
+     * is the evolved torus shifted by half of its side, so quadrants of the result are swapped back.
+     */
+    private Node stepTorus(Node torus, int log2Generations) {
+        Node tiled = createNode(torus, torus, torus, torus);
+        Node shifted = nextGeneration(tiled, log2Generations);
+        return createNode(shifted.se, shifted.sw, shifted.ne, shifted.nw);
+    }
+
+    /**
+     * Compute the centre of the node advanced by 2^step generations.
+     * @param node node of level L (L >= 2).
+     * @param step binary logarithm of the number of generations (step <= L - 2).
+     * @return node of level L - 1.
+     */
+    private Node nextGeneration(Node node, int step) {
+        if (node.population == 0) {
+            return getEmptyNode(node.level - 1);
+        }
+        if (node.result != null && node.resultStep == step) {
+            return node.result;
+        }
+        Node result;
+        if (node.level == 2) {
+            result = computeBaseCase(node);
+        }
+        else {
+            Node n00 = node.nw;
+            Node n01 = createNode(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw);
+            Node n02 = node.ne;
+            Node n10 = createNode(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne);
+            Node n11 = createNode(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+            Node n12 = createNode(node.ne.sw, node.ne.se, node.se.nw, node.se.ne);
+            Node n20 = node.sw;
+            Node n21 = createNode(node.sw.ne, node.se.nw, node.sw.se, node.se.sw);
+            Node n22 = node.se;
+            int subStep;
+            if (step == node.level - 2) {
+                subStep = step - 1;
+                n00 = nextGeneration(n00, subStep);
+                n01 = nextGeneration(n01, subStep);
+                n02 = nextGeneration(n02, subStep);
+                n10 = nextGeneration(n10, subStep);
+                n11 = nextGeneration(n11, subStep);
+                n12 = nextGeneration(n12, subStep);
+                n20 = nextGeneration(n20, subStep);
+                n21 = nextGeneration(n21, subStep);
+                n22 = nextGeneration(n22, subStep);
+            }
+            else {
+                subStep = step;
+                n00 = getCentre(n00);
+                n01 = getCentre(n01);
+                n02 = getCentre(n02);
+                n10 = getCentre(n10);
+                n11 = getCentre(n11);
+                n12 = getCentre(n12);
+                n20 = getCentre(n20);
+                n21 = getCentre(n21);
+                n22 = getCentre(n22);
+            }
+            result = createNode(
+                    nextGeneration(createNode(n00, n01, n10, n11), subStep),
+                    nextGeneration(createNode(n01, n02, n11, n12), subStep),
+                    nextGeneration(createNode(n10, n11, n20, n21), subStep),
+                    nextGeneration(createNode(n11, n12, n21, n22), subStep));
+        }
+        node.result = result;
+        node.resultStep = step;
+        return result;
+    }
+
+    private Node getCentre(Node node) {
+        return createNode(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+    }
+
+    /**
+     * Compute the next generation of the centre 2x2 cells of a 4x4 node directly.
+     */
+    private Node computeBaseCase(Node node) {
+        int cells = 0;
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                if (isAlive(node, x, y)) {
+                    cells |= 1 << (y * 4 + x);
+                }
+            }
+        }
+        return createNode(
+                getNextLeaf(cells, 1, 1),
+                getNextLeaf(cells, 2, 1),
+                getNextLeaf(cells, 1, 2),
+                getNextLeaf(cells, 2, 2));
+    }
+
+    private Node getNextLeaf(int cells, int x, int y) {
+        int aliveNeighboursCount = 0;
+        for (int neighbourY = y - 1; neighbourY <= y + 1; neighbourY++) {
+            for (int neighbourX = x - 1; neighbourX <= x + 1; neighbourX++) {
+                if ((neighbourX != x || neighbourY != y) && (cells & (1 << (neighbourY * 4 + neighbourX))) != 0) {
+                    aliveNeighboursCount++;
+                }
+            }
+        }
+        boolean alive = (cells & (1 << (y * 4 + x))) != 0;
+        if (rule.getNextState(alive, aliveNeighboursCount)) {
+            return ALIVE_LEAF;
+        }
+        return DEAD_LEAF;
+    }
+
+    private static boolean isAlive(Node node, int x, int y) {
+        while (node.level > 0) {
+            if (node.population == 0) {
+                return false;
+            }
+            int half = 1 << (node.level - 1);
+            if (y < half) {
+                node = x < half ? node.nw : node.ne;
+            }
+            else {
+                node = x < half ? node.sw : node.se;
+            }
+            x &= half - 1;
+            y &= half - 1;
+        }
+        return node == ALIVE_LEAF;
+    }
+
+    private Node setCell(Node node, int x, int y, Node leaf) {
+        if (node.level == 0) {
+            return leaf;
+        }
+        int half = 1 << (node.level - 1);
+        int subX = x & (half - 1);
+        int subY = y & (half - 1);
+        if (y < half) {
+            if (x < half) {
+                return createNode(setCell(node.nw, subX, subY, leaf), node.ne, node.sw, node.se);
+            }
+            return createNode(node.nw, setCell(node.ne, subX, subY, leaf), node.sw, node.se);
+        }
+        if (x < half) {
+            return createNode(node.nw, node.ne, setCell(node.sw, subX, subY, leaf), node.se);
+        }
+        return createNode(node.nw, node.ne, node.sw, setCell(node.se, subX, subY, leaf));
+    }
+
+    private Node getEmptyNode(int nodeLevel) {
+        while (emptyNodes.size() <= nodeLevel) {
+            if (emptyNodes.isEmpty()) {
+                emptyNodes.add(DEAD_LEAF);
+            }
+            else {
+                Node child = emptyNodes.get(emptyNodes.size() - 1);
+                emptyNodes.add(createNode(child, child, child, child));
+            }
+        }
+        return emptyNodes.get(nodeLevel);
+    }
+
+    /**
+     * Get the canonical node with the given children. Nodes are compared by identity of their
+     * children, structural hashes only choose the bucket of the hash table.
+     */
+    private Node createNode(Node nw, Node ne, Node sw, Node se) {
+        long hash = nw.hash;
+        hash = hash * 0x100000001b3L + ne.hash;
+        hash = hash * 0x100000001b3L + sw.hash;
+        hash = hash * 0x100000001b3L + se.hash;
+        hash = mix(hash + nw.level);
+        long checksum = nw.checksum;
+        checksum = checksum * 0x5851f42d4c957f2dL + ne.checksum;
+        checksum = checksum * 0x5851f42d4c957f2dL + sw.checksum;
+        checksum = checksum * 0x5851f42d4c957f2dL + se.checksum;
+        checksum = mix(checksum ^ (nw.level * 0x9e3779b97f4a7c15L));
+        int bucket = getBucket(hash, table.length);
+        for (Node node = table[bucket]; node != null; node = node.next) {
+            if (node.nw == nw && node.ne == ne && node.sw == sw && node.se == se) {
+                return node;
+            }
+        }
+        Node node = new Node(nw, ne, sw, se, hash, checksum);
+        node.next = table[bucket];
+        table[bucket] = node;
+        numberOfNodes++;
+        if (numberOfNodes > table.length - (table.length >>> 2)) {
+            resizeTable(table.length * 2);
+        }
+        return node;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static int getBucket(long hash, int capacity) {
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    private void resizeTable(int capacity) {
+        Node[] newTable = new Node[capacity];
+        for (Node chain : table) {
+            Node node = chain;
+            while (node != null) {
+                Node next = node.next;
+                int bucket = getBucket(node.hash, capacity);
+                node.next = newTable[bucket];
+                newTable[bucket] = node;
+                node = next;
+            }
+        }
+        table = newTable;
+    }
+
+    /**
+     * Drop every node which is neither reachable from the current state nor from the node being
+     * computed. Cached results pointing to the dropped nodes are forgotten as well.
+     * Dropped nodes may still be referenced by a computation in progress, which is safe:
+     * they only stop being shared with the new nodes.
+     * The next collection happens when the number of nodes is twice the number of the kept ones or
+     * exceeds the budget, whichever is more, so a state near the budget isn't collected on every step.
+     */
+    private void collectGarbageIfNeeded(Node keep) {
+        if (numberOfNodes <= garbageCollectionThreshold) {
+            return;
+        }
+        mark(root);
+        mark(keep);
+        for (Node emptyNode : emptyNodes) {
+            mark(emptyNode);
+        }
+        int keptNodes = 0;
+        for (int bucket = 0; bucket < table.length; bucket++) {
+            Node keptChain = null;
+            Node node = table[bucket];
+            while (node != null) {
+                Node next = node.next;
+                if (node.marked) {
+                    node.next = keptChain;
+                    keptChain = node;
+                    keptNodes++;
+                }
+                else {
+                    node.next = null;
+                }
+                node = next;
+            }
+            table[bucket] = keptChain;
+        }
+        for (Node chain : table) {
+            for (Node node = chain; node != null; node = node.next) {
+                if (node.result != null && !node.result.marked) {
+                    node.result = null;
+                    node.resultStep = -1;
+                }
+            }
+        }
+        unmark(root);
+        unmark(keep);
+        for (Node emptyNode : emptyNodes) {
+            unmark(emptyNode);
+        }
+        torusJumps.clear();
+        numberOfGarbageCollections++;
+        LOGGER.debug("collected hashlife nodes: " + (numberOfNodes - keptNodes) + " dropped, "
+                + keptNodes + " kept.");
+        numberOfNodes = keptNodes;
+        garbageCollectionThreshold = Math.max(maximalNumberOfNodes, 2L * keptNodes);
+        if (numberOfNodes > maximalNumberOfNodes && !budgetExceeded) {
+            budgetExceeded = true;
+            LOGGER.warn("current state alone exceeds the memory budget of " + memoryBudget + " bytes.");
+        }
+    }
+
+    private static void mark(Node node) {
+        if (node.level == 0 || node.marked) {
+            return;
+        }
+        node.marked = true;
+        mark(node.nw);
+        mark(node.ne);
+        mark(node.sw);
+        mark(node.se);
+    }
+
+    private static void unmark(Node node) {
+        if (!node.marked) {
+            return;
+        }
+        node.marked = false;
+        unmark(node.nw);
+        unmark(node.ne);
+        unmark(node.sw);
+        unmark(node.se);
+    }
+
+    private long getNumberOfCopies() {
+        return ((long) side / width) * (side / height);
+    }
+}
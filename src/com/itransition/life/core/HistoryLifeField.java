@@ -0,0 +1,168 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Field which records its generations into a history, so that it can be rewound to any retained
+ * generation. It wraps another field and records the state after every nextGeneration() and after
+ * every nextGenerations(long), the generations skipped by the latter aren't recorded.
+ * Editing the field starts a new history from the edited state, since the recorded generations
+ * don't lead to it.
+ * @see GenerationHistory
+ */
+public class HistoryLifeField implements DigestableToroidalLifeField {
+    private static final Log LOGGER = LogFactory.getLog(HistoryLifeField.class);
+    private final DigestableToroidalLifeField lifeField;
+    private final GenerationHistory history;
+    private final long[] cells;
+    private long currentGeneration = 0;
+
+    /**
+     * Create field which records its generations. The current state of the field is recorded as
+     * generation 0.
+     * @param lifeField field to compute the generations.
+     * @param keyframeInterval number of generations between keyframes.
+     * @param capacity memory of the history in bytes.
+     * @throws IllegalArgumentException if either keyframe interval or capacity is not positive.
+     * @see GenerationHistory#GenerationHistory(int, int, int, int)
+     */
+    public HistoryLifeField(DigestableToroidalLifeField lifeField, int keyframeInterval, int capacity) {
+        this.lifeField = lifeField;
+        this.history = new GenerationHistory(lifeField.getWidth(), lifeField.getHeight(), keyframeInterval, capacity);
+        this.cells = new long[BitLifeField.getStateLength(lifeField.getWidth(), lifeField.getHeight())];
+        recordState();
+    }
+
+    public long getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    public GenerationHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Bring the field back to a retained generation. The generations after it are forgotten and are
+     * recorded again as they are computed.
+     * @param generation generation to return to.
+     * @throws IllegalArgumentException if the generation isn't retained.
+     */
+    public void seek(long generation) {
+        history.truncate(generation);
+        history.reconstruct(generation, cells);
+        lifeField.importState(cells);
+        currentGeneration = generation;
+    }
+
+    /**
+     * Step back by the specified number of generations, or to the oldest retained generation if
+     * fewer generations are retained.
+     * @param numberOfGenerations number of generations to step back.
+     * @return the generation the field has returned to.
+     * @throws IllegalArgumentException if the number of generations is negative.
+     * @throws IllegalStateException if the history is empty.
+     */
+    public long rewind(long numberOfGenerations) {
+        if (numberOfGenerations < 0) {
+            String errorMessage = "wrong number of generations! number of generations = " + numberOfGenerations
+                    + ". it can't be negative.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        long generation = Math.max(history.getFirstGeneration(), currentGeneration - numberOfGenerations);
+        generation = history.getRetainedGeneration(generation);
+        seek(generation);
+        return generation;
+    }
+
+    private void recordState() {
+        lifeField.exportState(cells);
+        history.record(currentGeneration, cells);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#isAlive(int, int).
+     */
+    @Override
+    public boolean isAlive(int x, int y) {
+        return lifeField.isAlive(x, y);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#getWidth().
+     */
+    @Override
+    public int getWidth() {
+        return lifeField.getWidth();
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#getHeight().
+     */
+    @Override
+    public int getHeight() {
+        return lifeField.getHeight();
+    }
+
+    /**
+     * The edited state is the first generation of a new history.
+     * @see DigestableToroidalLifeField#setState(int, int, boolean).
+     */
+    @Override
+    public void setState(int x, int y, boolean state) {
+        lifeField.setState(x, y, state);
+        history.clear();
+        recordState();
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#nextGeneration().
+     */
+    @Override
+    public void nextGeneration() {
+        lifeField.nextGeneration();
+        currentGeneration++;
+        recordState();
+    }
+
+    /**
+     * Only the last of the generations is recorded.
+     * @see DigestableToroidalLifeField#nextGenerations(long).
+     */
+    @Override
+    public void nextGenerations(long numberOfGenerations) {
+        lifeField.nextGenerations(numberOfGenerations);
+        if (numberOfGenerations > 0) {
+            currentGeneration += numberOfGenerations;
+            recordState();
+        }
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#getDigest().
+     */
+    @Override
+    public byte[] getDigest() {
+        return lifeField.getDigest();
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        lifeField.exportState(cells);
+    }
+
+    /**
+     * The imported state is the first generation of a new history.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        lifeField.importState(cells);
+        history.clear();
+        recordState();
+    }
+}
@@ -0,0 +1,60 @@
+package com.itransition.life.core;
+
+/**
+ * Field engines by name, used by the headless runner and by the benchmarks.
+ * BitLifeField and HashLifeField compute their digests themselves, so they ignore the digest kind.
+ */
+public enum LifeFieldEngine {
+    SIMD {
+        @Override
+        public DigestableToroidalLifeField createField(int width, int height, LifeRule rule, DigestKind digest) {
+            return new SimdLifeField(width, height, rule, digest.createStrategy());
+        }
+    },
+    BIT {
+        @Override
+        public DigestableToroidalLifeField createField(int width, int height, LifeRule rule, DigestKind digest) {
+            return new BitLifeField(width, height, rule);
+        }
+    },
+    TILED {
+        @Override
+        public DigestableToroidalLifeField createField(int width, int height, LifeRule rule, DigestKind digest) {
+            return new TiledLifeField(width, height, rule, digest.createStrategy());
+        }
+    },
+    COLUMN_SUM {
+        @Override
+        public DigestableToroidalLifeField createField(int width, int height, LifeRule rule, DigestKind digest) {
+            return new ColumnSumLifeField(width, height, rule, digest.createStrategy());
+        }
+    },
+    ARRAY {
+        @Override
+        public DigestableToroidalLifeField createField(int width, int height, LifeRule rule, DigestKind digest) {
+            return new ArrayLifeField(width, height, 1, rule, digest.createStrategy());
+        }
+    },
+    MAP {
+        @Override
+        public DigestableToroidalLifeField createField(int width, int height, LifeRule rule, DigestKind digest) {
+            return new MapLifeField(width, height, rule, digest.createStrategy());
+        }
+    },
+    HASH {
+        @Override
+        public DigestableToroidalLifeField createField(int width, int height, LifeRule rule, DigestKind digest) {
+            return new HashLifeField(width, height, HashLifeField.DEFAULT_MEMORY_BUDGET, rule);
+        }
+    };
+
+    /**
+     * Create empty field of the engine.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param rule rule the field evolves by.
+     * @param digest kind of the digest of the field.
+     * @return new field.
+     */
+    public abstract DigestableToroidalLifeField createField(int width, int height, LifeRule rule, DigestKind digest);
+}
@@ -0,0 +1,68 @@
+package com.itransition.life.core;
+
+/**
+ * Immutable copy of the state of a life field taken at some generation.
+ * Cells are bit-packed the same way as in BitLifeField. Snapshots are safely published through
+ * volatile references, so readers such as renderers get a consistent generation without locking
+ * the field which is being computed.
+ * @see DigestableToroidalLifeField#exportState(long[])
+ */
+public final class LifeFieldSnapshot {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long generation;
+    private final long[] cells;
+    private final long numberOfAliveCells;
+
+    /**
+     * Take snapshot of the field. The field shouldn't change while the snapshot is taken.
+     * @param field field to copy.
+     * @param generation generation of the field.
+     */
+    public LifeFieldSnapshot(DigestableToroidalLifeField field, long generation) {
+        this.width = field.getWidth();
+        this.height = field.getHeight();
+        this.wordsPerRow = BitLifeField.getWordsPerRow(width);
+        this.generation = generation;
+        this.cells = new long[BitLifeField.getStateLength(width, height)];
+        field.exportState(cells);
+        long aliveCells = 0;
+        for (long word : cells) {
+            aliveCells += Long.bitCount(word);
+        }
+        this.numberOfAliveCells = aliveCells;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public long getNumberOfAliveCells() {
+        return numberOfAliveCells;
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#isAlive(int, int).
+     */
+    public boolean isAlive(int x, int y) {
+        return (cells[y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD] & (1L << (x % BitLifeField.CELLS_PER_WORD))) != 0;
+    }
+
+    /**
+     * Copy the cells of the snapshot.
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    public void exportState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        System.arraycopy(this.cells, 0, cells, 0, this.cells.length);
+    }
+}
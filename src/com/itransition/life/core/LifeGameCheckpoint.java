@@ -0,0 +1,290 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * State of a game saved at some generation: the cells, the generation counter, the cycle length and
+ * the stacks of the cycle detector, so a long run continues from the checkpoint as if it had never
+ * been stopped.
+ * File of a checkpoint is a small header followed by the bit-packed cells compressed with deflate.
+ * The header holds everything but the cells and is read at once. The cells are read from the file's
+ * channel and inflated in chunks, so restoring a large field takes no copy of the file. The file isn't
+ * memory-mapped: until the mapping is collected, Windows doesn't let the next checkpoint replace it.
+ * A checkpoint is written to a temporary file which then replaces the previous checkpoint, so a crash
+ * while writing never leaves a broken checkpoint behind; the temporary file is deleted if writing fails.
+ * @see LifeGameController#createCheckpoint()
+ * @see LifeGameController#restoreCheckpoint(LifeGameCheckpoint)
+ * @see LifeGameCheckpointer
+ */
+public final class LifeGameCheckpoint {
+    private static final Log LOGGER = LogFactory.getLog(LifeGameCheckpoint.class);
+    private static final int MAGIC = 0x4c494645;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private final int width;
+    private final int height;
+    private final LifeRule rule;
+    private final int digestInterval;
+    private final long generation;
+    private final long cycleLength;
+    private final long[] cells;
+    private final PartitionedCycleDetector cycleDetector;
+
+    /**
+     * The checkpoint owns the cells and the detector.
+     * @param cycleDetector detector of the running game or null if the game hasn't been started.
+     */
+    LifeGameCheckpoint(int width, int height, LifeRule rule, int digestInterval, long generation, long cycleLength,
+                       long[] cells, PartitionedCycleDetector cycleDetector) {
+        this.width = width;
+        this.height = height;
+        this.rule = rule;
+        this.digestInterval = digestInterval;
+        this.generation = generation;
+        this.cycleLength = cycleLength;
+        this.cells = cells;
+        this.cycleDetector = cycleDetector;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public long getCycleLength() {
+        return cycleLength;
+    }
+
+    /**
+     * @return number of generations between the digests fed to the cycle detector.
+     */
+    public int getDigestInterval() {
+        return digestInterval;
+    }
+
+    long[] getCells() {
+        return cells;
+    }
+
+    PartitionedCycleDetector getCycleDetector() {
+        return cycleDetector;
+    }
+
+    /**
+     * Write the checkpoint to the file. The previous content of the file is replaced only when the
+     * whole checkpoint has been written.
+     * @param file file of the checkpoint.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(File file) throws IOException {
+        File temporaryFile = new File(file.getPath() + TEMPORARY_SUFFIX);
+        boolean written = false;
+        try {
+            writeCells(temporaryFile);
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            written = true;
+        }
+        finally {
+            if (!written && temporaryFile.exists() && !temporaryFile.delete()) {
+                LOGGER.warn("can't delete " + temporaryFile + " of the failed checkpoint.");
+            }
+        }
+    }
+
+    private void writeCells(File temporaryFile) throws IOException {
+        byte[] header = createHeader();
+        FileOutputStream stream = new FileOutputStream(temporaryFile);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(header.length);
+            output.write(header);
+            DeflaterOutputStream deflated = new DeflaterOutputStream(output, deflater, BUFFER_SIZE);
+            ByteBuffer chunk = ByteBuffer.allocate(BUFFER_SIZE);
+            LongBuffer chunkWords = chunk.asLongBuffer();
+            for (int word = 0; word < cells.length; word += chunkWords.capacity()) {
+                int length = Math.min(chunkWords.capacity(), cells.length - word);
+                chunkWords.clear();
+                chunkWords.put(cells, word, length);
+                deflated.write(chunk.array(), 0, length * (Long.SIZE / Byte.SIZE));
+            }
+            deflated.finish();
+            output.flush();
+            stream.getFD().sync();
+        }
+        finally {
+            deflater.end();
+            stream.close();
+        }
+    }
+
+    private byte[] createHeader() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(width);
+        header.writeInt(height);
+        header.writeUTF(rule.toString());
+        header.writeInt(digestInterval);
+        header.writeLong(generation);
+        header.writeLong(cycleLength);
+        header.writeBoolean(cycleDetector != null);
+        if (cycleDetector != null) {
+            cycleDetector.writeState(header);
+        }
+        header.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read the checkpoint from the file.
+     * @param file file of the checkpoint.
+     * @return the checkpoint.
+     * @throws IOException if the file can't be read or it isn't a valid checkpoint.
+     */
+    public static LifeGameCheckpoint read(File file) throws IOException {
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            ByteBuffer prefix = ByteBuffer.allocate(3 * Integer.SIZE / Byte.SIZE);
+            if (!readFully(channel, prefix) || prefix.getInt() != MAGIC) {
+                throw createCorruptedException(file, "not a checkpoint");
+            }
+            int version = prefix.getInt();
+            if (version != VERSION) {
+                throw createCorruptedException(file, "unsupported version " + version);
+            }
+            int headerLength = prefix.getInt();
+            if (headerLength < 0 || headerLength > channel.size() - channel.position()) {
+                throw createCorruptedException(file, "truncated header");
+            }
+            ByteBuffer header = ByteBuffer.allocate(headerLength);
+            readFully(channel, header);
+            return readCheckpoint(file, new DataInputStream(new ByteArrayInputStream(header.array())), channel);
+        }
+        catch (IllegalArgumentException e) {
+            throw createCorruptedException(file, e.getMessage());
+        }
+        catch (EOFException e) {
+            throw createCorruptedException(file, "truncated header");
+        }
+        finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Read from the channel until the buffer is full or the file ends, then flip the buffer.
+     * @return true if the buffer is full.
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int bytes = 0;
+        while (buffer.hasRemaining() && bytes >= 0) {
+            bytes = channel.read(buffer);
+        }
+        buffer.flip();
+        return buffer.limit() == buffer.capacity();
+    }
+
+    private static LifeGameCheckpoint readCheckpoint(File file, DataInputStream header, FileChannel deflatedCells)
+            throws IOException {
+        int width = header.readInt();
+        int height = header.readInt();
+        LifeRule rule = LifeRule.parse(header.readUTF());
+        int digestInterval = header.readInt();
+        long generation = header.readLong();
+        long cycleLength = header.readLong();
+        PartitionedCycleDetector cycleDetector = null;
+        if (header.readBoolean()) {
+            cycleDetector = PartitionedCycleDetector.readState(header);
+        }
+        long stateLength = (long) BitLifeField.getStateLength(width, 1) * height;
+        if (width <= 0 || height <= 0 || stateLength > Integer.MAX_VALUE) {
+            throw createCorruptedException(file, "wrong field size " + width + "x" + height);
+        }
+        long[] cells = new long[(int) stateLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflateCells(file, inflater, deflatedCells, cells);
+        }
+        catch (DataFormatException e) {
+            throw createCorruptedException(file, e.getMessage());
+        }
+        finally {
+            inflater.end();
+        }
+        return new LifeGameCheckpoint(width, height, rule, digestInterval, generation, cycleLength, cells,
+                cycleDetector);
+    }
+
+    /**
+     * Inflate a chunk of the cells at a time. The stream should end right after the cells, which also
+     * verifies its checksum.
+     */
+    private static void inflateCells(File file, Inflater inflater, FileChannel deflatedCells, long[] cells)
+            throws IOException, DataFormatException {
+        byte[] input = new byte[BUFFER_SIZE];
+        ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+        byte[] output = new byte[BUFFER_SIZE];
+        LongBuffer outputWords = ByteBuffer.wrap(output).asLongBuffer();
+        int word = 0;
+        while (word < cells.length || !inflater.finished()) {
+            int length = Math.min(outputWords.capacity(), cells.length - word);
+            int expectedBytes = Math.max(1, length * (Long.SIZE / Byte.SIZE));
+            int inflatedBytes = 0;
+            while (inflatedBytes < expectedBytes && !inflater.finished()) {
+                if (inflater.needsInput()) {
+                    inputBuffer.clear();
+                    int inputLength = deflatedCells.read(inputBuffer);
+                    if (inputLength <= 0) {
+                        throw createCorruptedException(file, "truncated cells");
+                    }
+                    inflater.setInput(input, 0, inputLength);
+                }
+                int bytes = inflater.inflate(output, inflatedBytes, expectedBytes - inflatedBytes);
+                if (bytes == 0 && inflater.needsDictionary()) {
+                    throw createCorruptedException(file, "unexpected dictionary");
+                }
+                inflatedBytes += bytes;
+            }
+            if (inflatedBytes != length * (Long.SIZE / Byte.SIZE)) {
+                throw createCorruptedException(file, "wrong number of cells");
+            }
+            outputWords.clear();
+            outputWords.get(cells, word, length);
+            word += length;
+        }
+    }
+
+    private static IOException createCorruptedException(File file, String reason) {
+        String errorMessage = "corrupted checkpoint '" + file + "'! " + reason + ".";
+        LOGGER.error(errorMessage);
+        return new IOException(errorMessage);
+    }
+}
@@ -0,0 +1,129 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writer of periodic checkpoints of a game to a file. Checkpoints are written by a daemon thread:
+ * the game is locked only while its state is copied, compressing and writing happen while the game
+ * goes on. A checkpoint is skipped when the game hasn't changed since the last one.
+ * @see LifeGameCheckpoint
+ */
+public class LifeGameCheckpointer {
+    private static final Log LOGGER = LogFactory.getLog(LifeGameCheckpointer.class);
+    private final LifeGameController controller;
+    private final File file;
+    private ScheduledThreadPoolExecutor executor = null;
+    private LifeFieldSnapshot lastSnapshot = null;
+    private long lastGeneration = -1;
+
+    /**
+     * Create checkpointer of the game.
+     * @param controller game to save.
+     * @param file file the checkpoints are written to, it's replaced by every checkpoint.
+     */
+    public LifeGameCheckpointer(LifeGameController controller, File file) {
+        this.controller = controller;
+        this.file = file;
+    }
+
+    /**
+     * Restore the game from the file if the file exists.
+     * @param controller game to restore.
+     * @param file file of the checkpoint.
+     * @return true if the game has been restored.
+     * @throws IOException if the file can't be read or it isn't a valid checkpoint.
+     */
+    public static boolean restore(LifeGameController controller, File file) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        controller.restoreCheckpoint(LifeGameCheckpoint.read(file));
+        return true;
+    }
+
+    /**
+     * Start writing checkpoints periodically. Does nothing if it's already started.
+     * @param intervalMillis time between the end of a checkpoint and the start of the next one.
+     * @throws IllegalArgumentException if the interval is not positive.
+     */
+    public synchronized void start(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            String errorMessage = "wrong checkpoint interval! interval = " + intervalMillis + ". it should be positive.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        if (executor != null) {
+            return;
+        }
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "life-game-checkpointer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    checkpoint();
+                }
+                catch (IOException e) {
+                    LOGGER.error("failed to write checkpoint to '" + file + "'.", e);
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop writing checkpoints. The checkpoint being written is finished.
+     */
+    public void stop() {
+        ScheduledThreadPoolExecutor stoppedExecutor;
+        synchronized (this) {
+            stoppedExecutor = executor;
+            executor = null;
+        }
+        if (stoppedExecutor == null) {
+            return;
+        }
+        // The checkpoint being written holds the monitor, so it's awaited without holding it.
+        stoppedExecutor.shutdown();
+        try {
+            stoppedExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write checkpoint of the game now unless the game hasn't changed since the last checkpoint.
+     * @return true if the checkpoint has been written.
+     * @throws IOException if the file can't be written.
+     */
+    public synchronized boolean checkpoint() throws IOException {
+        LifeFieldSnapshot snapshot = controller.getSnapshot();
+        long generation = controller.getCurrentGeneration();
+        if (snapshot == lastSnapshot && generation == lastGeneration) {
+            return false;
+        }
+        LifeGameCheckpoint checkpoint = controller.createCheckpoint();
+        if (checkpoint == null) {
+            return false;
+        }
+        checkpoint.write(file);
+        lastSnapshot = snapshot;
+        lastGeneration = checkpoint.getGeneration();
+        LOGGER.debug("checkpoint of generation " + lastGeneration + " is written to '" + file + "'.");
+        return true;
+    }
+}
@@ -3,22 +3,68 @@ package com.itransition.life.core;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+
 /**
  * This class encapsulates game of life logic: life generation and cycle detection.
  * It also wraps around DigestableToroidalLifeField by implementing its interface.
- * Life generation is done in a separate thread.
+ * Life generation is done in a separate thread, or in time slices of a LifeGamePool if the game
+ * was created by the pool.
+ * Computed generations are published as immutable snapshots through a volatile reference, so readers
+ * never lock the field which is being computed and never see a half-computed generation.
  * @see DigestableToroidalLifeField
+ * @see LifeGamePool
  * @see DigestCycleDetector
  */
 public class LifeGameController implements DigestableToroidalLifeField {
     private static final Log LOGGER = LogFactory.getLog(LifeGameController.class);
     private static final long MAXIMAL_NUMBER_OF_GENERATIONS = 1234567890l;
-    private GameState gameState = GameState.UNDEFINED;
-    private DigestableToroidalLifeField lifeField = null;
-    private StackCycleDetector cycleDetector = null;
-    private long currentGeneration = 0;
-    private long cycleLength = 0;
+    /**
+     * Maximal number of generations computed while the field is locked once.
+     */
+    private static final int MAXIMAL_BATCH_SIZE = 4096;
+    /**
+     * Maximal time the field is locked for by one batch of generations.
+     */
+    private static final long MAXIMAL_BATCH_DURATION_NANOS = 20000000L;
+    /**
+     * Minimal time between the snapshots published by a running game.
+     */
+    private static final long MINIMAL_SNAPSHOT_INTERVAL_NANOS = 10000000L;
+    /**
+     * By default the digest of every generation is fed to the cycle detector.
+     */
+    public static final int DEFAULT_DIGEST_INTERVAL = 1;
+    private volatile GameState gameState = GameState.UNDEFINED;
+    private volatile DigestableToroidalLifeField lifeField = null;
+    private volatile LifeRule rule = LifeRule.CONWAY;
+    private DigestCycleDetector cycleDetector = null;
+    private volatile long currentGeneration = 0;
+    private volatile long cycleLength = 0;
+    private volatile LifeFieldSnapshot snapshot = null;
+    private volatile boolean snapshotStale = false;
+    private volatile boolean snapshotRequested = false;
+    private long lastSnapshotTime = 0;
     private Thread gameThread = null;
+    private volatile Object runToken = null;
+    private final LifeGamePool pool;
+    private volatile int digestInterval = DEFAULT_DIGEST_INTERVAL;
+    private int samplingInterval = DEFAULT_DIGEST_INTERVAL;
+    private final LifeGameStatistics statistics = new LifeGameStatistics();
+
+    /**
+     * Create controller which runs every started game in a new thread.
+     */
+    public LifeGameController() {
+        this(null);
+    }
+
+    /**
+     * Create controller whose games are run by the pool.
+     * @param pool pool of the games, null means a new thread per started game.
+     */
+    LifeGameController(LifeGamePool pool) {
+        this.pool = pool;
+    }
 
     private enum GameState {
         UNDEFINED,
@@ -37,11 +83,70 @@ public class LifeGameController implements DigestableToroidalLifeField {
     }
 
     /**
+     * Get the last published state of the game. A running game publishes its state when it stops and,
+     * at most every MINIMAL_SNAPSHOT_INTERVAL_NANOS, after a snapshot has been requested, so a game
+     * nobody reads doesn't copy its field. The returned snapshot may be as old as the previous request.
+     * Changes made while the game isn't running are published when the snapshot is requested, so
+     * editing many cells copies the field once.
+     * @return snapshot of the game or null if no game was set up.
+     */
+    public LifeFieldSnapshot getSnapshot() {
+        snapshotRequested = true;
+        if (snapshotStale) {
+            synchronized (lifeField) {
+                if (snapshotStale) {
+                    publishSnapshot(currentGeneration);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    LifeGameStatistics getStatistics() {
+        return statistics;
+    }
+
+    public int getDigestInterval() {
+        return digestInterval;
+    }
+
+    /**
+     * Set how often the digest of the field is fed to the cycle detector. With the interval k only
+     * every k-th generation is digested and the field computes k generations at once in between.
+     * When two sampled digests match, the field is in its cycle, so the exact cycle length is found
+     * by replaying the field generation by generation until it returns to the matched state.
+     * The cycle is found up to k times later, but digesting costs k times less.
+     * New interval is used from the next start of a game.
+     * @param digestInterval number of generations between the digests.
+     * @throws IllegalArgumentException if the interval is not positive.
+     */
+    public void setDigestInterval(int digestInterval) {
+        if (digestInterval < 1) {
+            String errorMessage = "wrong digest interval! digest interval = " + digestInterval + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.digestInterval = digestInterval;
+    }
+
+    /**
+     * State of the cell is read from the last published snapshot without locking.
      * @see DigestableToroidalLifeField#isAlive(int, int).
+     * @see #getSnapshot()
      */
     @Override
     public boolean isAlive(int x, int y) {
-        return lifeField.isAlive(x, y);
+        return getSnapshot().isAlive(x, y);
+    }
+
+    /**
+     * Cells are copied from the last published snapshot without locking.
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     * @see #getSnapshot()
+     */
+    @Override
+    public void exportState(long[] cells) {
+        getSnapshot().exportState(cells);
     }
 
     /**
@@ -75,8 +180,28 @@ public class LifeGameController implements DigestableToroidalLifeField {
             lifeField.setState(x, y, state);
         }
         resetFields();
+        snapshotStale = true;
+        setGameState(GameState.UPDATED);
+    }
+
+    /**
+     * Synchronizes on internal DigestableToroidalLifeField and loads the cells in bulk. The game is
+     * reset once, so loading a large pattern costs no more than a single edit.
+     * Does nothing if no game was set up or some game is running.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        if (getGameState() == GameState.UNDEFINED || getGameState() == GameState.RUNNING) {
+            LOGGER.info("didn't import new state. state is " + getGameState());
+            return;
+        }
+        synchronized (lifeField) {
+            lifeField.importState(cells);
+        }
+        resetFields();
+        snapshotStale = true;
         setGameState(GameState.UPDATED);
-        LOGGER.info("set new state to a cell " + x + " " + y + ". state is " + getGameState());
     }
 
     /**
@@ -87,6 +212,30 @@ public class LifeGameController implements DigestableToroidalLifeField {
         // Do nothing.
     }
 
+    /**
+     * Fast-forward the game by the specified number of generations without cycle detection.
+     * The field is locked once and computes all the generations itself. Cycle detection starts
+     * over when the game is started again.
+     * Does nothing if no game was set up or some game is running.
+     * @see DigestableToroidalLifeField#nextGenerations(long).
+     */
+    @Override
+    public void nextGenerations(long numberOfGenerations) {
+        if (getGameState() == GameState.UNDEFINED || getGameState() == GameState.RUNNING) {
+            LOGGER.info("didn't fast-forward " + numberOfGenerations + " generations. state is " + getGameState());
+            return;
+        }
+        synchronized (lifeField) {
+            lifeField.nextGenerations(numberOfGenerations);
+        }
+        long generation = currentGeneration + numberOfGenerations;
+        resetFields();
+        currentGeneration = generation;
+        snapshotStale = true;
+        setGameState(GameState.UPDATED);
+        LOGGER.info("fast-forwarded " + numberOfGenerations + " generations. state is " + getGameState());
+    }
+
     /**
      * Does nothing. Returns dummy digest.
      * @return dummy digest as new byte[0].
@@ -101,19 +250,106 @@ public class LifeGameController implements DigestableToroidalLifeField {
      * If some game is running it is stopped and reset.
      */
     public void createNewGame(int width, int height) {
+        createNewGame(width, height, LifeRule.CONWAY);
+    }
+
+    /**
+     * Create new game of the specified width and height which evolves by the specified rule.
+     * If some game is running it is stopped and reset.
+     * @param rulestring rule in B/S notation, e.g. "B36/S23".
+     * @throws IllegalArgumentException if the rulestring can't be parsed.
+     * @see LifeRule#parse(String)
+     */
+    public void createNewGame(int width, int height, String rulestring) {
+        createNewGame(width, height, LifeRule.parse(rulestring));
+    }
+
+    /**
+     * Create new game of the specified width and height which evolves by the specified rule.
+     * If some game is running it is stopped and reset.
+     * Bit-packed field is used for every rule: on the field sizes of the game it computes a generation
+     * of a dense soup in about a microsecond, where MapLifeField takes about 90 us, so the speed of the
+     * game is bound by cycle detection. The other engines are available through LifeFieldEngine.
+     * @see LifeFieldEngine
+     */
+    public void createNewGame(int width, int height, LifeRule rule) {
         pauseGame();
-        lifeField = new MapLifeField(width, height);
         resetFields();
+        lifeField = new SimdLifeField(width, height, rule, new ZobristDigestStrategy());
+        this.rule = rule;
+        snapshotStale = true;
         setGameState(GameState.UPDATED);
     }
 
     /**
-     * Pause running game.
+     * Save the state of the game. A running game is saved between two batches of generations, so the
+     * cells, the generation counter and the cycle detector are consistent with each other. Only the
+     * copying is done while the field is locked: the checkpoint may be written to a file later and by
+     * another thread.
+     * @return checkpoint of the game or null if no game was set up.
+     * @see LifeGameCheckpoint#write(java.io.File)
+     */
+    public LifeGameCheckpoint createCheckpoint() {
+        if (getGameState() == GameState.UNDEFINED) {
+            return null;
+        }
+        synchronized (lifeField) {
+            long[] cells = new long[BitLifeField.getStateLength(lifeField.getWidth(), lifeField.getHeight())];
+            lifeField.exportState(cells);
+            DigestCycleDetector detector = cycleDetector;
+            PartitionedCycleDetector detectorCopy = detector instanceof PartitionedCycleDetector
+                    ? ((PartitionedCycleDetector) detector).copy() : null;
+            return new LifeGameCheckpoint(lifeField.getWidth(), lifeField.getHeight(), rule,
+                    detectorCopy == null ? digestInterval : samplingInterval, currentGeneration, cycleLength,
+                    cells, detectorCopy);
+        }
+    }
+
+    /**
+     * Replace the game with the saved one. If some game is running it is stopped.
+     * A game which had been running when it was saved is restored as paused, so it's continued by
+     * startOrResumeGame() with the saved cycle detector. A game saved before it was started starts
+     * over its cycle detection but keeps its generation counter.
+     * @param checkpoint saved state of a game.
+     * @see LifeGameCheckpoint#read(java.io.File)
+     */
+    public void restoreCheckpoint(LifeGameCheckpoint checkpoint) {
+        createNewGame(checkpoint.getWidth(), checkpoint.getHeight(), checkpoint.getRule());
+        GameState restoredState;
+        synchronized (lifeField) {
+            lifeField.importState(checkpoint.getCells());
+            currentGeneration = checkpoint.getGeneration();
+            PartitionedCycleDetector detector = checkpoint.getCycleDetector();
+            if (detector != null) {
+                cycleDetector = detector.copy();
+                samplingInterval = checkpoint.getDigestInterval();
+                restoredState = GameState.PAUSED;
+            }
+            else {
+                digestInterval = checkpoint.getDigestInterval();
+                restoredState = GameState.UPDATED;
+            }
+            publishSnapshot(currentGeneration);
+            if (checkpoint.getCycleLength() > 0) {
+                cycleLength = checkpoint.getCycleLength();
+                restoredState = GameState.STOPPED;
+            }
+        }
+        setGameState(restoredState);
+        LOGGER.info("restored the game at generation " + checkpoint.getGeneration() + ".");
+    }
+
+    /**
+     * Pause running game. Waits for the current batch of generations and publishes the state it
+     * has been paused in.
      * Does nothing if game isn't running.
      */
     public void pauseGame() {
         if (getGameState() == GameState.RUNNING) {
             setGameState(GameState.PAUSED);
+            synchronized (lifeField) {
+                publishSnapshot(currentGeneration);
+            }
         }
     }
 
@@ -124,75 +360,209 @@ public class LifeGameController implements DigestableToroidalLifeField {
     public void startOrResumeGame() {
         switch (getGameState()) {
             case PAUSED: {
+                runToken = new Object();
                 setGameState(GameState.RUNNING);
                 resumeGame();
+                break;
             }
             case UPDATED: {
+                runToken = new Object();
                 setGameState(GameState.RUNNING);
                 startGame();
+                break;
             }
         }
     }
 
     private void startGame() {
-        gameThread = new Thread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        startGenerating();
-                    }
-                }
-        );
-        gameThread.start();
+        samplingInterval = digestInterval;
+        cycleDetector = new PartitionedCycleDetector();
+        byte[] digest;
+        synchronized (lifeField) {
+            digest = lifeField.getDigest();
+            publishSnapshot(currentGeneration);
+        }
+        cycleDetector.addDigest(digest);
+        resumeGame();
     }
 
     private void resumeGame() {
+        if (pool != null) {
+            pool.schedule(this);
+            return;
+        }
+        final Object token = runToken;
         gameThread = new Thread(
                 new Runnable() {
                     @Override
                     public void run() {
-                        resumeGenerating();
+                        generateStates(token);
                     }
                 }
         );
         gameThread.start();
     }
 
-    private void startGenerating() {
-        cycleDetector = new StackCycleDetector();
-        byte[] digest;
-        synchronized (lifeField) {
-            digest = lifeField.getDigest();
+    boolean isRunning() {
+        return getGameState() == GameState.RUNNING;
+    }
+
+    /**
+     * Compute batches until the game is paused or stopped, or until the game is started again by
+     * another run.
+     */
+    private void generateStates(Object token) {
+        while (isRunning() && runToken == token) {
+            generateBatch(token, MAXIMAL_BATCH_SIZE, MAXIMAL_BATCH_DURATION_NANOS);
         }
-        cycleDetector.addDigest(digest);
-        currentGeneration = 0;
-        generateStates();
     }
 
-    private void resumeGenerating() {
-        generateStates();
+    /**
+     * Compute a batch of generations. The field is locked once per batch, and the state of the game
+     * and the generation counter are published once per batch too. A batch ends when the cycle is found,
+     * when the specified number of generations is computed or when it takes the specified time.
+     * Only every samplingInterval-th generation is digested, so a batch may be a few generations longer.
+     * Does nothing if the game isn't running.
+     * @param maximalBatchSize maximal number of generations.
+     * @param maximalBatchDurationNanos maximal duration of the batch.
+     * @return number of computed generations.
+     */
+    long generateBatch(long maximalBatchSize, long maximalBatchDurationNanos) {
+        return generateBatch(runToken, maximalBatchSize, maximalBatchDurationNanos);
     }
 
-    private void generateStates() {
-        while (getGameState() == GameState.RUNNING && currentGeneration <= MAXIMAL_NUMBER_OF_GENERATIONS) {
-            byte[] digest;
-            synchronized (lifeField) {
-                currentGeneration++;
-                lifeField.nextGeneration();
-                digest = lifeField.getDigest();
+    /**
+     * Everything is checked and changed while the field is locked, so a run which has been replaced
+     * by a newer one computes nothing.
+     */
+    private long generateBatch(Object token, long maximalBatchSize, long maximalBatchDurationNanos) {
+        LockWaitEvent lockWaitEvent = new LockWaitEvent();
+        lockWaitEvent.begin();
+        long lockRequested = System.nanoTime();
+        synchronized (lifeField) {
+            long batchStart = System.nanoTime();
+            lockWaitEvent.end();
+            if (lockWaitEvent.shouldCommit()) {
+                lockWaitEvent.width = lifeField.getWidth();
+                lockWaitEvent.height = lifeField.getHeight();
+                lockWaitEvent.commit();
             }
-            LOGGER.info("created new generation.");
-            cycleDetector.addDigest(digest);
-            cycleLength = cycleDetector.getCycleLength();
-            if (cycleLength > 0) {
+            if (!isRunning() || runToken != token) {
+                return 0;
+            }
+            if (currentGeneration > MAXIMAL_NUMBER_OF_GENERATIONS) {
+                LOGGER.info("failed to find cycle length. maximal number of generations was reached: "
+                        + MAXIMAL_NUMBER_OF_GENERATIONS);
+                setGameState(GameState.STOPPED);
+                publishSnapshot(currentGeneration);
+                return 0;
+            }
+            long firstGeneration = currentGeneration;
+            long generation = firstGeneration;
+            long batchEnd = Math.min(generation + maximalBatchSize, MAXIMAL_NUMBER_OF_GENERATIONS + 1);
+            GenerationBatchEvent batchEvent = new GenerationBatchEvent();
+            GenerationPhasesEvent phasesEvent = new GenerationPhasesEvent();
+            batchEvent.begin();
+            phasesEvent.begin();
+            if (statistics.isPhaseTimingEnabled(batchStart) || phasesEvent.isEnabled()) {
+                generation = generateTimedGenerations(generation, batchEnd, batchStart, maximalBatchDurationNanos,
+                        phasesEvent);
+            }
+            else {
+                while (generation < batchEnd && cycleDetector.getCycleLength() == 0 && isRunning()
+                        && System.nanoTime() - batchStart < maximalBatchDurationNanos) {
+                    generation += samplingInterval;
+                    lifeField.nextGenerations(samplingInterval);
+                    cycleDetector.addDigest(lifeField.getDigest());
+                }
+            }
+            long foundCycleLength = cycleDetector.getCycleLength();
+            if (foundCycleLength > 0 && samplingInterval > 1) {
+                foundCycleLength = CycleFinder.replayCycle(lifeField, foundCycleLength * samplingInterval);
+                generation += foundCycleLength;
+            }
+            currentGeneration = generation;
+            statistics.batchComputed(generation - firstGeneration, (long) lifeField.getWidth() * lifeField.getHeight(),
+                    System.nanoTime() - batchStart, batchStart - lockRequested, cycleDetector.getMemoryUsage());
+            // The last snapshot is published before the cycle length, so whoever sees the cycle sees its state.
+            if (foundCycleLength > 0 || snapshotRequested
+                    && System.nanoTime() - lastSnapshotTime >= MINIMAL_SNAPSHOT_INTERVAL_NANOS) {
+                publishSnapshot(generation);
+            }
+            batchEvent.end();
+            if (batchEvent.shouldCommit()) {
+                batchEvent.width = lifeField.getWidth();
+                batchEvent.height = lifeField.getHeight();
+                // An unread batch has no snapshot of its last generation, it's copied only for the event.
+                LifeFieldSnapshot batchSnapshot = snapshot.getGeneration() == generation ? snapshot
+                        : new LifeFieldSnapshot(lifeField, generation);
+                batchEvent.aliveCells = batchSnapshot.getNumberOfAliveCells();
+                batchEvent.firstGeneration = firstGeneration;
+                batchEvent.generations = generation - firstGeneration;
+                batchEvent.cycleLength = foundCycleLength;
+                batchEvent.commit();
+            }
+            phasesEvent.end();
+            if (phasesEvent.shouldCommit()) {
+                phasesEvent.width = lifeField.getWidth();
+                phasesEvent.height = lifeField.getHeight();
+                phasesEvent.generations = generation - firstGeneration;
+                phasesEvent.detectorMemoryUsage = statistics.getDetectorMemoryUsage();
+                phasesEvent.commit();
+            }
+            // Events are committed before the cycle length is published, so a recording stopped as
+            // soon as the cycle is seen contains the whole game.
+            if (foundCycleLength > 0) {
+                cycleLength = foundCycleLength;
                 setGameState(GameState.STOPPED);
                 LOGGER.info("calculated cycle length = " + cycleLength);
-                return;
             }
+            return generation - firstGeneration;
+        }
+    }
+
+    /**
+     * Same loop as in the batch, but every phase of a generation is timed. Phase times are added to
+     * the statistics and are put into the event.
+     * @return generation the loop has stopped at.
+     */
+    private long generateTimedGenerations(long generation, long batchEnd, long batchStart,
+                                          long maximalBatchDurationNanos, GenerationPhasesEvent phasesEvent) {
+        long nextGenerationNanos = 0;
+        long digestNanos = 0;
+        long cycleDetectionNanos = 0;
+        long now = System.nanoTime();
+        while (generation < batchEnd && cycleDetector.getCycleLength() == 0 && isRunning()
+                && now - batchStart < maximalBatchDurationNanos) {
+            generation += samplingInterval;
+            lifeField.nextGenerations(samplingInterval);
+            long computed = System.nanoTime();
+            byte[] digest = lifeField.getDigest();
+            long digested = System.nanoTime();
+            cycleDetector.addDigest(digest);
+            nextGenerationNanos += computed - now;
+            now = System.nanoTime();
+            digestNanos += digested - computed;
+            cycleDetectionNanos += now - digested;
+        }
+        statistics.phasesTimed(nextGenerationNanos, digestNanos, cycleDetectionNanos);
+        phasesEvent.nextGenerationNanos = nextGenerationNanos;
+        phasesEvent.digestNanos = digestNanos;
+        phasesEvent.cycleDetectionNanos = cycleDetectionNanos;
+        return generation;
+    }
+
+    /**
+     * Copy the field into a new snapshot. The field is locked, so a running game publishes
+     * a whole generation.
+     */
+    private void publishSnapshot(long generation) {
+        synchronized (lifeField) {
+            snapshotRequested = false;
+            snapshot = new LifeFieldSnapshot(lifeField, generation);
+            snapshotStale = false;
+            lastSnapshotTime = System.nanoTime();
         }
-        LOGGER.info("failed to find cycle length. maximal number of generations was reached: "
-                + MAXIMAL_NUMBER_OF_GENERATIONS);
-        setGameState(GameState.STOPPED);
     }
 
     private GameState getGameState() {
@@ -204,6 +574,7 @@ public class LifeGameController implements DigestableToroidalLifeField {
     }
 
     private void resetFields() {
+        runToken = null;
         gameThread = null;
         cycleDetector = null;
         currentGeneration = 0;
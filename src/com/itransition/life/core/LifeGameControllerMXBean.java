@@ -0,0 +1,84 @@
+package com.itransition.life.core;
+
+/**
+ * Management interface of a game which is exposed through JMX.
+ * Times are cumulative in nanoseconds, rates are measured between two reads of the rate.
+ * @see LifeGameMonitor
+ */
+public interface LifeGameControllerMXBean {
+    /**
+     * @return current generation of the game.
+     */
+    public long getCurrentGeneration();
+
+    /**
+     * @return cycle length of the game or 0 if it hasn't been found yet.
+     */
+    public long getCycleLength();
+
+    /**
+     * @return number of alive cells in the last published snapshot.
+     */
+    public long getNumberOfAliveCells();
+
+    /**
+     * @return generations computed per second since the previous read of the rate.
+     */
+    public double getGenerationsPerSecond();
+
+    /**
+     * @return time of the batches per cell update, i.e. including digests and cycle detection.
+     */
+    public double getNanosPerCellUpdate();
+
+    /**
+     * @return number of generations computed by all the batches.
+     */
+    public long getComputedGenerations();
+
+    /**
+     * @return time spent computing generations. Phases are timed only while they are read, so the
+     * first read enables timing.
+     */
+    public long getNextGenerationNanos();
+
+    /**
+     * @return time spent computing digests.
+     * @see #getNextGenerationNanos()
+     */
+    public long getDigestNanos();
+
+    /**
+     * @return time spent in the cycle detector.
+     * @see #getNextGenerationNanos()
+     */
+    public long getCycleDetectionNanos();
+
+    /**
+     * @return time the batches waited for the lock of the field.
+     */
+    public long getLockWaitNanos();
+
+    /**
+     * @return memory used by the cycle detector after the last batch in bytes.
+     */
+    public long getDetectorMemoryUsage();
+
+    /**
+     * Pause the game.
+     * @see LifeGameController#pauseGame()
+     */
+    public void pause();
+
+    /**
+     * Start or resume the game.
+     * @see LifeGameController#startOrResumeGame()
+     */
+    public void resume();
+
+    /**
+     * Compute the next generation of a game which isn't running.
+     * @see LifeGameController#nextGenerations(long)
+     */
+    public void step();
+}
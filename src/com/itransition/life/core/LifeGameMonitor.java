@@ -0,0 +1,157 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * JMX view of a game. The counters are collected by the game itself once per batch, the monitor only
+ * reads them, so a registered monitor costs nothing until somebody reads its attributes.
+ * Register the monitor to see the game in JConsole or VisualVM under the domain DOMAIN.
+ * @see LifeGameControllerMXBean
+ * @see LifeGameStatistics
+ */
+public class LifeGameMonitor implements LifeGameControllerMXBean {
+    /**
+     * JMX domain of the monitors.
+     */
+    public static final String DOMAIN = "com.itransition.life";
+    private static final Log LOGGER = LogFactory.getLog(LifeGameMonitor.class);
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final LifeGameController game;
+    private final LifeGameStatistics statistics;
+    private ObjectName objectName = null;
+    private long lastRateGenerations;
+    private long lastRateTime;
+
+    /**
+     * Create monitor of the game.
+     * @param game game to monitor.
+     */
+    public LifeGameMonitor(LifeGameController game) {
+        this.game = game;
+        this.statistics = game.getStatistics();
+        this.lastRateGenerations = statistics.getGenerations();
+        this.lastRateTime = System.nanoTime();
+    }
+
+    /**
+     * Register the monitor in the platform MBean server.
+     * @param name name of the game, unique among the registered games.
+     * @return name the monitor is registered under.
+     * @throws IllegalStateException if the monitor can't be registered, e.g. the name is taken.
+     */
+    public synchronized ObjectName register(String name) {
+        try {
+            ObjectName newName = new ObjectName(DOMAIN, "name", ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            objectName = newName;
+            return newName;
+        }
+        catch (JMException e) {
+            String errorMessage = "failed to register monitor of the game " + name + ".";
+            LOGGER.error(errorMessage, e);
+            throw new IllegalStateException(errorMessage, e);
+        }
+    }
+
+    /**
+     * Remove the monitor from the platform MBean server. Does nothing if it isn't registered.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+        catch (JMException e) {
+            LOGGER.warn("failed to unregister monitor " + objectName + ".", e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getCurrentGeneration() {
+        return game.getCurrentGeneration();
+    }
+
+    @Override
+    public long getCycleLength() {
+        return game.getCycleLength();
+    }
+
+    @Override
+    public long getNumberOfAliveCells() {
+        LifeFieldSnapshot snapshot = game.getSnapshot();
+        return snapshot == null ? 0 : snapshot.getNumberOfAliveCells();
+    }
+
+    @Override
+    public synchronized double getGenerationsPerSecond() {
+        long generations = statistics.getGenerations();
+        long now = System.nanoTime();
+        double rate = now == lastRateTime ? 0 : (generations - lastRateGenerations) * NANOS_PER_SECOND / (now - lastRateTime);
+        lastRateGenerations = generations;
+        lastRateTime = now;
+        return rate;
+    }
+
+    @Override
+    public double getNanosPerCellUpdate() {
+        long cellUpdates = statistics.getCellUpdates();
+        return cellUpdates == 0 ? 0 : (double) statistics.getBatchNanos() / cellUpdates;
+    }
+
+    @Override
+    public long getComputedGenerations() {
+        return statistics.getGenerations();
+    }
+
+    @Override
+    public long getNextGenerationNanos() {
+        return statistics.getNextGenerationNanos();
+    }
+
+    @Override
+    public long getDigestNanos() {
+        return statistics.getDigestNanos();
+    }
+
+    @Override
+    public long getCycleDetectionNanos() {
+        return statistics.getCycleDetectionNanos();
+    }
+
+    @Override
+    public long getLockWaitNanos() {
+        return statistics.getLockWaitNanos();
+    }
+
+    @Override
+    public long getDetectorMemoryUsage() {
+        return statistics.getDetectorMemoryUsage();
+    }
+
+    @Override
+    public void pause() {
+        game.pauseGame();
+    }
+
+    @Override
+    public void resume() {
+        game.startOrResumeGame();
+    }
+
+    @Override
+    public void step() {
+        game.nextGenerations(1);
+    }
+}
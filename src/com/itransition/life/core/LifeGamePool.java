@@ -0,0 +1,238 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool which runs many games on a fixed number of shared threads instead of a thread per game.
+ * A running game is computed in time slices: a slice computes a batch of generations and puts
+ * the game to the end of the queue of the pool, so the games take turns in round-robin order
+ * and thousands of them can be hosted by a few threads.
+ * Every game may have a quota of generations per second. Quotas are enforced by token buckets:
+ * a game which has used up its generations is delayed until its bucket is refilled instead of
+ * taking a turn.
+ * Threads of the pool are daemon threads, so the pool doesn't keep the JVM alive.
+ * The pool is needed because the build JDK is 17, which has no virtual threads. Only the games created
+ * by the pool are run this way: a game of new LifeGameController() still starts a platform thread on
+ * every start and resume.
+ * @see LifeGameController#startOrResumeGame()
+ */
+public class LifeGamePool {
+    /**
+     * Default duration of a time slice.
+     */
+    public static final long DEFAULT_TIME_SLICE_NANOS = 2000000L;
+    /**
+     * Quota which means that the game isn't limited.
+     */
+    public static final long UNLIMITED = 0;
+    private static final Log LOGGER = LogFactory.getLog(LifeGamePool.class);
+    private static final int MAXIMAL_SLICE_SIZE = 4096;
+    private static final double NANOS_PER_SECOND = 1e9;
+    /**
+     * Bucket of a limited game holds the generations of this part of a second, so a game can't
+     * compute a long burst after it has been idle.
+     */
+    private static final double BURST_SECONDS = 0.1;
+    private final ScheduledThreadPoolExecutor executor;
+    private final long timeSliceNanos;
+    private final Map<LifeGameController, Slot> slots = new ConcurrentHashMap<LifeGameController, Slot>();
+
+    /**
+     * Create pool with a thread per available processor and the default time slice.
+     */
+    public LifeGamePool() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_TIME_SLICE_NANOS);
+    }
+
+    /**
+     * Create pool.
+     * @param parallelism number of threads running the games.
+     * @param timeSliceNanos maximal duration of a turn of a game.
+     * @throws IllegalArgumentException if either parallelism or time slice is not positive.
+     */
+    public LifeGamePool(int parallelism, long timeSliceNanos) {
+        if (parallelism < 1 || timeSliceNanos <= 0) {
+            String errorMessage = "wrong parameters! parallelism = " + parallelism
+                    + "   time slice = " + timeSliceNanos + ". both should be positive.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.timeSliceNanos = timeSliceNanos;
+        this.executor = new ScheduledThreadPoolExecutor(parallelism, new ThreadFactory() {
+            private final AtomicInteger numberOfThreads = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "life-game-pool-" + numberOfThreads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Create game whose generations aren't limited.
+     * @return new game run by the pool.
+     */
+    public LifeGameController createGame() {
+        return createGame(UNLIMITED);
+    }
+
+    /**
+     * Create game with the quota of generations per second.
+     * @param generationsPerSecond quota of the game or UNLIMITED.
+     * @return new game run by the pool.
+     * @throws IllegalArgumentException if the quota is negative.
+     */
+    public LifeGameController createGame(long generationsPerSecond) {
+        LifeGameController game = new LifeGameController(this);
+        Slot slot = new Slot(game);
+        slot.setGenerationsPerSecond(generationsPerSecond);
+        slots.put(game, slot);
+        return game;
+    }
+
+    /**
+     * Change the quota of the game.
+     * @param game game created by the pool.
+     * @param generationsPerSecond quota of the game or UNLIMITED.
+     * @throws IllegalArgumentException if the game wasn't created by the pool or the quota is negative.
+     */
+    public void setGenerationsPerSecond(LifeGameController game, long generationsPerSecond) {
+        getSlot(game).setGenerationsPerSecond(generationsPerSecond);
+    }
+
+    /**
+     * Remove the game from the pool. Running game is paused and can't be run after that.
+     * @param game game created by the pool.
+     * @throws IllegalArgumentException if the game wasn't created by the pool.
+     */
+    public void removeGame(LifeGameController game) {
+        getSlot(game);
+        game.pauseGame();
+        slots.remove(game);
+    }
+
+    /**
+     * @return number of games in the pool.
+     */
+    public int getNumberOfGames() {
+        return slots.size();
+    }
+
+    /**
+     * Stop the threads of the pool. Running games stay running but aren't computed any more.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue turns of the game until it stops running. Does nothing if the game is queued already.
+     */
+    void schedule(LifeGameController game) {
+        Slot slot = slots.get(game);
+        if (slot == null || executor.isShutdown()) {
+            LOGGER.warn("the game isn't computed: it was removed from the pool or the pool was shut down.");
+            return;
+        }
+        if (slot.queued.compareAndSet(false, true)) {
+            executor.execute(slot);
+        }
+    }
+
+    private Slot getSlot(LifeGameController game) {
+        Slot slot = slots.get(game);
+        if (slot == null) {
+            String errorMessage = "the game wasn't created by the pool or was removed from it!";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        return slot;
+    }
+
+    /**
+     * Turn of a game in the queue of the pool together with the token bucket of the game.
+     * The game is queued at most once at a time.
+     */
+    private class Slot implements Runnable {
+        private final LifeGameController game;
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile long generationsPerSecond;
+        private double tokens;
+        private long lastRefill;
+
+        Slot(LifeGameController game) {
+            this.game = game;
+        }
+
+        void setGenerationsPerSecond(long generationsPerSecond) {
+            if (generationsPerSecond < 0) {
+                String errorMessage = "wrong quota! generations per second = " + generationsPerSecond + ".";
+                LOGGER.error(errorMessage);
+                throw new IllegalArgumentException(errorMessage);
+            }
+            this.generationsPerSecond = generationsPerSecond;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long quota = generationsPerSecond;
+                long sliceSize = MAXIMAL_SLICE_SIZE;
+                if (quota != UNLIMITED) {
+                    refill(quota);
+                    if (tokens < 1) {
+                        long delay = (long) Math.ceil((1 - tokens) * NANOS_PER_SECOND / quota);
+                        executor.schedule(this, delay, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+                    sliceSize = Math.min(sliceSize, (long) tokens);
+                }
+                long generations = game.generateBatch(sliceSize, timeSliceNanos);
+                tokens -= generations;
+            }
+            catch (RuntimeException e) {
+                LOGGER.error("turn of a game failed! the game isn't computed any more.", e);
+                game.pauseGame();
+            }
+            requeue();
+        }
+
+        private void refill(long quota) {
+            long now = System.nanoTime();
+            double capacity = Math.max(1, quota * BURST_SECONDS);
+            if (lastRefill == 0) {
+                tokens = capacity;
+            }
+            else {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * quota / NANOS_PER_SECOND);
+            }
+            lastRefill = now;
+        }
+
+        /**
+         * Put the game to the end of the queue if it's still running. The flag is cleared before the
+         * last check, so a game resumed concurrently is queued either here or by schedule().
+         */
+        private void requeue() {
+            if (game.isRunning() && !executor.isShutdown()) {
+                executor.execute(this);
+                return;
+            }
+            queued.set(false);
+            if (game.isRunning() && !executor.isShutdown() && queued.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+    }
+}
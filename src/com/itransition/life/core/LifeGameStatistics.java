@@ -0,0 +1,101 @@
+package com.itransition.life.core;
+
+/**
+ * Performance counters of a game. Counters are cumulative over all the games of the controller and
+ * are updated once per batch of generations by the thread computing the batch, so readers get them
+ * without locking the field.
+ * Timing of the phases of a generation takes a few calls of System.nanoTime() per generation, so it's
+ * done only while somebody reads the phase times: the first read enables it and it's disabled again
+ * when the times haven't been read for PHASE_TIMING_TIMEOUT_NANOS.
+ * @see LifeGameMonitor
+ */
+final class LifeGameStatistics {
+    /**
+     * Phase timing is disabled when the phase times haven't been read for this time.
+     */
+    static final long PHASE_TIMING_TIMEOUT_NANOS = 60000000000L;
+    private volatile long generations;
+    private volatile long cellUpdates;
+    private volatile long batchNanos;
+    private volatile long lockWaitNanos;
+    private volatile long nextGenerationNanos;
+    private volatile long digestNanos;
+    private volatile long cycleDetectionNanos;
+    private volatile long detectorMemoryUsage;
+    private volatile boolean phaseTimingEnabled;
+    private volatile long lastPhaseTimingRead;
+
+    long getGenerations() {
+        return generations;
+    }
+
+    long getCellUpdates() {
+        return cellUpdates;
+    }
+
+    long getBatchNanos() {
+        return batchNanos;
+    }
+
+    long getLockWaitNanos() {
+        return lockWaitNanos;
+    }
+
+    long getDetectorMemoryUsage() {
+        return detectorMemoryUsage;
+    }
+
+    long getNextGenerationNanos() {
+        phaseTimesRead();
+        return nextGenerationNanos;
+    }
+
+    long getDigestNanos() {
+        phaseTimesRead();
+        return digestNanos;
+    }
+
+    long getCycleDetectionNanos() {
+        phaseTimesRead();
+        return cycleDetectionNanos;
+    }
+
+    private void phaseTimesRead() {
+        lastPhaseTimingRead = System.nanoTime();
+        phaseTimingEnabled = true;
+    }
+
+    /**
+     * Should be called once per batch by the thread computing it.
+     * @return true if the batch should time the phases of its generations.
+     */
+    boolean isPhaseTimingEnabled(long now) {
+        if (phaseTimingEnabled && now - lastPhaseTimingRead > PHASE_TIMING_TIMEOUT_NANOS) {
+            phaseTimingEnabled = false;
+        }
+        return phaseTimingEnabled;
+    }
+
+    /**
+     * Add the counters of a batch. Only the thread holding the lock of the field calls it, so the
+     * counters aren't updated concurrently.
+     */
+    void batchComputed(long batchGenerations, long numberOfCells, long batchDurationNanos, long lockWaitDurationNanos,
+                       long detectorMemory) {
+        generations += batchGenerations;
+        cellUpdates += batchGenerations * numberOfCells;
+        batchNanos += batchDurationNanos;
+        lockWaitNanos += lockWaitDurationNanos;
+        detectorMemoryUsage = detectorMemory;
+    }
+
+    /**
+     * Add the phase times of a batch.
+     * @see #batchComputed(long, long, long, long, long)
+     */
+    void phasesTimed(long nextGenerationDurationNanos, long digestDurationNanos, long cycleDetectionDurationNanos) {
+        nextGenerationNanos += nextGenerationDurationNanos;
+        digestNanos += digestDurationNanos;
+        cycleDetectionNanos += cycleDetectionDurationNanos;
+    }
+}
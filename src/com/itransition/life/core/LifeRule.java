@@ -0,0 +1,263 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Outer-totalistic life rule: next state of a cell depends on its state and on the number of its
+ * alive neighbours only. The rule is defined by the neighbour counts on which a dead cell is born
+ * and the neighbour counts on which an alive cell survives, e.g. "B3/S23" is Conway's Game of Life,
+ * "B36/S23" is HighLife, "B3678/S34678" is Day and Night and "B2/S" is Seeds.
+ * Both sets of counts are kept as bit masks (bit k stands for k alive neighbours) and are compiled
+ * into a lookup table and into word masks for the bitwise kernels of bit-packed fields.
+ * Instances are immutable.
+ * @see{http://www.conwaylife.com/wiki/Rulestring}
+ */
+public final class LifeRule {
+    /**
+     * Conway's Game of Life, B3/S23.
+     */
+    public static final LifeRule CONWAY = new LifeRule(1 << 3, (1 << 2) | (1 << 3));
+    /**
+     * Maximal number of alive neighbours of a cell.
+     */
+    public static final int MAXIMAL_NEIGHBOURS_COUNT = 8;
+    private static final Log LOGGER = LogFactory.getLog(LifeRule.class);
+    private static final int STATE_SHIFT = 4;
+    private static final int COUNT_BITS = 4;
+    private final int birthMask;
+    private final int survivalMask;
+    private final boolean[] table;
+    private final long[][] birthPlanes;
+    private final long[][] survivalPlanes;
+    private final long[][] survivalSumPlanes;
+
+    /**
+     * Create a rule from masks of neighbour counts.
+     * @param birthMask bit k is set if a dead cell with k alive neighbours is born.
+     * @param survivalMask bit k is set if an alive cell with k alive neighbours survives.
+     * @throws IllegalArgumentException if a mask has bits for more than MAXIMAL_NEIGHBOURS_COUNT neighbours.
+     */
+    public LifeRule(int birthMask, int survivalMask) {
+        int countsMask = (1 << (MAXIMAL_NEIGHBOURS_COUNT + 1)) - 1;
+        if ((birthMask & ~countsMask) != 0 || (survivalMask & ~countsMask) != 0) {
+            String errorMessage = "wrong rule masks! birth mask = " + Integer.toBinaryString(birthMask)
+                    + "   survival mask = " + Integer.toBinaryString(survivalMask)
+                    + ". maximal number of neighbours is " + MAXIMAL_NEIGHBOURS_COUNT + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.birthMask = birthMask;
+        this.survivalMask = survivalMask;
+        this.table = new boolean[2 << STATE_SHIFT];
+        for (int count = 0; count <= MAXIMAL_NEIGHBOURS_COUNT; count++) {
+            table[count] = isBorn(count);
+            table[(1 << STATE_SHIFT) | count] = isSurviving(count);
+        }
+        this.birthPlanes = getPlanes(birthMask);
+        this.survivalPlanes = getPlanes(survivalMask);
+        this.survivalSumPlanes = getPlanes(survivalMask << 1);
+    }
+
+    /**
+     * Parse a rulestring. Both "B3/S23" notation (in any order and case) and the older "23/3"
+     * notation (survival counts first) are accepted.
+     * @param rulestring rule to parse.
+     * @return parsed rule.
+     * @throws IllegalArgumentException if the rulestring can't be parsed.
+     */
+    public static LifeRule parse(String rulestring) {
+        String[] parts = rulestring == null ? new String[0] : rulestring.trim().split("/", -1);
+        if (parts.length != 2) {
+            throw createParseException(rulestring);
+        }
+        int birthMask = -1;
+        int survivalMask = -1;
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i].trim();
+            char prefix = part.isEmpty() ? ' ' : Character.toUpperCase(part.charAt(0));
+            if (prefix == 'B' && birthMask < 0) {
+                birthMask = parseCounts(part.substring(1), rulestring);
+            }
+            else if (prefix == 'S' && survivalMask < 0) {
+                survivalMask = parseCounts(part.substring(1), rulestring);
+            }
+            else if (part.isEmpty() || Character.isDigit(part.charAt(0))) {
+                if (i == 0 && survivalMask < 0) {
+                    survivalMask = parseCounts(part, rulestring);
+                }
+                else if (i == 1 && birthMask < 0) {
+                    birthMask = parseCounts(part, rulestring);
+                }
+                else {
+                    throw createParseException(rulestring);
+                }
+            }
+            else {
+                throw createParseException(rulestring);
+            }
+        }
+        if (birthMask < 0 || survivalMask < 0) {
+            throw createParseException(rulestring);
+        }
+        return new LifeRule(birthMask, survivalMask);
+    }
+
+    private static int parseCounts(String counts, String rulestring) {
+        int mask = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            int count = counts.charAt(i) - '0';
+            if (count < 0 || count > MAXIMAL_NEIGHBOURS_COUNT) {
+                throw createParseException(rulestring);
+            }
+            mask |= 1 << count;
+        }
+        return mask;
+    }
+
+    private static IllegalArgumentException createParseException(String rulestring) {
+        String errorMessage = "wrong rulestring! rulestring = " + rulestring
+                + ". rulestrings like B3/S23 or 23/3 are expected.";
+        LOGGER.error(errorMessage);
+        return new IllegalArgumentException(errorMessage);
+    }
+
+    /**
+     * For every count of the mask get four words whose bits are set where the corresponding bit
+     * of the count is set, so a count equals k iff the planes of the count XORed with the words of k are zero.
+     */
+    private static long[][] getPlanes(int mask) {
+        long[][] planes = new long[Integer.bitCount(mask)][COUNT_BITS];
+        int i = 0;
+        for (int count = 0; count < Integer.SIZE; count++) {
+            if ((mask & (1 << count)) != 0) {
+                for (int bit = 0; bit < COUNT_BITS; bit++) {
+                    planes[i][bit] = (count & (1 << bit)) != 0 ? -1L : 0L;
+                }
+                i++;
+            }
+        }
+        return planes;
+    }
+
+    /**
+     * @return bit mask of the neighbour counts on which dead cells are born.
+     */
+    public int getBirthMask() {
+        return birthMask;
+    }
+
+    /**
+     * @return bit mask of the neighbour counts on which alive cells survive.
+     */
+    public int getSurvivalMask() {
+        return survivalMask;
+    }
+
+    /**
+     * @return true if a dead cell with the specified number of alive neighbours is born.
+     */
+    public boolean isBorn(int aliveNeighboursCount) {
+        return (birthMask & (1 << aliveNeighboursCount)) != 0;
+    }
+
+    /**
+     * @return true if an alive cell with the specified number of alive neighbours survives.
+     */
+    public boolean isSurviving(int aliveNeighboursCount) {
+        return (survivalMask & (1 << aliveNeighboursCount)) != 0;
+    }
+
+    /**
+     * Look up next state of a cell.
+     * @param alive current state of the cell.
+     * @param aliveNeighboursCount number of alive neighbours of the cell.
+     * @return next state of the cell.
+     */
+    public boolean getNextState(boolean alive, int aliveNeighboursCount) {
+        return table[(alive ? 1 << STATE_SHIFT : 0) | aliveNeighboursCount];
+    }
+
+    /**
+     * Dead cells without alive neighbours are born under such rules, so empty regions don't stay empty.
+     * Fields which only process the neighbourhood of alive cells can't run such rules.
+     * @return true if the rule has B0.
+     */
+    public boolean hasBirthOnZero() {
+        return isBorn(0);
+    }
+
+    /**
+     * @return true if the rule is B3/S23, fields use their hand-written kernels for it.
+     */
+    public boolean isConway() {
+        return equals(CONWAY);
+    }
+
+    /**
+     * Apply the rule to 64 cells at once.
+     * @param cells current states of the cells.
+     * @param ones, twos, fours, eights bit planes of the numbers of alive neighbours of the cells.
+     * @return next states of the cells.
+     */
+    long nextWord(long cells, long ones, long twos, long fours, long eights) {
+        return (~cells & match(birthPlanes, ones, twos, fours, eights))
+                | (cells & match(survivalPlanes, ones, twos, fours, eights));
+    }
+
+    /**
+     * Apply the rule to 64 cells at once when the cells are counted together with their neighbours.
+     * @param cells current states of the cells.
+     * @param ones, twos, fours, eights bit planes of the numbers of alive cells in the 3x3 blocks around the cells.
+     * @return next states of the cells.
+     */
+    long nextWordOfSums(long cells, long ones, long twos, long fours, long eights) {
+        return (~cells & match(birthPlanes, ones, twos, fours, eights))
+                | (cells & match(survivalSumPlanes, ones, twos, fours, eights));
+    }
+
+    private static long match(long[][] planes, long ones, long twos, long fours, long eights) {
+        long matched = 0;
+        for (long[] count : planes) {
+            matched |= ~((ones ^ count[0]) | (twos ^ count[1]) | (fours ^ count[2]) | (eights ^ count[3]));
+        }
+        return matched;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LifeRule)) {
+            return false;
+        }
+        LifeRule rule = (LifeRule) o;
+        return birthMask == rule.birthMask && survivalMask == rule.survivalMask;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * birthMask + survivalMask;
+    }
+
+    /**
+     * @return rulestring in B/S notation, e.g. "B3/S23".
+     */
+    @Override
+    public String toString() {
+        StringBuilder rulestring = new StringBuilder("B");
+        appendCounts(rulestring, birthMask);
+        rulestring.append("/S");
+        appendCounts(rulestring, survivalMask);
+        return rulestring.toString();
+    }
+
+    private static void appendCounts(StringBuilder rulestring, int mask) {
+        for (int count = 0; count <= MAXIMAL_NEIGHBOURS_COUNT; count++) {
+            if ((mask & (1 << count)) != 0) {
+                rulestring.append(count);
+            }
+        }
+    }
+}
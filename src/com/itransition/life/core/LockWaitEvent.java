@@ -0,0 +1,19 @@
+package com.itransition.life.core;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of a batch of generations waiting for the field locked by readers or editors.
+ * @see LifeGameController
+ */
+@Name("com.itransition.life.LockWait")
+@Label("Field Lock Wait")
+@Category("Game of Life")
+@Description("Batch of generations waiting for the lock of the field")
+@Threshold("1 ms")
+final class LockWaitEvent extends Event {
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+}
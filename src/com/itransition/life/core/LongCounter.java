@@ -0,0 +1,106 @@
+package com.itransition.life.core;
+
+import java.util.Arrays;
+
+/**
+ * Map from long keys to small int counters stored in a primitive open-addressing hash table
+ * with linear probing. Counters can only be increased and the whole map can only be cleared
+ * at once, which is all neighbour counting needs. Once the table has grown to the working size
+ * counting and clearing create no garbage. Long.MIN_VALUE can't be used as a key.
+ * @see LongHashSet
+ */
+final class LongCounter {
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    /**
+     * Create new counter which can hold expectedSize keys without growing.
+     * @param expectedSize expected number of keys.
+     */
+    LongCounter(int expectedSize) {
+        allocate(LongHashSet.getCapacity(expectedSize));
+    }
+
+    /**
+     * Add delta to the counter of the key. Counters of new keys start from zero.
+     */
+    void add(long key, int delta) {
+        int slot = LongHashSet.getSlot(key, mask);
+        while (keys[slot] != LongHashSet.FREE) {
+            if (keys[slot] == key) {
+                counts[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        size++;
+        if (size > (mask + 1) >>> 1) {
+            resize((mask + 1) << 1);
+        }
+    }
+
+    /**
+     * Remove all the keys keeping the allocated table.
+     */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, LongHashSet.FREE);
+            size = 0;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get number of slots. Use it together with getKey(int) and getCount(int) to iterate over the keys.
+     */
+    int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Get key stored in the slot.
+     * @return key or LongHashSet.FREE if the slot is free.
+     */
+    long getKey(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Get counter stored in the slot. Meaningless for free slots.
+     */
+    int getCount(int slot) {
+        return counts[slot];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, LongHashSet.FREE);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != LongHashSet.FREE) {
+                int slot = LongHashSet.getSlot(oldKeys[i], mask);
+                while (keys[slot] != LongHashSet.FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                size++;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.itransition.life.core;
+
+import java.util.Arrays;
+
+/**
+ * Set of long values stored in a primitive open-addressing hash table with linear probing.
+ * Boxing and entry objects are avoided, so once the table has grown to the working size adding,
+ * removing and clearing create no garbage. Long.MIN_VALUE is reserved to mark free slots
+ * and can't be stored in the set.
+ */
+final class LongHashSet {
+    /**
+     * Value of a free slot.
+     */
+    static final long FREE = Long.MIN_VALUE;
+    private static final int MINIMAL_CAPACITY = 16;
+    private long[] keys;
+    private int mask;
+    private int size;
+
+    /**
+     * Create new set which can hold expectedSize values without growing.
+     * @param expectedSize expected number of values.
+     */
+    LongHashSet(int expectedSize) {
+        allocate(getCapacity(expectedSize));
+    }
+
+    /**
+     * Add the value to the set.
+     * @return true if the value wasn't in the set.
+     */
+    boolean add(long key) {
+        int slot = getSlot(key, mask);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        size++;
+        if (size > (mask + 1) >>> 1) {
+            resize((mask + 1) << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Test whether the value is in the set.
+     */
+    boolean contains(long key) {
+        int slot = getSlot(key, mask);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the value from the set. Values which follow it in the probe sequence
+     * are shifted back, so no tombstones are left.
+     * @return true if the value was in the set.
+     */
+    boolean remove(long key) {
+        int slot = getSlot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == FREE) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int free = slot;
+        slot = (slot + 1) & mask;
+        while (keys[slot] != FREE) {
+            int home = getSlot(keys[slot], mask);
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                keys[free] = keys[slot];
+                free = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[free] = FREE;
+        size--;
+        return true;
+    }
+
+    /**
+     * Remove all the values keeping the allocated table.
+     */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, FREE);
+            size = 0;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get number of slots. Use it together with getKey(int) to iterate over the values.
+     */
+    int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Get value stored in the slot.
+     * @return value or FREE if the slot is free.
+     */
+    long getKey(int slot) {
+        return keys[slot];
+    }
+
+    static int getSlot(long key, int mask) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    static int getCapacity(int expectedSize) {
+        int capacity = MINIMAL_CAPACITY;
+        while (capacity >>> 1 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        allocate(capacity);
+        for (long key : oldKeys) {
+            if (key != FREE) {
+                int slot = getSlot(key, mask);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                size++;
+            }
+        }
+    }
+}
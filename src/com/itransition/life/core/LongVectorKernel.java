@@ -0,0 +1,89 @@
+package com.itransition.life.core;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector kernels of SimdLifeField written with the jdk.incubator.vector API.
+ * Every method processes as many whole vectors of SPECIES_PREFERRED as fit into the given range
+ * and returns the index of the first word it didn't process, the remaining words are left to
+ * the scalar loops of SimdLifeField. This class is loaded only when the jdk.incubator.vector
+ * module is present.
+ * @see SimdLifeField
+ */
+final class LongVectorKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int LAST_BIT_OF_WORD = BitLifeField.CELLS_PER_WORD - 1;
+
+    private LongVectorKernel() {
+    }
+
+    /**
+     * Vertical sums of three cells as two bit planes, words from 0 to wordsPerRow.
+     * @return index of the first word which wasn't processed.
+     */
+    static int sumColumns(long[] cells, int above, int current, int below,
+                          long[] onesPlane, long[] twosPlane, int wordsPerRow) {
+        int bound = SPECIES.loopBound(wordsPerRow);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector a = LongVector.fromArray(SPECIES, cells, above + i);
+            LongVector c = LongVector.fromArray(SPECIES, cells, current + i);
+            LongVector b = LongVector.fromArray(SPECIES, cells, below + i);
+            LongVector aXorB = a.lanewise(VectorOperators.XOR, b);
+            aXorB.lanewise(VectorOperators.XOR, c).intoArray(onesPlane, i);
+            a.and(b).or(aXorB.and(c)).intoArray(twosPlane, i);
+        }
+        return i;
+    }
+
+    /**
+     * Next states of Conway's rule for the words from 1 to last exclusive. The neighbouring words
+     * are read by loads shifted by one word, so the range never touches the wrapping edges.
+     * @return index of the first word which wasn't processed.
+     */
+    static int nextInnerWords(long[] cells, long[] nextCells, long[] onesPlane, long[] twosPlane,
+                              int current, int last) {
+        int i = 1;
+        for (; i + SPECIES.length() <= last; i += SPECIES.length()) {
+            LongVector one = LongVector.fromArray(SPECIES, onesPlane, i);
+            LongVector two = LongVector.fromArray(SPECIES, twosPlane, i);
+            LongVector westOne = withWest(one, LongVector.fromArray(SPECIES, onesPlane, i - 1));
+            LongVector eastOne = withEast(one, LongVector.fromArray(SPECIES, onesPlane, i + 1));
+            LongVector westTwo = withWest(two, LongVector.fromArray(SPECIES, twosPlane, i - 1));
+            LongVector eastTwo = withEast(two, LongVector.fromArray(SPECIES, twosPlane, i + 1));
+            LongVector c = LongVector.fromArray(SPECIES, cells, current + i);
+            nextWords(westOne, one, eastOne, westTwo, two, eastTwo, c).intoArray(nextCells, current + i);
+        }
+        return i;
+    }
+
+    private static LongVector withWest(LongVector words, LongVector westWords) {
+        return words.lanewise(VectorOperators.LSHL, 1).or(westWords.lanewise(VectorOperators.LSHR, LAST_BIT_OF_WORD));
+    }
+
+    private static LongVector withEast(LongVector words, LongVector eastWords) {
+        return words.lanewise(VectorOperators.LSHR, 1).or(eastWords.lanewise(VectorOperators.LSHL, LAST_BIT_OF_WORD));
+    }
+
+    /**
+     * Same adder as SimdLifeField.nextWord(), lane by lane.
+     */
+    private static LongVector nextWords(LongVector westOne, LongVector one, LongVector eastOne,
+                                        LongVector westTwo, LongVector two, LongVector eastTwo, LongVector c) {
+        LongVector onesXor = westOne.lanewise(VectorOperators.XOR, one);
+        LongVector sum1 = onesXor.lanewise(VectorOperators.XOR, eastOne);
+        LongVector onesCarry = westOne.and(one).or(onesXor.and(eastOne));
+        LongVector twosXor = westTwo.lanewise(VectorOperators.XOR, two);
+        LongVector twosSum = twosXor.lanewise(VectorOperators.XOR, eastTwo);
+        LongVector twosCarry = westTwo.and(two).or(twosXor.and(eastTwo));
+        LongVector sum2 = twosSum.lanewise(VectorOperators.XOR, onesCarry);
+        LongVector sumCarry = twosSum.and(onesCarry);
+        LongVector sum4 = twosCarry.lanewise(VectorOperators.XOR, sumCarry);
+        LongVector sum8 = twosCarry.and(sumCarry);
+        LongVector three = sum1.and(sum2).lanewise(VectorOperators.AND_NOT, sum4);
+        LongVector four = c.lanewise(VectorOperators.AND_NOT, sum1).lanewise(VectorOperators.AND_NOT, sum2).and(sum4);
+        return three.or(four).lanewise(VectorOperators.AND_NOT, sum8);
+    }
+}
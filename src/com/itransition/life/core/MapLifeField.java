@@ -3,16 +3,16 @@ package com.itransition.life.core;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.awt.*;
-import java.util.List;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.*;
+import java.util.Arrays;
 
 /**
  * Life field implementation in which map is used to store alive cells.
+ * Alive cells are packed into long coordinates (x in the high half, y in the low half) and kept in
+ * a primitive open-addressing set. Next generation is computed in a single pass over alive cells
+ * which accumulates neighbour counts in a primitive map, so once the tables have grown to the
+ * working size no garbage is created.
  */
-public class MapLifeField implements DigestableToroidalLifeField {
+public class MapLifeField extends AbstractLifeField {
     /**
      * Minimal width of the field in cells.
      */
@@ -22,44 +22,16 @@ public class MapLifeField implements DigestableToroidalLifeField {
      */
     public static final int MINIMAL_HEIGHT = 3;
     private static final Log LOGGER = LogFactory.getLog(MapLifeField.class);
-    private static final String HASHING_ALGORITHM = "SHA-256";
-    private static final Comparator<Point> POINT_COMPARATOR = new Comparator<Point>() {
-        @Override
-        public int compare(Point a, Point b) {
-            if (a.x < b.x) {
-                return -1;
-            }
-            if (a.x > b.x) {
-                return +1;
-            }
-            if (a.y < b.y) {
-                return -1;
-            }
-            if (a.y > b.y) {
-                return +1;
-            }
-            return 0;
-        }
-    };
-    private static MessageDigest md;
+    private static final int INITIAL_NUMBER_OF_CELLS = 64;
+    private static final int ALIVE_MARK = 16;
     private final int width;
     private final int height;
-    private Set<Point> aliveCells;
-    private Set<Point> survivedAndNewCells;
-
-    static {
-        initializeStaticFields();
-    }
-
-    private static void initializeStaticFields() {
-        try {
-            md = MessageDigest.getInstance(HASHING_ALGORITHM);
-        }
-        catch (NoSuchAlgorithmException trouble) {
-            LOGGER.error("can't find hashing algorithm " + HASHING_ALGORITHM, trouble);
-            // Do nothing: algorithm should exist.
-        }
-    }
+    private LongHashSet aliveCells;
+    private LongHashSet survivedAndNewCells;
+    private final LongCounter neighboursCount;
+    private final DigestStrategy digestStrategy;
+    private final LifeRule rule;
+    private final boolean[] nextStates;
 
     /**
      * Create new life field of the specified size.
@@ -70,6 +42,30 @@ public class MapLifeField implements DigestableToroidalLifeField {
      * @throws IllegalAccessException if either width or height is too small.
      */
     public MapLifeField(int width, int height) {
+        this(width, height, new ZobristDigestStrategy());
+    }
+
+    /**
+     * Create new life field of the specified size which computes its digest with the specified strategy.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public MapLifeField(int width, int height, DigestStrategy digestStrategy) {
+        this(width, height, LifeRule.CONWAY, digestStrategy);
+    }
+
+    /**
+     * Create new life field of the specified size which evolves by the specified rule.
+     * Only the neighbourhoods of alive cells are processed, so rules with B0 are not supported.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param rule rule of the next generation.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small or if the rule has B0.
+     */
+    public MapLifeField(int width, int height, LifeRule rule, DigestStrategy digestStrategy) {
         if (width < MINIMAL_WIDTH || height < MINIMAL_HEIGHT) {
             String errorMessage = "wrong field size! width = " + width + "   height = " + height
                     + ". minimal width is " + MINIMAL_WIDTH
@@ -77,9 +73,39 @@ public class MapLifeField implements DigestableToroidalLifeField {
             LOGGER.error(errorMessage);
             throw new IllegalArgumentException(errorMessage);
         }
+        if (rule.hasBirthOnZero()) {
+            String errorMessage = "wrong rule! rule = " + rule + ". rules with B0 are not supported.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
         this.width = width;
         this.height = height;
-        this.aliveCells = new HashSet<Point>(width * height / 2);
+        this.aliveCells = new LongHashSet(INITIAL_NUMBER_OF_CELLS);
+        this.survivedAndNewCells = new LongHashSet(INITIAL_NUMBER_OF_CELLS);
+        this.neighboursCount = new LongCounter(INITIAL_NUMBER_OF_CELLS);
+        this.digestStrategy = digestStrategy;
+        this.rule = rule;
+        this.nextStates = createNextStates(rule);
+    }
+
+    /**
+     * Next states are indexed by the counters of countNeighbours().
+     */
+    private static boolean[] createNextStates(LifeRule rule) {
+        boolean[] nextStates = new boolean[2 * ALIVE_MARK];
+        for (int count = 0; count <= LifeRule.MAXIMAL_NEIGHBOURS_COUNT; count++) {
+            nextStates[count] = rule.getNextState(false, count);
+            nextStates[ALIVE_MARK + count] = rule.getNextState(true, count);
+        }
+        return nextStates;
+    }
+
+    /**
+     * Get rule of the next generation.
+     * @return rule of the field.
+     */
+    public LifeRule getRule() {
+        return rule;
     }
 
     /**
@@ -87,25 +113,66 @@ public class MapLifeField implements DigestableToroidalLifeField {
      */
     @Override
     public byte[] getDigest() {
-        if (aliveCells.size() == 0) {
-            return md.digest(new byte[] {0});
+        return digestStrategy.getDigest(this);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        int wordsPerRow = BitLifeField.getWordsPerRow(width);
+        Arrays.fill(cells, 0, wordsPerRow * height, 0);
+        for (int slot = 0; slot < aliveCells.getCapacity(); slot++) {
+            long cell = aliveCells.getKey(slot);
+            if (cell == LongHashSet.FREE) {
+                continue;
+            }
+            int x = getX(cell);
+            cells[getY(cell) * wordsPerRow + x / BitLifeField.CELLS_PER_WORD] |= 1L << (x % BitLifeField.CELLS_PER_WORD);
+        }
+    }
+
+    /**
+     * Cells which die are collected before they are removed, so the set isn't changed while it's scanned.
+     * Digest strategy is notified once per changed cell.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        int wordsPerRow = BitLifeField.getWordsPerRow(width);
+        long[] deadCells = new long[aliveCells.size()];
+        int numberOfDeadCells = 0;
+        for (int slot = 0; slot < aliveCells.getCapacity(); slot++) {
+            long cell = aliveCells.getKey(slot);
+            if (cell == LongHashSet.FREE) {
+                continue;
+            }
+            int x = getX(cell);
+            long word = cells[getY(cell) * wordsPerRow + x / BitLifeField.CELLS_PER_WORD];
+            if ((word & (1L << (x % BitLifeField.CELLS_PER_WORD))) == 0) {
+                deadCells[numberOfDeadCells++] = cell;
+            }
         }
-        return md.digest(getByteRepresentation());
-    }
-
-    private byte[] getByteRepresentation() {
-        Point[] aliveCellsArray = aliveCells.toArray(new Point[0]);
-        Arrays.sort(aliveCellsArray, POINT_COMPARATOR);
-        byte[] coordinatesStackedTogether = new byte[2 * aliveCells.size()];
-        int coordinateIndex = 0;
-        for (Point point : aliveCellsArray) {
-            coordinatesStackedTogether[coordinateIndex] = (byte)point.x;
-            coordinateIndex++;
-            coordinatesStackedTogether[coordinateIndex] = (byte)point.y;
-            coordinateIndex++;
+        for (int i = 0; i < numberOfDeadCells; i++) {
+            aliveCells.remove(deadCells[i]);
+            digestStrategy.cellChanged(getX(deadCells[i]), getY(deadCells[i]));
+        }
+        long lastWordMask = BitLifeField.getLastWordMask(width);
+        for (int y = 0; y < height; y++) {
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = BitLifeField.getImportedWord(cells, y * wordsPerRow, i, wordsPerRow, lastWordMask);
+                while (word != 0) {
+                    int x = i * BitLifeField.CELLS_PER_WORD + Long.numberOfTrailingZeros(word);
+                    if (aliveCells.add(getCell(x, y))) {
+                        digestStrategy.cellChanged(x, y);
+                    }
+                    word &= word - 1;
+                }
+            }
         }
-        LOGGER.info("calculated byte representation: " + Arrays.toString(coordinatesStackedTogether));
-        return coordinatesStackedTogether;
     }
 
     /**
@@ -113,11 +180,7 @@ public class MapLifeField implements DigestableToroidalLifeField {
      */
     @Override
     public boolean isAlive(int x, int y) {
-        return aliveCells.contains(new Point(x, y));
-    }
-
-    private boolean isAlive(Point point) {
-        return aliveCells.contains(point);
+        return aliveCells.contains(getCell(x, y));
     }
 
     private int getNumberOfAliveCells() {
@@ -129,12 +192,17 @@ public class MapLifeField implements DigestableToroidalLifeField {
      */
     @Override
     public void setState(int x, int y, boolean state) {
-        Point point = new Point(x, y);
+        long cell = getCell(x, y);
+        boolean changed;
         if (state) {
-            aliveCells.add(point);
-            return;
+            changed = aliveCells.add(cell);
+        }
+        else {
+            changed = aliveCells.remove(cell);
+        }
+        if (changed) {
+            digestStrategy.cellChanged(x, y);
         }
-        aliveCells.remove(point);
     }
 
     /**
@@ -153,73 +221,86 @@ public class MapLifeField implements DigestableToroidalLifeField {
         return height;
     }
 
+    /**
+     * @see AbstractLifeField#canChange().
+     */
+    @Override
+    protected boolean canChange() {
+        return getNumberOfAliveCells() > 0;
+    }
+
     /**
      * @see com.itransition.life.core.DigestableToroidalLifeField#nextGeneration().
      */
     @Override
     public void nextGeneration() {
-        if (getNumberOfAliveCells() == 0) {
-            LOGGER.info("tried to compute next generation but no cells are alive!");
+        if (!canChange()) {
+            LOGGER.debug("tried to compute next generation but no cells are alive!");
             return;
         }
-        survivedAndNewCells = new HashSet<Point>(getWidth() * getHeight() / 2);
-        selectSurvivedCells();
-        selectNewBornCells();
+        countNeighbours();
+        selectSurvivedAndNewBornCells();
+        LongHashSet previousCells = aliveCells;
         aliveCells = survivedAndNewCells;
+        survivedAndNewCells = previousCells;
     }
 
-    private void selectSurvivedCells() {
-        Iterator<Point> iterator = aliveCells.iterator();
-        while (iterator.hasNext()) {
-            Point point = iterator.next();
-            int numberOfAliveNeighbours = getNumberOfAliveNeighbours(point);
-            if (numberOfAliveNeighbours == 2 || numberOfAliveNeighbours == 3) {
-                survivedAndNewCells.add(point);
+    /**
+     * Every alive cell adds one to the counters of its neighbours and ALIVE_MARK to its own counter.
+     */
+    private void countNeighbours() {
+        neighboursCount.clear();
+        for (int slot = 0; slot < aliveCells.getCapacity(); slot++) {
+            long cell = aliveCells.getKey(slot);
+            if (cell == LongHashSet.FREE) {
+                continue;
             }
+            int x = getX(cell);
+            int y = getY(cell);
+            int west = (x == 0 ? getWidth() - 1 : x - 1);
+            int east = (x == getWidth() - 1 ? 0 : x + 1);
+            int north = (y == 0 ? getHeight() - 1 : y - 1);
+            int south = (y == getHeight() - 1 ? 0 : y + 1);
+            neighboursCount.add(cell, ALIVE_MARK);
+            neighboursCount.add(getCell(west, north), 1);
+            neighboursCount.add(getCell(west, y), 1);
+            neighboursCount.add(getCell(west, south), 1);
+            neighboursCount.add(getCell(x, north), 1);
+            neighboursCount.add(getCell(x, south), 1);
+            neighboursCount.add(getCell(east, north), 1);
+            neighboursCount.add(getCell(east, y), 1);
+            neighboursCount.add(getCell(east, south), 1);
         }
     }
 
-    private void selectNewBornCells() {
-        Iterator<Point> iterator = aliveCells.iterator();
-        while (iterator.hasNext()) {
-            isNewBorn(iterator.next());
+    private void selectSurvivedAndNewBornCells() {
+        survivedAndNewCells.clear();
+        for (int slot = 0; slot < neighboursCount.getCapacity(); slot++) {
+            long cell = neighboursCount.getKey(slot);
+            if (cell == LongHashSet.FREE) {
+                continue;
+            }
+            int count = neighboursCount.getCount(slot);
+            boolean wasAlive = count >= ALIVE_MARK;
+            boolean isAlive = nextStates[count];
+            if (isAlive) {
+                survivedAndNewCells.add(cell);
+            }
+            if (isAlive != wasAlive) {
+                digestStrategy.cellChanged(getX(cell), getY(cell));
+            }
         }
     }
 
-    private void isNewBorn(Point point) {
-        List<Point> neighbours = getNeighbouringCells(point);
-        Iterator<Point> iterator = neighbours.iterator();
-        while (iterator.hasNext()) {
-            Point neighbour = iterator.next();
-            if (!isAlive(neighbour) && getNumberOfAliveNeighbours(neighbour) == 3) {
-                survivedAndNewCells.add(neighbour);
-            }
-        }
+    private static long getCell(int x, int y) {
+        return ((long) x << Integer.SIZE) | (y & 0xffffffffL);
     }
 
-    private int getNumberOfAliveNeighbours(Point point) {
-        final int[] MOVE_X = { -1, -1, -1, +0, +0, +1, +1, +1 };
-        final int[] MOVE_Y = { -1, +0, +1, -1, +1, -1, +0, +1 };
-        int aliveNeighboursCount = 0;
-        List<Point> neighbours = getNeighbouringCells(point);
-        Iterator<Point> iterator = neighbours.iterator();
-        while (iterator.hasNext()) {
-            if (isAlive(iterator.next())) {
-                aliveNeighboursCount++;
-            }
-        }
-        return aliveNeighboursCount;
+    private static int getX(long cell) {
+        return (int) (cell >>> Integer.SIZE);
     }
 
-    private List<Point> getNeighbouringCells(Point point) {
-        final int[] MOVE_X = { -1, -1, -1, +0, +0, +1, +1, +1 };
-        final int[] MOVE_Y = { -1, +0, +1, -1, +1, -1, +0, +1 };
-        List<Point> neighbours = new ArrayList<Point>(MOVE_X.length + 2);
-        for (int move = 0; move < MOVE_X.length; move++) {
-            int neighbourX = (getWidth() + point.x + MOVE_X[move]) % getWidth();
-            int neighbourY = (getHeight() + point.y + MOVE_Y[move]) % getHeight();
-            neighbours.add(new Point(neighbourX, neighbourY));
-        }
-        return neighbours;
+    private static int getY(long cell) {
+        return (int) cell;
     }
 }
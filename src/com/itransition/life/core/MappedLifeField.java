@@ -0,0 +1,364 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Life field implementation which keeps its state outside of the heap, in memory-mapped files.
+ * Cells are bit-packed the same way as in BitLifeField, both generation buffers are temporary files
+ * mapped in segments of whole rows, so the number of cells is limited by the disk only and is
+ * counted in long. Next generation is computed in a streaming window of three rows which slides
+ * over the torus, so only a few rows have to be resident in the heap and the operating system's
+ * page cache decides which parts of the files stay in memory.
+ * Temporary files are deleted by close().
+ * @see BitLifeField
+ */
+public class MappedLifeField extends AbstractLifeField implements Closeable {
+    /**
+     * Minimal width of the field in cells.
+     */
+    public static final int MINIMAL_WIDTH = 3;
+    /**
+     * Minimal height of the field in cells.
+     */
+    public static final int MINIMAL_HEIGHT = 3;
+    /**
+     * Default maximal size of a mapped segment in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+    private static final Log LOGGER = LogFactory.getLog(MappedLifeField.class);
+    private static final String FILE_PREFIX = "life";
+    private static final String FILE_SUFFIX = ".cells";
+    private static final int BYTES_PER_WORD = Long.SIZE / Byte.SIZE;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final int lastBit;
+    private final long lastWordMask;
+    private final int rowsPerSegment;
+    private final DigestStrategy digestStrategy;
+    private final LifeRule rule;
+    private final File[] files = new File[2];
+    private final RandomAccessFile[] randomAccessFiles = new RandomAccessFile[2];
+    private final long[] window;
+    private final long[] nextRow;
+    private LongBuffer[] field;
+    private LongBuffer[] nextField;
+    private long numberOfAliveCells;
+
+    /**
+     * Create new life field of the specified size in the default temporary directory.
+     * Size of the field is immutable, but state of the cells can be changed.
+     * Width should be at least MINIMAL_WIDTH and height should be at least MINIMAL_HEIGHT.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @throws IllegalArgumentException if either width or height is too small.
+     * @throws IOException if the temporary files can't be created or mapped.
+     */
+    public MappedLifeField(int width, int height) throws IOException {
+        this(width, height, null, DEFAULT_SEGMENT_SIZE, new ZobristDigestStrategy());
+    }
+
+    /**
+     * Create new life field of the specified size.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param directory directory of the temporary files, null means the default temporary directory.
+     * @param segmentSize maximal size of a mapped segment in bytes, it's rounded down to whole rows
+     * and should be enough for at least one row.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small or if a row doesn't fit
+     * into a segment.
+     * @throws IOException if the temporary files can't be created or mapped.
+     */
+    public MappedLifeField(int width, int height, File directory, int segmentSize, DigestStrategy digestStrategy)
+            throws IOException {
+        this(width, height, directory, segmentSize, LifeRule.CONWAY, digestStrategy);
+    }
+
+    /**
+     * Create new life field of the specified size which evolves by the specified rule.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param directory directory of the temporary files, null means the default temporary directory.
+     * @param segmentSize maximal size of a mapped segment in bytes, it's rounded down to whole rows
+     * and should be enough for at least one row.
+     * @param rule rule of the next generation.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small or if a row doesn't fit
+     * into a segment.
+     * @throws IOException if the temporary files can't be created or mapped.
+     */
+    public MappedLifeField(int width, int height, File directory, int segmentSize, LifeRule rule,
+                           DigestStrategy digestStrategy) throws IOException {
+        if (width < MINIMAL_WIDTH || height < MINIMAL_HEIGHT) {
+            String errorMessage = "wrong field size! width = " + width + "   height = " + height
+                    + ". minimal width is " + MINIMAL_WIDTH
+                    + " and minimal height is " + MINIMAL_HEIGHT + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        int bytesPerRow = BitLifeField.getWordsPerRow(width) * BYTES_PER_WORD;
+        if (segmentSize < bytesPerRow) {
+            String errorMessage = "wrong segment size! segment size = " + segmentSize
+                    + ". a row of the field takes " + bytesPerRow + " bytes.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = BitLifeField.getWordsPerRow(width);
+        this.lastBit = BitLifeField.getLastBit(width);
+        this.lastWordMask = BitLifeField.getLastWordMask(width);
+        this.rowsPerSegment = Math.min(height, segmentSize / bytesPerRow);
+        this.digestStrategy = digestStrategy;
+        this.rule = rule;
+        this.window = new long[3 * wordsPerRow];
+        this.nextRow = new long[wordsPerRow];
+        this.numberOfAliveCells = 0;
+        try {
+            this.field = map(0, directory);
+            this.nextField = map(1, directory);
+        }
+        catch (IOException e) {
+            LOGGER.error("can't map the field to temporary files!", e);
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Create the temporary file and map it segment by segment.
+     * New file is filled with zeros, so all the cells are dead.
+     */
+    private LongBuffer[] map(int fileIndex, File directory) throws IOException {
+        files[fileIndex] = File.createTempFile(FILE_PREFIX, FILE_SUFFIX, directory);
+        files[fileIndex].deleteOnExit();
+        randomAccessFiles[fileIndex] = new RandomAccessFile(files[fileIndex], "rw");
+        long bytesPerRow = (long) wordsPerRow * BYTES_PER_WORD;
+        randomAccessFiles[fileIndex].setLength(bytesPerRow * height);
+        FileChannel channel = randomAccessFiles[fileIndex].getChannel();
+        int numberOfSegments = (height + rowsPerSegment - 1) / rowsPerSegment;
+        LongBuffer[] segments = new LongBuffer[numberOfSegments];
+        for (int i = 0; i < numberOfSegments; i++) {
+            int rows = Math.min(rowsPerSegment, height - i * rowsPerSegment);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                    bytesPerRow * i * rowsPerSegment, bytesPerRow * rows);
+            segments[i] = segment.order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        return segments;
+    }
+
+    /**
+     * Get rule of the next generation.
+     * @return rule of the field.
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Get number of cells that are still alive.
+     * @return number of alive cells.
+     */
+    public long getNumberOfAliveCells() {
+        return numberOfAliveCells;
+    }
+
+    /**
+     * Delete the temporary files. The field can't be used after that.
+     * Mapped segments are released by the garbage collector, so if the operating system doesn't allow
+     * deleting mapped files, they are deleted on exit.
+     */
+    @Override
+    public void close() throws IOException {
+        field = null;
+        nextField = null;
+        for (int i = 0; i < files.length; i++) {
+            if (randomAccessFiles[i] != null) {
+                randomAccessFiles[i].close();
+                randomAccessFiles[i] = null;
+            }
+            if (files[i] != null && !files[i].delete()) {
+                LOGGER.warn("can't delete " + files[i] + ", it will be deleted on exit.");
+            }
+            files[i] = null;
+        }
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getDigest().
+     */
+    @Override
+    public byte[] getDigest() {
+        return digestStrategy.getDigest(this);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        for (int y = 0; y < height; y++) {
+            LongBuffer segment = getSegment(field, y);
+            segment.position(getWordIndex(0, y));
+            segment.get(cells, y * wordsPerRow, wordsPerRow);
+        }
+    }
+
+    /**
+     * Digest strategy is notified once per changed word.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        numberOfAliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            LongBuffer segment = getSegment(field, y);
+            int firstWord = getWordIndex(0, y);
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = BitLifeField.getImportedWord(cells, y * wordsPerRow, i, wordsPerRow, lastWordMask);
+                long changedCells = segment.get(firstWord + i) ^ word;
+                if (changedCells != 0) {
+                    segment.put(firstWord + i, word);
+                    digestStrategy.cellsChanged(i, y, changedCells);
+                }
+                numberOfAliveCells += Long.bitCount(word);
+            }
+        }
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#isAlive(int, int).
+     */
+    @Override
+    public boolean isAlive(int x, int y) {
+        return (getSegment(field, y).get(getWordIndex(x, y)) & getBitMask(x)) != 0;
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#setState(int, int, boolean).
+     */
+    @Override
+    public void setState(int x, int y, boolean state) {
+        LongBuffer segment = getSegment(field, y);
+        int wordIndex = getWordIndex(x, y);
+        long word = segment.get(wordIndex);
+        long bitMask = getBitMask(x);
+        boolean currentState = (word & bitMask) != 0;
+        if (currentState == state) {
+            return;
+        }
+        segment.put(wordIndex, word ^ bitMask);
+        numberOfAliveCells += state ? 1 : -1;
+        digestStrategy.cellChanged(x, y);
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getWidth().
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getHeight().
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @see AbstractLifeField#canChange().
+     */
+    @Override
+    protected boolean canChange() {
+        return getNumberOfAliveCells() > 0 || rule.hasBirthOnZero();
+    }
+
+    /**
+     * Rows are streamed through a window of three rows: when a row is computed, the row above it
+     * is replaced with the row which is two rows below.
+     * @see com.itransition.life.core.DigestableToroidalLifeField#nextGeneration().
+     */
+    @Override
+    public void nextGeneration() {
+        if (!canChange()) {
+            LOGGER.debug("tried to compute next generation but no cells are alive!");
+            return;
+        }
+        int above = 0;
+        int current = wordsPerRow;
+        int below = 2 * wordsPerRow;
+        readRow(height - 1, above);
+        readRow(0, current);
+        readRow(1, below);
+        long aliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            aliveCells += BitLifeField.nextRow(window, above, current, below, nextRow, 0,
+                    wordsPerRow, lastBit, lastWordMask, rule);
+            reportChangedCells(current, y);
+            writeRow(y);
+            int free = above;
+            above = current;
+            current = below;
+            below = free;
+            if (y < height - 1) {
+                readRow(y + 2 < height ? y + 2 : y + 2 - height, below);
+            }
+        }
+        LongBuffer[] previousField = field;
+        field = nextField;
+        nextField = previousField;
+        numberOfAliveCells = aliveCells;
+    }
+
+    private void reportChangedCells(int current, int y) {
+        for (int i = 0; i < wordsPerRow; i++) {
+            long changedCells = nextRow[i] ^ window[current + i];
+            if (changedCells != 0) {
+                digestStrategy.cellsChanged(i, y, changedCells);
+            }
+        }
+    }
+
+    private void readRow(int y, int target) {
+        LongBuffer segment = getSegment(field, y);
+        segment.position(getWordIndex(0, y));
+        segment.get(window, target, wordsPerRow);
+    }
+
+    private void writeRow(int y) {
+        LongBuffer segment = getSegment(nextField, y);
+        segment.position(getWordIndex(0, y));
+        segment.put(nextRow, 0, wordsPerRow);
+    }
+
+    private LongBuffer getSegment(LongBuffer[] segments, int y) {
+        return segments[y / rowsPerSegment];
+    }
+
+    /**
+     * Get index of the word within its segment.
+     */
+    private int getWordIndex(int x, int y) {
+        return (y % rowsPerSegment) * wordsPerRow + x / BitLifeField.CELLS_PER_WORD;
+    }
+
+    private static long getBitMask(int x) {
+        return 1L << (x % BitLifeField.CELLS_PER_WORD);
+    }
+}
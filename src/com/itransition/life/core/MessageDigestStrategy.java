@@ -0,0 +1,107 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digest strategy which hashes the whole state of the field with a message digest algorithm
+ * such as SHA-256. Cells are read row by row and packed eight per byte, so the digest doesn't
+ * depend on the field's implementation. Changes of the cells are ignored, every digest costs
+ * time proportional to the field's size.
+ * @see java.security.MessageDigest
+ */
+public class MessageDigestStrategy implements DigestStrategy {
+    /**
+     * Default hashing algorithm.
+     */
+    public static final String DEFAULT_HASHING_ALGORITHM = "SHA-256";
+    private static final Log LOGGER = LogFactory.getLog(MessageDigestStrategy.class);
+    private final MessageDigest md;
+    private byte[] cells = new byte[0];
+
+    /**
+     * Create new strategy which uses the default hashing algorithm.
+     * @see #DEFAULT_HASHING_ALGORITHM
+     */
+    public MessageDigestStrategy() {
+        this(DEFAULT_HASHING_ALGORITHM);
+    }
+
+    /**
+     * Create new strategy which uses the specified hashing algorithm.
+     * @param algorithm name of the algorithm, e.g. "MD5" or "SHA-256".
+     * @throws IllegalArgumentException if the algorithm is not available.
+     */
+    public MessageDigestStrategy(String algorithm) {
+        try {
+            md = MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException trouble) {
+            String errorMessage = "can't find hashing algorithm " + algorithm;
+            LOGGER.error(errorMessage, trouble);
+            throw new IllegalArgumentException(errorMessage, trouble);
+        }
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void cellChanged(int x, int y) {
+        // Do nothing.
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void cellsChanged(int wordX, int y, long changedCells) {
+        // Do nothing.
+    }
+
+    /**
+     * Nothing needs to be collected, so the strategy itself is returned.
+     * @see DigestStrategy#newPartial().
+     */
+    @Override
+    public DigestStrategy newPartial() {
+        return this;
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void merge(DigestStrategy partial) {
+        // Do nothing.
+    }
+
+    /**
+     * @see DigestStrategy#getDigest(DigestableToroidalLifeField).
+     */
+    @Override
+    public byte[] getDigest(DigestableToroidalLifeField field) {
+        final int WIDTH = field.getWidth();
+        final int HEIGHT = field.getHeight();
+        final int BYTES_PER_ROW = (WIDTH + Byte.SIZE - 1) / Byte.SIZE;
+        if (cells.length != BYTES_PER_ROW * HEIGHT) {
+            cells = new byte[BYTES_PER_ROW * HEIGHT];
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int byteIndex = 0; byteIndex < BYTES_PER_ROW; byteIndex++) {
+                int packedCells = 0;
+                for (int bit = 0; bit < Byte.SIZE; bit++) {
+                    int x = byteIndex * Byte.SIZE + bit;
+                    if (x < WIDTH && field.isAlive(x, y)) {
+                        packedCells |= 1 << bit;
+                    }
+                }
+                cells[y * BYTES_PER_ROW + byteIndex] = (byte) packedCells;
+            }
+        }
+        return md.digest(cells);
+    }
+}
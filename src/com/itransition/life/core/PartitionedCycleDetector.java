@@ -0,0 +1,310 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Cycle detector implementing the partitioned variant of the stack cycle detection algorithm.
+ * Digests are split into several partitions by their bits and every partition has its own stack,
+ * so the cycle is detected as soon as the minimal digest of any partition repeats, which happens
+ * after a fraction of a cycle instead of up to two full cycles.
+ * All the stacks are kept in a single flat long[] arena: an entry is the step followed by the digest
+ * packed into long words, so no objects are created per digest. The arena grows up to the memory limit,
+ * which holds while the arena is being copied too; if a stack overflows at the limit all the stacks
+ * are cleared and detection starts over from the current digest, which delays detection but never
+ * makes it wrong.
+ * @see{http://www.gabrielnivasch.org/fun/cycle-detection}
+ */
+public class PartitionedCycleDetector implements DigestCycleDetector {
+    /**
+     * Default number of stacks.
+     */
+    public static final int DEFAULT_NUMBER_OF_STACKS = 16;
+    /**
+     * Default limit of the memory used by the stacks in bytes.
+     */
+    public static final long DEFAULT_MEMORY_LIMIT = 1024 * 1024;
+    private static final Log LOGGER = LogFactory.getLog(PartitionedCycleDetector.class);
+    private static final int INITIAL_STACK_CAPACITY = 16;
+    private static final int BYTES_PER_WORD = Long.SIZE / Byte.SIZE;
+    private final int numberOfStacks;
+    private final long memoryLimit;
+    private final int[] stackSizes;
+    private int digestLength = -1;
+    private int entrySize;
+    private int stackCapacity;
+    private long[] arena;
+    private long[] digestWords;
+    private long currentStep = 0;
+    private long cycleLength = 0;
+    private long numberOfRestarts = 0;
+
+    /**
+     * Create cycle detector with the default number of stacks and the default memory limit.
+     */
+    public PartitionedCycleDetector() {
+        this(DEFAULT_NUMBER_OF_STACKS, DEFAULT_MEMORY_LIMIT);
+    }
+
+    /**
+     * Create cycle detector.
+     * @param numberOfStacks number of partitions of the digests, 1 gives the original stack algorithm.
+     * @param memoryLimit limit of the memory used by the stacks in bytes.
+     * @throws IllegalArgumentException if either number of stacks or memory limit is not positive.
+     */
+    public PartitionedCycleDetector(int numberOfStacks, long memoryLimit) {
+        if (numberOfStacks < 1 || memoryLimit <= 0) {
+            String errorMessage = "wrong parameters! number of stacks = " + numberOfStacks
+                    + "   memory limit = " + memoryLimit + ". both should be positive.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.numberOfStacks = numberOfStacks;
+        this.memoryLimit = memoryLimit;
+        this.stackSizes = new int[numberOfStacks];
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestCycleDetector#getCycleLength().
+     */
+    @Override
+    public long getCycleLength() {
+        return cycleLength;
+    }
+
+    /**
+     * Get memory used by the stacks.
+     * @return size of the arena in bytes.
+     */
+    @Override
+    public long getMemoryUsage() {
+        return arena == null ? 0 : (long) arena.length * BYTES_PER_WORD;
+    }
+
+    /**
+     * Get number of times the stacks were cleared because the memory limit was reached.
+     * @return number of restarts.
+     */
+    public long getNumberOfRestarts() {
+        return numberOfRestarts;
+    }
+
+    /**
+     * If cycle has been already found it does nothing.
+     * All the digests should have the same length.
+     * @param digest message digest of fixed length such as MD5 or SHA-256.
+     * @throws IllegalArgumentException if the digest differs in length from the first one or if
+     * not even one digest per stack fits into the memory limit.
+     * @see DigestCycleDetector#addDigest(byte[]).
+     */
+    @Override
+    public void addDigest(byte[] digest) {
+        if (cycleLength > 0) {
+            return;
+        }
+        if (arena == null) {
+            initialize(digest.length);
+        }
+        else if (digest.length != digestLength) {
+            String errorMessage = "wrong digest length! length = " + digest.length
+                    + ". length of the first digest is " + digestLength + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        currentStep++;
+        packDigest(digest);
+        int stack = getStack();
+        int size = stackSizes[stack];
+        while (size > 0) {
+            int top = getEntry(stack, size - 1);
+            int compareResult = compareDigests(top + 1);
+            if (compareResult == 0) {
+                cycleLength = currentStep - arena[top];
+                return;
+            }
+            if (compareResult < 0) {
+                break;
+            }
+            size--;
+        }
+        if (size == stackCapacity && !grow()) {
+            restart();
+            size = 0;
+        }
+        int entry = getEntry(stack, size);
+        arena[entry] = currentStep;
+        System.arraycopy(digestWords, 0, arena, entry + 1, digestWords.length);
+        stackSizes[stack] = size + 1;
+    }
+
+    /**
+     * Copy the state of the detector, so that it can be saved while the original goes on.
+     * @return detector which continues from the same step with the same stacks.
+     */
+    PartitionedCycleDetector copy() {
+        PartitionedCycleDetector copy = new PartitionedCycleDetector(numberOfStacks, memoryLimit);
+        System.arraycopy(stackSizes, 0, copy.stackSizes, 0, numberOfStacks);
+        copy.digestLength = digestLength;
+        copy.entrySize = entrySize;
+        copy.stackCapacity = stackCapacity;
+        copy.arena = arena == null ? null : arena.clone();
+        copy.digestWords = digestWords == null ? null : digestWords.clone();
+        copy.currentStep = currentStep;
+        copy.cycleLength = cycleLength;
+        copy.numberOfRestarts = numberOfRestarts;
+        return copy;
+    }
+
+    /**
+     * Write the state of the detector. Only the entries of the stacks are written, not the whole arena.
+     * @see #readState(DataInput)
+     */
+    void writeState(DataOutput output) throws IOException {
+        output.writeInt(numberOfStacks);
+        output.writeLong(memoryLimit);
+        output.writeLong(currentStep);
+        output.writeLong(cycleLength);
+        output.writeLong(numberOfRestarts);
+        output.writeInt(digestLength);
+        if (arena == null) {
+            return;
+        }
+        output.writeInt(stackCapacity);
+        for (int stack = 0; stack < numberOfStacks; stack++) {
+            output.writeInt(stackSizes[stack]);
+            int entry = getEntry(stack, 0);
+            for (int i = 0; i < stackSizes[stack] * entrySize; i++) {
+                output.writeLong(arena[entry + i]);
+            }
+        }
+    }
+
+    /**
+     * Read the state written by writeState(DataOutput).
+     * @return detector which continues from the saved step.
+     * @throws IllegalArgumentException if the state is corrupted.
+     */
+    static PartitionedCycleDetector readState(DataInput input) throws IOException {
+        PartitionedCycleDetector detector = new PartitionedCycleDetector(input.readInt(), input.readLong());
+        detector.currentStep = input.readLong();
+        detector.cycleLength = input.readLong();
+        detector.numberOfRestarts = input.readLong();
+        int length = input.readInt();
+        if (length < 0) {
+            return detector;
+        }
+        detector.initialize(length);
+        int capacity = input.readInt();
+        while (detector.stackCapacity < capacity) {
+            if (!detector.grow()) {
+                String errorMessage = "wrong state of the cycle detector! stack capacity " + capacity
+                        + " exceeds the memory limit " + detector.memoryLimit + ".";
+                LOGGER.error(errorMessage);
+                throw new IllegalArgumentException(errorMessage);
+            }
+        }
+        for (int stack = 0; stack < detector.numberOfStacks; stack++) {
+            int size = input.readInt();
+            if (size < 0 || size > detector.stackCapacity) {
+                String errorMessage = "wrong state of the cycle detector! stack size = " + size
+                        + ". stack capacity is " + detector.stackCapacity + ".";
+                LOGGER.error(errorMessage);
+                throw new IllegalArgumentException(errorMessage);
+            }
+            detector.stackSizes[stack] = size;
+            int entry = detector.getEntry(stack, 0);
+            for (int i = 0; i < size * detector.entrySize; i++) {
+                detector.arena[entry + i] = input.readLong();
+            }
+        }
+        return detector;
+    }
+
+    private void initialize(int length) {
+        int wordsPerDigest = (length + BYTES_PER_WORD - 1) / BYTES_PER_WORD;
+        long entryBytes = (long) (wordsPerDigest + 1) * BYTES_PER_WORD;
+        long capacity = Math.min(INITIAL_STACK_CAPACITY, memoryLimit / (entryBytes * numberOfStacks));
+        if (capacity < 1) {
+            String errorMessage = "memory limit is too low! memory limit = " + memoryLimit
+                    + ". " + numberOfStacks + " digests of " + length + " bytes don't fit into it.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        digestLength = length;
+        entrySize = wordsPerDigest + 1;
+        stackCapacity = (int) capacity;
+        arena = new long[numberOfStacks * stackCapacity * entrySize];
+        digestWords = new long[wordsPerDigest];
+    }
+
+    /**
+     * Double capacity of every stack, or increase it as much as possible below the memory limit.
+     * The old arena is alive while it is copied into the new one, so both of them are counted
+     * against the limit.
+     * @return true if the arena has grown.
+     */
+    private boolean grow() {
+        long entriesLength = (long) numberOfStacks * entrySize;
+        long freeLength = memoryLimit / BYTES_PER_WORD - arena.length;
+        long newCapacity = Math.min(2L * stackCapacity, Math.min(freeLength, Integer.MAX_VALUE) / entriesLength);
+        if (newCapacity <= stackCapacity) {
+            return false;
+        }
+        long newLength = newCapacity * entriesLength;
+        long[] newArena = new long[(int) newLength];
+        for (int stack = 0; stack < numberOfStacks; stack++) {
+            System.arraycopy(arena, getEntry(stack, 0), newArena, (int) (stack * newCapacity * entrySize),
+                    stackSizes[stack] * entrySize);
+        }
+        arena = newArena;
+        stackCapacity = (int) newCapacity;
+        return true;
+    }
+
+    private void restart() {
+        Arrays.fill(stackSizes, 0);
+        numberOfRestarts++;
+        LOGGER.info("memory limit of " + memoryLimit + " bytes is reached at step " + currentStep
+                + ". cycle detection starts over.");
+    }
+
+    /**
+     * Pack the digest into long words, the bytes are big-endian and the last word is padded with zeros.
+     */
+    private void packDigest(byte[] digest) {
+        Arrays.fill(digestWords, 0);
+        for (int i = 0; i < digest.length; i++) {
+            int shift = Long.SIZE - Byte.SIZE * (i % BYTES_PER_WORD + 1);
+            digestWords[i / BYTES_PER_WORD] |= (digest[i] & 0xffL) << shift;
+        }
+    }
+
+    /**
+     * Stack is chosen by the lowest bits of the digest, while the order of the digests is decided
+     * by their highest bits first.
+     */
+    private int getStack() {
+        long lastWord = digestWords[digestWords.length - 1];
+        int padding = digestWords.length * BYTES_PER_WORD - digestLength;
+        return (int) ((lastWord >>> (padding * Byte.SIZE)) & Integer.MAX_VALUE) % numberOfStacks;
+    }
+
+    private int compareDigests(int from) {
+        for (int i = 0; i < digestWords.length; i++) {
+            long word = arena[from + i];
+            if (word != digestWords[i]) {
+                return word < digestWords[i] ? -1 : +1;
+            }
+        }
+        return 0;
+    }
+
+    private int getEntry(int stack, int index) {
+        return (stack * stackCapacity + index) * entrySize;
+    }
+}
@@ -0,0 +1,385 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Life field implementation whose inner loops run on SIMD instructions.
+ * Cells are bit-packed the same way as in BitLifeField. For every row the vertical sums of three
+ * cells are computed as two bit planes first, then the horizontal sums of those planes give the
+ * number of alive cells in every 3x3 block. Both passes over the inner words of a row are written
+ * with LongVector of the preferred species of the jdk.incubator.vector API, so one instruction
+ * processes as many words as the CPU's widest vector register holds. Words left over when the
+ * lane count doesn't divide the row, and the first and the last words of a row, which wrap around
+ * the torus, are processed by a scalar kernel. Rules other than Conway's are matched by the scalar
+ * kernel too. The vector API is used only if the JVM was started with
+ * --add-modules jdk.incubator.vector, otherwise the whole row is processed by the scalar kernel.
+ * @see BitLifeField
+ * @see LongVectorKernel
+ */
+public class SimdLifeField extends AbstractLifeField {
+    /**
+     * Minimal width of the field in cells.
+     */
+    public static final int MINIMAL_WIDTH = 3;
+    /**
+     * Minimal height of the field in cells.
+     */
+    public static final int MINIMAL_HEIGHT = 3;
+    private static final Log LOGGER = LogFactory.getLog(SimdLifeField.class);
+    private static final int LAST_BIT_OF_WORD = BitLifeField.CELLS_PER_WORD - 1;
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final int lastBit;
+    private final long lastWordMask;
+    private final DigestStrategy digestStrategy;
+    private final LifeRule rule;
+    private final boolean conway;
+    private final long[] ones;
+    private final long[] twos;
+    private long[] field;
+    private long[] nextField;
+    private int numberOfAliveCells;
+
+    /**
+     * Create new life field of the specified size.
+     * Size of the field is immutable, but state of the cells can be changed.
+     * Width should be at least MINIMAL_WIDTH and height should be at least MINIMAL_HEIGHT.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public SimdLifeField(int width, int height) {
+        this(width, height, new ZobristDigestStrategy());
+    }
+
+    /**
+     * Create new life field of the specified size which computes its digest with the specified strategy.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public SimdLifeField(int width, int height, DigestStrategy digestStrategy) {
+        this(width, height, LifeRule.CONWAY, digestStrategy);
+    }
+
+    /**
+     * Create new life field of the specified size which evolves by the specified rule.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param rule rule of the next generation.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public SimdLifeField(int width, int height, LifeRule rule, DigestStrategy digestStrategy) {
+        if (width < MINIMAL_WIDTH || height < MINIMAL_HEIGHT) {
+            String errorMessage = "wrong field size! width = " + width + "   height = " + height
+                    + ". minimal width is " + MINIMAL_WIDTH
+                    + " and minimal height is " + MINIMAL_HEIGHT + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = BitLifeField.getWordsPerRow(width);
+        this.lastBit = BitLifeField.getLastBit(width);
+        this.lastWordMask = BitLifeField.getLastWordMask(width);
+        this.digestStrategy = digestStrategy;
+        this.rule = rule;
+        this.conway = rule.isConway();
+        this.ones = new long[wordsPerRow];
+        this.twos = new long[wordsPerRow];
+        this.field = new long[wordsPerRow * height];
+        this.nextField = new long[wordsPerRow * height];
+        this.numberOfAliveCells = 0;
+    }
+
+    /**
+     * Get rule of the next generation.
+     * @return rule of the field.
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Check whether the inner loops run on the vector API.
+     * @return true if the jdk.incubator.vector module was added to the JVM.
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Get number of cells that are still alive.
+     * @return number of alive cells.
+     */
+    public int getNumberOfAliveCells() {
+        return numberOfAliveCells;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getDigest().
+     */
+    @Override
+    public byte[] getDigest() {
+        return digestStrategy.getDigest(this);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        System.arraycopy(field, 0, cells, 0, field.length);
+    }
+
+    /**
+     * Digest strategy is notified once per changed word.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        numberOfAliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            int row = y * wordsPerRow;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = BitLifeField.getImportedWord(cells, row, i, wordsPerRow, lastWordMask);
+                long changedCells = field[row + i] ^ word;
+                if (changedCells != 0) {
+                    field[row + i] = word;
+                    digestStrategy.cellsChanged(i, y, changedCells);
+                }
+                numberOfAliveCells += Long.bitCount(word);
+            }
+        }
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#isAlive(int, int).
+     */
+    @Override
+    public boolean isAlive(int x, int y) {
+        return (field[getWordIndex(x, y)] & getBitMask(x)) != 0;
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#setState(int, int, boolean).
+     */
+    @Override
+    public void setState(int x, int y, boolean state) {
+        int wordIndex = getWordIndex(x, y);
+        long bitMask = getBitMask(x);
+        boolean currentState = (field[wordIndex] & bitMask) != 0;
+        if (currentState == state) {
+            return;
+        }
+        field[wordIndex] ^= bitMask;
+        numberOfAliveCells += state ? 1 : -1;
+        digestStrategy.cellChanged(x, y);
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getWidth().
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getHeight().
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @see AbstractLifeField#canChange().
+     */
+    @Override
+    protected boolean canChange() {
+        return getNumberOfAliveCells() > 0 || rule.hasBirthOnZero();
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#nextGeneration().
+     */
+    @Override
+    public void nextGeneration() {
+        if (!canChange()) {
+            LOGGER.debug("tried to compute next generation but no cells are alive!");
+            return;
+        }
+        int aliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            int above = (y == 0 ? height - 1 : y - 1) * wordsPerRow;
+            int current = y * wordsPerRow;
+            int below = (y == height - 1 ? 0 : y + 1) * wordsPerRow;
+            sumColumns(above, current, below);
+            if (conway) {
+                nextInnerWords(current);
+            }
+            else {
+                nextInnerWordsByRule(current);
+            }
+            nextEdgeWords(current);
+            aliveCells += reportChangedCells(current, y);
+        }
+        long[] previousField = field;
+        field = nextField;
+        nextField = previousField;
+        numberOfAliveCells = aliveCells;
+    }
+
+    /**
+     * Vertical sums of three cells (from 0 to 3) are stored as two bit planes.
+     */
+    private void sumColumns(int above, int current, int below) {
+        final long[] cells = field;
+        final long[] onesPlane = ones;
+        final long[] twosPlane = twos;
+        int i = VECTORIZED
+                ? LongVectorKernel.sumColumns(cells, above, current, below, onesPlane, twosPlane, wordsPerRow) : 0;
+        for (; i < wordsPerRow; i++) {
+            long a = cells[above + i];
+            long c = cells[current + i];
+            long b = cells[below + i];
+            long aXorB = a ^ b;
+            onesPlane[i] = aXorB ^ c;
+            twosPlane[i] = (a & b) | (aXorB & c);
+        }
+    }
+
+    /**
+     * Words which don't touch the edges of the torus: whole vectors first, then the scalar tail.
+     */
+    private void nextInnerWords(int current) {
+        final long[] cells = field;
+        final long[] nextCells = nextField;
+        final long[] onesPlane = ones;
+        final long[] twosPlane = twos;
+        final int last = wordsPerRow - 1;
+        int i = VECTORIZED ? LongVectorKernel.nextInnerWords(cells, nextCells, onesPlane, twosPlane, current, last) : 1;
+        for (; i < last; i++) {
+            long one = onesPlane[i];
+            long two = twosPlane[i];
+            long westOne = (one << 1) | (onesPlane[i - 1] >>> LAST_BIT_OF_WORD);
+            long eastOne = (one >>> 1) | (onesPlane[i + 1] << LAST_BIT_OF_WORD);
+            long westTwo = (two << 1) | (twosPlane[i - 1] >>> LAST_BIT_OF_WORD);
+            long eastTwo = (two >>> 1) | (twosPlane[i + 1] << LAST_BIT_OF_WORD);
+            nextCells[current + i] = nextWord(westOne, one, eastOne, westTwo, two, eastTwo, cells[current + i]);
+        }
+    }
+
+    /**
+     * Inner words under rules other than Conway's, the rule is matched word by word.
+     */
+    private void nextInnerWordsByRule(int current) {
+        final int last = wordsPerRow - 1;
+        for (int i = 1; i < last; i++) {
+            long one = ones[i];
+            long two = twos[i];
+            long westOne = (one << 1) | (ones[i - 1] >>> LAST_BIT_OF_WORD);
+            long eastOne = (one >>> 1) | (ones[i + 1] << LAST_BIT_OF_WORD);
+            long westTwo = (two << 1) | (twos[i - 1] >>> LAST_BIT_OF_WORD);
+            long eastTwo = (two >>> 1) | (twos[i + 1] << LAST_BIT_OF_WORD);
+            nextField[current + i] = nextWord(rule, westOne, one, eastOne, westTwo, two, eastTwo, field[current + i]);
+        }
+    }
+
+    /**
+     * Scalar kernel for the first and the last words of a row which wrap around the torus.
+     */
+    private void nextEdgeWords(int current) {
+        final int last = wordsPerRow - 1;
+        nextCells(current, 0, last);
+        if (last > 0) {
+            nextCells(current, last, last);
+        }
+    }
+
+    private void nextCells(int current, int i, int last) {
+        long one = ones[i];
+        long two = twos[i];
+        long westOne = (one << 1) | (i == 0 ? (ones[last] >>> lastBit) & 1L : ones[i - 1] >>> LAST_BIT_OF_WORD);
+        long westTwo = (two << 1) | (i == 0 ? (twos[last] >>> lastBit) & 1L : twos[i - 1] >>> LAST_BIT_OF_WORD);
+        long eastOne = (one >>> 1) | (i == last ? (ones[0] & 1L) << lastBit : ones[i + 1] << LAST_BIT_OF_WORD);
+        long eastTwo = (two >>> 1) | (i == last ? (twos[0] & 1L) << lastBit : twos[i + 1] << LAST_BIT_OF_WORD);
+        long nextWord;
+        if (conway) {
+            nextWord = nextWord(westOne, one, eastOne, westTwo, two, eastTwo, field[current + i]);
+        }
+        else {
+            nextWord = nextWord(rule, westOne, one, eastOne, westTwo, two, eastTwo, field[current + i]);
+        }
+        if (i == last) {
+            nextWord &= lastWordMask;
+        }
+        nextField[current + i] = nextWord;
+    }
+
+    /**
+     * Add three vertical sums to get the sum of the 3x3 block (from 0 to 9) in four bit planes.
+     * A cell is alive in the next generation if the sum is 3, or if the sum is 4 and the cell is alive.
+     */
+    private static long nextWord(long westOne, long one, long eastOne, long westTwo, long two, long eastTwo, long c) {
+        long onesXor = westOne ^ one;
+        long sum1 = onesXor ^ eastOne;
+        long onesCarry = (westOne & one) | (onesXor & eastOne);
+        long twosXor = westTwo ^ two;
+        long twosSum = twosXor ^ eastTwo;
+        long twosCarry = (westTwo & two) | (twosXor & eastTwo);
+        long sum2 = twosSum ^ onesCarry;
+        long sumCarry = twosSum & onesCarry;
+        long sum4 = twosCarry ^ sumCarry;
+        long sum8 = twosCarry & sumCarry;
+        return ~sum8 & ((sum1 & sum2 & ~sum4) | (c & ~sum1 & ~sum2 & sum4));
+    }
+
+    /**
+     * Same sums as in nextWord(), matched against an arbitrary rule.
+     */
+    private static long nextWord(LifeRule rule, long westOne, long one, long eastOne,
+                                 long westTwo, long two, long eastTwo, long c) {
+        long onesXor = westOne ^ one;
+        long sum1 = onesXor ^ eastOne;
+        long onesCarry = (westOne & one) | (onesXor & eastOne);
+        long twosXor = westTwo ^ two;
+        long twosSum = twosXor ^ eastTwo;
+        long twosCarry = (westTwo & two) | (twosXor & eastTwo);
+        long sum2 = twosSum ^ onesCarry;
+        long sumCarry = twosSum & onesCarry;
+        long sum4 = twosCarry ^ sumCarry;
+        long sum8 = twosCarry & sumCarry;
+        return rule.nextWordOfSums(c, sum1, sum2, sum4, sum8);
+    }
+
+    private int reportChangedCells(int current, int y) {
+        int aliveCells = 0;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long nextWord = nextField[current + i];
+            aliveCells += Long.bitCount(nextWord);
+            long changedCells = nextWord ^ field[current + i];
+            if (changedCells != 0) {
+                digestStrategy.cellsChanged(i, y, changedCells);
+            }
+        }
+        return aliveCells;
+    }
+
+    private int getWordIndex(int x, int y) {
+        return y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD;
+    }
+
+    private static long getBitMask(int x) {
+        return 1L << (x % BitLifeField.CELLS_PER_WORD);
+    }
+}
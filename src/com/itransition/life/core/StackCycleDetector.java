@@ -12,6 +12,10 @@ import java.util.*;
  */
 public class StackCycleDetector implements DigestCycleDetector {
     private static final Log LOGGER = LogFactory.getLog(StackCycleDetector.class);
+    /**
+     * Estimated size of an array header, a boxed Long and two references to them.
+     */
+    private static final int ESTIMATED_ENTRY_OVERHEAD = 48;
     private long currentStep = 0;
     private Stack<byte[]> hashStack = new Stack<byte[]>();
     private Stack<Long> stepStack = new Stack<Long>();
@@ -25,6 +29,18 @@ public class StackCycleDetector implements DigestCycleDetector {
         return cycleLength;
     }
 
+    /**
+     * Memory is estimated: every digest is a separate array and every step is a boxed Long.
+     * @see com.itransition.life.core.DigestCycleDetector#getMemoryUsage().
+     */
+    @Override
+    public long getMemoryUsage() {
+        if (hashStack.isEmpty()) {
+            return 0;
+        }
+        return (long) hashStack.size() * (hashStack.peek().length + ESTIMATED_ENTRY_OVERHEAD);
+    }
+
     /**
      * If cycle has been already found it does nothing.
      * Do not add different digests that differ in length!
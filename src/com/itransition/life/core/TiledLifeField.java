@@ -0,0 +1,335 @@
+package com.itransition.life.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Arrays;
+
+/**
+ * Life field implementation which only recomputes the active parts of the field.
+ * Cells are bit-packed the same way as in BitLifeField and the field is split into tiles of
+ * one word (64 cells) by TILE_HEIGHT rows. A tile is active if it or any of its eight neighbouring
+ * tiles changed during the last generation or was edited since then. Cells of an inactive tile
+ * can't change, so such tiles are skipped. Both generation buffers are kept equal in every tile
+ * which didn't change during the last generation, so skipped tiles need no copying either.
+ * @see BitLifeField
+ */
+public class TiledLifeField extends AbstractLifeField {
+    /**
+     * Minimal width of the field in cells.
+     */
+    public static final int MINIMAL_WIDTH = 3;
+    /**
+     * Minimal height of the field in cells.
+     */
+    public static final int MINIMAL_HEIGHT = 3;
+    /**
+     * Width of a tile in cells.
+     */
+    public static final int TILE_WIDTH = BitLifeField.CELLS_PER_WORD;
+    /**
+     * Height of a tile in cells.
+     */
+    public static final int TILE_HEIGHT = 64;
+    private static final Log LOGGER = LogFactory.getLog(TiledLifeField.class);
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final int lastBit;
+    private final long lastWordMask;
+    private final int tilesPerRow;
+    private final int tilesPerColumn;
+    private final DigestStrategy digestStrategy;
+    private final LifeRule rule;
+    private final boolean conway;
+    private long[] field;
+    private long[] nextField;
+    private boolean[] activeTiles;
+    private boolean[] changedTiles;
+    private int numberOfActiveTiles;
+    private int numberOfAliveCells;
+
+    /**
+     * Create new life field of the specified size.
+     * Size of the field is immutable, but state of the cells can be changed.
+     * Width should be at least MINIMAL_WIDTH and height should be at least MINIMAL_HEIGHT.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public TiledLifeField(int width, int height) {
+        this(width, height, new ZobristDigestStrategy());
+    }
+
+    /**
+     * Create new life field of the specified size which computes its digest with the specified strategy.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small.
+     */
+    public TiledLifeField(int width, int height, DigestStrategy digestStrategy) {
+        this(width, height, LifeRule.CONWAY, digestStrategy);
+    }
+
+    /**
+     * Create new life field of the specified size which evolves by the specified rule.
+     * Empty tiles are never recomputed, so rules with B0 are not supported.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param rule rule of the next generation.
+     * @param digestStrategy strategy of computing the digest, it shouldn't be shared with other fields.
+     * @throws IllegalArgumentException if either width or height is too small or if the rule has B0.
+     */
+    public TiledLifeField(int width, int height, LifeRule rule, DigestStrategy digestStrategy) {
+        if (width < MINIMAL_WIDTH || height < MINIMAL_HEIGHT) {
+            String errorMessage = "wrong field size! width = " + width + "   height = " + height
+                    + ". minimal width is " + MINIMAL_WIDTH
+                    + " and minimal height is " + MINIMAL_HEIGHT + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        if (rule.hasBirthOnZero()) {
+            String errorMessage = "wrong rule! rule = " + rule + ". rules with B0 are not supported.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = BitLifeField.getWordsPerRow(width);
+        this.lastBit = BitLifeField.getLastBit(width);
+        this.lastWordMask = BitLifeField.getLastWordMask(width);
+        this.tilesPerRow = wordsPerRow;
+        this.tilesPerColumn = (height + TILE_HEIGHT - 1) / TILE_HEIGHT;
+        this.digestStrategy = digestStrategy;
+        this.rule = rule;
+        this.conway = rule.isConway();
+        this.field = new long[wordsPerRow * height];
+        this.nextField = new long[wordsPerRow * height];
+        this.activeTiles = new boolean[tilesPerRow * tilesPerColumn];
+        this.changedTiles = new boolean[tilesPerRow * tilesPerColumn];
+        this.numberOfActiveTiles = 0;
+        this.numberOfAliveCells = 0;
+    }
+
+    /**
+     * Get number of tiles which will be recomputed in the next generation.
+     * @return number of active tiles.
+     */
+    public int getNumberOfActiveTiles() {
+        return numberOfActiveTiles;
+    }
+
+    /**
+     * Get total number of tiles the field is split into.
+     * @return number of tiles.
+     */
+    public int getNumberOfTiles() {
+        return activeTiles.length;
+    }
+
+    /**
+     * Get rule of the next generation.
+     * @return rule of the field.
+     */
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Get number of cells that are still alive.
+     * @return number of alive cells.
+     */
+    public int getNumberOfAliveCells() {
+        return numberOfAliveCells;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getDigest().
+     */
+    @Override
+    public byte[] getDigest() {
+        return digestStrategy.getDigest(this);
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#exportState(long[]).
+     */
+    @Override
+    public void exportState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        System.arraycopy(field, 0, cells, 0, field.length);
+    }
+
+    /**
+     * Digest strategy is notified once per changed word, tiles around the changed words are activated.
+     * @see DigestableToroidalLifeField#importState(long[]).
+     */
+    @Override
+    public void importState(long[] cells) {
+        BitLifeField.checkStateLength(width, height, cells);
+        numberOfAliveCells = 0;
+        for (int y = 0; y < height; y++) {
+            int row = y * wordsPerRow;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = BitLifeField.getImportedWord(cells, row, i, wordsPerRow, lastWordMask);
+                long changedCells = field[row + i] ^ word;
+                if (changedCells != 0) {
+                    field[row + i] = word;
+                    nextField[row + i] = word;
+                    digestStrategy.cellsChanged(i, y, changedCells);
+                    activateNeighbourhood(i * BitLifeField.CELLS_PER_WORD / TILE_WIDTH, y / TILE_HEIGHT);
+                }
+                numberOfAliveCells += Long.bitCount(word);
+            }
+        }
+    }
+
+    /**
+     * @see DigestableToroidalLifeField#isAlive(int, int).
+     */
+    @Override
+    public boolean isAlive(int x, int y) {
+        return (field[getWordIndex(x, y)] & getBitMask(x)) != 0;
+    }
+
+    /**
+     * Edited cell's tile and its neighbours are activated.
+     * @see DigestableToroidalLifeField#setState(int, int, boolean).
+     */
+    @Override
+    public void setState(int x, int y, boolean state) {
+        int wordIndex = getWordIndex(x, y);
+        long bitMask = getBitMask(x);
+        boolean currentState = (field[wordIndex] & bitMask) != 0;
+        if (currentState == state) {
+            return;
+        }
+        field[wordIndex] ^= bitMask;
+        nextField[wordIndex] ^= bitMask;
+        numberOfAliveCells += state ? 1 : -1;
+        digestStrategy.cellChanged(x, y);
+        activateNeighbourhood(x / TILE_WIDTH, y / TILE_HEIGHT);
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getWidth().
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#getHeight().
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @see AbstractLifeField#canChange().
+     */
+    @Override
+    protected boolean canChange() {
+        return getNumberOfAliveCells() > 0;
+    }
+
+    /**
+     * @see com.itransition.life.core.DigestableToroidalLifeField#nextGeneration().
+     */
+    @Override
+    public void nextGeneration() {
+        if (!canChange()) {
+            LOGGER.debug("tried to compute next generation but no cells are alive!");
+            return;
+        }
+        Arrays.fill(changedTiles, false);
+        for (int tileY = 0; tileY < tilesPerColumn; tileY++) {
+            for (int tileX = 0; tileX < tilesPerRow; tileX++) {
+                int tile = tileY * tilesPerRow + tileX;
+                if (activeTiles[tile]) {
+                    changedTiles[tile] = computeTile(tileX, tileY);
+                }
+            }
+        }
+        long[] previousField = field;
+        field = nextField;
+        nextField = previousField;
+        updateActiveTiles();
+    }
+
+    /**
+     * Compute next states of the tile's cells.
+     * @return true if any cell of the tile has changed.
+     */
+    private boolean computeTile(int tileX, int tileY) {
+        boolean changed = false;
+        int last = wordsPerRow - 1;
+        int toY = Math.min(height, (tileY + 1) * TILE_HEIGHT);
+        for (int y = tileY * TILE_HEIGHT; y < toY; y++) {
+            int above = (y == 0 ? height - 1 : y - 1) * wordsPerRow;
+            int current = y * wordsPerRow;
+            int below = (y == height - 1 ? 0 : y + 1) * wordsPerRow;
+            long aboveWest = BitLifeField.westWord(field, above, tileX, last, lastBit, lastWordMask);
+            long aboveEast = BitLifeField.eastWord(field, above, tileX, last, lastBit);
+            long west = BitLifeField.westWord(field, current, tileX, last, lastBit, lastWordMask);
+            long east = BitLifeField.eastWord(field, current, tileX, last, lastBit);
+            long belowWest = BitLifeField.westWord(field, below, tileX, last, lastBit, lastWordMask);
+            long belowEast = BitLifeField.eastWord(field, below, tileX, last, lastBit);
+            long nextWord;
+            if (conway) {
+                nextWord = BitLifeField.nextWord(aboveWest, field[above + tileX], aboveEast,
+                        west, field[current + tileX], east, belowWest, field[below + tileX], belowEast);
+            }
+            else {
+                nextWord = BitLifeField.nextWord(rule, aboveWest, field[above + tileX], aboveEast,
+                        west, field[current + tileX], east, belowWest, field[below + tileX], belowEast);
+            }
+            long currentWord = field[current + tileX];
+            nextField[current + tileX] = nextWord;
+            long changedCells = nextWord ^ currentWord;
+            if (changedCells != 0) {
+                changed = true;
+                numberOfAliveCells += Long.bitCount(nextWord) - Long.bitCount(currentWord);
+                digestStrategy.cellsChanged(tileX, y, changedCells);
+            }
+        }
+        return changed;
+    }
+
+    private void updateActiveTiles() {
+        Arrays.fill(activeTiles, false);
+        numberOfActiveTiles = 0;
+        for (int tileY = 0; tileY < tilesPerColumn; tileY++) {
+            for (int tileX = 0; tileX < tilesPerRow; tileX++) {
+                if (changedTiles[tileY * tilesPerRow + tileX]) {
+                    activateNeighbourhood(tileX, tileY);
+                }
+            }
+        }
+    }
+
+    private void activateNeighbourhood(int tileX, int tileY) {
+        for (int moveY = -1; moveY <= 1; moveY++) {
+            int neighbourY = (tilesPerColumn + tileY + moveY) % tilesPerColumn;
+            for (int moveX = -1; moveX <= 1; moveX++) {
+                int neighbourX = (tilesPerRow + tileX + moveX) % tilesPerRow;
+                int tile = neighbourY * tilesPerRow + neighbourX;
+                if (!activeTiles[tile]) {
+                    activeTiles[tile] = true;
+                    numberOfActiveTiles++;
+                }
+            }
+        }
+    }
+
+    private int getWordIndex(int x, int y) {
+        return y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD;
+    }
+
+    private static long getBitMask(int x) {
+        return 1L << (x % BitLifeField.CELLS_PER_WORD);
+    }
+}
@@ -0,0 +1,87 @@
+package com.itransition.life.core;
+
+/**
+ * Incremental 128-bit digest in the style of Zobrist hashing.
+ * Every cell has two pseudo-random 64-bit keys derived from its coordinates, digest of the field
+ * is XOR of the keys of all alive cells. Each change of a cell toggles its keys, so the digest is
+ * updated in constant time per change and read in constant time. Keys are computed on the fly,
+ * so no tables proportional to the field's size are needed.
+ * @see{http://en.wikipedia.org/wiki/Zobrist_hashing}
+ */
+public class ZobristDigestStrategy implements DigestStrategy {
+    /**
+     * Length of the digest in bytes.
+     */
+    public static final int DIGEST_LENGTH = 2 * Long.SIZE / Byte.SIZE;
+    private long high = 0;
+    private long low = 0;
+
+    /**
+     * @see DigestStrategy#cellChanged(int, int).
+     */
+    @Override
+    public void cellChanged(int x, int y) {
+        long cell = getRowKey(y) ^ (x * 0x9e3779b97f4a7c15L);
+        high ^= mix(cell);
+        low ^= mix(cell + 0x632be59bd9b4e019L);
+    }
+
+    /**
+     * Row key is computed once for all the changed cells.
+     * @see DigestStrategy#cellsChanged(int, int, long).
+     */
+    @Override
+    public void cellsChanged(int wordX, int y, long changedCells) {
+        long rowKey = getRowKey(y);
+        int firstX = wordX * Long.SIZE;
+        while (changedCells != 0) {
+            int x = firstX + Long.numberOfTrailingZeros(changedCells);
+            long cell = rowKey ^ (x * 0x9e3779b97f4a7c15L);
+            high ^= mix(cell);
+            low ^= mix(cell + 0x632be59bd9b4e019L);
+            changedCells &= changedCells - 1;
+        }
+    }
+
+    /**
+     * @see DigestStrategy#newPartial().
+     */
+    @Override
+    public DigestStrategy newPartial() {
+        return new ZobristDigestStrategy();
+    }
+
+    /**
+     * @see DigestStrategy#merge(DigestStrategy).
+     */
+    @Override
+    public void merge(DigestStrategy partial) {
+        ZobristDigestStrategy changes = (ZobristDigestStrategy) partial;
+        high ^= changes.high;
+        low ^= changes.low;
+    }
+
+    /**
+     * Returns the current 128-bit hash, the field itself is not read.
+     * @see DigestStrategy#getDigest(DigestableToroidalLifeField).
+     */
+    @Override
+    public byte[] getDigest(DigestableToroidalLifeField field) {
+        byte[] digest = new byte[DIGEST_LENGTH];
+        for (int i = 0; i < Long.SIZE / Byte.SIZE; i++) {
+            digest[i] = (byte) (high >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+            digest[i + Long.SIZE / Byte.SIZE] = (byte) (low >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+        }
+        return digest;
+    }
+
+    private static long getRowKey(int y) {
+        return mix(y * 0xc2b2ae3d27d4eb4fL + 0x165667b19e3779f9L);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,233 @@
+package com.itransition.life.gui;
+
+import com.itransition.life.core.BitLifeField;
+
+/**
+ * Multi-resolution counts of alive cells of a field, used to render zoomed out views.
+ * Level k splits the field into blocks of 2^k x 2^k cells and keeps the number of alive cells of
+ * every block, level 0 is the field itself kept as bit-packed cells, the last level is a single
+ * block. Blocks of the levels below FIRST_STORED_LEVEL are counted from the cells when they are
+ * requested, which takes a few operations per block. The stored levels are updated incrementally:
+ * cells are compared with the previous state word by word and only the changed words change the
+ * counts of their blocks, so an update costs a pass over the words plus time proportional to the
+ * number of changed words. Counts of the blocks within a word are computed for all the blocks
+ * at once by adding bit fields of the word.
+ * @see com.itransition.life.core.DigestableToroidalLifeField#exportState(long[])
+ */
+public class DensityPyramid {
+    /**
+     * First level whose counts are stored, its blocks are a byte of a word wide.
+     */
+    public static final int FIRST_STORED_LEVEL = 3;
+    private static final int LEVEL_OF_WORD = 6;
+    private static final long[] FIELD_MASKS = {
+            0x00ff00ff00ff00ffL, 0x0000ffff0000ffffL, 0x00000000ffffffffL
+    };
+    private static final long[] LANE_MASKS = {
+            0x5555555555555555L, 0x3333333333333333L, 0x0f0f0f0f0f0f0f0fL
+    };
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final int numberOfLevels;
+    private final int[][] counts;
+    private final int[] blocksPerRow;
+    private long[] cells;
+
+    /**
+     * Create pyramid of a field without alive cells.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     */
+    public DensityPyramid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = BitLifeField.getStateLength(width, 1);
+        int levels = 1;
+        while ((1 << (levels - 1)) < Math.max(width, height)) {
+            levels++;
+        }
+        this.numberOfLevels = levels;
+        this.counts = new int[levels][];
+        this.blocksPerRow = new int[levels];
+        for (int level = FIRST_STORED_LEVEL; level < levels; level++) {
+            blocksPerRow[level] = getNumberOfBlocks(width, level);
+            counts[level] = new int[blocksPerRow[level] * getNumberOfBlocks(height, level)];
+        }
+        this.cells = new long[BitLifeField.getStateLength(width, height)];
+    }
+
+    private static int getNumberOfBlocks(int cells, int level) {
+        return ((cells - 1) >> level) + 1;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return number of levels including level 0 of single cells.
+     */
+    public int getNumberOfLevels() {
+        return numberOfLevels;
+    }
+
+    /**
+     * Bring the pyramid to the new state of the field.
+     * @param newCells bit-packed cells of the field as exported by the field, the array isn't kept.
+     */
+    public void update(long[] newCells) {
+        for (int y = 0; y < height; y++) {
+            int row = y * wordsPerRow;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long oldWord = cells[row + i];
+                long newWord = newCells[row + i];
+                if (oldWord != newWord) {
+                    wordChanged(i, y, oldWord, newWord);
+                    cells[row + i] = newWord;
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbers of alive cells of the bytes of both words are computed at once, then pairs of bit fields
+     * are added to get the numbers of alive cells of wider parts of the words. Blocks as wide as a word
+     * or wider get the difference of the whole words.
+     */
+    private void wordChanged(int wordX, int y, long oldWord, long newWord) {
+        int firstX = wordX * BitLifeField.CELLS_PER_WORD;
+        long oldCounts = countBytes(oldWord);
+        long newCounts = countBytes(newWord);
+        int fieldWidth = Byte.SIZE;
+        for (int level = FIRST_STORED_LEVEL; level < numberOfLevels; level++) {
+            int blockRow = (y >> level) * blocksPerRow[level];
+            if (level < LEVEL_OF_WORD) {
+                long fieldMask = (1L << fieldWidth) - 1;
+                for (int bit = 0; bit < BitLifeField.CELLS_PER_WORD; bit += fieldWidth) {
+                    int difference = (int) ((newCounts >>> bit) & fieldMask) - (int) ((oldCounts >>> bit) & fieldMask);
+                    if (difference != 0) {
+                        counts[level][blockRow + ((firstX + bit) >> level)] += difference;
+                    }
+                }
+                long mask = FIELD_MASKS[level - FIRST_STORED_LEVEL];
+                oldCounts = (oldCounts & mask) + ((oldCounts >>> fieldWidth) & mask);
+                newCounts = (newCounts & mask) + ((newCounts >>> fieldWidth) & mask);
+                fieldWidth *= 2;
+            }
+            else {
+                counts[level][blockRow + (firstX >> level)] += Long.bitCount(newWord) - Long.bitCount(oldWord);
+            }
+        }
+    }
+
+    /**
+     * Count alive cells of every byte of the word, the counts are stored in the bytes of the result.
+     */
+    private static long countBytes(long word) {
+        long counts = word - ((word >>> 1) & 0x5555555555555555L);
+        counts = (counts & 0x3333333333333333L) + ((counts >>> 2) & 0x3333333333333333L);
+        return (counts + (counts >>> 4)) & 0x0f0f0f0f0f0f0f0fL;
+    }
+
+    /**
+     * @return true if the cell (x;y) is alive.
+     */
+    public boolean isAlive(int x, int y) {
+        return (cells[y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD] & (1L << (x % BitLifeField.CELLS_PER_WORD))) != 0;
+    }
+
+    /**
+     * Get number of alive cells in the block.
+     * @param level level of the block, 0 means a single cell.
+     * @param blockX column of the block, i.e. x of its cells divided by 2^level.
+     * @param blockY row of the block, i.e. y of its cells divided by 2^level.
+     * @return number of alive cells.
+     */
+    public int getCount(int level, int blockX, int blockY) {
+        if (level == 0) {
+            return isAlive(blockX, blockY) ? 1 : 0;
+        }
+        if (level < FIRST_STORED_LEVEL) {
+            return countBlock(level, blockX, blockY);
+        }
+        return counts[level][blockY * blocksPerRow[level] + blockX];
+    }
+
+    /**
+     * Blocks of the low levels are narrower than a word and don't cross words.
+     */
+    private int countBlock(int level, int blockX, int blockY) {
+        int blockSize = 1 << level;
+        int x = blockX << level;
+        int shift = x % BitLifeField.CELLS_PER_WORD;
+        long mask = (1L << blockSize) - 1;
+        int count = 0;
+        int lastY = Math.min(height, (blockY + 1) << level);
+        for (int y = blockY << level; y < lastY; y++) {
+            count += Long.bitCount((cells[y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD] >>> shift) & mask);
+        }
+        return count;
+    }
+
+    /**
+     * Get numbers of alive cells of all the blocks of a row, which is much faster than getting them one
+     * by one for the levels which aren't stored. Blocks of such a level are bit fields of the words of
+     * their rows: the fields of every row are counted, the odd and the even ones are moved apart to
+     * lanes twice as wide and the lanes are added up for all the rows of the block at once.
+     * @param level level of the blocks, 0 means single cells.
+     * @param blockY row of the blocks, i.e. y of their cells divided by 2^level.
+     * @param rowCounts array which receives the numbers of alive cells of the blocks from column 0, it
+     * should be long enough for all the blocks of the row.
+     * @see #getCount(int, int, int)
+     */
+    public void getRowCounts(int level, int blockY, int[] rowCounts) {
+        int numberOfBlocks = getNumberOfBlocks(width, level);
+        if (level >= FIRST_STORED_LEVEL) {
+            System.arraycopy(counts[level], blockY * blocksPerRow[level], rowCounts, 0, numberOfBlocks);
+            return;
+        }
+        int fieldWidth = 1 << level;
+        int laneWidth = 2 * fieldWidth;
+        long laneMask = LANE_MASKS[level];
+        long countMask = (1L << laneWidth) - 1;
+        int blocksPerWord = BitLifeField.CELLS_PER_WORD >> level;
+        int firstY = blockY << level;
+        int lastY = Math.min(height, firstY + fieldWidth);
+        for (int i = 0; i < wordsPerRow; i++) {
+            long evenCounts = 0;
+            long oddCounts = 0;
+            for (int y = firstY; y < lastY; y++) {
+                long fieldCounts = cells[y * wordsPerRow + i];
+                for (int l = 0; l < level; l++) {
+                    fieldCounts = (fieldCounts & LANE_MASKS[l]) + ((fieldCounts >>> (1 << l)) & LANE_MASKS[l]);
+                }
+                evenCounts += fieldCounts & laneMask;
+                oddCounts += (fieldCounts >>> fieldWidth) & laneMask;
+            }
+            int firstBlock = i * blocksPerWord;
+            int lastBlock = Math.min(numberOfBlocks, firstBlock + blocksPerWord);
+            for (int block = firstBlock; block < lastBlock; block += 2) {
+                int shift = (block - firstBlock) * fieldWidth;
+                rowCounts[block] = (int) ((evenCounts >>> shift) & countMask);
+                if (block + 1 < lastBlock) {
+                    rowCounts[block + 1] = (int) ((oddCounts >>> shift) & countMask);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get number of cells in the block. Blocks at the right and bottom edges of the field may be smaller.
+     * @see #getCount(int, int, int)
+     */
+    public int getArea(int level, int blockX, int blockY) {
+        int blockWidth = Math.min(1 << level, width - (blockX << level));
+        int blockHeight = Math.min(1 << level, height - (blockY << level));
+        return blockWidth * blockHeight;
+    }
+}
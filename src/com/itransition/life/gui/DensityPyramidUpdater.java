@@ -0,0 +1,117 @@
+package com.itransition.life.gui;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.LifeFieldSnapshot;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps a DensityPyramid of the last snapshot of a field without updating it on the thread which reads it.
+ * Two pyramids are kept: the front one is read by the renderer, the back one is brought to the newest
+ * snapshot on a background thread and replaces the front one when it's finished. The pyramids are handed
+ * over only in update(), so the background thread never changes the pyramid being painted and the
+ * renderer never reads a pyramid being updated. A pyramid is built on the calling thread only when there
+ * is none of the size of the snapshot yet, i.e. on the first update and when the field is resized.
+ * All the methods but the constructor should be called by one thread, which is the event dispatch
+ * thread of a renderer.
+ * @see DensityPyramid
+ * @see ToroidalLifeFieldRenderer
+ */
+public class DensityPyramidUpdater {
+    private final ExecutorService executor;
+    private final Runnable updateListener;
+    private DensityPyramid pyramid;
+    private LifeFieldSnapshot snapshot;
+    private DensityPyramid sparePyramid;
+    private boolean updating;
+    private long[] cells;
+    private LifeFieldSnapshot finishedSnapshot;
+    private volatile DensityPyramid finishedPyramid;
+
+    /**
+     * Create updater without a pyramid.
+     * @param updateListener called on the background thread every time a pyramid is finished, it
+     * usually repaints the renderer.
+     */
+    public DensityPyramidUpdater(Runnable updateListener) {
+        this.updateListener = updateListener;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "density-pyramid-updater");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Take the pyramid finished by the background thread and start bringing the spare one to the
+     * new snapshot unless an update is in progress.
+     * @param newSnapshot last snapshot of the field.
+     * @return true if the pyramid to paint has changed.
+     */
+    public boolean update(LifeFieldSnapshot newSnapshot) {
+        boolean changed = false;
+        DensityPyramid finished = finishedPyramid;
+        if (finished != null) {
+            finishedPyramid = null;
+            updating = false;
+            if (isOfSize(finished, snapshot)) {
+                sparePyramid = pyramid;
+                pyramid = finished;
+                snapshot = finishedSnapshot;
+                changed = true;
+            }
+        }
+        if (!isOfSize(pyramid, newSnapshot)) {
+            pyramid = new DensityPyramid(newSnapshot.getWidth(), newSnapshot.getHeight());
+            cells = new long[BitLifeField.getStateLength(newSnapshot.getWidth(), newSnapshot.getHeight())];
+            newSnapshot.exportState(cells);
+            pyramid.update(cells);
+            snapshot = newSnapshot;
+            sparePyramid = null;
+            return true;
+        }
+        if (newSnapshot != snapshot && !updating) {
+            updating = true;
+            final DensityPyramid backPyramid = sparePyramid != null ? sparePyramid
+                    : new DensityPyramid(newSnapshot.getWidth(), newSnapshot.getHeight());
+            final long[] backCells = cells;
+            final LifeFieldSnapshot backSnapshot = newSnapshot;
+            sparePyramid = null;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    backSnapshot.exportState(backCells);
+                    backPyramid.update(backCells);
+                    finishedSnapshot = backSnapshot;
+                    finishedPyramid = backPyramid;
+                    updateListener.run();
+                }
+            });
+        }
+        return changed;
+    }
+
+    private static boolean isOfSize(DensityPyramid pyramid, LifeFieldSnapshot snapshot) {
+        return pyramid != null && snapshot != null && pyramid.getWidth() == snapshot.getWidth()
+                && pyramid.getHeight() == snapshot.getHeight();
+    }
+
+    /**
+     * @return pyramid of getSnapshot() or null if update() hasn't been called yet.
+     */
+    public DensityPyramid getPyramid() {
+        return pyramid;
+    }
+
+    /**
+     * @return snapshot the pyramid has been built from.
+     */
+    public LifeFieldSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
@@ -7,9 +7,18 @@ import org.apache.commons.logging.LogFactory;
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Main form of the application.
+ * If the system property com.itransition.life.checkpoint names a file, the game is restored from it
+ * on startup and is saved to it every minute.
+ * The field is rendered through a zoomable viewport by default. If the system property
+ * com.itransition.life.renderer is "raster", the whole field is rendered as an image whose changed
+ * rows are rewritten instead.
+ * @see ToroidalLifeFieldRenderer
+ * @see RasterLifeFieldRenderer
  */
 public class MainForm implements ActionListener {
     private static final Log LOGGER = LogFactory.getLog(MainForm.class);
@@ -17,7 +26,12 @@ public class MainForm implements ActionListener {
     private static final int MINIMAL_FIELD_HEIGHT = 5;
     private static final int DEFAULT_FIELD_WIDTH = 20;
     private static final int DEFAULT_FIELD_HEIGHT = 20;
-    private static final int REPAINT_TIMER_DELAY_SEC = 1;
+    private static final int REPAINT_TIMER_DELAY_MILLIS = 16;
+    private static final String MONITOR_NAME = "MainForm";
+    private static final String CHECKPOINT_PROPERTY = "com.itransition.life.checkpoint";
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 60000;
+    private static final String RENDERER_PROPERTY = "com.itransition.life.renderer";
+    private static final String RASTER_RENDERER = "raster";
     private JPanel mainPanel;
     private JPanel interactionPanel;
     private JPanel createPanel;
@@ -39,7 +53,7 @@ public class MainForm implements ActionListener {
     private JLabel heightLabel;
     private JPanel lifeGameFieldPanel;
     private JPanel lifeFieldRenderer;
-    private Timer timer = new Timer(REPAINT_TIMER_DELAY_SEC*1000, this);
+    private Timer timer = new Timer(REPAINT_TIMER_DELAY_MILLIS, this);
     private LifeGameController gameController;
 
     /**
@@ -78,7 +92,7 @@ public class MainForm implements ActionListener {
         final int HEIGHT = gameController.getHeight();
         gameController.pauseGame();
         gameController.createNewGame(WIDTH, HEIGHT);
-        lifeFieldRenderer.repaint();
+        refreshRenderer();
         generationLabel.setText("");
         periodLabel.setText("");
         populationLabel.setText("");
@@ -122,7 +136,29 @@ public class MainForm implements ActionListener {
     private void createUIComponents() {
         gameController = new LifeGameController();
         gameController.createNewGame(DEFAULT_FIELD_WIDTH, DEFAULT_FIELD_HEIGHT);
-        lifeFieldRenderer = new ToroidalLifeFieldRenderer(gameController);
+        if (RASTER_RENDERER.equals(System.getProperty(RENDERER_PROPERTY))) {
+            lifeFieldRenderer = new RasterLifeFieldRenderer(gameController);
+        }
+        else {
+            lifeFieldRenderer = new ToroidalLifeFieldRenderer(gameController);
+        }
+        try {
+            new LifeGameMonitor(gameController).register(MONITOR_NAME);
+        }
+        catch (IllegalStateException e) {
+            LOGGER.warn("the game can't be monitored through JMX.", e);
+        }
+        String checkpointPath = System.getProperty(CHECKPOINT_PROPERTY);
+        if (checkpointPath != null) {
+            File checkpointFile = new File(checkpointPath);
+            try {
+                LifeGameCheckpointer.restore(gameController, checkpointFile);
+            }
+            catch (IOException e) {
+                LOGGER.warn("the game can't be restored from '" + checkpointFile + "'.", e);
+            }
+            new LifeGameCheckpointer(gameController, checkpointFile).start(CHECKPOINT_INTERVAL_MILLIS);
+        }
     }
 
     private void createNewField() {
@@ -131,7 +167,7 @@ public class MainForm implements ActionListener {
         int width = getUsefSelectedFieldWidthOrCorrentIt();
         int height = getUsefSelectedFieldHeightOrCorrentIt();
         gameController.createNewGame(width, height);
-        lifeFieldRenderer.repaint();
+        refreshRenderer();
         generationLabel.setText("");
         periodLabel.setText("");
         populationLabel.setText("");
@@ -172,22 +208,27 @@ public class MainForm implements ActionListener {
     }
 
     /**
-     * When timer goes off life field is repainted here.
+     * When timer goes off the viewport of life field is repainted here.
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        lifeFieldRenderer.repaint();
+        refreshRenderer();
+        LifeFieldSnapshot snapshot = gameController.getSnapshot();
         periodLabel.setText(getCycleLength());
-        generationLabel.setText(getCurrentGeneration());
-        populationLabel.setText(getCurrentPopulation());
-    }
-
-    private String getCurrentPopulation() {
-        return Integer.toString(((ToroidalLifeFieldRenderer)lifeFieldRenderer).getNumberOfAliveCells());
+        generationLabel.setText(Long.toString(snapshot.getGeneration()));
+        populationLabel.setText(Long.toString(snapshot.getNumberOfAliveCells()));
     }
 
-    private String getCurrentGeneration() {
-        return Long.toString(gameController.getCurrentGeneration());
+    /**
+     * Raster renderer repaints only the rows changed since its last refresh, the viewport is repainted whole.
+     */
+    private void refreshRenderer() {
+        if (lifeFieldRenderer instanceof RasterLifeFieldRenderer) {
+            ((RasterLifeFieldRenderer) lifeFieldRenderer).refresh();
+        }
+        else {
+            lifeFieldRenderer.repaint();
+        }
     }
 
     private String getCycleLength() {
@@ -0,0 +1,259 @@
+package com.itransition.life.gui;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.DigestableToroidalLifeField;
+import com.itransition.life.core.LifeFieldSnapshot;
+import com.itransition.life.core.LifeGameController;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Canvas on which large life fields are rendered.
+ * Every cell is a pixel of an image whose raster is written directly, the image is scaled to the
+ * size of the canvas when it's painted. On refresh() the new snapshot of the field is compared with
+ * the previous one word by word: only the pixels of the changed cells are rewritten and only the band
+ * of rows which contains them is repainted. Grid lines are drawn only when cells are large enough
+ * for them to be seen.
+ * @see LifeFieldSnapshot
+ * @see ToroidalLifeFieldRenderer
+ */
+public class RasterLifeFieldRenderer extends JPanel implements MouseListener {
+    /**
+     * Minimal size of a cell in pixels at which grid lines are drawn.
+     */
+    public static final int MINIMAL_CELL_SIZE_WITH_LINES = 4;
+    private static final int ALIVE_RGB = Color.GREEN.getRGB();
+    private static final int DEAD_RGB = Color.GRAY.getRGB();
+    private static final Color LINE_COLOR = Color.BLACK;
+    private final DigestableToroidalLifeField lifeField;
+    private LifeFieldSnapshot snapshot;
+    private BufferedImage image;
+    private int[] pixels;
+    private long[] cells;
+    private long[] previousCells;
+    private int wordsPerRow;
+
+    /**
+     * Create new renderer for a life field.
+     * @param lifeField life field to render.
+     */
+    public RasterLifeFieldRenderer(DigestableToroidalLifeField lifeField) {
+        this.lifeField = lifeField;
+        this.addMouseListener(this);
+    }
+
+    /**
+     * Get number of alive cells (current population).
+     * @return number of alive cells in the last rendered snapshot.
+     */
+    public long getNumberOfAliveCells() {
+        return snapshot == null ? 0 : snapshot.getNumberOfAliveCells();
+    }
+
+    /**
+     * Take the last snapshot of the field, write the changed cells into the image and repaint the
+     * rows which have changed. Should be called on the event dispatch thread.
+     */
+    public void refresh() {
+        LifeFieldSnapshot newSnapshot = getSnapshot();
+        if (newSnapshot == snapshot) {
+            return;
+        }
+        if (snapshot == null || newSnapshot.getWidth() != snapshot.getWidth()
+                || newSnapshot.getHeight() != snapshot.getHeight()) {
+            createImage(newSnapshot);
+            snapshot = newSnapshot;
+            repaint();
+            return;
+        }
+        snapshot = newSnapshot;
+        long[] swap = previousCells;
+        previousCells = cells;
+        cells = swap;
+        snapshot.exportState(cells);
+        int firstChangedRow = -1;
+        int lastChangedRow = -1;
+        for (int y = 0; y < snapshot.getHeight(); y++) {
+            if (updateRow(y)) {
+                if (firstChangedRow < 0) {
+                    firstChangedRow = y;
+                }
+                lastChangedRow = y;
+            }
+        }
+        if (firstChangedRow >= 0) {
+            int y1 = convertFieldYToCanvasY(firstChangedRow);
+            int y2 = convertFieldYToCanvasY(lastChangedRow + 1);
+            repaint(0, y1, getWidth(), y2 - y1 + 1);
+        }
+    }
+
+    /**
+     * Controller publishes its snapshots itself, other fields are copied.
+     */
+    private LifeFieldSnapshot getSnapshot() {
+        if (lifeField instanceof LifeGameController) {
+            return ((LifeGameController) lifeField).getSnapshot();
+        }
+        return new LifeFieldSnapshot(lifeField, 0);
+    }
+
+    private void createImage(LifeFieldSnapshot newSnapshot) {
+        int width = newSnapshot.getWidth();
+        int height = newSnapshot.getHeight();
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        wordsPerRow = BitLifeField.getStateLength(width, 1);
+        cells = new long[BitLifeField.getStateLength(width, height)];
+        previousCells = new long[cells.length];
+        newSnapshot.exportState(cells);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = newSnapshot.isAlive(x, y) ? ALIVE_RGB : DEAD_RGB;
+            }
+        }
+    }
+
+    /**
+     * Rewrite the pixels of the cells of the row which differ from the previous snapshot.
+     * @return true if any cell of the row has changed.
+     */
+    private boolean updateRow(int y) {
+        boolean changed = false;
+        int width = snapshot.getWidth();
+        int row = y * wordsPerRow;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long word = cells[row + i];
+            long changedCells = word ^ previousCells[row + i];
+            if (changedCells == 0) {
+                continue;
+            }
+            changed = true;
+            int firstPixel = y * width + i * BitLifeField.CELLS_PER_WORD;
+            while (changedCells != 0) {
+                int bit = Long.numberOfTrailingZeros(changedCells);
+                pixels[firstPixel + bit] = (word & (1L << bit)) != 0 ? ALIVE_RGB : DEAD_RGB;
+                changedCells &= changedCells - 1;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * The image is scaled to the canvas, only the clipped part of it is actually drawn.
+     * @see JPanel#paintComponent(java.awt.Graphics).
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        RenderFrameEvent frameEvent = new RenderFrameEvent();
+        frameEvent.begin();
+        super.paintComponent(g);
+        if (snapshot == null) {
+            refresh();
+        }
+        g.drawImage(image, 0, 0, getWidth(), getHeight(), null);
+        if (getWidth() >= MINIMAL_CELL_SIZE_WITH_LINES * snapshot.getWidth()
+                && getHeight() >= MINIMAL_CELL_SIZE_WITH_LINES * snapshot.getHeight()) {
+            paintLines(g);
+        }
+        frameEvent.end();
+        if (frameEvent.shouldCommit()) {
+            frameEvent.width = snapshot.getWidth();
+            frameEvent.height = snapshot.getHeight();
+            frameEvent.aliveCells = snapshot.getNumberOfAliveCells();
+            frameEvent.generation = snapshot.getGeneration();
+            frameEvent.zoom = Math.min((double) getWidth() / snapshot.getWidth(), (double) getHeight() / snapshot.getHeight());
+            frameEvent.commit();
+        }
+    }
+
+    private void paintLines(Graphics g) {
+        g.setColor(LINE_COLOR);
+        Rectangle clip = g.getClipBounds();
+        int firstRow = clip == null ? 0 : convertCanvasYToFieldY(clip.y);
+        int lastRow = clip == null ? snapshot.getHeight() - 1
+                : Math.min(snapshot.getHeight() - 1, convertCanvasYToFieldY(clip.y + clip.height));
+        for (int y = firstRow; y <= lastRow; y++) {
+            int canvasY = convertFieldYToCanvasY(y);
+            g.drawLine(0, canvasY, getWidth(), canvasY);
+        }
+        for (int x = 0; x < snapshot.getWidth(); x++) {
+            int canvasX = convertFieldXToCanvasX(x);
+            g.drawLine(canvasX, 0, canvasX, getHeight());
+        }
+    }
+
+    private int convertFieldXToCanvasX(int fieldX) {
+        double canvasX = ((double) fieldX * this.getWidth()) / snapshot.getWidth();
+        return (int) Math.round(canvasX);
+    }
+
+    private int convertFieldYToCanvasY(int fieldY) {
+        double canvasY = ((double) fieldY * this.getHeight()) / snapshot.getHeight();
+        return (int) Math.round(canvasY);
+    }
+
+    private int convertCanvasXToFieldX(int canvasX) {
+        return (int) (((long) canvasX * snapshot.getWidth()) / getWidth());
+    }
+
+    private int convertCanvasYToFieldY(int canvasY) {
+        return (int) (((long) canvasY * snapshot.getHeight()) / getHeight());
+    }
+
+    /**
+     * When user clicks a mouse the cell should change its state.
+     * @param e mouse event. contains pointer coordinates used to calculate cell to change.
+     */
+    @Override
+    public void mouseClicked(MouseEvent e) {
+        if (snapshot == null) {
+            return;
+        }
+        Point cursor = e.getPoint();
+        int x = convertCanvasXToFieldX(cursor.x);
+        int y = convertCanvasYToFieldY(cursor.y);
+        if (x >= snapshot.getWidth() || y >= snapshot.getHeight()) {
+            return;
+        }
+        lifeField.setState(x, y, !lifeField.isAlive(x, y));
+        refresh();
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void mousePressed(MouseEvent e) {
+        // Do nothing.
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void mouseReleased(MouseEvent e) {
+        // Do nothing.
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void mouseEntered(MouseEvent e) {
+        // Do nothing.
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void mouseExited(MouseEvent e) {
+        // Do nothing.
+    }
+}
@@ -0,0 +1,27 @@
+package com.itransition.life.gui;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of a frame painted by the renderer.
+ * @see ToroidalLifeFieldRenderer
+ * @see RasterLifeFieldRenderer
+ */
+@Name("com.itransition.life.RenderFrame")
+@Label("Render Frame")
+@Category("Game of Life")
+@Description("Frame of the life field painted by the renderer")
+@StackTrace(false)
+final class RenderFrameEvent extends Event {
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+    @Label("Alive Cells")
+    long aliveCells;
+    @Label("Generation")
+    long generation;
+    @Label("Zoom")
+    @Description("Pixels per cell")
+    double zoom;
+}
@@ -1,35 +1,104 @@
 package com.itransition.life.gui;
 
 import com.itransition.life.core.DigestableToroidalLifeField;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
+import com.itransition.life.core.LifeFieldSnapshot;
+import com.itransition.life.core.LifeGameController;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
 /**
- * Canvas on which life field is rendered.
+ * Canvas on which life field is rendered through a viewport.
+ * By default the whole torus is fitted into the canvas. The viewport can be zoomed with the mouse
+ * wheel and panned by dragging, it wraps around the torus. Every pixel of the canvas is computed once
+ * per paint: when a pixel covers less than two cells it shows the cell under it, otherwise it shows
+ * the density of alive cells of the block under it taken from a DensityPyramid, so the cost of painting
+ * depends on the size of the canvas and not on the size of the field. When only a part of the torus
+ * is visible, a minimap of the whole torus with the viewport on it is painted in the corner.
+ * Every frame is painted from a single snapshot of the field, so frames are never torn and painting
+ * doesn't lock the field of a running game. The pyramid is brought to the new snapshots of a game by
+ * a DensityPyramidUpdater on a background thread, which repaints the canvas when it's done, so painting
+ * doesn't pass over the whole field.
  * @see DigestableToroidalLifeField
+ * @see LifeFieldSnapshot
+ * @see DensityPyramid
+ * @see DensityPyramidUpdater
  */
-public class ToroidalLifeFieldRenderer extends JPanel implements MouseListener {
-    private static final Log LOGGER = LogFactory.getLog(ToroidalLifeFieldRenderer.class);
+public class ToroidalLifeFieldRenderer extends JPanel implements MouseListener, MouseMotionListener,
+        MouseWheelListener {
+    /**
+     * Minimal size of a cell in pixels at which grid lines are drawn.
+     */
+    public static final int MINIMAL_CELL_SIZE_WITH_LINES = 4;
+    /**
+     * Maximal size of a cell in pixels.
+     */
+    public static final double MAXIMAL_ZOOM = 64;
+    /**
+     * Maximal size of the minimap in pixels.
+     */
+    public static final int MINIMAP_SIZE = 128;
     private static final Color ALIVE_COLOR = Color.GREEN;
     private static final Color DEAD_COLOR = Color.GRAY;
     private static final Color LINE_COLOR = Color.BLACK;
-    private boolean isLifeFieldLocked = false;
+    private static final Color VIEWPORT_COLOR = Color.WHITE;
+    private static final int NUMBER_OF_SHADES = 256;
+    private static final double ZOOM_STEP = 1.25;
+    private static final int MAXIMAL_SHADE_TABLE_LEVEL = 6;
+    private static final int[] SHADES = createShades();
     private DigestableToroidalLifeField lifeField;
-    private Graphics2D canvas;
+    private final DensityPyramidUpdater pyramidUpdater;
+    private LifeFieldSnapshot snapshot;
+    private DensityPyramid pyramid;
+    private BufferedImage canvasImage;
+    private BufferedImage minimapImage;
     private int numberOfAliveCells;
+    private boolean fitToField = true;
+    private double zoom = 1;
+    private double originX = 0;
+    private double originY = 0;
+    private Point dragPoint;
 
     /**
      * Create new renderer for a life field.
      * @param lifeField life field to render.
      */
-    public ToroidalLifeFieldRenderer(DigestableToroidalLifeField lifeField) {
+    public ToroidalLifeFieldRenderer(final DigestableToroidalLifeField lifeField) {
         this.lifeField = lifeField;
+        this.pyramidUpdater = new DensityPyramidUpdater(new Runnable() {
+            @Override
+            public void run() {
+                // Other fields are copied on every paint, repainting them would never stop.
+                if (lifeField instanceof LifeGameController) {
+                    repaint();
+                }
+            }
+        });
         this.addMouseListener(this);
+        this.addMouseMotionListener(this);
+        this.addMouseWheelListener(this);
+    }
+
+    /**
+     * Shades from the color of dead cells to the color of alive cells.
+     */
+    private static int[] createShades() {
+        int[] shades = new int[NUMBER_OF_SHADES];
+        for (int i = 0; i < NUMBER_OF_SHADES; i++) {
+            double density = (double) i / (NUMBER_OF_SHADES - 1);
+            int red = (int) Math.round(DEAD_COLOR.getRed() + density * (ALIVE_COLOR.getRed() - DEAD_COLOR.getRed()));
+            int green = (int) Math.round(DEAD_COLOR.getGreen() + density * (ALIVE_COLOR.getGreen() - DEAD_COLOR.getGreen()));
+            int blue = (int) Math.round(DEAD_COLOR.getBlue() + density * (ALIVE_COLOR.getBlue() - DEAD_COLOR.getBlue()));
+            shades[i] = new Color(red, green, blue).getRGB();
+        }
+        return shades;
     }
 
     /**
@@ -40,82 +109,303 @@ public class ToroidalLifeFieldRenderer extends JPanel implements MouseListener {
         return numberOfAliveCells;
     }
 
+    /**
+     * @return true if the whole torus is fitted into the canvas.
+     */
+    public boolean isFitToField() {
+        return fitToField;
+    }
+
+    /**
+     * Fit the whole torus into the canvas, which is the default viewport.
+     */
+    public void fitToField() {
+        fitToField = true;
+        originX = 0;
+        originY = 0;
+        repaint();
+    }
+
+    /**
+     * @return size of a cell in pixels, horizontal one if the torus is fitted into the canvas.
+     */
+    public double getZoom() {
+        return fitToField ? getScaleX() : zoom;
+    }
+
+    /**
+     * Set size of a cell in pixels keeping the centre of the viewport.
+     * @param zoom size of a cell in pixels, it's limited by MAXIMAL_ZOOM and by the size at which
+     * a block of the coarsest level of the pyramid takes a pixel.
+     */
+    public void setZoom(double zoom) {
+        zoomAt(zoom / getZoom(), getWidth() / 2, getHeight() / 2);
+    }
+
+    /**
+     * Multiply the size of a cell keeping the cell under the specified point of the canvas in place.
+     * @param factor zoom factor, values greater than one zoom in.
+     * @param canvasX x of the point on the canvas.
+     * @param canvasY y of the point on the canvas.
+     */
+    public void zoomAt(double factor, int canvasX, int canvasY) {
+        double fieldX = originX + canvasX / getScaleX();
+        double fieldY = originY + canvasY / getScaleY();
+        double minimalZoom = 1.0 / (1 << Math.max(0, getNumberOfLevels() - 1));
+        zoom = Math.max(minimalZoom, Math.min(MAXIMAL_ZOOM, Math.min(getScaleX(), getScaleY()) * factor));
+        fitToField = false;
+        originX = fieldX - canvasX / zoom;
+        originY = fieldY - canvasY / zoom;
+        repaint();
+    }
+
+    /**
+     * Move the viewport.
+     * @param x x of the cell at the top left corner of the canvas, it may be fractional and is wrapped around the torus.
+     * @param y y of the cell at the top left corner of the canvas, it may be fractional and is wrapped around the torus.
+     */
+    public void setViewOrigin(double x, double y) {
+        if (fitToField) {
+            zoom = Math.min(getScaleX(), getScaleY());
+            fitToField = false;
+        }
+        originX = x;
+        originY = y;
+        repaint();
+    }
+
+    public double getViewOriginX() {
+        return originX;
+    }
+
+    public double getViewOriginY() {
+        return originY;
+    }
+
     /**
      * Overriding this method is a standard way to create
      * you own canvas with black jack and hookers.
-     * First of all component is filled with the color of dead cells.
-     * Then alive cells are rendered.
-     * And finally lines are drawn.
+     * First of all pixels of the viewport are computed into an image.
+     * Then lines are drawn if cells are large enough.
+     * And finally the minimap is drawn if only a part of the torus is visible.
      * @see JPanel#paintComponent(java.awt.Graphics).
      */
     @Override
     protected void paintComponent(Graphics g) {
-        setBackground(DEAD_COLOR);
+        RenderFrameEvent frameEvent = new RenderFrameEvent();
+        frameEvent.begin();
         super.paintComponent(g);
-        canvas = (Graphics2D)g;
-        paintAliveCells();
-        paintLines();
-        LOGGER.info("painted life field.");
+        updateSnapshot();
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        paintViewport(g);
+        if (Math.min(getScaleX(), getScaleY()) >= MINIMAL_CELL_SIZE_WITH_LINES) {
+            paintLines(g);
+        }
+        if (!fitToField && (getWidth() / zoom < snapshot.getWidth() || getHeight() / zoom < snapshot.getHeight())) {
+            paintMinimap(g);
+        }
+        frameEvent.end();
+        if (frameEvent.shouldCommit()) {
+            frameEvent.width = snapshot.getWidth();
+            frameEvent.height = snapshot.getHeight();
+            frameEvent.aliveCells = snapshot.getNumberOfAliveCells();
+            frameEvent.generation = snapshot.getGeneration();
+            frameEvent.zoom = Math.min(getScaleX(), getScaleY());
+            frameEvent.commit();
+        }
     }
 
-    private void paintLines() {
-        canvas.setColor(LINE_COLOR);
-        paintHorizontalLines();
-        paintVerticalLines();
-        LOGGER.info("painted lines.");
+    /**
+     * Take the pyramid of the last snapshot of the field finished by the updater. Controller publishes
+     * its snapshots itself, other fields are copied.
+     */
+    private void updateSnapshot() {
+        LifeFieldSnapshot newSnapshot;
+        if (lifeField instanceof LifeGameController) {
+            newSnapshot = ((LifeGameController) lifeField).getSnapshot();
+        }
+        else {
+            newSnapshot = new LifeFieldSnapshot(lifeField, 0);
+        }
+        LifeFieldSnapshot oldSnapshot = snapshot;
+        pyramidUpdater.update(newSnapshot);
+        snapshot = pyramidUpdater.getSnapshot();
+        pyramid = pyramidUpdater.getPyramid();
+        if (oldSnapshot != null && (snapshot.getWidth() != oldSnapshot.getWidth()
+                || snapshot.getHeight() != oldSnapshot.getHeight())) {
+            minimapImage = null;
+            fitToField = true;
+            originX = 0;
+            originY = 0;
+        }
+        numberOfAliveCells = (int) snapshot.getNumberOfAliveCells();
     }
 
+    private int getNumberOfLevels() {
+        return pyramid == null ? 1 : pyramid.getNumberOfLevels();
+    }
 
-    private void paintVerticalLines() {
-        for (int x = 0; x < lifeField.getWidth(); x++) {
-            int x1 = convertFieldXToCanvasX(x);
-            int y1 = 0;
-            int x2 = x1;
-            int y2 = getHeight();
-            canvas.drawLine(x1, y1, x2, y2);
+    private double getScaleX() {
+        if (snapshot == null) {
+            return 1;
         }
+        return fitToField ? (double) getWidth() / snapshot.getWidth() : zoom;
     }
 
-    private void paintHorizontalLines() {
-        for (int y = 0; y < lifeField.getHeight(); y++) {
-            int x1 = 0;
-            int y1 = convertFieldYToCanvasY(y);
-            int x2 = getWidth();
-            int y2 = y1;
-            canvas.drawLine(x1, y1, x2, y2);
+    private double getScaleY() {
+        if (snapshot == null) {
+            return 1;
         }
+        return fitToField ? (double) getHeight() / snapshot.getHeight() : zoom;
     }
 
-    private void paintAliveCells() {
-        canvas.setColor(ALIVE_COLOR);
-        numberOfAliveCells = 0;
-        for (int x = 0; x < lifeField.getWidth(); x++) {
-            for (int y = 0; y < lifeField.getHeight(); y++) {
-                if (lifeField.isAlive(x, y)) {
-                    paintAliveCell(x, y);
-                    numberOfAliveCells++;
+    /**
+     * Pixels are computed row by row from the cells or the blocks under their centres.
+     */
+    private void paintViewport(Graphics g) {
+        int canvasWidth = getWidth();
+        int canvasHeight = getHeight();
+        if (canvasImage == null || canvasImage.getWidth() != canvasWidth || canvasImage.getHeight() != canvasHeight) {
+            canvasImage = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_RGB);
+        }
+        int[] pixels = ((DataBufferInt) canvasImage.getRaster().getDataBuffer()).getData();
+        double cellsPerPixel = 1 / Math.min(getScaleX(), getScaleY());
+        int level = 0;
+        while (level < pyramid.getNumberOfLevels() - 1 && (2 << level) <= cellsPerPixel) {
+            level++;
+        }
+        int[] columns = getCells(canvasWidth, originX, getScaleX(), snapshot.getWidth(), level);
+        int[] rows = getCells(canvasHeight, originY, getScaleY(), snapshot.getHeight(), level);
+        int[] rowShades = new int[((snapshot.getWidth() - 1) >> level) + 1];
+        int[] rowCounts = new int[rowShades.length];
+        int[] blockShades = level <= MAXIMAL_SHADE_TABLE_LEVEL ? createBlockShades(level) : null;
+        int shadedBlockY = -1;
+        for (int canvasY = 0; canvasY < canvasHeight; canvasY++) {
+            int row = canvasY * canvasWidth;
+            int blockY = rows[canvasY];
+            if (level == 0) {
+                for (int canvasX = 0; canvasX < canvasWidth; canvasX++) {
+                    pixels[row + canvasX] = pyramid.isAlive(columns[canvasX], blockY) ? SHADES[NUMBER_OF_SHADES - 1] : SHADES[0];
+                }
+            }
+            else {
+                if (blockY != shadedBlockY) {
+                    shadeRow(level, blockY, rowCounts, blockShades, rowShades);
+                    shadedBlockY = blockY;
+                }
+                for (int canvasX = 0; canvasX < canvasWidth; canvasX++) {
+                    pixels[row + canvasX] = rowShades[columns[canvasX]];
                 }
             }
         }
-        LOGGER.info("painted alive cells.");
+        g.drawImage(canvasImage, 0, 0, null);
     }
 
-    private void paintAliveCell(int x, int y) {
-        int x1 = convertFieldXToCanvasX(x);
-        int y1 = convertFieldYToCanvasY(y);
-        int x2 = convertFieldXToCanvasX(x + 1);
-        int y2 = convertFieldYToCanvasY(y + 1);
-        canvas.fillRect(x1, y1, x2 - x1, y2 - y1);
+    /**
+     * Get the cells or the blocks of the level under the centres of the pixels of a row or a column.
+     */
+    private static int[] getCells(int numberOfPixels, double origin, double scale, int numberOfCells, int level) {
+        int[] blocks = new int[numberOfPixels];
+        for (int i = 0; i < numberOfPixels; i++) {
+            blocks[i] = wrap((long) Math.floor(origin + (i + 0.5) / scale), numberOfCells) >> level;
+        }
+        return blocks;
     }
 
-    private int convertFieldXToCanvasX(int fieldX) {
-        double canvasX = ((double) fieldX * this.getWidth()) / lifeField.getWidth();
-        return (int) Math.round(canvasX);
+    private static int wrap(long cell, int numberOfCells) {
+        int wrapped = (int) (cell % numberOfCells);
+        return wrapped < 0 ? wrapped + numberOfCells : wrapped;
     }
 
-    private int convertFieldYToCanvasY(int fieldY) {
-        double canvasY = ((double) fieldY * this.getHeight()) / lifeField.getHeight();
-        return (int) Math.round(canvasY);
+    /**
+     * Shades of the blocks of the level which aren't cut by the edges of the field, indexed by the
+     * number of alive cells.
+     */
+    private static int[] createBlockShades(int level) {
+        int area = 1 << (2 * level);
+        int[] blockShades = new int[area + 1];
+        for (int count = 0; count <= area; count++) {
+            blockShades[count] = SHADES[count * (NUMBER_OF_SHADES - 1) / area];
+        }
+        return blockShades;
+    }
+
+    /**
+     * Shades of all the blocks of a row are computed at once, so a block is counted once even if it
+     * covers several pixels. Whole blocks take their shades from the table if there is one.
+     */
+    private void shadeRow(int level, int blockY, int[] rowCounts, int[] blockShades, int[] rowShades) {
+        pyramid.getRowCounts(level, blockY, rowCounts);
+        for (int blockX = 0; blockX < rowShades.length; blockX++) {
+            int area = pyramid.getArea(level, blockX, blockY);
+            if (blockShades != null && area == blockShades.length - 1) {
+                rowShades[blockX] = blockShades[rowCounts[blockX]];
+            }
+            else {
+                rowShades[blockX] = SHADES[(int) ((long) rowCounts[blockX] * (NUMBER_OF_SHADES - 1) / area)];
+            }
+        }
+    }
+
+    private int getShade(int level, int blockX, int blockY) {
+        int count = pyramid.getCount(level, blockX, blockY);
+        return SHADES[(int) ((long) count * (NUMBER_OF_SHADES - 1) / pyramid.getArea(level, blockX, blockY))];
+    }
+
+    private void paintLines(Graphics g) {
+        g.setColor(LINE_COLOR);
+        double scaleX = getScaleX();
+        double scaleY = getScaleY();
+        for (double x = Math.ceil(originX); (x - originX) * scaleX < getWidth(); x++) {
+            int canvasX = (int) Math.round((x - originX) * scaleX);
+            g.drawLine(canvasX, 0, canvasX, getHeight());
+        }
+        for (double y = Math.ceil(originY); (y - originY) * scaleY < getHeight(); y++) {
+            int canvasY = (int) Math.round((y - originY) * scaleY);
+            g.drawLine(0, canvasY, getWidth(), canvasY);
+        }
+    }
+
+    /**
+     * Minimap shows a block of the coarsest level which fits into MINIMAP_SIZE per pixel.
+     */
+    private void paintMinimap(Graphics g) {
+        int level = 0;
+        while ((snapshot.getWidth() - 1 >> level) >= MINIMAP_SIZE || (snapshot.getHeight() - 1 >> level) >= MINIMAP_SIZE) {
+            level++;
+        }
+        int blocksPerRow = ((snapshot.getWidth() - 1) >> level) + 1;
+        int blocksPerColumn = ((snapshot.getHeight() - 1) >> level) + 1;
+        if (minimapImage == null || minimapImage.getWidth() != blocksPerRow || minimapImage.getHeight() != blocksPerColumn) {
+            minimapImage = new BufferedImage(blocksPerRow, blocksPerColumn, BufferedImage.TYPE_INT_RGB);
+        }
+        int[] pixels = ((DataBufferInt) minimapImage.getRaster().getDataBuffer()).getData();
+        for (int blockY = 0; blockY < blocksPerColumn; blockY++) {
+            for (int blockX = 0; blockX < blocksPerRow; blockX++) {
+                pixels[blockY * blocksPerRow + blockX] = getShade(level, blockX, blockY);
+            }
+        }
+        double minimapScale = (double) MINIMAP_SIZE / Math.max(snapshot.getWidth(), snapshot.getHeight());
+        int minimapWidth = (int) Math.ceil(snapshot.getWidth() * minimapScale);
+        int minimapHeight = (int) Math.ceil(snapshot.getHeight() * minimapScale);
+        int left = getWidth() - minimapWidth - 1;
+        g.drawImage(minimapImage, left, 0, minimapWidth, minimapHeight, null);
+        g.setColor(VIEWPORT_COLOR);
+        g.drawRect(left, 0, minimapWidth, minimapHeight);
+        int viewportX = left + (int) (wrap((long) Math.floor(originX), snapshot.getWidth()) * minimapScale);
+        int viewportY = (int) (wrap((long) Math.floor(originY), snapshot.getHeight()) * minimapScale);
+        int viewportWidth = (int) Math.max(1, Math.min(minimapWidth, getWidth() / zoom * minimapScale));
+        int viewportHeight = (int) Math.max(1, Math.min(minimapHeight, getHeight() / zoom * minimapScale));
+        Shape clip = g.getClip();
+        g.clipRect(left, 0, minimapWidth + 1, minimapHeight + 1);
+        for (int shiftX = 0; shiftX <= minimapWidth; shiftX += minimapWidth) {
+            for (int shiftY = 0; shiftY <= minimapHeight; shiftY += minimapHeight) {
+                g.drawRect(viewportX - shiftX, viewportY - shiftY, viewportWidth, viewportHeight);
+            }
+        }
+        g.setClip(clip);
     }
 
     /**
@@ -124,32 +414,31 @@ public class ToroidalLifeFieldRenderer extends JPanel implements MouseListener {
      */
     @Override
     public void mouseClicked(MouseEvent e) {
-        if (!(lifeField instanceof DigestableToroidalLifeField)) {
+        if (snapshot == null) {
             return;
         }
-        DigestableToroidalLifeField editableLifeField = (DigestableToroidalLifeField) lifeField;
         Point cursor = e.getPoint();
-        int x = convertCanvasXToFieldX(cursor.x);
-        int y = convertCanvasYToFieldY(cursor.y);
+        int x = wrap((long) Math.floor(originX + cursor.x / getScaleX()), snapshot.getWidth());
+        int y = wrap((long) Math.floor(originY + cursor.y / getScaleY()), snapshot.getHeight());
         boolean currentState = lifeField.isAlive(x, y);
-        editableLifeField.setState(x, y, !currentState);
+        lifeField.setState(x, y, !currentState);
         repaint();
     }
 
     /**
-     * Does nothing.
+     * Start panning.
      */
     @Override
     public void mousePressed(MouseEvent e) {
-        // Do nothing.
+        dragPoint = e.getPoint();
     }
 
     /**
-     * Does nothing.
+     * Stop panning.
      */
     @Override
     public void mouseReleased(MouseEvent e) {
-        // Do nothing.
+        dragPoint = null;
     }
 
     /**
@@ -168,11 +457,37 @@ public class ToroidalLifeFieldRenderer extends JPanel implements MouseListener {
         // Do nothing.
     }
 
-    private int convertCanvasXToFieldX(int canvasX) {
-        return (canvasX * lifeField.getWidth()) / getWidth();
+    /**
+     * Dragging pans the viewport.
+     */
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        if (dragPoint == null || snapshot == null) {
+            return;
+        }
+        Point cursor = e.getPoint();
+        double scaleX = getScaleX();
+        double scaleY = getScaleY();
+        setViewOrigin(originX - (cursor.x - dragPoint.x) / scaleX, originY - (cursor.y - dragPoint.y) / scaleY);
+        dragPoint = cursor;
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void mouseMoved(MouseEvent e) {
+        // Do nothing.
     }
 
-    private int convertCanvasYToFieldY(int canvasY) {
-        return (canvasY * lifeField.getHeight()) / getHeight();
+    /**
+     * Mouse wheel zooms around the cursor.
+     */
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        if (snapshot == null) {
+            return;
+        }
+        zoomAt(Math.pow(ZOOM_STEP, -e.getWheelRotation()), e.getX(), e.getY());
     }
 }
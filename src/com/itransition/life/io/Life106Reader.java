@@ -0,0 +1,84 @@
+package com.itransition.life.io;
+
+import com.itransition.life.core.LifeRule;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Reader of the Life 1.06 format: a header line and then coordinates of the alive cells, one cell
+ * per line. Coordinates may be negative and aren't bounded in advance, so they are collected first
+ * and the pattern is cropped to their bounding box. The format has no rule, Conway's rule is assumed.
+ * @see{http://www.conwaylife.com/wiki/Life_1.06}
+ */
+public class Life106Reader implements PatternReader {
+    /**
+     * Header of the format.
+     */
+    public static final String HEADER = "#Life 1.06";
+    private static final int INITIAL_NUMBER_OF_CELLS = 1024;
+
+    /**
+     * @see PatternReader#read(ReadableByteChannel).
+     */
+    @Override
+    public LifePattern read(ReadableByteChannel channel) throws IOException {
+        PatternInput input = new PatternInput(channel);
+        String header = input.readLine();
+        if (header == null || !header.trim().equals(HEADER)) {
+            throw input.createFormatException("header '" + HEADER + "' expected");
+        }
+        long[] coordinates = new long[2 * INITIAL_NUMBER_OF_CELLS];
+        int numberOfCells = 0;
+        long minimalX = Long.MAX_VALUE;
+        long minimalY = Long.MAX_VALUE;
+        long maximalX = Long.MIN_VALUE;
+        long maximalY = Long.MIN_VALUE;
+        input.skipBlanks();
+        int c = input.peek();
+        while (c >= 0) {
+            if (c == '#') {
+                input.readLine();
+            }
+            else if (c == '\r' || c == '\n') {
+                input.read();
+            }
+            else {
+                long x = input.readNumber();
+                input.skipBlanks();
+                long y = input.readNumber();
+                input.skipBlanks();
+                c = input.peek();
+                if (c != '\r' && c != '\n' && c >= 0) {
+                    throw input.createFormatException("end of line expected after the coordinates");
+                }
+                if (2 * numberOfCells == coordinates.length) {
+                    coordinates = Arrays.copyOf(coordinates, 2 * coordinates.length);
+                }
+                coordinates[2 * numberOfCells] = x;
+                coordinates[2 * numberOfCells + 1] = y;
+                numberOfCells++;
+                minimalX = Math.min(minimalX, x);
+                minimalY = Math.min(minimalY, y);
+                maximalX = Math.max(maximalX, x);
+                maximalY = Math.max(maximalY, y);
+            }
+            input.skipBlanks();
+            c = input.peek();
+        }
+        if (numberOfCells == 0) {
+            return new LifePattern(0, 0, new long[0], LifeRule.CONWAY);
+        }
+        long width = maximalX - minimalX + 1;
+        long height = maximalY - minimalY + 1;
+        long[] cells = LifePattern.createCells(width, height);
+        int wordsPerRow = LifePattern.getWordsPerRow((int) width);
+        for (int i = 0; i < numberOfCells; i++) {
+            int x = (int) (coordinates[2 * i] - minimalX);
+            int y = (int) (coordinates[2 * i + 1] - minimalY);
+            RleReader.setRun(cells, y * wordsPerRow, x, 1);
+        }
+        return new LifePattern((int) width, (int) height, cells, LifeRule.CONWAY);
+    }
+}
@@ -0,0 +1,36 @@
+package com.itransition.life.io;
+
+import com.itransition.life.core.BitLifeField;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writer of the Life 1.06 format. Coordinates are relative to the top left corner of the pattern.
+ * The format has no rule, so the rule of the pattern is lost.
+ * @see Life106Reader
+ */
+public class Life106Writer implements PatternWriter {
+    /**
+     * @see PatternWriter#write(LifePattern, WritableByteChannel).
+     */
+    @Override
+    public void write(LifePattern pattern, WritableByteChannel channel) throws IOException {
+        PatternOutput output = new PatternOutput(channel);
+        output.write(Life106Reader.HEADER);
+        output.write('\n');
+        for (int y = 0; y < pattern.getHeight(); y++) {
+            for (int i = 0; i < pattern.getWordsPerRow(); i++) {
+                long word = pattern.getWord(y, i);
+                while (word != 0) {
+                    output.write(i * BitLifeField.CELLS_PER_WORD + Long.numberOfTrailingZeros(word));
+                    output.write(' ');
+                    output.write(y);
+                    output.write('\n');
+                    word &= word - 1;
+                }
+            }
+        }
+        output.flush();
+    }
+}
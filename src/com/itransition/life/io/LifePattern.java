@@ -0,0 +1,159 @@
+package com.itransition.life.io;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.DigestableToroidalLifeField;
+import com.itransition.life.core.LifeRule;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Pattern read from a file or written to a file: a rectangle of cells together with the rule the
+ * pattern evolves by. Cells are bit-packed in the layout of BitLifeField, so a pattern is loaded into
+ * a field with a single call of importState(long[]) of the field.
+ * @see PatternFormat
+ * @see DigestableToroidalLifeField#importState(long[])
+ */
+public final class LifePattern {
+    private static final Log LOGGER = LogFactory.getLog(LifePattern.class);
+    private static final long MAXIMAL_STATE_LENGTH = Integer.MAX_VALUE - 8;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] cells;
+    private final LifeRule rule;
+    private final long numberOfAliveCells;
+
+    /**
+     * Create pattern which owns the cells. The bits beyond the width are cleared.
+     */
+    LifePattern(int width, int height, long[] cells, LifeRule rule) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = getWordsPerRow(width);
+        this.cells = cells;
+        this.rule = rule;
+        long aliveCells = 0;
+        if (width % BitLifeField.CELLS_PER_WORD != 0) {
+            long lastWordMask = (1L << (width % BitLifeField.CELLS_PER_WORD)) - 1;
+            for (int y = 0; y < height; y++) {
+                cells[y * wordsPerRow + wordsPerRow - 1] &= lastWordMask;
+            }
+        }
+        for (long word : cells) {
+            aliveCells += Long.bitCount(word);
+        }
+        this.numberOfAliveCells = aliveCells;
+    }
+
+    /**
+     * Take the state of the whole field as a pattern.
+     * @param field field to copy.
+     * @param rule rule the field evolves by.
+     * @return pattern of the size of the field.
+     */
+    public static LifePattern fromField(DigestableToroidalLifeField field, LifeRule rule) {
+        long[] cells = new long[BitLifeField.getStateLength(field.getWidth(), field.getHeight())];
+        field.exportState(cells);
+        return new LifePattern(field.getWidth(), field.getHeight(), cells, rule);
+    }
+
+    /**
+     * Allocate cells of an empty pattern.
+     * @throws IllegalArgumentException if the size is negative or the pattern doesn't fit into an array.
+     */
+    static long[] createCells(long width, long height) {
+        long stateLength = (width + BitLifeField.CELLS_PER_WORD - 1) / BitLifeField.CELLS_PER_WORD * height;
+        if (width < 0 || height < 0 || width > Integer.MAX_VALUE || height > Integer.MAX_VALUE
+                || stateLength > MAXIMAL_STATE_LENGTH) {
+            String errorMessage = "wrong pattern size! width = " + width + "   height = " + height
+                    + ". the size can't be negative and the cells should fit into an array.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        return new long[(int) stateLength];
+    }
+
+    static int getWordsPerRow(int width) {
+        return (width + BitLifeField.CELLS_PER_WORD - 1) / BitLifeField.CELLS_PER_WORD;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public LifeRule getRule() {
+        return rule;
+    }
+
+    public long getNumberOfAliveCells() {
+        return numberOfAliveCells;
+    }
+
+    /**
+     * @return true if the cell (x;y) of the pattern is alive.
+     */
+    public boolean isAlive(int x, int y) {
+        return (getWord(y, x / BitLifeField.CELLS_PER_WORD) & (1L << (x % BitLifeField.CELLS_PER_WORD))) != 0;
+    }
+
+    /**
+     * Get the word of the cells of the row, the writers read the cells word by word.
+     */
+    long getWord(int y, int wordX) {
+        return cells[y * wordsPerRow + wordX];
+    }
+
+    int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Put the pattern into an empty field state. The pattern wraps around the edges of the torus.
+     * @param fieldWidth width of the field.
+     * @param fieldHeight height of the field.
+     * @param left x of the field cell the left column of the pattern is put to.
+     * @param top y of the field cell the top row of the pattern is put to.
+     * @return bit-packed cells of the field.
+     * @throws IllegalArgumentException if the pattern is larger than the field.
+     * @see DigestableToroidalLifeField#importState(long[])
+     */
+    public long[] toFieldState(int fieldWidth, int fieldHeight, int left, int top) {
+        if (width > fieldWidth || height > fieldHeight) {
+            String errorMessage = "the pattern " + width + "x" + height + " doesn't fit into the field "
+                    + fieldWidth + "x" + fieldHeight + "!";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        int fieldWordsPerRow = BitLifeField.getStateLength(fieldWidth, 1);
+        long[] fieldCells = new long[BitLifeField.getStateLength(fieldWidth, fieldHeight)];
+        int firstX = (left % fieldWidth + fieldWidth) % fieldWidth;
+        int firstY = (top % fieldHeight + fieldHeight) % fieldHeight;
+        for (int y = 0; y < height; y++) {
+            int fieldRow = ((firstY + y) % fieldHeight) * fieldWordsPerRow;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = getWord(y, i);
+                while (word != 0) {
+                    int x = (firstX + i * BitLifeField.CELLS_PER_WORD + Long.numberOfTrailingZeros(word)) % fieldWidth;
+                    fieldCells[fieldRow + x / BitLifeField.CELLS_PER_WORD] |= 1L << (x % BitLifeField.CELLS_PER_WORD);
+                    word &= word - 1;
+                }
+            }
+        }
+        return fieldCells;
+    }
+
+    /**
+     * Replace state of the field with the pattern put into its centre.
+     * @param field field to load the pattern into.
+     * @throws IllegalArgumentException if the pattern is larger than the field.
+     */
+    public void loadInto(DigestableToroidalLifeField field) {
+        int left = (field.getWidth() - width) / 2;
+        int top = (field.getHeight() - height) / 2;
+        field.importState(toFieldState(field.getWidth(), field.getHeight(), left, top));
+    }
+}
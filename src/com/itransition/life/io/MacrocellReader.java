@@ -0,0 +1,232 @@
+package com.itransition.life.io;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.LifeRule;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Reader of the macrocell format of hashlife quadtrees. Leaves are blocks of 8x8 cells, every other
+ * node refers to its four children by their indices, index 0 is an empty node and the last node is
+ * the root. The bounding box of every node is computed from its children, so the pattern is cropped
+ * to its cells, and then the leaves are copied into the cells a byte per row.
+ * Only two-state patterns are supported. A quadtree may describe a pattern far larger than the memory,
+ * such patterns can't be read.
+ * @see{http://golly.sourceforge.net/Help/formats.html#mc}
+ */
+public class MacrocellReader implements PatternReader {
+    /**
+     * Header of the format.
+     */
+    public static final String HEADER = "[M2]";
+    /**
+     * Level of the leaves, which are 8x8 cells large.
+     */
+    public static final int LEAF_LEVEL = 3;
+    static final int LEAF_SIDE = 1 << LEAF_LEVEL;
+    private static final int INITIAL_NUMBER_OF_NODES = 1024;
+    private int numberOfNodes;
+    private int[] levels;
+    private int[][] children;
+    private long[] leaves;
+    private long[] minimalX;
+    private long[] minimalY;
+    private long[] maximalX;
+    private long[] maximalY;
+
+    /**
+     * @see PatternReader#read(ReadableByteChannel).
+     */
+    @Override
+    public LifePattern read(ReadableByteChannel channel) throws IOException {
+        PatternInput input = new PatternInput(channel);
+        String header = input.readLine();
+        if (header == null || !header.startsWith(HEADER)) {
+            throw input.createFormatException("header '" + HEADER + "' expected");
+        }
+        numberOfNodes = 1;
+        levels = new int[INITIAL_NUMBER_OF_NODES];
+        children = new int[4][INITIAL_NUMBER_OF_NODES];
+        leaves = new long[INITIAL_NUMBER_OF_NODES];
+        LifeRule rule = LifeRule.CONWAY;
+        int c = input.peek();
+        while (c >= 0) {
+            if (c == '#') {
+                String line = input.readLine();
+                if (line.startsWith("#R")) {
+                    rule = LifeRule.parse(line.substring(2).trim());
+                }
+            }
+            else if (c == '.' || c == '*' || c == '$') {
+                addLeaf(readLeaf(input));
+            }
+            else if (c >= '0' && c <= '9') {
+                readNode(input);
+            }
+            else if (c == '\r' || c == '\n' || c == ' ' || c == '\t') {
+                input.read();
+            }
+            else {
+                throw input.createFormatException("unexpected character '" + (char) c + "'");
+            }
+            c = input.peek();
+        }
+        return createPattern(rule);
+    }
+
+    private long readLeaf(PatternInput input) throws IOException {
+        long leaf = 0;
+        int x = 0;
+        int y = 0;
+        int c = input.peek();
+        while (c == '.' || c == '*' || c == '$') {
+            input.read();
+            if (c == '$') {
+                x = 0;
+                y++;
+            }
+            else {
+                if (x >= LEAF_SIDE || y >= LEAF_SIDE) {
+                    throw input.createFormatException("leaf is larger than 8x8 cells");
+                }
+                if (c == '*') {
+                    leaf |= 1L << (y * LEAF_SIDE + x);
+                }
+                x++;
+            }
+            c = input.peek();
+        }
+        return leaf;
+    }
+
+    private void addLeaf(long leaf) {
+        ensureCapacity();
+        levels[numberOfNodes] = LEAF_LEVEL;
+        leaves[numberOfNodes] = leaf;
+        numberOfNodes++;
+    }
+
+    private void readNode(PatternInput input) throws IOException {
+        int level = (int) input.readNumber();
+        if (level <= LEAF_LEVEL || level >= Long.SIZE - 1) {
+            throw input.createFormatException("wrong level " + level + " of a node, only two-state patterns are supported");
+        }
+        ensureCapacity();
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            input.skipBlanks();
+            long child = input.readNumber();
+            if (child < 0 || child >= numberOfNodes || (child != 0 && levels[(int) child] != level - 1)) {
+                throw input.createFormatException("wrong child " + child + " of a node of level " + level);
+            }
+            children[quadrant][numberOfNodes] = (int) child;
+        }
+        levels[numberOfNodes] = level;
+        numberOfNodes++;
+    }
+
+    private void ensureCapacity() {
+        if (numberOfNodes == levels.length) {
+            int capacity = 2 * levels.length;
+            levels = Arrays.copyOf(levels, capacity);
+            leaves = Arrays.copyOf(leaves, capacity);
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                children[quadrant] = Arrays.copyOf(children[quadrant], capacity);
+            }
+        }
+    }
+
+    /**
+     * Bounding boxes are computed in the order of the nodes, since children precede their parents.
+     */
+    private LifePattern createPattern(LifeRule rule) {
+        int root = numberOfNodes - 1;
+        minimalX = new long[numberOfNodes];
+        minimalY = new long[numberOfNodes];
+        maximalX = new long[numberOfNodes];
+        maximalY = new long[numberOfNodes];
+        maximalX[0] = -1;
+        for (int node = 1; node < numberOfNodes; node++) {
+            computeBoundingBox(node);
+        }
+        if (root == 0 || maximalX[root] < 0) {
+            return new LifePattern(0, 0, new long[0], rule);
+        }
+        long width = maximalX[root] - minimalX[root] + 1;
+        long height = maximalY[root] - minimalY[root] + 1;
+        long[] cells = LifePattern.createCells(width, height);
+        render(cells, LifePattern.getWordsPerRow((int) width), root, -minimalX[root], -minimalY[root]);
+        return new LifePattern((int) width, (int) height, cells, rule);
+    }
+
+    /**
+     * Empty nodes get an empty box whose maximal x is negative.
+     */
+    private void computeBoundingBox(int node) {
+        minimalX[node] = Long.MAX_VALUE;
+        minimalY[node] = Long.MAX_VALUE;
+        maximalX[node] = -1;
+        maximalY[node] = -1;
+        if (levels[node] == LEAF_LEVEL) {
+            long leaf = leaves[node];
+            while (leaf != 0) {
+                int bit = Long.numberOfTrailingZeros(leaf);
+                includeBox(node, bit % LEAF_SIDE, bit / LEAF_SIDE, bit % LEAF_SIDE, bit / LEAF_SIDE);
+                leaf &= leaf - 1;
+            }
+            return;
+        }
+        long half = 1L << (levels[node] - 1);
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            int child = children[quadrant][node];
+            if (maximalX[child] < 0) {
+                continue;
+            }
+            long offsetX = (quadrant % 2) * half;
+            long offsetY = (quadrant / 2) * half;
+            includeBox(node, minimalX[child] + offsetX, minimalY[child] + offsetY,
+                    maximalX[child] + offsetX, maximalY[child] + offsetY);
+        }
+    }
+
+    private void includeBox(int node, long x1, long y1, long x2, long y2) {
+        minimalX[node] = Math.min(minimalX[node], x1);
+        minimalY[node] = Math.min(minimalY[node], y1);
+        maximalX[node] = Math.max(maximalX[node], x2);
+        maximalY[node] = Math.max(maximalY[node], y2);
+    }
+
+    /**
+     * Copy the cells of the node whose top left corner is at (x;y) of the pattern, the corner may lie
+     * outside of the cropped pattern. Empty nodes aren't visited. A row of a leaf is a byte which is
+     * shifted to the first alive cell of the leaf, so it's copied into at most two words.
+     */
+    private void render(long[] cells, int wordsPerRow, int node, long x, long y) {
+        if (maximalX[node] < 0) {
+            return;
+        }
+        if (levels[node] == LEAF_LEVEL) {
+            long leaf = leaves[node];
+            for (int row = 0; row < LEAF_SIDE; row++) {
+                long rowCells = (leaf >>> (row * LEAF_SIDE)) & 0xff;
+                if (rowCells == 0) {
+                    continue;
+                }
+                int firstX = (int) (x + minimalX[node]);
+                int shift = firstX % BitLifeField.CELLS_PER_WORD;
+                rowCells >>>= minimalX[node];
+                int target = (int) (y + row) * wordsPerRow + firstX / BitLifeField.CELLS_PER_WORD;
+                cells[target] |= rowCells << shift;
+                if (shift != 0 && (rowCells >>> (BitLifeField.CELLS_PER_WORD - shift)) != 0) {
+                    cells[target + 1] |= rowCells >>> (BitLifeField.CELLS_PER_WORD - shift);
+                }
+            }
+            return;
+        }
+        long half = 1L << (levels[node] - 1);
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            render(cells, wordsPerRow, children[quadrant][node], x + (quadrant % 2) * half, y + (quadrant / 2) * half);
+        }
+    }
+}
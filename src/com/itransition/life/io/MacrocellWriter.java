@@ -0,0 +1,159 @@
+package com.itransition.life.io;
+
+import com.itransition.life.core.BitLifeField;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writer of the macrocell format. The pattern is put into the top left corner of the smallest square
+ * quadtree which covers it, equal nodes are written once and empty nodes aren't written at all, so
+ * the size of the output depends on the number of distinct nodes rather than on the area of the pattern.
+ * Nodes are written as soon as they are created, children before their parents.
+ * @see MacrocellReader
+ */
+public class MacrocellWriter implements PatternWriter {
+    private static final String GENERATOR = " (GameOfLife)";
+    private static final int LEAF_ROW_MASK = 0xff;
+
+    /**
+     * @see PatternWriter#write(LifePattern, WritableByteChannel).
+     */
+    @Override
+    public void write(LifePattern pattern, WritableByteChannel channel) throws IOException {
+        PatternOutput output = new PatternOutput(channel);
+        output.write(MacrocellReader.HEADER);
+        output.write(GENERATOR);
+        output.write('\n');
+        output.write("#R ");
+        output.write(pattern.getRule().toString());
+        output.write('\n');
+        int level = MacrocellReader.LEAF_LEVEL;
+        while ((1L << level) < Math.max(pattern.getWidth(), pattern.getHeight())) {
+            level++;
+        }
+        new Nodes(pattern, output).writeNode(level, 0, 0);
+        output.flush();
+    }
+
+    /**
+     * Nodes written so far, every node is identified by its level and the indices of its children.
+     */
+    private static class Nodes {
+        private final LifePattern pattern;
+        private final PatternOutput output;
+        private final Map<Long, Integer> leaves = new HashMap<Long, Integer>();
+        private final Map<Node, Integer> nodes = new HashMap<Node, Integer>();
+        private int numberOfNodes = 0;
+
+        Nodes(LifePattern pattern, PatternOutput output) {
+            this.pattern = pattern;
+            this.output = output;
+        }
+
+        /**
+         * Write the node whose top left corner is the cell (x;y) of the pattern unless it has been
+         * written already.
+         * @return index of the node, 0 if it's empty.
+         */
+        int writeNode(int level, long x, long y) throws IOException {
+            if (x >= pattern.getWidth() || y >= pattern.getHeight()) {
+                return 0;
+            }
+            if (level == MacrocellReader.LEAF_LEVEL) {
+                return writeLeaf(getLeaf((int) x, (int) y));
+            }
+            long half = 1L << (level - 1);
+            Node node = new Node(level,
+                    writeNode(level - 1, x, y), writeNode(level - 1, x + half, y),
+                    writeNode(level - 1, x, y + half), writeNode(level - 1, x + half, y + half));
+            if (node.isEmpty()) {
+                return 0;
+            }
+            Integer index = nodes.get(node);
+            if (index != null) {
+                return index;
+            }
+            nodes.put(node, ++numberOfNodes);
+            output.write(level);
+            for (int child : node.children) {
+                output.write(' ');
+                output.write(child);
+            }
+            output.write('\n');
+            return numberOfNodes;
+        }
+
+        /**
+         * Leaves are a byte of a word wide, so a row of a leaf never crosses words.
+         * @return cells of the leaf, a byte per row.
+         */
+        private long getLeaf(int x, int y) {
+            long leaf = 0;
+            int lastRow = Math.min(MacrocellReader.LEAF_SIDE, pattern.getHeight() - y);
+            for (int row = 0; row < lastRow; row++) {
+                long word = pattern.getWord(y + row, x / BitLifeField.CELLS_PER_WORD);
+                long rowCells = (word >>> (x % BitLifeField.CELLS_PER_WORD)) & LEAF_ROW_MASK;
+                leaf |= rowCells << (row * MacrocellReader.LEAF_SIDE);
+            }
+            return leaf;
+        }
+
+        /**
+         * Rows of a leaf are terminated with '$', dead cells at the ends of the rows and empty rows at
+         * the bottom are omitted.
+         */
+        private int writeLeaf(long leaf) throws IOException {
+            if (leaf == 0) {
+                return 0;
+            }
+            Integer index = leaves.get(leaf);
+            if (index != null) {
+                return index;
+            }
+            leaves.put(leaf, ++numberOfNodes);
+            for (long rest = leaf; rest != 0; rest >>>= MacrocellReader.LEAF_SIDE) {
+                for (long rowCells = rest & LEAF_ROW_MASK; rowCells != 0; rowCells >>>= 1) {
+                    output.write((rowCells & 1) != 0 ? '*' : '.');
+                }
+                output.write('$');
+            }
+            output.write('\n');
+            return numberOfNodes;
+        }
+    }
+
+    private static final class Node {
+        private final int level;
+        private final int[] children;
+
+        Node(int level, int nw, int ne, int sw, int se) {
+            this.level = level;
+            this.children = new int[]{nw, ne, sw, se};
+        }
+
+        boolean isEmpty() {
+            return children[0] == 0 && children[1] == 0 && children[2] == 0 && children[3] == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Node)) {
+                return false;
+            }
+            Node node = (Node) o;
+            return level == node.level && Arrays.equals(children, node.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * level + Arrays.hashCode(children);
+        }
+    }
+}
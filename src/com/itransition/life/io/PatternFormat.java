@@ -0,0 +1,116 @@
+package com.itransition.life.io;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Supported pattern formats. Readers and writers stream the cells through a buffer, so reading a
+ * pattern takes memory of its bit-packed cells only.
+ */
+public enum PatternFormat {
+    RLE(new String[]{".rle"}) {
+        @Override
+        public PatternReader createReader() {
+            return new RleReader();
+        }
+
+        @Override
+        public PatternWriter createWriter() {
+            return new RleWriter();
+        }
+    },
+    LIFE_106(new String[]{".lif", ".life"}) {
+        @Override
+        public PatternReader createReader() {
+            return new Life106Reader();
+        }
+
+        @Override
+        public PatternWriter createWriter() {
+            return new Life106Writer();
+        }
+    },
+    MACROCELL(new String[]{".mc"}) {
+        @Override
+        public PatternReader createReader() {
+            return new MacrocellReader();
+        }
+
+        @Override
+        public PatternWriter createWriter() {
+            return new MacrocellWriter();
+        }
+    };
+
+    private static final Log LOGGER = LogFactory.getLog(PatternFormat.class);
+    private final String[] extensions;
+
+    private PatternFormat(String[] extensions) {
+        this.extensions = extensions;
+    }
+
+    public abstract PatternReader createReader();
+
+    public abstract PatternWriter createWriter();
+
+    /**
+     * Find the format by the extension of the file name.
+     * @throws IllegalArgumentException if the extension is unknown.
+     */
+    public static PatternFormat forFileName(String fileName) {
+        String lowerCaseName = fileName.toLowerCase(Locale.ENGLISH);
+        for (PatternFormat format : values()) {
+            for (String extension : format.extensions) {
+                if (lowerCaseName.endsWith(extension)) {
+                    return format;
+                }
+            }
+        }
+        String errorMessage = "unknown pattern format of the file '" + fileName + "'!";
+        LOGGER.error(errorMessage);
+        throw new IllegalArgumentException(errorMessage);
+    }
+
+    /**
+     * Read the pattern from the file.
+     * @throws IOException if the file can't be read.
+     * @throws IllegalArgumentException if the pattern is malformed.
+     */
+    public LifePattern read(File file) throws IOException {
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            return createReader().read(stream.getChannel());
+        }
+        finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Write the pattern to the file, the file is replaced.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(LifePattern pattern, File file) throws IOException {
+        FileOutputStream stream = new FileOutputStream(file);
+        try {
+            createWriter().write(pattern, stream.getChannel());
+        }
+        finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Read the pattern from the file in the format given by its extension.
+     * @see #forFileName(String)
+     */
+    public static LifePattern readFile(File file) throws IOException {
+        return forFileName(file.getName()).read(file);
+    }
+}
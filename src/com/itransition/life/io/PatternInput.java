@@ -0,0 +1,131 @@
+package com.itransition.life.io;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Buffered reader of the ASCII text of a pattern from a channel. Patterns are decoded byte by byte
+ * from the buffer, so no strings are created for the cells.
+ */
+final class PatternInput {
+    private static final Log LOGGER = LogFactory.getLog(PatternInput.class);
+    private static final int BUFFER_SIZE = 1 << 16;
+    private final ReadableByteChannel channel;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int position = 0;
+    private int limit = 0;
+    private int lineNumber = 1;
+
+    PatternInput(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return next byte or -1 at the end of the channel.
+     */
+    int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        int c = bytes[position++] & 0xff;
+        if (c == '\n') {
+            lineNumber++;
+        }
+        return c;
+    }
+
+    /**
+     * @return next byte without reading it or -1 at the end of the channel.
+     */
+    int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return bytes[position] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int numberOfBytes;
+        do {
+            numberOfBytes = channel.read(buffer);
+        } while (numberOfBytes == 0);
+        position = 0;
+        limit = Math.max(numberOfBytes, 0);
+        return numberOfBytes > 0;
+    }
+
+    /**
+     * Read the rest of the line without the line terminator.
+     * @return the line or null at the end of the channel.
+     */
+    String readLine() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (c >= 0 && c != '\n') {
+            if (c != '\r') {
+                line.append((char) c);
+            }
+            c = read();
+        }
+        return line.toString();
+    }
+
+    /**
+     * Skip spaces and tabs but not line terminators.
+     */
+    void skipBlanks() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t') {
+            read();
+            c = peek();
+        }
+    }
+
+    /**
+     * Read a decimal number with an optional sign.
+     * @throws IllegalArgumentException if there is no number or it's too large.
+     */
+    long readNumber() throws IOException {
+        int c = peek();
+        boolean negative = c == '-';
+        if (c == '-' || c == '+') {
+            read();
+            c = peek();
+        }
+        if (c < '0' || c > '9') {
+            throw createFormatException("number expected");
+        }
+        long number = 0;
+        while (c >= '0' && c <= '9') {
+            number = number * 10 + (c - '0');
+            if (number > Integer.MAX_VALUE) {
+                throw createFormatException("number is too large");
+            }
+            read();
+            c = peek();
+        }
+        return negative ? -number : number;
+    }
+
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Create exception about malformed input at the current line. The exception is logged.
+     */
+    IllegalArgumentException createFormatException(String reason) {
+        String errorMessage = "wrong pattern format! " + reason + " at line " + lineNumber + ".";
+        LOGGER.error(errorMessage);
+        return new IllegalArgumentException(errorMessage);
+    }
+}
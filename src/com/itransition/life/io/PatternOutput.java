@@ -0,0 +1,73 @@
+package com.itransition.life.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered writer of the ASCII text of a pattern to a channel.
+ */
+final class PatternOutput {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAXIMAL_NUMBER_LENGTH = 20;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[MAXIMAL_NUMBER_LENGTH];
+
+    PatternOutput(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    void write(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) c);
+    }
+
+    void write(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            write(text.charAt(i));
+        }
+    }
+
+    /**
+     * Write a decimal number without creating a string.
+     */
+    void write(long number) throws IOException {
+        if (number < 0) {
+            write('-');
+        }
+        long rest = Math.abs(number);
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        while (length > 0) {
+            write((char) digits[--length]);
+        }
+    }
+
+    /**
+     * @return number of characters of the number.
+     */
+    static int getLength(long number) {
+        int length = number < 0 ? 2 : 1;
+        for (long rest = Math.abs(number); rest >= 10; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Write the buffered bytes to the channel.
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
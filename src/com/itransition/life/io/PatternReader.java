@@ -0,0 +1,19 @@
+package com.itransition.life.io;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Decoder of a pattern format.
+ * @see PatternFormat
+ */
+public interface PatternReader {
+    /**
+     * Read the pattern from the current position of the channel. The channel isn't closed.
+     * @param channel channel to read.
+     * @return the pattern cropped to its cells or to the size declared by the format.
+     * @throws IOException if the channel can't be read.
+     * @throws IllegalArgumentException if the pattern is malformed or too large to be kept in memory.
+     */
+    public LifePattern read(ReadableByteChannel channel) throws IOException;
+}
@@ -0,0 +1,18 @@
+package com.itransition.life.io;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encoder of a pattern format.
+ * @see PatternFormat
+ */
+public interface PatternWriter {
+    /**
+     * Write the pattern to the channel. The channel isn't closed.
+     * @param pattern pattern to write.
+     * @param channel channel to write.
+     * @throws IOException if the channel can't be written.
+     */
+    public void write(LifePattern pattern, WritableByteChannel channel) throws IOException;
+}
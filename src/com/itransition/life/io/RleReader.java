@@ -0,0 +1,113 @@
+package com.itransition.life.io;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.LifeRule;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reader of the run length encoded format. The header declares the size of the pattern, so the runs
+ * are decoded straight into the bit-packed cells: a run of alive cells sets whole words at once.
+ * Comment lines before the header are skipped. States other than 'b' and '.' are read as alive cells.
+ * @see{http://www.conwaylife.com/wiki/Run_Length_Encoded}
+ */
+public class RleReader implements PatternReader {
+    /**
+     * @see PatternReader#read(ReadableByteChannel).
+     */
+    @Override
+    public LifePattern read(ReadableByteChannel channel) throws IOException {
+        PatternInput input = new PatternInput(channel);
+        String header = input.readLine();
+        while (header != null && (header.startsWith("#") || header.trim().isEmpty())) {
+            header = input.readLine();
+        }
+        if (header == null) {
+            throw input.createFormatException("header expected");
+        }
+        long width = -1;
+        long height = -1;
+        LifeRule rule = LifeRule.CONWAY;
+        for (String item : header.split(",")) {
+            String[] keyAndValue = item.split("=");
+            if (keyAndValue.length != 2) {
+                throw input.createFormatException("wrong header item '" + item + "'");
+            }
+            String key = keyAndValue[0].trim();
+            String value = keyAndValue[1].trim();
+            try {
+                if (key.equals("x")) {
+                    width = Long.parseLong(value);
+                }
+                else if (key.equals("y")) {
+                    height = Long.parseLong(value);
+                }
+                else if (key.equals("rule")) {
+                    rule = LifeRule.parse(value.split(":")[0]);
+                }
+            }
+            catch (NumberFormatException e) {
+                throw input.createFormatException("wrong header item '" + item + "'");
+            }
+        }
+        if (width < 0 || height < 0) {
+            throw input.createFormatException("size of the pattern expected in the header");
+        }
+        long[] cells = LifePattern.createCells(width, height);
+        decodeRuns(input, cells, (int) width, (int) height);
+        return new LifePattern((int) width, (int) height, cells, rule);
+    }
+
+    private static void decodeRuns(PatternInput input, long[] cells, int width, int height) throws IOException {
+        int wordsPerRow = LifePattern.getWordsPerRow(width);
+        long x = 0;
+        long y = 0;
+        int c = input.peek();
+        while (c >= 0 && c != '!') {
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                input.read();
+                c = input.peek();
+                continue;
+            }
+            long count = 1;
+            if (c >= '0' && c <= '9') {
+                count = input.readNumber();
+                c = input.peek();
+            }
+            input.read();
+            if (c == '$') {
+                y += count;
+                x = 0;
+            }
+            else if (c == 'b' || c == '.') {
+                x += count;
+            }
+            else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                if (x + count > width || y >= height) {
+                    throw input.createFormatException("cells beyond the size of the pattern");
+                }
+                setRun(cells, (int) y * wordsPerRow, (int) x, (int) count);
+                x += count;
+            }
+            else {
+                throw input.createFormatException("unexpected character '" + (char) c + "'");
+            }
+            c = input.peek();
+        }
+    }
+
+    /**
+     * Set a run of alive cells of the row, the words inside the run are set at once.
+     */
+    static void setRun(long[] cells, int row, int x, int count) {
+        int end = x + count;
+        while (x < end) {
+            int bit = x % BitLifeField.CELLS_PER_WORD;
+            int length = Math.min(BitLifeField.CELLS_PER_WORD - bit, end - x);
+            long run = length == BitLifeField.CELLS_PER_WORD ? -1L : ((1L << length) - 1) << bit;
+            cells[row + x / BitLifeField.CELLS_PER_WORD] |= run;
+            x += length;
+        }
+    }
+}
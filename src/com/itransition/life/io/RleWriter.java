@@ -0,0 +1,109 @@
+package com.itransition.life.io;
+
+import com.itransition.life.core.BitLifeField;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writer of the run length encoded format. Runs are found word by word, so empty parts of the pattern
+ * cost a word per 64 cells. Lines are at most 70 characters long, empty rows are merged into a single
+ * row break and dead cells at the ends of the rows are omitted.
+ * @see RleReader
+ */
+public class RleWriter implements PatternWriter {
+    private static final int MAXIMAL_LINE_LENGTH = 70;
+
+    /**
+     * @see PatternWriter#write(LifePattern, WritableByteChannel).
+     */
+    @Override
+    public void write(LifePattern pattern, WritableByteChannel channel) throws IOException {
+        PatternOutput output = new PatternOutput(channel);
+        output.write("x = ");
+        output.write(pattern.getWidth());
+        output.write(", y = ");
+        output.write(pattern.getHeight());
+        output.write(", rule = ");
+        output.write(pattern.getRule().toString());
+        output.write('\n');
+        Runs runs = new Runs(output);
+        for (int y = 0; y < pattern.getHeight(); y++) {
+            int x = nextCell(pattern, y, 0, true);
+            if (x < pattern.getWidth()) {
+                runs.flushRowBreaks();
+            }
+            int deadStart = 0;
+            while (x < pattern.getWidth()) {
+                int deadEnd = nextCell(pattern, y, x, false);
+                runs.writeRun(x - deadStart, 'b');
+                runs.writeRun(deadEnd - x, 'o');
+                deadStart = deadEnd;
+                x = nextCell(pattern, y, deadEnd, true);
+            }
+            runs.rowBreaks++;
+        }
+        runs.writeRun(1, '!');
+        output.write('\n');
+        output.flush();
+    }
+
+    /**
+     * Find the next alive or dead cell of the row starting with x.
+     * @return x of the cell or width of the pattern if there is no such cell.
+     */
+    static int nextCell(LifePattern pattern, int y, int x, boolean alive) {
+        int width = pattern.getWidth();
+        int wordX = x / BitLifeField.CELLS_PER_WORD;
+        int wordsPerRow = pattern.getWordsPerRow();
+        if (wordX >= wordsPerRow) {
+            return width;
+        }
+        long word = alive ? pattern.getWord(y, wordX) : ~pattern.getWord(y, wordX);
+        word &= -1L << (x % BitLifeField.CELLS_PER_WORD);
+        while (word == 0) {
+            wordX++;
+            if (wordX >= wordsPerRow) {
+                return width;
+            }
+            word = alive ? pattern.getWord(y, wordX) : ~pattern.getWord(y, wordX);
+        }
+        return Math.min(width, wordX * BitLifeField.CELLS_PER_WORD + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Runs written so far together with the length of the current line.
+     */
+    private static class Runs {
+        private final PatternOutput output;
+        private int lineLength = 0;
+        private int rowBreaks = 0;
+
+        Runs(PatternOutput output) {
+            this.output = output;
+        }
+
+        void flushRowBreaks() throws IOException {
+            if (rowBreaks > 0) {
+                writeRun(rowBreaks, '$');
+                rowBreaks = 0;
+            }
+        }
+
+        void writeRun(int count, char tag) throws IOException {
+            if (count == 0) {
+                return;
+            }
+            int length = count == 1 ? 1 : PatternOutput.getLength(count) + 1;
+            if (lineLength + length > MAXIMAL_LINE_LENGTH) {
+                output.write('\n');
+                lineLength = 0;
+            }
+            if (count > 1) {
+                output.write(count);
+            }
+            output.write(tag);
+            lineLength += length;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.itransition.life.search;
+
+/**
+ * Source of the seeds of random soups. Seeds are taken by a single thread, so implementations
+ * don't have to be thread-safe.
+ */
+public interface SeedGenerator {
+    /**
+     * Check whether there are more seeds.
+     * @return true if nextSeed() can be called.
+     */
+    public boolean hasNextSeed();
+
+    /**
+     * Get next seed.
+     * @return seed of the next soup.
+     */
+    public long nextSeed();
+}
@@ -0,0 +1,45 @@
+package com.itransition.life.search;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Generates consecutive seeds starting from the specified one.
+ */
+public class SequentialSeedGenerator implements SeedGenerator {
+    private static final Log LOGGER = LogFactory.getLog(SequentialSeedGenerator.class);
+    private final long lastSeed;
+    private long seed;
+
+    /**
+     * Create generator of the seeds firstSeed, firstSeed + 1, ..., firstSeed + numberOfSeeds - 1.
+     * @param firstSeed first seed.
+     * @param numberOfSeeds number of seeds to generate.
+     * @throws IllegalArgumentException if the number of seeds is negative.
+     */
+    public SequentialSeedGenerator(long firstSeed, long numberOfSeeds) {
+        if (numberOfSeeds < 0) {
+            String errorMessage = "wrong number of seeds! number of seeds = " + numberOfSeeds + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.seed = firstSeed;
+        this.lastSeed = firstSeed + numberOfSeeds;
+    }
+
+    /**
+     * @see SeedGenerator#hasNextSeed().
+     */
+    @Override
+    public boolean hasNextSeed() {
+        return seed != lastSeed;
+    }
+
+    /**
+     * @see SeedGenerator#nextSeed().
+     */
+    @Override
+    public long nextSeed() {
+        return seed++;
+    }
+}
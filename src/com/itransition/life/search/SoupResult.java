@@ -0,0 +1,56 @@
+package com.itransition.life.search;
+
+/**
+ * Result of a random soup: when it stabilized, the period it ended in and its population.
+ * Instances are immutable.
+ */
+public final class SoupResult {
+    private final long seed;
+    private final long stabilizationGeneration;
+    private final long period;
+    private final long population;
+
+    /**
+     * Create result of a soup.
+     * @param seed seed of the soup.
+     * @param stabilizationGeneration first generation which is repeated periodically or the number
+     * of computed generations if the soup hasn't stabilized.
+     * @param period period of the final cycle or 0 if the soup hasn't stabilized.
+     * @param population number of alive cells in the stabilization generation.
+     */
+    public SoupResult(long seed, long stabilizationGeneration, long period, long population) {
+        this.seed = seed;
+        this.stabilizationGeneration = stabilizationGeneration;
+        this.period = period;
+        this.population = population;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getStabilizationGeneration() {
+        return stabilizationGeneration;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * @return true if the cycle of the soup has been found.
+     */
+    public boolean isStabilized() {
+        return period > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "seed = " + seed + "   stabilization generation = " + stabilizationGeneration
+                + "   period = " + period + "   population = " + population;
+    }
+}
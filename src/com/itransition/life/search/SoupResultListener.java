@@ -0,0 +1,14 @@
+package com.itransition.life.search;
+
+/**
+ * Receives results of a soup search as soon as the soups are finished.
+ * Results come from the threads of the search pool in no particular order, so implementations
+ * should be thread-safe and shouldn't block for long.
+ */
+public interface SoupResultListener {
+    /**
+     * Called when the soup has stabilized or has run out of generations.
+     * @param result result of the soup.
+     */
+    public void soupFinished(SoupResult result);
+}
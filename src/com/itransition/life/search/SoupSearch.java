@@ -0,0 +1,194 @@
+package com.itransition.life.search;
+
+import com.itransition.life.core.*;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Batch search of random soups. Every seed gives an independent soup on its own field, the soups are
+ * run on a work-stealing ForkJoinPool until their cycles are found and their results are streamed
+ * to a listener as they finish, so the throughput grows with the number of cores.
+ * The soup of a seed is filled by java.util.Random with this seed, so results are reproducible.
+ * The cycle and the stabilization generation are found by CycleFinder, the stabilization
+ * generation by replaying the soup from its seed. A soup which dies is known to have stabilized
+ * at the generation it died, so it isn't replayed.
+ * No GUI or LifeGameController is needed.
+ */
+public class SoupSearch {
+    /**
+     * Default limit of generations of a soup.
+     */
+    public static final long DEFAULT_MAXIMAL_NUMBER_OF_GENERATIONS = 100000;
+    private static final Log LOGGER = LogFactory.getLog(SoupSearch.class);
+    private static final int TASKS_PER_THREAD = 4;
+    private final int width;
+    private final int height;
+    private final double density;
+    private final LifeRule rule;
+    private final long maximalNumberOfGenerations;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create search of Conway's Game of Life soups which uses all available processors.
+     * @param width width of the fields in cells.
+     * @param height height of the fields in cells.
+     * @param density probability of a cell of a soup to be alive.
+     * @throws IllegalArgumentException if either width or height is too small or density isn't within [0, 1].
+     */
+    public SoupSearch(int width, int height, double density) {
+        this(width, height, density, LifeRule.CONWAY, Runtime.getRuntime().availableProcessors(),
+                DEFAULT_MAXIMAL_NUMBER_OF_GENERATIONS);
+    }
+
+    /**
+     * Create search of soups.
+     * @param width width of the fields in cells.
+     * @param height height of the fields in cells.
+     * @param density probability of a cell of a soup to be alive.
+     * @param rule rule of the next generation.
+     * @param parallelism number of threads running the soups.
+     * @param maximalNumberOfGenerations number of generations after which a soup is given up.
+     * @throws IllegalArgumentException if either width or height is too small, density isn't within [0, 1],
+     * or either parallelism or maximal number of generations is not positive.
+     */
+    public SoupSearch(int width, int height, double density, LifeRule rule, int parallelism,
+                      long maximalNumberOfGenerations) {
+        if (width < SimdLifeField.MINIMAL_WIDTH || height < SimdLifeField.MINIMAL_HEIGHT) {
+            String errorMessage = "wrong field size! width = " + width + "   height = " + height
+                    + ". minimal width is " + SimdLifeField.MINIMAL_WIDTH
+                    + " and minimal height is " + SimdLifeField.MINIMAL_HEIGHT + ".";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        if (!(density >= 0 && density <= 1)) {
+            String errorMessage = "wrong density! density = " + density + ". it should be within [0, 1].";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        if (parallelism < 1 || maximalNumberOfGenerations < 1) {
+            String errorMessage = "wrong parameters! parallelism = " + parallelism
+                    + "   maximal number of generations = " + maximalNumberOfGenerations + ". both should be positive.";
+            LOGGER.error(errorMessage);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        this.width = width;
+        this.height = height;
+        this.density = density;
+        this.rule = rule;
+        this.maximalNumberOfGenerations = maximalNumberOfGenerations;
+        this.parallelism = parallelism;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Run the soups of all the seeds and wait until they are finished.
+     * Only a few soups per thread are queued at a time, so the seed generator may be endless
+     * as long as the search is interrupted.
+     * @param seedGenerator seeds of the soups, it's used by the calling thread only.
+     * @param listener receives the results from the threads of the pool.
+     * @return number of finished soups.
+     * @throws InterruptedException if the calling thread is interrupted while waiting, the queued
+     * soups are still finished in the background.
+     */
+    public long search(SeedGenerator seedGenerator, final SoupResultListener listener) throws InterruptedException {
+        int maximalNumberOfTasks = parallelism * TASKS_PER_THREAD;
+        final Semaphore tasks = new Semaphore(maximalNumberOfTasks);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+        long numberOfSoups = 0;
+        while (seedGenerator.hasNextSeed() && failure.get() == null) {
+            final long seed = seedGenerator.nextSeed();
+            tasks.acquire();
+            pool.execute(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    try {
+                        listener.soupFinished(runSoup(seed));
+                    }
+                    catch (RuntimeException e) {
+                        LOGGER.error("soup of seed " + seed + " failed!", e);
+                        failure.compareAndSet(null, e);
+                    }
+                    finally {
+                        tasks.release();
+                    }
+                }
+            });
+            numberOfSoups++;
+        }
+        tasks.acquire(maximalNumberOfTasks);
+        tasks.release(maximalNumberOfTasks);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return numberOfSoups;
+    }
+
+    /**
+     * Run a single soup in the calling thread.
+     * @param seed seed of the soup.
+     * @return result of the soup.
+     */
+    public SoupResult runSoup(long seed) {
+        long[] cells = createSoupCells(width, height, seed, density);
+        SimdLifeField field = createSoup(cells);
+        CycleFinder cycleFinder = new CycleFinder(field, new PartitionedCycleDetector(), 1);
+        long period = 0;
+        while (period == 0 && cycleFinder.getGeneration() < maximalNumberOfGenerations) {
+            if (field.getNumberOfAliveCells() == 0 && !rule.hasBirthOnZero()) {
+                // Dead soup: every earlier generation had alive cells, so it stabilized right now.
+                return new SoupResult(seed, cycleFinder.getGeneration(), 1, 0);
+            }
+            period = cycleFinder.run(cycleFinder.getGeneration() + 1);
+        }
+        if (period == 0) {
+            return new SoupResult(seed, cycleFinder.getGeneration(), 0, field.getNumberOfAliveCells());
+        }
+        SimdLifeField stabilizedField = createSoup(cells);
+        long stabilizationGeneration = CycleFinder.findStabilizationGeneration(stabilizedField, createSoup(cells),
+                period);
+        return new SoupResult(seed, stabilizationGeneration, period, stabilizedField.getNumberOfAliveCells());
+    }
+
+    /**
+     * Stop the threads of the pool once the queued soups are finished. The search can't be used after that.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Fill the cells of a soup. Cells are filled row by row by java.util.Random with the seed, so
+     * a seed gives the same soup on a field of the same size.
+     * @param width width of the field in cells.
+     * @param height height of the field in cells.
+     * @param seed seed of the soup.
+     * @param density probability of a cell to be alive.
+     * @return bit-packed cells in the layout of DigestableToroidalLifeField.exportState(long[]).
+     */
+    public static long[] createSoupCells(int width, int height, long seed, double density) {
+        long[] cells = new long[BitLifeField.getStateLength(width, height)];
+        int wordsPerRow = BitLifeField.getStateLength(width, 1);
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (random.nextDouble() < density) {
+                    cells[y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD] |= 1L << (x % BitLifeField.CELLS_PER_WORD);
+                }
+            }
+        }
+        return cells;
+    }
+
+    private SimdLifeField createSoup(long[] cells) {
+        SimdLifeField field = new SimdLifeField(width, height, rule, new ZobristDigestStrategy());
+        field.importState(cells);
+        return field;
+    }
+}
@@ -0,0 +1,67 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.ArrayLifeField;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class ArrayLifeFieldTestParallel {
+    private int width;
+    private int height;
+    private int parallelism;
+    private int epochCount;
+
+    public ArrayLifeFieldTestParallel(int width, int height, int parallelism, int epochCount) {
+        this.width = width;
+        this.height = height;
+        this.parallelism = parallelism;
+        this.epochCount = epochCount;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 3, 3, 2, 10 },
+                { 10, 17, 2, 30 },
+                { 40, 33, 3, 50 },
+                { 120, 120, 4, 50 },
+                { 200, 65, 8, 20 },
+                { 17, 300, 16, 20 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsSequential() throws Exception {
+        Random random = new Random(width * 31 + height);
+        ArrayLifeField sequentialField = new ArrayLifeField(width, height);
+        ArrayLifeField parallelField = new ArrayLifeField(width, height, parallelism);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                boolean state = random.nextBoolean();
+                sequentialField.setState(x, y, state);
+                parallelField.setState(x, y, state);
+            }
+        }
+        for (int i = 0; i < epochCount; i++) {
+            sequentialField.nextGeneration();
+            parallelField.nextGeneration();
+            Assert.assertArrayEquals(sequentialField.getDigest(), parallelField.getDigest());
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Assert.assertEquals(sequentialField.isAlive(x, y), parallelField.isAlive(x, y));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongParallelism() throws Exception {
+        new ArrayLifeField(width, height, 0);
+    }
+}
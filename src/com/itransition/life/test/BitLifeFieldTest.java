@@ -0,0 +1,126 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.ArrayLifeField;
+import com.itransition.life.core.BitLifeField;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class BitLifeFieldTest {
+    private int width;
+    private int height;
+    private int[][] initialCells;
+    private int epochCount;
+    private int[][] finalCells;
+
+    public BitLifeFieldTest(int width, int height, int[][] initialCells, int epochCount, int[][] finalCells) {
+        this.width = width;
+        this.height = height;
+        this.initialCells = initialCells;
+        this.epochCount = epochCount;
+        this.finalCells = finalCells;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 5, 5, new int[][] {{1,1},{1,2},{2,1},{2,2}}, 100, new int[][] {{1,1},{1,2},{2,1},{2,2}} },
+                { 5, 5, new int[][] {{0,3},{0,4},{4,3},{4,4}}, 100, new int[][] {{0,3},{0,4},{4,3},{4,4}} },
+                { 6, 6, new int[][] {{1,1},{1,2},{2,1},{2,2},{0,3},{0,4},{5,3},{5,4}}, 100, new int[][] {{1,1},{1,2},{2,1},{2,2},{0,3},{0,4},{5,3},{5,4}} },
+                { 6, 6, new int[][] {{1,1},{1,2},{2,1},{2,2},{0,3},{0,4},{5,3},{5,4}}, 101, new int[][] {{1,1},{2,1},{2,2},{0,4},{5,3},{5,4}} },
+                { 8, 8, new int[][] {{3,7},{3,0},{3,1},{7,4},{0,4},{1,4}}, 50, new int[][] {{3,7},{3,0},{3,1},{7,4},{0,4},{1,4}} },
+                { 8, 8, new int[][] {{3,7},{3,0},{3,1},{7,4},{0,4},{1,4}}, 51, new int[][] {{0,3},{0,4},{0,5},{2,0},{3,0},{4,0}} },
+                { 5, 6, new int[][] {{1,0},{2,1},{2,2},{1,2},{0,2}}, 4, new int[][] {{2,1},{3,2},{3,3},{2,3},{1,3}} },
+                { 64, 64, new int[][] {{63,10},{0,10},{1,10}}, 1, new int[][] {{0,9},{0,10},{0,11}} },
+                { 65, 7, new int[][] {{64,3},{0,3},{1,3}}, 1, new int[][] {{0,2},{0,3},{0,4}} },
+                { 130, 9, new int[][] {{63,0},{64,0},{65,0}}, 1, new int[][] {{64,8},{64,0},{64,1}} },
+                { 120, 120, new int[][] {{1,1},{2,1},{1,2},{2,2},{4,4},{4,3},{3,4},{3,3}}, 1000, new int[][] {{1,1},{2,1},{1,2},{2,2},{4,4},{4,3},{3,4},{3,3}} },
+                { 120, 120, new int[][] {{1,1},{2,1},{1,2},{2,2},{4,4},{4,3},{3,4},{3,3}}, 1001, new int[][] {{1,1},{2,1},{1,2},{4,4},{4,3},{3,4}} },
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        BitLifeField field = new BitLifeField(width, height);
+        Assert.assertEquals(width, field.getWidth());
+        Assert.assertEquals(height, field.getHeight());
+    }
+
+    @Test
+    public void testCellStates() throws Exception {
+        BitLifeField field = new BitLifeField(width, height);
+        for (int i = 0; i < initialCells.length; i++) {
+            int x = initialCells[i][0];
+            int y = initialCells[i][1];
+            field.setState(x, y, true);
+            Assert.assertTrue(field.isAlive(x, y));
+        }
+        Assert.assertEquals(initialCells.length, field.getNumberOfAliveCells());
+        for (int i = 0; i < initialCells.length; i++) {
+            int x = initialCells[i][0];
+            int y = initialCells[i][1];
+            field.setState(x, y, false);
+            Assert.assertFalse(field.isAlive(x, y));
+        }
+        Assert.assertEquals(0, field.getNumberOfAliveCells());
+    }
+
+    @Test
+    public void testNextGeneration() throws Exception {
+        BitLifeField field = new BitLifeField(width, height);
+        for (int i = 0; i < initialCells.length; i++) {
+            field.setState(initialCells[i][0], initialCells[i][1], true);
+        }
+        for (int i = 0; i < epochCount; i++) {
+            field.nextGeneration();
+        }
+        for (int i = 0; i < finalCells.length; i++) {
+            int x = finalCells[i][0];
+            int y = finalCells[i][1];
+            Assert.assertTrue(field.isAlive(x, y));
+        }
+        Assert.assertEquals(finalCells.length, field.getNumberOfAliveCells());
+    }
+
+    @Test
+    public void testDigest() throws Exception {
+        BitLifeField fieldA = new BitLifeField(width, height);
+        BitLifeField fieldB = new BitLifeField(width, height);
+        for (int i = 0; i < initialCells.length; i++) {
+            fieldA.setState(initialCells[i][0], initialCells[i][1], true);
+        }
+        for (int i = initialCells.length - 1; i >= 0; i--) {
+            fieldB.setState(initialCells[i][0], initialCells[i][1], true);
+        }
+        Assert.assertArrayEquals(fieldA.getDigest(), fieldB.getDigest());
+    }
+
+    @Test
+    public void testSameAsArrayLifeField() throws Exception {
+        Random random = new Random(width * 31 + height);
+        BitLifeField bitField = new BitLifeField(width, height);
+        ArrayLifeField arrayField = new ArrayLifeField(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                boolean state = random.nextInt(3) == 0;
+                bitField.setState(x, y, state);
+                arrayField.setState(x, y, state);
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            bitField.nextGeneration();
+            arrayField.nextGeneration();
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Assert.assertEquals(arrayField.isAlive(x, y), bitField.isAlive(x, y));
+            }
+        }
+    }
+}
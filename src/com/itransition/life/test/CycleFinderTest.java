@@ -0,0 +1,78 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class CycleFinderTest {
+    private static final int SIZE = 8;
+    private static final long MAXIMAL_NUMBER_OF_GENERATIONS = 1000;
+    private int digestInterval;
+
+    public CycleFinderTest(int digestInterval) {
+        this.digestInterval = digestInterval;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 1 },
+                { 3 },
+                { 7 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testGlider() throws Exception {
+        int[][] glider = { { 1, 0 }, { 2, 1 }, { 0, 2 }, { 1, 2 }, { 2, 2 } };
+        assertCycle(glider, 4 * SIZE, 0);
+    }
+
+    @Test
+    public void testPreBlock() throws Exception {
+        int[][] preBlock = { { 1, 1 }, { 2, 1 }, { 1, 2 } };
+        assertCycle(preBlock, 1, 1);
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+        CycleFinder cycleFinder = new CycleFinder(createField(new int[][] { { 0, 0 }, { 1, 0 }, { 2, 0 } }),
+                new PartitionedCycleDetector(), digestInterval);
+        Assert.assertEquals(0, cycleFinder.run(0));
+        Assert.assertEquals(0, cycleFinder.getGeneration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongDigestInterval() throws Exception {
+        new CycleFinder(new BitLifeField(SIZE, SIZE), new PartitionedCycleDetector(), -digestInterval);
+    }
+
+    private void assertCycle(int[][] cells, long period, long stabilizationGeneration) {
+        DigestableToroidalLifeField field = createField(cells);
+        CycleFinder cycleFinder = new CycleFinder(field, new PartitionedCycleDetector(), digestInterval);
+        Assert.assertEquals(period, cycleFinder.run(MAXIMAL_NUMBER_OF_GENERATIONS));
+        Assert.assertEquals(period, cycleFinder.getPeriod());
+        Assert.assertTrue(cycleFinder.getGeneration() >= stabilizationGeneration + period);
+        DigestableToroidalLifeField stabilizedField = createField(cells);
+        Assert.assertEquals(stabilizationGeneration,
+                CycleFinder.findStabilizationGeneration(stabilizedField, createField(cells), period));
+        byte[] digest = stabilizedField.getDigest();
+        stabilizedField.nextGenerations(period);
+        Assert.assertArrayEquals(digest, stabilizedField.getDigest());
+    }
+
+    private static DigestableToroidalLifeField createField(int[][] cells) {
+        DigestableToroidalLifeField field = new BitLifeField(SIZE, SIZE);
+        for (int[] cell : cells) {
+            field.setState(cell[0], cell[1], true);
+        }
+        return field;
+    }
+}
@@ -0,0 +1,101 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+import com.itransition.life.gui.DensityPyramid;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class DensityPyramidTest {
+    private static final int GENERATIONS = 5;
+    private int width;
+    private int height;
+
+    public DensityPyramidTest(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 5, 7 },
+                { 64, 64 },
+                { 100, 37 },
+                { 130, 300 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsCounting() throws Exception {
+        BitLifeField field = new BitLifeField(width, height);
+        Random random = new Random(width * height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                field.setState(x, y, random.nextInt(3) == 0);
+            }
+        }
+        DensityPyramid pyramid = new DensityPyramid(width, height);
+        Assert.assertEquals(1 << (pyramid.getNumberOfLevels() - 1), Integer.highestOneBit(Math.max(width, height) * 2 - 1));
+        long[] cells = new long[BitLifeField.getStateLength(width, height)];
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            field.exportState(cells);
+            pyramid.update(cells);
+            for (int level = 0; level < pyramid.getNumberOfLevels(); level++) {
+                int blockSize = 1 << level;
+                int totalArea = 0;
+                for (int blockY = 0; blockY * blockSize < height; blockY++) {
+                    for (int blockX = 0; blockX * blockSize < width; blockX++) {
+                        int count = 0;
+                        int area = 0;
+                        for (int y = blockY * blockSize; y < Math.min(height, (blockY + 1) * blockSize); y++) {
+                            for (int x = blockX * blockSize; x < Math.min(width, (blockX + 1) * blockSize); x++) {
+                                count += field.isAlive(x, y) ? 1 : 0;
+                                area++;
+                            }
+                        }
+                        Assert.assertEquals(count, pyramid.getCount(level, blockX, blockY));
+                        Assert.assertEquals(area, pyramid.getArea(level, blockX, blockY));
+                        totalArea += area;
+                    }
+                }
+                Assert.assertEquals(width * height, totalArea);
+            }
+            field.nextGeneration();
+        }
+    }
+
+    @Test
+    public void testRowCounts() throws Exception {
+        BitLifeField field = new BitLifeField(width, height);
+        Random random = new Random(width + height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                field.setState(x, y, random.nextInt(2) == 0);
+            }
+        }
+        DensityPyramid pyramid = new DensityPyramid(width, height);
+        long[] cells = new long[BitLifeField.getStateLength(width, height)];
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            field.exportState(cells);
+            pyramid.update(cells);
+            for (int level = 0; level < pyramid.getNumberOfLevels(); level++) {
+                int blockSize = 1 << level;
+                int[] rowCounts = new int[(width - 1) / blockSize + 1];
+                for (int blockY = 0; blockY * blockSize < height; blockY++) {
+                    pyramid.getRowCounts(level, blockY, rowCounts);
+                    for (int blockX = 0; blockX < rowCounts.length; blockX++) {
+                        Assert.assertEquals(pyramid.getCount(level, blockX, blockY), rowCounts[blockX]);
+                    }
+                }
+            }
+            field.nextGeneration();
+        }
+    }
+}
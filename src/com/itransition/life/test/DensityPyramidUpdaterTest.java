@@ -0,0 +1,94 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+import com.itransition.life.gui.DensityPyramid;
+import com.itransition.life.gui.DensityPyramidUpdater;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class DensityPyramidUpdaterTest {
+    private static final int GENERATIONS = 10;
+    private static final long TIMEOUT_MILLIS = 10000;
+    private int width;
+    private int height;
+
+    public DensityPyramidUpdaterTest(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 5, 7 },
+                { 100, 37 },
+                { 300, 130 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testPyramidOfLastSnapshot() throws Exception {
+        BitLifeField field = new BitLifeField(width, height);
+        Random random = new Random(width * height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                field.setState(x, y, random.nextInt(3) == 0);
+            }
+        }
+        final AtomicInteger numberOfUpdates = new AtomicInteger();
+        DensityPyramidUpdater updater = new DensityPyramidUpdater(new Runnable() {
+            @Override
+            public void run() {
+                numberOfUpdates.incrementAndGet();
+            }
+        });
+        LifeFieldSnapshot snapshot = new LifeFieldSnapshot(field, 0);
+        Assert.assertTrue(updater.update(snapshot));
+        Assert.assertSame(snapshot, updater.getSnapshot());
+        assertSamePyramid(snapshot, updater.getPyramid());
+        for (int generation = 1; generation <= GENERATIONS; generation++) {
+            field.nextGeneration();
+            snapshot = new LifeFieldSnapshot(field, generation);
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (!updater.update(snapshot) || updater.getSnapshot() != snapshot) {
+                Assert.assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(1);
+            }
+            assertSamePyramid(snapshot, updater.getPyramid());
+        }
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (numberOfUpdates.get() < GENERATIONS) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(GENERATIONS, numberOfUpdates.get());
+        LifeFieldSnapshot resizedSnapshot = new LifeFieldSnapshot(new BitLifeField(width + 1, height), 0);
+        Assert.assertTrue(updater.update(resizedSnapshot));
+        Assert.assertSame(resizedSnapshot, updater.getSnapshot());
+        assertSamePyramid(resizedSnapshot, updater.getPyramid());
+    }
+
+    private static void assertSamePyramid(LifeFieldSnapshot snapshot, DensityPyramid pyramid) {
+        long[] cells = new long[BitLifeField.getStateLength(snapshot.getWidth(), snapshot.getHeight())];
+        snapshot.exportState(cells);
+        DensityPyramid expectedPyramid = new DensityPyramid(snapshot.getWidth(), snapshot.getHeight());
+        expectedPyramid.update(cells);
+        Assert.assertEquals(expectedPyramid.getNumberOfLevels(), pyramid.getNumberOfLevels());
+        for (int level = 0; level < pyramid.getNumberOfLevels(); level++) {
+            for (int blockY = 0; blockY << level < snapshot.getHeight(); blockY++) {
+                for (int blockX = 0; blockX << level < snapshot.getWidth(); blockX++) {
+                    Assert.assertEquals(expectedPyramid.getCount(level, blockX, blockY),
+                            pyramid.getCount(level, blockX, blockY));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class DigestStrategyTest {
+    private boolean useZobrist;
+    private boolean useMap;
+
+    public DigestStrategyTest(boolean useZobrist, boolean useMap) {
+        this.useZobrist = useZobrist;
+        this.useMap = useMap;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { true, true },
+                { true, false },
+                { false, true },
+                { false, false }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testLargeCoordinatesDontCollide() throws Exception {
+        DigestableToroidalLifeField fieldA = createField(300, 300);
+        DigestableToroidalLifeField fieldB = createField(300, 300);
+        fieldA.setState(1, 1, true);
+        fieldB.setState(257, 1, true);
+        Assert.assertFalse(Arrays.equals(fieldA.getDigest(), fieldB.getDigest()));
+        fieldA.setState(1, 1, false);
+        fieldA.setState(1, 257, true);
+        fieldB.setState(257, 1, false);
+        fieldB.setState(1, 257, true);
+        Assert.assertArrayEquals(fieldA.getDigest(), fieldB.getDigest());
+    }
+
+    @Test
+    public void testSameStateSameDigest() throws Exception {
+        DigestableToroidalLifeField evolvedField = createField(40, 30);
+        Random random = new Random(7);
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 30; y++) {
+                evolvedField.setState(x, y, random.nextBoolean());
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            evolvedField.nextGeneration();
+        }
+        DigestableToroidalLifeField copiedField = createField(40, 30);
+        for (int x = 39; x >= 0; x--) {
+            for (int y = 29; y >= 0; y--) {
+                copiedField.setState(x, y, evolvedField.isAlive(x, y));
+            }
+        }
+        Assert.assertArrayEquals(evolvedField.getDigest(), copiedField.getDigest());
+    }
+
+    @Test
+    public void testEmptyFieldDigest() throws Exception {
+        DigestableToroidalLifeField field = createField(10, 10);
+        byte[] digest = field.getDigest();
+        field.setState(3, 4, true);
+        Assert.assertFalse(Arrays.equals(digest, field.getDigest()));
+        field.setState(3, 4, false);
+        Assert.assertArrayEquals(digest, field.getDigest());
+    }
+
+    @Test
+    public void testChangedWordSameAsChangedCells() throws Exception {
+        DigestableToroidalLifeField field = createField(200, 10);
+        DigestStrategy wordStrategy = useZobrist ? new ZobristDigestStrategy() : new MessageDigestStrategy();
+        DigestStrategy cellStrategy = useZobrist ? new ZobristDigestStrategy() : new MessageDigestStrategy();
+        long changedCells = 0x8000000000000401L;
+        wordStrategy.cellsChanged(2, 7, changedCells);
+        for (int i = 0; i < Long.SIZE; i++) {
+            if ((changedCells & (1L << i)) != 0) {
+                cellStrategy.cellChanged(2 * Long.SIZE + i, 7);
+            }
+        }
+        Assert.assertArrayEquals(cellStrategy.getDigest(field), wordStrategy.getDigest(field));
+    }
+
+    private DigestableToroidalLifeField createField(int width, int height) {
+        DigestStrategy digestStrategy = useZobrist ? new ZobristDigestStrategy() : new MessageDigestStrategy();
+        if (useMap) {
+            return new MapLifeField(width, height, digestStrategy);
+        }
+        return new ArrayLifeField(width, height, 1, digestStrategy);
+    }
+}
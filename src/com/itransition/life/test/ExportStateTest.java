@@ -0,0 +1,92 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class ExportStateTest {
+    private static final int HEIGHT = 16;
+    private static final int GENERATIONS = 10;
+    private static final long GARBAGE = 0x5555555555555555L;
+    private int width;
+
+    public ExportStateTest(int width) {
+        this.width = width;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 3 },
+                { 64 },
+                { 65 },
+                { 130 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsIsAlive() throws Exception {
+        for (DigestableToroidalLifeField field : createFields()) {
+            Random random = new Random(width);
+            for (int x = 0; x < field.getWidth(); x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    field.setState(x, y, random.nextInt(3) == 0);
+                }
+            }
+            field.nextGenerations(GENERATIONS);
+            int stateLength = BitLifeField.getStateLength(field.getWidth(), HEIGHT);
+            long[] cells = new long[stateLength + 1];
+            Arrays.fill(cells, GARBAGE);
+            field.exportState(cells);
+            String fieldName = field.getClass().getSimpleName();
+            int wordsPerRow = stateLength / HEIGHT;
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int i = 0; i < wordsPerRow; i++) {
+                    long word = cells[y * wordsPerRow + i];
+                    for (int bit = 0; bit < BitLifeField.CELLS_PER_WORD; bit++) {
+                        int x = i * BitLifeField.CELLS_PER_WORD + bit;
+                        boolean alive = (word & (1L << bit)) != 0;
+                        Assert.assertEquals(fieldName, x < field.getWidth() && field.isAlive(x, y), alive);
+                    }
+                }
+            }
+            Assert.assertEquals(fieldName, GARBAGE, cells[stateLength]);
+            LifeFieldSnapshot snapshot = new LifeFieldSnapshot(field, GENERATIONS);
+            for (int x = 0; x < field.getWidth(); x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    Assert.assertEquals(fieldName, field.isAlive(x, y), snapshot.isAlive(x, y));
+                }
+            }
+            if (field instanceof MappedLifeField) {
+                ((MappedLifeField) field).close();
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortArray() throws Exception {
+        new SimdLifeField(width, HEIGHT).exportState(new long[BitLifeField.getStateLength(width, HEIGHT) - 1]);
+    }
+
+    private List<DigestableToroidalLifeField> createFields() throws Exception {
+        List<DigestableToroidalLifeField> fields = new ArrayList<DigestableToroidalLifeField>();
+        fields.add(new ArrayLifeField(width, HEIGHT));
+        fields.add(new MapLifeField(width, HEIGHT));
+        fields.add(new BitLifeField(width, HEIGHT));
+        fields.add(new TiledLifeField(width, HEIGHT));
+        fields.add(new ColumnSumLifeField(width, HEIGHT));
+        fields.add(new SimdLifeField(width, HEIGHT));
+        fields.add(new MappedLifeField(width, HEIGHT));
+        if (Integer.bitCount(width) == 1 && width >= HashLifeField.MINIMAL_WIDTH) {
+            fields.add(new HashLifeField(width, HEIGHT));
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,117 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+import com.itransition.life.gui.ToroidalLifeFieldRenderer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.*;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class FlightRecorderEventsTest {
+    private static final long TIMEOUT_MILLIS = 20000;
+    private static final String GENERATION_BATCH = "com.itransition.life.GenerationBatch";
+    private static final String GENERATION_PHASES = "com.itransition.life.GenerationPhases";
+    private static final String RENDER_FRAME = "com.itransition.life.RenderFrame";
+    private static final int GLIDER_POPULATION = 5;
+    private int size;
+    private boolean phases;
+
+    public FlightRecorderEventsTest(int size, boolean phases) {
+        this.size = size;
+        this.phases = phases;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 16, false },
+                { 16, true },
+                { 64, false },
+                { 64, true }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testEventsOfGame() throws Exception {
+        LifeGameController game = new LifeGameController();
+        game.createNewGame(size, size);
+        game.setState(1, 0, true);
+        game.setState(2, 1, true);
+        game.setState(0, 2, true);
+        game.setState(1, 2, true);
+        game.setState(2, 2, true);
+        List<RecordedEvent> events;
+        Recording recording = new Recording();
+        try {
+            recording.enable(GENERATION_BATCH);
+            if (phases) {
+                recording.enable(GENERATION_PHASES);
+            }
+            recording.enable(RENDER_FRAME);
+            recording.start();
+            game.startOrResumeGame();
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (game.getCycleLength() == 0) {
+                Assert.assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(1);
+            }
+            ToroidalLifeFieldRenderer renderer = new ToroidalLifeFieldRenderer(game);
+            renderer.setSize(2 * size, 2 * size);
+            BufferedImage image = new BufferedImage(2 * size, 2 * size, BufferedImage.TYPE_INT_RGB);
+            renderer.paint(image.getGraphics());
+            recording.stop();
+            File file = File.createTempFile("life", ".jfr");
+            try {
+                recording.dump(file.toPath());
+                events = RecordingFile.readAllEvents(file.toPath());
+            }
+            finally {
+                file.delete();
+            }
+        }
+        finally {
+            recording.close();
+        }
+        long generations = 0;
+        long cycleLength = 0;
+        int numberOfBatches = 0;
+        long phaseNanos = 0;
+        int numberOfFrames = 0;
+        for (RecordedEvent event : events) {
+            String name = event.getEventType().getName();
+            if (name.equals(GENERATION_BATCH)) {
+                Assert.assertEquals(size, event.getInt("width"));
+                Assert.assertEquals(size, event.getInt("height"));
+                Assert.assertEquals(GLIDER_POPULATION, event.getLong("aliveCells"));
+                Assert.assertEquals(generations, event.getLong("firstGeneration"));
+                generations += event.getLong("generations");
+                cycleLength = Math.max(cycleLength, event.getLong("cycleLength"));
+                numberOfBatches++;
+            }
+            else if (name.equals(GENERATION_PHASES)) {
+                phaseNanos += event.getLong("nextGenerationNanos") + event.getLong("digestNanos")
+                        + event.getLong("cycleDetectionNanos");
+            }
+            else if (name.equals(RENDER_FRAME)) {
+                Assert.assertEquals(GLIDER_POPULATION, event.getLong("aliveCells"));
+                Assert.assertEquals(game.getCurrentGeneration(), event.getLong("generation"));
+                numberOfFrames++;
+            }
+        }
+        Assert.assertTrue(numberOfBatches > 0);
+        Assert.assertEquals(game.getCurrentGeneration(), generations);
+        Assert.assertEquals(4 * size, cycleLength);
+        Assert.assertEquals(phases, phaseNanos > 0);
+        Assert.assertEquals(1, numberOfFrames);
+    }
+}
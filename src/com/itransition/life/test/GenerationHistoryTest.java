@@ -0,0 +1,149 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class GenerationHistoryTest {
+    private static final int WIDTH = 65;
+    private static final int HEIGHT = 40;
+    private static final int GENERATIONS = 200;
+    private static final int LARGE_CAPACITY = 1 << 20;
+    private static final int SMALL_CAPACITY = 8192;
+    private int keyframeInterval;
+
+    public GenerationHistoryTest(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 1 },
+                { 7 },
+                { GenerationHistory.DEFAULT_KEYFRAME_INTERVAL }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testReconstruct() throws Exception {
+        HistoryLifeField field = createSoup(LARGE_CAPACITY);
+        List<long[]> states = runGenerations(field);
+        GenerationHistory history = field.getHistory();
+        Assert.assertEquals(0, history.getFirstGeneration());
+        Assert.assertEquals(GENERATIONS, history.getLastGeneration());
+        long[] cells = new long[BitLifeField.getStateLength(WIDTH, HEIGHT)];
+        for (int generation = 0; generation <= GENERATIONS; generation++) {
+            history.reconstruct(generation, cells);
+            Assert.assertArrayEquals(states.get(generation), cells);
+        }
+    }
+
+    @Test
+    public void testSeekAndContinue() throws Exception {
+        HistoryLifeField field = createSoup(LARGE_CAPACITY);
+        List<long[]> states = runGenerations(field);
+        Assert.assertEquals(GENERATIONS - 10, field.rewind(10));
+        field.seek(50);
+        Assert.assertEquals(50, field.getHistory().getLastGeneration());
+        for (int generation = 50; generation < 60; generation++) {
+            Assert.assertArrayEquals(states.get(generation), exportState(field));
+            field.nextGeneration();
+        }
+        Assert.assertEquals(60, field.getCurrentGeneration());
+        Assert.assertArrayEquals(states.get(60), exportState(field));
+    }
+
+    @Test
+    public void testBoundedMemory() throws Exception {
+        HistoryLifeField field = createSoup(SMALL_CAPACITY);
+        List<long[]> states = runGenerations(field);
+        GenerationHistory history = field.getHistory();
+        Assert.assertTrue(history.getUsedBytes() <= SMALL_CAPACITY);
+        Assert.assertTrue(history.getFirstGeneration() > 0);
+        Assert.assertEquals(GENERATIONS, history.getLastGeneration());
+        long[] cells = new long[BitLifeField.getStateLength(WIDTH, HEIGHT)];
+        for (long generation = history.getFirstGeneration(); generation <= GENERATIONS; generation++) {
+            history.reconstruct(generation, cells);
+            Assert.assertArrayEquals(states.get((int) generation), cells);
+        }
+        Assert.assertEquals(history.getFirstGeneration(), field.rewind(GENERATIONS));
+    }
+
+    @Test
+    public void testSkippedGenerations() throws Exception {
+        HistoryLifeField field = createSoup(LARGE_CAPACITY);
+        field.nextGenerations(10);
+        field.nextGenerations(10);
+        Assert.assertEquals(3, field.getHistory().getNumberOfGenerations());
+        Assert.assertFalse(field.getHistory().contains(15));
+        Assert.assertEquals(10, field.rewind(5));
+    }
+
+    @Test
+    public void testBytesPerChangedCell() throws Exception {
+        SimdLifeField glider = new SimdLifeField(256, 256);
+        glider.setState(1, 0, true);
+        glider.setState(2, 1, true);
+        glider.setState(0, 2, true);
+        glider.setState(1, 2, true);
+        glider.setState(2, 2, true);
+        HistoryLifeField field = new HistoryLifeField(glider, keyframeInterval, LARGE_CAPACITY);
+        long changedCells = 0;
+        long[] previous = exportState(field);
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            field.nextGeneration();
+            long[] cells = exportState(field);
+            for (int i = 0; i < cells.length; i++) {
+                changedCells += Long.bitCount(cells[i] ^ previous[i]);
+            }
+            previous = cells;
+        }
+        // keyframes store the 5 alive cells of the glider.
+        long keyframeCells = 5L * (GENERATIONS / keyframeInterval + 1);
+        Assert.assertTrue(field.getHistory().getUsedBytes() <= 3 * (changedCells + keyframeCells));
+    }
+
+    @Test
+    public void testEditStartsNewHistory() throws Exception {
+        HistoryLifeField field = createSoup(LARGE_CAPACITY);
+        field.nextGenerations(3);
+        field.setState(0, 0, !field.isAlive(0, 0));
+        Assert.assertEquals(1, field.getHistory().getNumberOfGenerations());
+        Assert.assertEquals(3, field.getHistory().getFirstGeneration());
+    }
+
+    private HistoryLifeField createSoup(int capacity) {
+        SimdLifeField soup = new SimdLifeField(WIDTH, HEIGHT);
+        long[] cells = new long[BitLifeField.getStateLength(WIDTH, HEIGHT)];
+        Random random = new Random(keyframeInterval);
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = random.nextLong();
+        }
+        soup.importState(cells);
+        return new HistoryLifeField(soup, keyframeInterval, capacity);
+    }
+
+    private List<long[]> runGenerations(HistoryLifeField field) {
+        List<long[]> states = new ArrayList<long[]>();
+        states.add(exportState(field));
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            field.nextGeneration();
+            states.add(exportState(field));
+        }
+        return states;
+    }
+
+    private long[] exportState(DigestableToroidalLifeField field) {
+        long[] cells = new long[BitLifeField.getStateLength(field.getWidth(), field.getHeight())];
+        field.exportState(cells);
+        return cells;
+    }
+}
@@ -0,0 +1,139 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.HashLifeField;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class HashLifeFieldTest {
+    private static final long SMALL_MEMORY_BUDGET = 16L * HashLifeField.ESTIMATED_NODE_SIZE;
+    private static final int GENERATIONS_OVER_BUDGET = 8;
+    private int width;
+    private int height;
+    private int log2Generations;
+    private long memoryBudget;
+
+    public HashLifeFieldTest(int width, int height, int log2Generations, long memoryBudget) {
+        this.width = width;
+        this.height = height;
+        this.log2Generations = log2Generations;
+        this.memoryBudget = memoryBudget;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 4, 4, 0, HashLifeField.DEFAULT_MEMORY_BUDGET },
+                { 8, 8, 2, HashLifeField.DEFAULT_MEMORY_BUDGET },
+                { 16, 16, 3, HashLifeField.DEFAULT_MEMORY_BUDGET },
+                { 32, 8, 4, HashLifeField.DEFAULT_MEMORY_BUDGET },
+                { 8, 64, 6, HashLifeField.DEFAULT_MEMORY_BUDGET },
+                { 64, 64, 7, HashLifeField.DEFAULT_MEMORY_BUDGET },
+                { 64, 64, 5, 64L * HashLifeField.ESTIMATED_NODE_SIZE }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testNextGeneration() throws Exception {
+        HashLifeField hashLifeField = new HashLifeField(width, height, memoryBudget);
+        BitLifeField bitField = new BitLifeField(width, height);
+        fillRandomly(hashLifeField, bitField);
+        for (int i = 0; i < 40; i++) {
+            hashLifeField.nextGeneration();
+            bitField.nextGeneration();
+            assertSameCells(bitField, hashLifeField);
+        }
+    }
+
+    @Test
+    public void testAdvance() throws Exception {
+        HashLifeField hashLifeField = new HashLifeField(width, height, memoryBudget);
+        BitLifeField bitField = new BitLifeField(width, height);
+        fillRandomly(hashLifeField, bitField);
+        for (int jump = 0; jump < 3; jump++) {
+            hashLifeField.advance(log2Generations);
+            for (int i = 0; i < (1 << log2Generations); i++) {
+                bitField.nextGeneration();
+            }
+            assertSameCells(bitField, hashLifeField);
+        }
+    }
+
+    @Test
+    public void testDigest() throws Exception {
+        HashLifeField fieldA = new HashLifeField(width, height, memoryBudget);
+        HashLifeField fieldB = new HashLifeField(width, height, memoryBudget);
+        fieldA.setState(1, 1, true);
+        fieldA.setState(1, 2, true);
+        fieldA.setState(1, 3, true);
+        byte[] digest = fieldA.getDigest();
+        fieldB.setState(0, 2, true);
+        fieldB.setState(1, 2, true);
+        fieldB.setState(2, 2, true);
+        Assert.assertFalse(Arrays.equals(digest, fieldB.getDigest()));
+        fieldA.nextGeneration();
+        Assert.assertArrayEquals(fieldB.getDigest(), fieldA.getDigest());
+        fieldA.advance(1);
+        Assert.assertArrayEquals(fieldB.getDigest(), fieldA.getDigest());
+        fieldA.nextGeneration();
+        Assert.assertArrayEquals(digest, fieldA.getDigest());
+    }
+
+    @Test
+    public void testPeriodicPatternJump() throws Exception {
+        HashLifeField field = new HashLifeField(width, height, memoryBudget);
+        field.setState(1, 0, true);
+        field.setState(1, 1, true);
+        field.setState(1, 2, true);
+        byte[] digest = field.getDigest();
+        field.advance(60);
+        Assert.assertArrayEquals(digest, field.getDigest());
+        Assert.assertEquals(3, field.getNumberOfAliveCells());
+    }
+
+    @Test
+    public void testGarbageCollectionsOverBudget() throws Exception {
+        HashLifeField hashLifeField = new HashLifeField(width, height, SMALL_MEMORY_BUDGET);
+        BitLifeField bitField = new BitLifeField(width, height);
+        fillRandomly(hashLifeField, bitField);
+        // A state over the budget isn't collected on every change.
+        Assert.assertTrue(hashLifeField.getNumberOfGarbageCollections() * 2 < bitField.getNumberOfAliveCells());
+        for (int generation = 0; generation < GENERATIONS_OVER_BUDGET; generation++) {
+            hashLifeField.nextGeneration();
+            bitField.nextGeneration();
+        }
+        assertSameCells(bitField, hashLifeField);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongSize() throws Exception {
+        new HashLifeField(width + 1, height);
+    }
+
+    private void fillRandomly(HashLifeField hashLifeField, BitLifeField bitField) {
+        Random random = new Random(width * 31 + height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                boolean state = random.nextInt(3) == 0;
+                hashLifeField.setState(x, y, state);
+                bitField.setState(x, y, state);
+            }
+        }
+    }
+
+    private void assertSameCells(BitLifeField expected, HashLifeField actual) {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Assert.assertEquals(expected.isAlive(x, y), actual.isAlive(x, y));
+            }
+        }
+        Assert.assertEquals(expected.getNumberOfAliveCells(), actual.getNumberOfAliveCells());
+    }
+}
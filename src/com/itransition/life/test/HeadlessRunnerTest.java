@@ -0,0 +1,102 @@
+package com.itransition.life.test;
+
+import com.itransition.life.cli.*;
+import com.itransition.life.core.LifeFieldEngine;
+import com.itransition.life.search.SoupResult;
+import com.itransition.life.search.SoupSearch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class HeadlessRunnerTest {
+    private static final String GLIDER_RLE = "x = 3, y = 3, rule = B3/S23\nbo$2bo$3o!\n";
+    private static final int SOUP_SIZE = 32;
+    private static final double SOUP_DENSITY = 0.3;
+    private LifeFieldEngine engine;
+
+    public HeadlessRunnerTest(LifeFieldEngine engine) {
+        this.engine = engine;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (LifeFieldEngine engine : LifeFieldEngine.values()) {
+            data.add(new Object[] { engine });
+        }
+        return data;
+    }
+
+    @Test
+    public void testGlider() throws Exception {
+        File file = File.createTempFile("glider", ".rle");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            try {
+                stream.write(GLIDER_RLE.getBytes("US-ASCII"));
+            }
+            finally {
+                stream.close();
+            }
+            RunResult result = run("--pattern", file.getPath(), "--size", "16x16");
+            // the glider returns to its place after crossing the torus diagonally.
+            Assert.assertEquals(64, result.getPeriod());
+            Assert.assertEquals(0, result.getStabilizationGeneration());
+            Assert.assertEquals(5, result.getPopulation());
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSameAsSoupSearch() throws Exception {
+        SoupSearch search = new SoupSearch(SOUP_SIZE, SOUP_SIZE, SOUP_DENSITY);
+        try {
+            for (long seed = 0; seed < 3; seed++) {
+                SoupResult expected = search.runSoup(seed);
+                for (String digestInterval : new String[] { "1", "5" }) {
+                    RunResult result = run("--seed", Long.toString(seed), "--density", Double.toString(SOUP_DENSITY),
+                            "--size", SOUP_SIZE + "x" + SOUP_SIZE, "--digest-interval", digestInterval);
+                    Assert.assertEquals(expected.getPeriod(), result.getPeriod());
+                    Assert.assertEquals(expected.getStabilizationGeneration(), result.getStabilizationGeneration());
+                    Assert.assertEquals(expected.getPopulation(), result.getPopulation());
+                }
+            }
+        }
+        finally {
+            search.shutdown();
+        }
+    }
+
+    @Test
+    public void testLimitOfGenerations() throws Exception {
+        RunResult result = run("--seed", "1", "--size", "64x64", "--max-generations", "3");
+        Assert.assertFalse(result.isStabilized());
+        Assert.assertEquals(3, result.getGenerations());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoSource() throws Exception {
+        RunnerOptions.parse(new String[] { "--engine", engine.name() });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownOption() throws Exception {
+        RunnerOptions.parse(new String[] { "--seed", "1", "--speed", "1" });
+    }
+
+    private RunResult run(String... args) throws Exception {
+        List<String> arguments = new ArrayList<String>(Arrays.asList(args));
+        arguments.add("--engine");
+        arguments.add(engine.name().toLowerCase(Locale.ENGLISH));
+        return new HeadlessRunner(RunnerOptions.parse(arguments.toArray(new String[arguments.size()]))).run();
+    }
+}
@@ -0,0 +1,135 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class ImportStateTest {
+    private static final int HEIGHT = 16;
+    private static final int GENERATIONS = 10;
+    private static final long GARBAGE = 0x5555555555555555L;
+    private int width;
+
+    public ImportStateTest(int width) {
+        this.width = width;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 4 },
+                { 64 },
+                { 65 },
+                { 130 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsSetState() throws Exception {
+        List<DigestableToroidalLifeField> importedFields = createFields();
+        List<DigestableToroidalLifeField> editedFields = createFields();
+        long[] cells = createSoup(new Random(width), true);
+        for (int i = 0; i < importedFields.size(); i++) {
+            DigestableToroidalLifeField imported = importedFields.get(i);
+            DigestableToroidalLifeField edited = editedFields.get(i);
+            String fieldName = imported.getClass().getSimpleName();
+            imported.importState(createSoup(new Random(-width), false));
+            imported.nextGeneration();
+            imported.importState(cells);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < width; x++) {
+                    edited.setState(x, y, isAlive(cells, x, y));
+                }
+            }
+            assertSameFields(fieldName, edited, imported);
+            imported.nextGenerations(GENERATIONS);
+            edited.nextGenerations(GENERATIONS);
+            assertSameFields(fieldName, edited, imported);
+            closeField(imported);
+            closeField(edited);
+        }
+    }
+
+    @Test
+    public void testController() throws Exception {
+        LifeGameController controller = new LifeGameController();
+        controller.createNewGame(width, HEIGHT);
+        long[] cells = createSoup(new Random(width), true);
+        controller.importState(cells);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < width; x++) {
+                Assert.assertEquals(isAlive(cells, x, y), controller.isAlive(x, y));
+            }
+        }
+        Assert.assertEquals(0, controller.getCurrentGeneration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortArray() throws Exception {
+        new SimdLifeField(width, HEIGHT).importState(new long[BitLifeField.getStateLength(width, HEIGHT) - 1]);
+    }
+
+    private void assertSameFields(String fieldName, DigestableToroidalLifeField expected,
+                                  DigestableToroidalLifeField actual) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < width; x++) {
+                Assert.assertEquals(fieldName, expected.isAlive(x, y), actual.isAlive(x, y));
+            }
+        }
+        Assert.assertArrayEquals(fieldName, expected.getDigest(), actual.getDigest());
+    }
+
+    /**
+     * Bits beyond the width may be garbage, fields should ignore them.
+     */
+    private long[] createSoup(Random random, boolean garbage) {
+        int wordsPerRow = BitLifeField.getStateLength(width, 1);
+        long[] cells = new long[BitLifeField.getStateLength(width, HEIGHT)];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int i = 0; i < wordsPerRow; i++) {
+                cells[y * wordsPerRow + i] = random.nextLong() & random.nextLong();
+            }
+            int lastBit = (width - 1) % BitLifeField.CELLS_PER_WORD;
+            if (!garbage && lastBit < BitLifeField.CELLS_PER_WORD - 1) {
+                cells[y * wordsPerRow + wordsPerRow - 1] &= (1L << (lastBit + 1)) - 1;
+            }
+            else if (garbage && lastBit < BitLifeField.CELLS_PER_WORD - 1) {
+                cells[y * wordsPerRow + wordsPerRow - 1] |= GARBAGE << (lastBit + 1);
+            }
+        }
+        return cells;
+    }
+
+    private boolean isAlive(long[] cells, int x, int y) {
+        int wordsPerRow = BitLifeField.getStateLength(width, 1);
+        return (cells[y * wordsPerRow + x / BitLifeField.CELLS_PER_WORD] & (1L << (x % BitLifeField.CELLS_PER_WORD))) != 0;
+    }
+
+    private static void closeField(DigestableToroidalLifeField field) throws Exception {
+        if (field instanceof MappedLifeField) {
+            ((MappedLifeField) field).close();
+        }
+    }
+
+    private List<DigestableToroidalLifeField> createFields() throws Exception {
+        List<DigestableToroidalLifeField> fields = new ArrayList<DigestableToroidalLifeField>();
+        fields.add(new ArrayLifeField(width, HEIGHT));
+        fields.add(new MapLifeField(width, HEIGHT));
+        fields.add(new BitLifeField(width, HEIGHT));
+        fields.add(new TiledLifeField(width, HEIGHT));
+        fields.add(new ColumnSumLifeField(width, HEIGHT));
+        fields.add(new SimdLifeField(width, HEIGHT));
+        fields.add(new MappedLifeField(width, HEIGHT));
+        if (Integer.bitCount(width) == 1 && width >= HashLifeField.MINIMAL_WIDTH) {
+            fields.add(new HashLifeField(width, HEIGHT));
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,103 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class LifeFieldSnapshotTest {
+    private static final int GLIDER_POPULATION = 5;
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final long UNREAD_MILLIS = 50;
+    private int size;
+
+    public LifeFieldSnapshotTest(int size) {
+        this.size = size;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 16 },
+                { 100 },
+                { 512 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSnapshotsOfRunningGame() throws Exception {
+        LifeGameController controller = new LifeGameController();
+        controller.createNewGame(size, size);
+        controller.setState(1, 0, true);
+        controller.setState(2, 1, true);
+        controller.setState(0, 2, true);
+        controller.setState(1, 2, true);
+        controller.setState(2, 2, true);
+        LifeFieldSnapshot snapshot = controller.getSnapshot();
+        Assert.assertEquals(0, snapshot.getGeneration());
+        Assert.assertTrue(snapshot.isAlive(2, 2));
+        controller.startOrResumeGame();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        long generation = 0;
+        while (controller.getCycleLength() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            snapshot = controller.getSnapshot();
+            Assert.assertEquals(GLIDER_POPULATION, snapshot.getNumberOfAliveCells());
+            Assert.assertTrue(snapshot.getGeneration() >= generation);
+            generation = snapshot.getGeneration();
+        }
+        snapshot = controller.getSnapshot();
+        Assert.assertEquals(controller.getCurrentGeneration(), snapshot.getGeneration());
+        Assert.assertEquals(GLIDER_POPULATION, snapshot.getNumberOfAliveCells());
+    }
+
+    @Test
+    public void testPausedGame() throws Exception {
+        LifeGameController controller = new LifeGameController();
+        controller.createNewGame(size, size);
+        controller.setState(1, 0, true);
+        controller.setState(2, 1, true);
+        controller.setState(0, 2, true);
+        controller.setState(1, 2, true);
+        controller.setState(2, 2, true);
+        controller.startOrResumeGame();
+        Thread.sleep(5);
+        controller.pauseGame();
+        long generation = controller.getCurrentGeneration();
+        Thread.sleep(5);
+        Assert.assertEquals(generation, controller.getCurrentGeneration());
+        Assert.assertEquals(generation, controller.getSnapshot().getGeneration());
+    }
+
+    @Test
+    public void testSnapshotsPublishedOnRequest() throws Exception {
+        LifeGameController controller = new LifeGameController();
+        controller.createNewGame(size, size);
+        controller.setState(1, 0, true);
+        controller.setState(2, 1, true);
+        controller.setState(0, 2, true);
+        controller.setState(1, 2, true);
+        controller.setState(2, 2, true);
+        controller.startOrResumeGame();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (controller.getCurrentGeneration() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        Thread.sleep(UNREAD_MILLIS);
+        // Nobody has read the running game since it was started, only the found cycle is published.
+        LifeFieldSnapshot snapshot = controller.getSnapshot();
+        Assert.assertTrue(snapshot.getGeneration() == 0 || controller.getCycleLength() > 0);
+        while (controller.getSnapshot().getGeneration() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        controller.pauseGame();
+    }
+}
@@ -0,0 +1,149 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class LifeGameCheckpointTest {
+    private static final int HEIGHT = 24;
+    private static final long TIMEOUT_MILLIS = 60000;
+    private int width;
+    private File file;
+
+    public LifeGameCheckpointTest(int width) {
+        this.width = width;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 5 },
+                { 64 },
+                { 65 },
+                { 130 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Before
+    public void createFile() throws Exception {
+        file = File.createTempFile("checkpoint", ".bin");
+    }
+
+    @After
+    public void deleteFile() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void testRestore() throws Exception {
+        LifeGameController controller = createSoup("B36/S23");
+        controller.nextGenerations(7);
+        controller.createCheckpoint().write(file);
+        LifeGameCheckpoint checkpoint = LifeGameCheckpoint.read(file);
+        Assert.assertEquals(LifeRule.parse("B36/S23"), checkpoint.getRule());
+        Assert.assertEquals(7, checkpoint.getGeneration());
+        LifeGameController restored = new LifeGameController();
+        restored.restoreCheckpoint(checkpoint);
+        assertSameGames(controller, restored);
+    }
+
+    @Test
+    public void testResumedGameFindsSameCycle() throws Exception {
+        LifeGameController controller = createSoup("B3/S23");
+        controller.startOrResumeGame();
+        Thread.sleep(5);
+        controller.pauseGame();
+        controller.createCheckpoint().write(file);
+        LifeGameController restored = new LifeGameController();
+        Assert.assertTrue(LifeGameCheckpointer.restore(restored, file));
+        assertSameGames(controller, restored);
+        controller.startOrResumeGame();
+        restored.startOrResumeGame();
+        waitForCycle(controller);
+        waitForCycle(restored);
+        Assert.assertEquals(controller.getCycleLength(), restored.getCycleLength());
+        assertSameGames(controller, restored);
+    }
+
+    @Test
+    public void testCheckpointer() throws Exception {
+        Assert.assertFalse(LifeGameCheckpointer.restore(new LifeGameController(), new File(file.getPath() + ".missing")));
+        LifeGameController controller = createSoup("B3/S23");
+        LifeGameCheckpointer checkpointer = new LifeGameCheckpointer(controller, file);
+        Assert.assertTrue(checkpointer.checkpoint());
+        Assert.assertFalse(checkpointer.checkpoint());
+        controller.nextGenerations(1);
+        Assert.assertTrue(checkpointer.checkpoint());
+        Assert.assertEquals(1, LifeGameCheckpoint.read(file).getGeneration());
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void testTruncatedFile() throws Exception {
+        createSoup("B3/S23").createCheckpoint().write(file);
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        try {
+            truncated.setLength(truncated.length() - 1);
+        }
+        finally {
+            truncated.close();
+        }
+        LifeGameCheckpoint.read(file);
+    }
+
+    @Test
+    public void testFailedWriteDeletesTemporaryFile() throws Exception {
+        File directory = new File(file.getPath() + ".dir");
+        File child = new File(directory, "child");
+        Assert.assertTrue(directory.mkdir());
+        Assert.assertTrue(child.createNewFile());
+        try {
+            createSoup("B3/S23").createCheckpoint().write(directory);
+            Assert.fail("checkpoint replaced a non-empty directory");
+        }
+        catch (java.io.IOException e) {
+            Assert.assertFalse(new File(directory.getPath() + ".tmp").exists());
+        }
+        finally {
+            child.delete();
+            directory.delete();
+        }
+    }
+
+    private LifeGameController createSoup(String rule) {
+        LifeGameController controller = new LifeGameController();
+        controller.createNewGame(width, HEIGHT, rule);
+        long[] cells = new long[BitLifeField.getStateLength(width, HEIGHT)];
+        Random random = new Random(width);
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = random.nextLong();
+        }
+        controller.importState(cells);
+        return controller;
+    }
+
+    private void waitForCycle(LifeGameController controller) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (controller.getCycleLength() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private void assertSameGames(LifeGameController expected, LifeGameController actual) {
+        Assert.assertEquals(expected.getCurrentGeneration(), actual.getCurrentGeneration());
+        long[] expectedCells = new long[BitLifeField.getStateLength(width, HEIGHT)];
+        long[] actualCells = new long[expectedCells.length];
+        expected.exportState(expectedCells);
+        actual.exportState(actualCells);
+        Assert.assertArrayEquals(expectedCells, actualCells);
+    }
+}
@@ -0,0 +1,93 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class LifeGameControllerDigestIntervalTest {
+    private static final int SIZE = 16;
+    private static final long TIMEOUT_MILLIS = 10000;
+    private int digestInterval;
+
+    public LifeGameControllerDigestIntervalTest(int digestInterval) {
+        this.digestInterval = digestInterval;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 1 },
+                { 2 },
+                { 7 },
+                { 64 },
+                { 1000 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testBlinker() throws Exception {
+        LifeGameController controller = createController();
+        controller.setState(4, 5, true);
+        controller.setState(5, 5, true);
+        controller.setState(6, 5, true);
+        Assert.assertEquals(2, runUntilCycle(controller));
+    }
+
+    @Test
+    public void testGlider() throws Exception {
+        LifeGameController controller = createController();
+        controller.setState(1, 0, true);
+        controller.setState(2, 1, true);
+        controller.setState(0, 2, true);
+        controller.setState(1, 2, true);
+        controller.setState(2, 2, true);
+        Assert.assertEquals(4 * SIZE, runUntilCycle(controller));
+    }
+
+    @Test
+    public void testSameAsEveryGeneration() throws Exception {
+        for (long seed = 0; seed < 5; seed++) {
+            LifeGameController controller = createController();
+            LifeGameController exactController = new LifeGameController();
+            exactController.createNewGame(SIZE, SIZE);
+            Random random = new Random(seed);
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    boolean state = random.nextInt(3) == 0;
+                    controller.setState(x, y, state);
+                    exactController.setState(x, y, state);
+                }
+            }
+            Assert.assertEquals(runUntilCycle(exactController), runUntilCycle(controller));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongDigestInterval() throws Exception {
+        new LifeGameController().setDigestInterval(1 - digestInterval);
+    }
+
+    private LifeGameController createController() {
+        LifeGameController controller = new LifeGameController();
+        controller.setDigestInterval(digestInterval);
+        controller.createNewGame(SIZE, SIZE);
+        return controller;
+    }
+
+    private static long runUntilCycle(LifeGameController controller) throws Exception {
+        controller.startOrResumeGame();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (controller.getCycleLength() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        return controller.getCycleLength();
+    }
+}
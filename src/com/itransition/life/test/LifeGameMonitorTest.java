@@ -0,0 +1,105 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class LifeGameMonitorTest {
+    private static final long TIMEOUT_MILLIS = 20000;
+    private int size;
+    private boolean timed;
+
+    public LifeGameMonitorTest(int size, boolean timed) {
+        this.size = size;
+        this.timed = timed;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 16, false },
+                { 16, true },
+                { 100, false },
+                { 100, true }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testAttributesAndOperations() throws Exception {
+        LifeGameController game = new LifeGameController();
+        game.createNewGame(size, size);
+        setGlider(game);
+        LifeGameMonitor monitor = new LifeGameMonitor(game);
+        ObjectName name = monitor.register("test-" + size + "-" + timed);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Assert.assertEquals(5L, server.getAttribute(name, "NumberOfAliveCells"));
+            server.invoke(name, "step", new Object[0], new String[0]);
+            Assert.assertEquals(1L, server.getAttribute(name, "CurrentGeneration"));
+            Assert.assertEquals(5L, server.getAttribute(name, "NumberOfAliveCells"));
+            if (timed) {
+                Assert.assertEquals(0L, server.getAttribute(name, "NextGenerationNanos"));
+            }
+            server.invoke(name, "resume", new Object[0], new String[0]);
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (game.getCycleLength() == 0) {
+                Assert.assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(1);
+            }
+            Assert.assertEquals(4L * size, server.getAttribute(name, "CycleLength"));
+            long generations = (Long) server.getAttribute(name, "ComputedGenerations");
+            Assert.assertTrue(generations >= 4L * size);
+            Assert.assertTrue((Double) server.getAttribute(name, "GenerationsPerSecond") > 0);
+            Assert.assertTrue((Double) server.getAttribute(name, "NanosPerCellUpdate") > 0);
+            Assert.assertTrue((Long) server.getAttribute(name, "DetectorMemoryUsage") > 0);
+            Assert.assertTrue((Long) server.getAttribute(name, "LockWaitNanos") >= 0);
+            long phaseNanos = (Long) server.getAttribute(name, "NextGenerationNanos")
+                    + (Long) server.getAttribute(name, "DigestNanos")
+                    + (Long) server.getAttribute(name, "CycleDetectionNanos");
+            if (timed) {
+                Assert.assertTrue(phaseNanos > 0);
+            }
+            else {
+                Assert.assertEquals(0, phaseNanos);
+            }
+            server.invoke(name, "pause", new Object[0], new String[0]);
+            Assert.assertEquals(5L, server.getAttribute(name, "NumberOfAliveCells"));
+        }
+        finally {
+            monitor.unregister();
+        }
+        Assert.assertFalse(server.isRegistered(name));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicateName() {
+        LifeGameController game = new LifeGameController();
+        game.createNewGame(size, size);
+        LifeGameMonitor monitor = new LifeGameMonitor(game);
+        monitor.register("duplicate-" + size + "-" + timed);
+        try {
+            new LifeGameMonitor(game).register("duplicate-" + size + "-" + timed);
+        }
+        finally {
+            monitor.unregister();
+        }
+    }
+
+    private static void setGlider(LifeGameController game) {
+        game.setState(1, 0, true);
+        game.setState(2, 1, true);
+        game.setState(0, 2, true);
+        game.setState(1, 2, true);
+        game.setState(2, 2, true);
+    }
+}
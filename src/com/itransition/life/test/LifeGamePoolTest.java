@@ -0,0 +1,155 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class LifeGamePoolTest {
+    private static final int SIZE = 16;
+    private static final int NUMBER_OF_GAMES = 200;
+    private static final long TIMEOUT_MILLIS = 20000;
+    private static final long QUOTA = 500;
+    private static final int QUOTA_SIZE = 64;
+    private int parallelism;
+
+    public LifeGamePoolTest(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 1 },
+                { 2 },
+                { 4 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testManyGames() throws Exception {
+        LifeGamePool pool = new LifeGamePool(parallelism, LifeGamePool.DEFAULT_TIME_SLICE_NANOS);
+        List<LifeGameController> games = new ArrayList<LifeGameController>();
+        for (int i = 0; i < NUMBER_OF_GAMES; i++) {
+            LifeGameController game = pool.createGame();
+            game.createNewGame(SIZE, SIZE);
+            if (i % 2 == 0) {
+                game.setState(4, 5, true);
+                game.setState(5, 5, true);
+                game.setState(6, 5, true);
+            }
+            else {
+                game.setState(1, 0, true);
+                game.setState(2, 1, true);
+                game.setState(0, 2, true);
+                game.setState(1, 2, true);
+                game.setState(2, 2, true);
+            }
+            games.add(game);
+        }
+        Assert.assertEquals(NUMBER_OF_GAMES, pool.getNumberOfGames());
+        for (LifeGameController game : games) {
+            game.startOrResumeGame();
+        }
+        for (int i = 0; i < NUMBER_OF_GAMES; i++) {
+            Assert.assertEquals(i % 2 == 0 ? 2 : 4 * SIZE, waitForCycle(games.get(i)));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testPauseAndResume() throws Exception {
+        LifeGamePool pool = new LifeGamePool(parallelism, LifeGamePool.DEFAULT_TIME_SLICE_NANOS);
+        LifeGameController game = pool.createGame(QUOTA);
+        game.createNewGame(QUOTA_SIZE, QUOTA_SIZE);
+        game.setState(1, 0, true);
+        game.setState(2, 1, true);
+        game.setState(0, 2, true);
+        game.setState(1, 2, true);
+        game.setState(2, 2, true);
+        for (int i = 0; i < 10; i++) {
+            game.startOrResumeGame();
+            Thread.sleep(5);
+            game.pauseGame();
+        }
+        pool.setGenerationsPerSecond(game, LifeGamePool.UNLIMITED);
+        game.startOrResumeGame();
+        Assert.assertEquals(4 * QUOTA_SIZE, waitForCycle(game));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testQuota() throws Exception {
+        LifeGamePool pool = new LifeGamePool(parallelism, LifeGamePool.DEFAULT_TIME_SLICE_NANOS);
+        LifeGameController game = pool.createGame(QUOTA);
+        game.createNewGame(QUOTA_SIZE, QUOTA_SIZE);
+        game.setState(1, 0, true);
+        game.setState(2, 1, true);
+        game.setState(0, 2, true);
+        game.setState(1, 2, true);
+        game.setState(2, 2, true);
+        long start = System.nanoTime();
+        game.startOrResumeGame();
+        Thread.sleep(200);
+        long generation = game.getCurrentGeneration();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        Assert.assertTrue(generation > 0);
+        Assert.assertTrue(generation <= QUOTA * seconds + QUOTA / 10 + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGameOfAnotherPool() throws Exception {
+        LifeGamePool pool = new LifeGamePool(parallelism, LifeGamePool.DEFAULT_TIME_SLICE_NANOS);
+        pool.shutdown();
+        pool.setGenerationsPerSecond(new LifeGamePool().createGame(), QUOTA);
+    }
+
+    @Test
+    public void testDigestsInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism + 1);
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < 4 * (parallelism + 1); i++) {
+            final long seed = i;
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    BitLifeField field = new BitLifeField(SIZE * 4, SIZE * 4);
+                    Random random = new Random(seed);
+                    for (int x = 0; x < field.getWidth(); x++) {
+                        for (int y = 0; y < field.getHeight(); y++) {
+                            field.setState(x, y, random.nextBoolean());
+                        }
+                    }
+                    byte[] digest = field.getDigest();
+                    for (int j = 0; j < 2000; j++) {
+                        if (!Arrays.equals(digest, field.getDigest())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+        executor.shutdown();
+    }
+
+    private static long waitForCycle(LifeGameController game) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (game.getCycleLength() == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        return game.getCycleLength();
+    }
+}
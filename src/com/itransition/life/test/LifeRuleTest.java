@@ -0,0 +1,136 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class LifeRuleTest {
+    private static final int WIDTH = 70;
+    private static final int HEIGHT = 32;
+    private static final int HASH_LIFE_WIDTH = 64;
+    private static final int GENERATIONS = 30;
+    private String rulestring;
+    private String expectedRulestring;
+
+    public LifeRuleTest(String rulestring, String expectedRulestring) {
+        this.rulestring = rulestring;
+        this.expectedRulestring = expectedRulestring;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { "B3/S23", "B3/S23" },
+                { "b36/s23", "B36/S23" },
+                { "S34678/B3678", "B3678/S34678" },
+                { "B2/S", "B2/S" },
+                { "23/3", "B3/S23" },
+                { "B1357/S1357", "B1357/S1357" },
+                { "B0/S8", "B0/S8" },
+                { "B03/S0123456", "B03/S0123456" }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        LifeRule rule = LifeRule.parse(rulestring);
+        Assert.assertEquals(expectedRulestring, rule.toString());
+        Assert.assertEquals(rule, LifeRule.parse(rule.toString()));
+        Assert.assertEquals("B3/S23".equals(expectedRulestring), rule.isConway());
+    }
+
+    @Test
+    public void testFieldsFollowRule() throws Exception {
+        LifeRule rule = LifeRule.parse(rulestring);
+        List<DigestableToroidalLifeField> fields = new ArrayList<DigestableToroidalLifeField>();
+        fields.add(new ArrayLifeField(WIDTH, HEIGHT, 1, rule, new ZobristDigestStrategy()));
+        fields.add(new ArrayLifeField(WIDTH, HEIGHT, 2, rule, new ZobristDigestStrategy()));
+        fields.add(new BitLifeField(WIDTH, HEIGHT, rule));
+        fields.add(new SimdLifeField(WIDTH * 3, HEIGHT, rule, new ZobristDigestStrategy()));
+        fields.add(new ColumnSumLifeField(WIDTH, HEIGHT, rule, new ZobristDigestStrategy()));
+        fields.add(new MappedLifeField(WIDTH, HEIGHT, null, MappedLifeField.DEFAULT_SEGMENT_SIZE,
+                rule, new ZobristDigestStrategy()));
+        if (!rule.hasBirthOnZero()) {
+            fields.add(new MapLifeField(WIDTH, HEIGHT, rule, new ZobristDigestStrategy()));
+            fields.add(new TiledLifeField(WIDTH, HEIGHT, rule, new ZobristDigestStrategy()));
+            fields.add(new HashLifeField(HASH_LIFE_WIDTH, HEIGHT, HashLifeField.DEFAULT_MEMORY_BUDGET, rule));
+        }
+        for (DigestableToroidalLifeField field : fields) {
+            int width = field.getWidth();
+            boolean[][] expected = new boolean[width][HEIGHT];
+            Random random = new Random(11);
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    expected[x][y] = random.nextInt(3) == 0;
+                    field.setState(x, y, expected[x][y]);
+                }
+            }
+            for (int i = 0; i < GENERATIONS; i++) {
+                expected = getNextGeneration(expected, rule);
+                field.nextGeneration();
+            }
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    Assert.assertEquals(field.getClass().getSimpleName(), expected[x][y], field.isAlive(x, y));
+                }
+            }
+            if (field instanceof MappedLifeField) {
+                ((MappedLifeField) field).close();
+            }
+        }
+    }
+
+    @Test
+    public void testFieldsWithoutB0() throws Exception {
+        LifeRule rule = LifeRule.parse(rulestring);
+        if (!rule.hasBirthOnZero()) {
+            return;
+        }
+        try {
+            new MapLifeField(WIDTH, HEIGHT, rule, new ZobristDigestStrategy());
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            new HashLifeField(HASH_LIFE_WIDTH, HEIGHT, HashLifeField.DEFAULT_MEMORY_BUDGET, rule);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongRulestring() throws Exception {
+        LifeRule.parse(rulestring.replace('/', '9'));
+    }
+
+    private static boolean[][] getNextGeneration(boolean[][] cells, LifeRule rule) {
+        int width = cells.length;
+        boolean[][] nextCells = new boolean[width][HEIGHT];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int aliveNeighboursCount = 0;
+                for (int moveX = -1; moveX <= 1; moveX++) {
+                    for (int moveY = -1; moveY <= 1; moveY++) {
+                        if ((moveX != 0 || moveY != 0)
+                                && cells[(width + x + moveX) % width][(HEIGHT + y + moveY) % HEIGHT]) {
+                            aliveNeighboursCount++;
+                        }
+                    }
+                }
+                nextCells[x][y] = cells[x][y] ? rule.isSurviving(aliveNeighboursCount) : rule.isBorn(aliveNeighboursCount);
+            }
+        }
+        return nextCells;
+    }
+}
@@ -1,5 +1,6 @@
 package com.itransition.life.test;
 
+import com.itransition.life.core.ArrayLifeField;
 import com.itransition.life.core.MapLifeField;
 import org.junit.Test;
 
@@ -79,4 +80,34 @@ public class MapLifeFieldTest {
         byte[] digestB = fieldB.getDigest();
         Assert.assertArrayEquals(digestA, digestB);
     }
+
+    @Test
+    public void testSameAsArrayLifeField() throws Exception {
+        Random random = new Random(width * 31 + height);
+        MapLifeField mapField = new MapLifeField(width, height);
+        ArrayLifeField arrayField = new ArrayLifeField(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (random.nextInt(3) == 0) {
+                    mapField.setState(x, y, true);
+                    arrayField.setState(x, y, true);
+                }
+            }
+        }
+        for (int x = 0; x < width; x += 2) {
+            for (int y = 0; y < height; y += 3) {
+                mapField.setState(x, y, false);
+                arrayField.setState(x, y, false);
+            }
+        }
+        for (int i = 0; i < 30; i++) {
+            mapField.nextGeneration();
+            arrayField.nextGeneration();
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Assert.assertEquals(arrayField.isAlive(x, y), mapField.isAlive(x, y));
+            }
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.MappedLifeField;
+import com.itransition.life.core.ZobristDigestStrategy;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class MappedLifeFieldTest {
+    private int width;
+    private int height;
+    private int density;
+    private int segmentSize;
+
+    public MappedLifeFieldTest(int width, int height, int density, int segmentSize) {
+        this.width = width;
+        this.height = height;
+        this.density = density;
+        this.segmentSize = segmentSize;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 3, 3, 2, MappedLifeField.DEFAULT_SEGMENT_SIZE },
+                { 10, 17, 3, 8 },
+                { 64, 64, 3, 40 },
+                { 65, 129, 4, 1024 },
+                { 200, 150, 20, MappedLifeField.DEFAULT_SEGMENT_SIZE },
+                { 300, 70, 50, 100 },
+                { 1000, 40, 3, 7 * 128 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsBitLifeField() throws Exception {
+        Random random = new Random(width * 31 + height);
+        MappedLifeField mappedField = createField(width, height);
+        BitLifeField bitField = new BitLifeField(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                boolean state = random.nextInt(density) == 0;
+                mappedField.setState(x, y, state);
+                bitField.setState(x, y, state);
+            }
+        }
+        for (int i = 0; i < 120; i++) {
+            if (i % 40 == 39) {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                mappedField.setState(x, y, !mappedField.isAlive(x, y));
+                bitField.setState(x, y, !bitField.isAlive(x, y));
+            }
+            mappedField.nextGeneration();
+            bitField.nextGeneration();
+            Assert.assertEquals(bitField.getNumberOfAliveCells(), mappedField.getNumberOfAliveCells());
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Assert.assertEquals(bitField.isAlive(x, y), mappedField.isAlive(x, y));
+            }
+        }
+        mappedField.close();
+    }
+
+    @Test
+    public void testBlinker() throws Exception {
+        MappedLifeField field = createField(Math.max(width, 5), Math.max(height, 5));
+        field.setState(1, 0, true);
+        field.setState(1, 1, true);
+        field.setState(1, 2, true);
+        byte[] digest = field.getDigest();
+        field.nextGeneration();
+        Assert.assertFalse(Arrays.equals(digest, field.getDigest()));
+        field.nextGeneration();
+        Assert.assertArrayEquals(digest, field.getDigest());
+        Assert.assertTrue(field.isAlive(1, 0));
+        Assert.assertTrue(field.isAlive(1, 1));
+        Assert.assertTrue(field.isAlive(1, 2));
+        field.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRowDoesntFitIntoSegment() throws Exception {
+        new MappedLifeField(width, height, null, 7, new ZobristDigestStrategy());
+    }
+
+    private MappedLifeField createField(int fieldWidth, int fieldHeight) throws Exception {
+        int size = Math.max(segmentSize, 8 * ((fieldWidth + 63) / 64));
+        return new MappedLifeField(fieldWidth, fieldHeight, null, size, new ZobristDigestStrategy());
+    }
+}
@@ -0,0 +1,95 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class NextGenerationsTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 32;
+    private long numberOfGenerations;
+
+    public NextGenerationsTest(long numberOfGenerations) {
+        this.numberOfGenerations = numberOfGenerations;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 0L },
+                { 1L },
+                { 7L },
+                { 64L },
+                { 101L }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsNextGeneration() throws Exception {
+        List<DigestableToroidalLifeField> batchedFields = createFields();
+        List<DigestableToroidalLifeField> steppedFields = createFields();
+        try {
+            for (int i = 0; i < batchedFields.size(); i++) {
+                DigestableToroidalLifeField batchedField = batchedFields.get(i);
+                DigestableToroidalLifeField steppedField = steppedFields.get(i);
+                Random random = new Random(5);
+                for (int x = 0; x < WIDTH; x++) {
+                    for (int y = 0; y < HEIGHT; y++) {
+                        boolean state = random.nextInt(3) == 0;
+                        batchedField.setState(x, y, state);
+                        steppedField.setState(x, y, state);
+                    }
+                }
+                batchedField.nextGenerations(numberOfGenerations);
+                for (long generation = 0; generation < numberOfGenerations; generation++) {
+                    steppedField.nextGeneration();
+                }
+                String fieldName = batchedField.getClass().getSimpleName();
+                Assert.assertArrayEquals(fieldName, steppedField.getDigest(), batchedField.getDigest());
+                for (int x = 0; x < WIDTH; x++) {
+                    for (int y = 0; y < HEIGHT; y++) {
+                        Assert.assertEquals(fieldName, steppedField.isAlive(x, y), batchedField.isAlive(x, y));
+                    }
+                }
+            }
+        }
+        finally {
+            closeFields(batchedFields);
+            closeFields(steppedFields);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeNumberOfGenerations() throws Exception {
+        new SimdLifeField(WIDTH, HEIGHT).nextGenerations(-numberOfGenerations - 1);
+    }
+
+    private static List<DigestableToroidalLifeField> createFields() throws Exception {
+        List<DigestableToroidalLifeField> fields = new ArrayList<DigestableToroidalLifeField>();
+        fields.add(new ArrayLifeField(WIDTH, HEIGHT));
+        fields.add(new ArrayLifeField(WIDTH, HEIGHT, 2));
+        fields.add(new MapLifeField(WIDTH, HEIGHT));
+        fields.add(new BitLifeField(WIDTH, HEIGHT));
+        fields.add(new HashLifeField(WIDTH, HEIGHT));
+        fields.add(new TiledLifeField(WIDTH, HEIGHT));
+        fields.add(new ColumnSumLifeField(WIDTH, HEIGHT));
+        fields.add(new SimdLifeField(WIDTH, HEIGHT));
+        fields.add(new MappedLifeField(WIDTH, HEIGHT));
+        return fields;
+    }
+
+    private static void closeFields(List<DigestableToroidalLifeField> fields) throws Exception {
+        for (DigestableToroidalLifeField field : fields) {
+            if (field instanceof MappedLifeField) {
+                ((MappedLifeField) field).close();
+            }
+        }
+    }
+}
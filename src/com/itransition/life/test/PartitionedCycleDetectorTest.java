@@ -0,0 +1,115 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.DigestCycleDetector;
+import com.itransition.life.core.PartitionedCycleDetector;
+import com.itransition.life.core.SimdLifeField;
+
+import java.security.MessageDigest;
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class PartitionedCycleDetectorTest {
+    private int numberOfStacks;
+
+    public PartitionedCycleDetectorTest(int numberOfStacks) {
+        this.numberOfStacks = numberOfStacks;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 1 },
+                { 2 },
+                { 16 },
+                { 100 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testGetCycleLength() throws Exception {
+        byte[][] sequences = new byte[][] {
+                {1,2,3,4,5,6,7,8,9,10},
+                {1,2,3,4,5,6,7,8,9,1,2,3,4,5,6,7,8,9},
+                {9,8,7,6,5,4,3,2,1,0,9,8,7,6,5,4,3,2,1,0},
+                {1,0,23,17,-88,2,3,4,5,7,2,3,4,5,7}
+        };
+        long[] expectedCycleLengths = new long[] { 0, 9, 10, 5 };
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        for (int i = 0; i < sequences.length; i++) {
+            DigestCycleDetector cycleDetector = new PartitionedCycleDetector(numberOfStacks,
+                    PartitionedCycleDetector.DEFAULT_MEMORY_LIMIT);
+            for (int j = 0; j < sequences[i].length; j++) {
+                cycleDetector.addDigest(md.digest(new byte[] {sequences[i][j]}));
+            }
+            Assert.assertEquals(expectedCycleLengths[i], cycleDetector.getCycleLength());
+        }
+    }
+
+    @Test
+    public void testGliderPeriod() throws Exception {
+        SimdLifeField field = new SimdLifeField(12, 12);
+        field.setState(1, 0, true);
+        field.setState(2, 1, true);
+        field.setState(0, 2, true);
+        field.setState(1, 2, true);
+        field.setState(2, 2, true);
+        DigestCycleDetector cycleDetector = new PartitionedCycleDetector(numberOfStacks,
+                PartitionedCycleDetector.DEFAULT_MEMORY_LIMIT);
+        cycleDetector.addDigest(field.getDigest());
+        long generation = 0;
+        while (cycleDetector.getCycleLength() == 0) {
+            field.nextGeneration();
+            generation++;
+            cycleDetector.addDigest(field.getDigest());
+        }
+        Assert.assertEquals(48, cycleDetector.getCycleLength());
+        Assert.assertTrue(generation < 3 * 48);
+    }
+
+    @Test
+    public void testMemoryLimit() throws Exception {
+        long memoryLimit = numberOfStacks * 3 * 8 * 64;
+        PartitionedCycleDetector cycleDetector = new PartitionedCycleDetector(numberOfStacks, memoryLimit);
+        long memoryUsage = 0;
+        for (int i = 0; i < 10000; i++) {
+            cycleDetector.addDigest(toDigest(i));
+            long newMemoryUsage = cycleDetector.getMemoryUsage();
+            if (newMemoryUsage != memoryUsage) {
+                Assert.assertTrue(memoryUsage + newMemoryUsage <= memoryLimit);
+                memoryUsage = newMemoryUsage;
+            }
+        }
+        Assert.assertEquals(0, cycleDetector.getCycleLength());
+        Assert.assertTrue(cycleDetector.getNumberOfRestarts() > 0);
+        for (int i = 0; i < 100; i++) {
+            cycleDetector.addDigest(toDigest(6 - i % 7));
+        }
+        Assert.assertEquals(7, cycleDetector.getCycleLength());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentDigestLength() throws Exception {
+        DigestCycleDetector cycleDetector = new PartitionedCycleDetector(numberOfStacks,
+                PartitionedCycleDetector.DEFAULT_MEMORY_LIMIT);
+        cycleDetector.addDigest(new byte[16]);
+        cycleDetector.addDigest(new byte[32]);
+    }
+
+    /**
+     * Increasing digests make the stack algorithm keep every one of them.
+     */
+    private static byte[] toDigest(int value) {
+        byte[] digest = new byte[12];
+        for (int i = 0; i < 4; i++) {
+            digest[i] = (byte) (value >>> (Integer.SIZE - Byte.SIZE * (i + 1)));
+        }
+        digest[11] = (byte) value;
+        return digest;
+    }
+}
@@ -0,0 +1,127 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+import com.itransition.life.io.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class PatternIoTest {
+    private static final String GLIDER_RLE = "#N Glider\n#C comment\nx = 3, y = 3, rule = B3/S23\nbo$2bo$3o!\n";
+    private static final String GUN_RLE = "x = 36, y = 9, rule = B3/S23\n"
+            + "24bo$22bobo$12b2o6b2o12b2o$11bo3bo4b2o12b2o$2o8bo5bo3b2o$2o8bo3bob2o4b\n"
+            + "obo$10bo5bo7bo$11bo3bo$12b2o!\n";
+    private static final int[][] GLIDER_CELLS = {{1, 0}, {2, 1}, {0, 2}, {1, 2}, {2, 2}};
+    private PatternFormat format;
+
+    public PatternIoTest(PatternFormat format) {
+        this.format = format;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (PatternFormat format : PatternFormat.values()) {
+            data.add(new Object[] { format });
+        }
+        return data;
+    }
+
+    @Test
+    public void testGlider() throws Exception {
+        LifePattern glider = roundTrip(readRle(GLIDER_RLE));
+        Assert.assertEquals(3, glider.getWidth());
+        Assert.assertEquals(3, glider.getHeight());
+        Assert.assertEquals(GLIDER_CELLS.length, glider.getNumberOfAliveCells());
+        for (int[] cell : GLIDER_CELLS) {
+            Assert.assertTrue(glider.isAlive(cell[0], cell[1]));
+        }
+    }
+
+    @Test
+    public void testGun() throws Exception {
+        LifePattern gun = readRle(GUN_RLE);
+        Assert.assertEquals(36, gun.getNumberOfAliveCells());
+        assertSamePatterns(gun, roundTrip(gun));
+    }
+
+    @Test
+    public void testSoup() throws Exception {
+        for (int width : new int[] { 3, 8, 64, 65, 200 }) {
+            BitLifeField field = new BitLifeField(width, 70);
+            Random random = new Random(width);
+            for (int y = 0; y < field.getHeight(); y++) {
+                for (int x = 0; x < field.getWidth(); x++) {
+                    field.setState(x, y, random.nextBoolean());
+                }
+            }
+            // formats without a declared size crop the pattern to its cells.
+            field.setState(0, 0, true);
+            field.setState(width - 1, field.getHeight() - 1, true);
+            LifePattern soup = LifePattern.fromField(field, LifeRule.CONWAY);
+            assertSamePatterns(soup, roundTrip(soup));
+        }
+    }
+
+    @Test
+    public void testLoadInto() throws Exception {
+        LifePattern glider = roundTrip(readRle(GLIDER_RLE));
+        SimdLifeField field = new SimdLifeField(20, 10);
+        field.setState(0, 0, true);
+        glider.loadInto(field);
+        Assert.assertEquals(GLIDER_CELLS.length, field.getNumberOfAliveCells());
+        for (int[] cell : GLIDER_CELLS) {
+            Assert.assertTrue(field.isAlive(cell[0] + 8, cell[1] + 3));
+        }
+    }
+
+    @Test
+    public void testRule() throws Exception {
+        if (format == PatternFormat.LIFE_106) {
+            return;
+        }
+        LifePattern highLife = readRle("x = 1, y = 1, rule = B36/S23\no!\n");
+        Assert.assertEquals(LifeRule.parse("B36/S23"), roundTrip(highLife).getRule());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformed() throws Exception {
+        format.createReader().read(Channels.newChannel(new ByteArrayInputStream("x = 3, y\n".getBytes("US-ASCII"))));
+    }
+
+    @Test
+    public void testForFileName() throws Exception {
+        Assert.assertEquals(PatternFormat.RLE, PatternFormat.forFileName("glider.RLE"));
+        Assert.assertEquals(PatternFormat.LIFE_106, PatternFormat.forFileName("glider.lif"));
+        Assert.assertEquals(PatternFormat.MACROCELL, PatternFormat.forFileName("metapixel.mc"));
+    }
+
+    private LifePattern readRle(String text) throws Exception {
+        return PatternFormat.RLE.createReader().read(Channels.newChannel(new ByteArrayInputStream(text.getBytes("US-ASCII"))));
+    }
+
+    private LifePattern roundTrip(LifePattern pattern) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        format.createWriter().write(pattern, Channels.newChannel(bytes));
+        return format.createReader().read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private void assertSamePatterns(LifePattern expected, LifePattern actual) {
+        Assert.assertEquals(expected.getWidth(), actual.getWidth());
+        Assert.assertEquals(expected.getHeight(), actual.getHeight());
+        Assert.assertEquals(expected.getNumberOfAliveCells(), actual.getNumberOfAliveCells());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Assert.assertEquals(expected.isAlive(x, y), actual.isAlive(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.SimdLifeField;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class SimdLifeFieldTest {
+    private int width;
+    private int height;
+    private int density;
+
+    public SimdLifeFieldTest(int width, int height, int density) {
+        this.width = width;
+        this.height = height;
+        this.density = density;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 3, 3, 2 },
+                { 10, 17, 3 },
+                { 64, 64, 3 },
+                { 65, 129, 4 },
+                { 200, 150, 20 },
+                { 128, 5, 3 },
+                { 300, 70, 50 },
+                { 1000, 40, 3 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsBitLifeField() throws Exception {
+        Random random = new Random(width * 31 + height);
+        SimdLifeField simdField = new SimdLifeField(width, height);
+        BitLifeField bitField = new BitLifeField(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                boolean state = random.nextInt(density) == 0;
+                simdField.setState(x, y, state);
+                bitField.setState(x, y, state);
+            }
+        }
+        for (int i = 0; i < 120; i++) {
+            if (i % 40 == 39) {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                simdField.setState(x, y, !simdField.isAlive(x, y));
+                bitField.setState(x, y, !bitField.isAlive(x, y));
+            }
+            simdField.nextGeneration();
+            bitField.nextGeneration();
+            Assert.assertEquals(bitField.getNumberOfAliveCells(), simdField.getNumberOfAliveCells());
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Assert.assertEquals(bitField.isAlive(x, y), simdField.isAlive(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testBlinker() throws Exception {
+        SimdLifeField field = new SimdLifeField(Math.max(width, 5), Math.max(height, 5));
+        field.setState(1, 0, true);
+        field.setState(1, 1, true);
+        field.setState(1, 2, true);
+        byte[] digest = field.getDigest();
+        field.nextGeneration();
+        Assert.assertFalse(Arrays.equals(digest, field.getDigest()));
+        field.nextGeneration();
+        Assert.assertArrayEquals(digest, field.getDigest());
+        Assert.assertTrue(field.isAlive(1, 0));
+        Assert.assertTrue(field.isAlive(1, 1));
+        Assert.assertTrue(field.isAlive(1, 2));
+    }
+}
@@ -0,0 +1,102 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.*;
+import com.itransition.life.search.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class SoupSearchTest {
+    private static final int SIZE = 16;
+    private static final double DENSITY = 0.35;
+    private static final int NUMBER_OF_SEEDS = 40;
+    private int parallelism;
+
+    public SoupSearchTest(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 1 },
+                { 2 },
+                { 4 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsStoringAllStates() throws Exception {
+        SoupSearch search = new SoupSearch(SIZE, SIZE, DENSITY, LifeRule.CONWAY, parallelism,
+                SoupSearch.DEFAULT_MAXIMAL_NUMBER_OF_GENERATIONS);
+        final Map<Long, SoupResult> results = Collections.synchronizedMap(new HashMap<Long, SoupResult>());
+        long numberOfSoups = search.search(new SequentialSeedGenerator(0, NUMBER_OF_SEEDS), new SoupResultListener() {
+            @Override
+            public void soupFinished(SoupResult result) {
+                results.put(result.getSeed(), result);
+            }
+        });
+        search.shutdown();
+        Assert.assertEquals(NUMBER_OF_SEEDS, numberOfSoups);
+        Assert.assertEquals(NUMBER_OF_SEEDS, results.size());
+        for (long seed = 0; seed < NUMBER_OF_SEEDS; seed++) {
+            SoupResult result = results.get(seed);
+            long[] expected = runStoringAllStates(seed);
+            Assert.assertTrue(result.isStabilized());
+            Assert.assertEquals(expected[0], result.getStabilizationGeneration());
+            Assert.assertEquals(expected[1], result.getPeriod());
+            Assert.assertEquals(expected[2], result.getPopulation());
+        }
+    }
+
+    @Test
+    public void testGivenUp() throws Exception {
+        SoupSearch search = new SoupSearch(SIZE, SIZE, DENSITY, LifeRule.CONWAY, parallelism, 1);
+        SoupResult result = search.runSoup(parallelism);
+        search.shutdown();
+        Assert.assertFalse(result.isStabilized());
+        Assert.assertEquals(1, result.getStabilizationGeneration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongDensity() throws Exception {
+        new SoupSearch(SIZE, SIZE, 1 + parallelism);
+    }
+
+    /**
+     * @return stabilization generation, period and population of the soup found by storing every state.
+     */
+    private static long[] runStoringAllStates(long seed) {
+        BitLifeField field = new BitLifeField(SIZE, SIZE);
+        Random random = new Random(seed);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                field.setState(x, y, random.nextDouble() < DENSITY);
+            }
+        }
+        Map<String, Long> generations = new HashMap<String, Long>();
+        List<Long> populations = new ArrayList<Long>();
+        for (long generation = 0; ; generation++) {
+            StringBuilder state = new StringBuilder();
+            long population = 0;
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    state.append(field.isAlive(x, y) ? '*' : '.');
+                    population += field.isAlive(x, y) ? 1 : 0;
+                }
+            }
+            Long firstGeneration = generations.put(state.toString(), generation);
+            if (firstGeneration != null) {
+                return new long[] { firstGeneration, generation - firstGeneration, populations.get(firstGeneration.intValue()) };
+            }
+            populations.add(population);
+            field.nextGenerations(1);
+        }
+    }
+}
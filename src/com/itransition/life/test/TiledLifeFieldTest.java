@@ -0,0 +1,84 @@
+package com.itransition.life.test;
+
+import com.itransition.life.core.BitLifeField;
+import com.itransition.life.core.TiledLifeField;
+
+import java.util.*;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(value = Parameterized.class)
+public class TiledLifeFieldTest {
+    private int width;
+    private int height;
+    private int density;
+
+    public TiledLifeFieldTest(int width, int height, int density) {
+        this.width = width;
+        this.height = height;
+        this.density = density;
+    }
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][] {
+                { 3, 3, 2 },
+                { 10, 17, 3 },
+                { 64, 64, 3 },
+                { 65, 129, 4 },
+                { 200, 150, 20 },
+                { 300, 70, 50 }
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void testSameAsBitLifeField() throws Exception {
+        Random random = new Random(width * 31 + height);
+        TiledLifeField tiledField = new TiledLifeField(width, height);
+        BitLifeField bitField = new BitLifeField(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                boolean state = random.nextInt(density) == 0;
+                tiledField.setState(x, y, state);
+                bitField.setState(x, y, state);
+            }
+        }
+        for (int i = 0; i < 120; i++) {
+            if (i % 40 == 39) {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                tiledField.setState(x, y, !tiledField.isAlive(x, y));
+                bitField.setState(x, y, !bitField.isAlive(x, y));
+            }
+            tiledField.nextGeneration();
+            bitField.nextGeneration();
+            Assert.assertEquals(bitField.getNumberOfAliveCells(), tiledField.getNumberOfAliveCells());
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Assert.assertEquals(bitField.isAlive(x, y), tiledField.isAlive(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testStillLifeDeactivatesTiles() throws Exception {
+        TiledLifeField field = new TiledLifeField(width, height);
+        field.setState(1, 1, true);
+        field.setState(1, 2, true);
+        field.setState(2, 1, true);
+        field.setState(2, 2, true);
+        byte[] digest = field.getDigest();
+        Assert.assertTrue(field.getNumberOfActiveTiles() > 0);
+        field.nextGeneration();
+        field.nextGeneration();
+        Assert.assertEquals(0, field.getNumberOfActiveTiles());
+        field.nextGeneration();
+        Assert.assertArrayEquals(digest, field.getDigest());
+        Assert.assertEquals(4, field.getNumberOfAliveCells());
+    }
+}